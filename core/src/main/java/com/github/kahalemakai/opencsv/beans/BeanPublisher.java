@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A source of beans that emits them on demand of a single {@link Subscriber}.
+ * <p>
+ * The interfaces follow the method signatures and the protocol of
+ * <a href="http://www.reactive-streams.org">Reactive Streams</a> one by one,
+ * so adapting them to {@code org.reactivestreams} or to {@code java.util.concurrent.Flow}
+ * is a matter of method references. The subscriber first gets a {@link Subscription}.
+ * Then it gets at most as many beans as it has requested by
+ * {@link Subscription#request(long)}, followed by at most one terminal
+ * signal, i.e. {@link Subscriber#onComplete()} or {@link Subscriber#onError(Throwable)}.
+ * No signals are sent after {@link Subscription#cancel()}.
+ * <p>
+ * A publisher supports a single subscriber only. Any further subscriber
+ * gets a no-op subscription and an {@code IllegalStateException}.
+ *
+ * @param <T> type of bean to be emitted
+ * @see CsvToBeanMapper#publisher()
+ * @see com.github.kahalemakai.opencsv.config.PublishingSink
+ */
+public interface BeanPublisher<T> {
+
+    /**
+     * Start emitting beans to a subscriber on its demand.
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+    /**
+     * Get a publisher that pulls the beans from the iterator of a mapper.
+     * <p>
+     * The beans are parsed on the thread calling {@link Subscription#request(long)}
+     * and emitted before the call returns.
+     * @param mapper the mapper
+     * @param <S> type of bean to be emitted
+     * @return the publisher
+     * @see CsvToBeanMapper#publisher()
+     */
+    static <S> BeanPublisher<S> of(@NonNull final CsvToBeanMapper<S> mapper) {
+        return new MapperPublisher<>(mapper, null);
+    }
+
+    /**
+     * Get a publisher that pulls the beans from the iterator of a mapper.
+     * <p>
+     * The beans are parsed and emitted by a task run on the executor,
+     * whenever there is outstanding demand. At most one such task runs at a time.
+     * @param mapper the mapper
+     * @param executor the executor for parsing and emitting beans
+     * @param <S> type of bean to be emitted
+     * @return the publisher
+     * @see CsvToBeanMapper#publisher(Executor)
+     */
+    static <S> BeanPublisher<S> of(@NonNull final CsvToBeanMapper<S> mapper,
+                                   @NonNull final Executor executor) {
+        return new MapperPublisher<>(mapper, executor);
+    }
+
+    /**
+     * Receiver of the beans emitted by a {@link BeanPublisher}.
+     * <p>
+     * The signals are never sent concurrently.
+     * @param <T> type of bean to be received
+     */
+    interface Subscriber<T> {
+
+        /**
+         * Receive the subscription, before any other signal.
+         * <p>
+         * No beans are emitted until requested by the subscription.
+         * @param subscription the subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Receive a requested bean.
+         * @param bean the bean
+         */
+        void onNext(T bean);
+
+        /**
+         * Receive the error that terminated the stream of beans.
+         * @param throwable the error
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Receive the end of the stream of beans.
+         */
+        void onComplete();
+
+    }
+
+    /**
+     * Link between a {@link BeanPublisher} and its {@link Subscriber}.
+     * <p>
+     * Both methods may be called from any thread, including from within the
+     * signals of the subscriber.
+     */
+    interface Subscription {
+
+        /**
+         * Request further beans.
+         * <p>
+         * Demand adds up and is capped at {@code Long.MAX_VALUE}, which is
+         * treated as unbounded. A non-positive number terminates the
+         * stream with an {@code IllegalArgumentException}.
+         * @param n number of beans to request
+         */
+        void request(long n);
+
+        /**
+         * Stop emitting beans and release the resources of the publisher.
+         */
+        void cancel();
+
+    }
+
+}
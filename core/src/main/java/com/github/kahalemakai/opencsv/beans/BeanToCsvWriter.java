@@ -0,0 +1,607 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.Encoder;
+import com.github.kahalemakai.opencsv.beans.processing.encoders.Encoders;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write beans into csv format.
+ * <p>
+ * This is the counterpart of the {@link CsvToBeanMapper}. Every configured
+ * column is read from the bean by a precompiled {@link PropertyGetter} and
+ * turned into text by an {@link Encoder}. Encoders are resolved per column,
+ * then per property type, and default to the standard
+ * {@link Encoders#forType(Class) encoders}.
+ * <p>
+ * Fields are only quoted if they contain the separator, the quote character,
+ * the escape character or a line break, or if they start with white space.
+ * Quote characters inside a quoted field are doubled, and escape characters
+ * are escaped, such that the {@link CsvToBeanMapper} reads back the original
+ * value with the same quote and escape characters. If the quote character is
+ * {@link #NO_QUOTE_CHARACTER}, fields are written verbatim, and fields containing
+ * the separator or a line break are rejected, as they would corrupt the row.
+ * <p>
+ * Both the char and the byte buffer are allocated once per writer,
+ * so writing a row does not create any garbage apart from what the
+ * encoders produce. The configuration cannot be changed anymore after
+ * the first row has been written. Instances are not thread-safe.
+ *
+ * @param <T> type of bean to write
+ */
+@Slf4j
+public final class BeanToCsvWriter<T> implements Closeable, Flushable {
+    /**
+     * Disables quoting of fields.
+     */
+    public static final char NO_QUOTE_CHARACTER = '\u0000';
+
+    /**
+     * Disables escaping of the escape character.
+     */
+    public static final char NO_ESCAPE_CHARACTER = '\u0000';
+
+    /**
+     * The default separator.
+     */
+    public static final char DEFAULT_SEPARATOR = ',';
+
+    /**
+     * The default quote character.
+     */
+    public static final char DEFAULT_QUOTE_CHAR = '"';
+
+    /**
+     * The default escape character, the same as the {@link Builder#DEFAULT_ESCAPE_CHAR reader's}.
+     */
+    public static final char DEFAULT_ESCAPE_CHAR = Builder.DEFAULT_ESCAPE_CHAR;
+
+    /**
+     * The default line end.
+     */
+    public static final String DEFAULT_LINE_END = "\n";
+
+    /**
+     * Size of the char buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The type of bean to write.
+     * @return type of bean to write
+     */
+    @Getter
+    private final Class<? extends T> type;
+
+    /**
+     * The names of the columns to write.
+     * @return the names of the columns to write
+     */
+    @Getter
+    private final List<String> columns;
+
+    /**
+     * The field separator.
+     * @return the field separator
+     */
+    @Accessors(fluent = true) @Getter
+    private char separator = DEFAULT_SEPARATOR;
+
+    /**
+     * The quote character.
+     * @return the quote character
+     */
+    @Accessors(fluent = true) @Getter
+    private char quoteChar = DEFAULT_QUOTE_CHAR;
+
+    /**
+     * The escape character.
+     * @return the escape character
+     */
+    @Accessors(fluent = true) @Getter
+    private char escapeChar = DEFAULT_ESCAPE_CHAR;
+
+    /**
+     * The textual representation of {@code null} references.
+     * @return the textual representation of {@code null} references
+     */
+    @Accessors(fluent = true) @Getter
+    private String nullString = "";
+
+    /**
+     * The line end.
+     * @return the line end
+     */
+    @Accessors(fluent = true) @Getter
+    private String lineEnd = DEFAULT_LINE_END;
+
+    private final OutputStream outputStream;
+    private final CharsetEncoder charsetEncoder;
+    private final Map<String, Encoder<?>> columnEncoders = new HashMap<>();
+    private final Map<Class<?>, Encoder<?>> typeEncoders = new HashMap<>();
+    private final StringBuilder field = new StringBuilder(64);
+    private final char[] chars = new char[BUFFER_SIZE];
+    private final CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private final ByteBuffer byteBuffer;
+    private List<PropertyGetter<T>> getters;
+    private Encoder<Object>[] encoders;
+    private char[] nullChars;
+    private char[] lineEndChars;
+    private boolean closed;
+
+    private BeanToCsvWriter(final Class<? extends T> type,
+                            final List<String> columns,
+                            final OutputStream outputStream,
+                            final Charset charset) {
+        this.type = type;
+        this.columns = columns;
+        this.outputStream = outputStream;
+        this.charsetEncoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.byteBuffer = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * charsetEncoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param charset the output encoding
+     * @param columns names of the bean properties to write, in order. If empty,
+     *                all readable properties are written, ordered by name
+     * @param <S> type of bean to write
+     * @return the new writer
+     */
+    public static <S> BeanToCsvWriter<S> of(@NonNull final Class<? extends S> type,
+                                            @NonNull final OutputStream outputStream,
+                                            @NonNull final Charset charset,
+                                            @NonNull final List<String> columns) {
+        final List<String> columnList = new ArrayList<>(columns);
+        if (columnList.isEmpty()) {
+            for (PropertyGetter<S> getter : PropertyGetter.<S>allOf(type)) {
+                columnList.add(getter.getName());
+            }
+        }
+        return new BeanToCsvWriter<>(type, Collections.unmodifiableList(columnList), outputStream, charset);
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param charset the output encoding
+     * @param columns names of the bean properties to write, in order
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @see #of(Class, OutputStream, Charset, List)
+     */
+    public static <S> BeanToCsvWriter<S> of(@NonNull final Class<? extends S> type,
+                                            @NonNull final OutputStream outputStream,
+                                            @NonNull final Charset charset,
+                                            final String... columns) {
+        return of(type, outputStream, charset, Arrays.asList(columns));
+    }
+
+    /**
+     * Create a new writer for the beans emitted by a {@link CsvToBeanMapper}.
+     * <p>
+     * The csv columns configured for the {@link Builder} are written
+     * in the same order. If no header has been defined, all readable
+     * bean properties are written, ordered by name. The separator and
+     * the quote character are not taken over from the {@code builder}.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param charset the output encoding
+     * @param <S> type of bean to write
+     * @return the new writer
+     */
+    public static <S> BeanToCsvWriter<S> of(@NonNull final Builder<S> builder,
+                                            @NonNull final OutputStream outputStream,
+                                            @NonNull final Charset charset) {
+        final List<String> columns = new ArrayList<>();
+        final List<CsvColumn> columnsToParse = builder.getStrategy().getColumnsToParse();
+        if (columnsToParse != null) {
+            for (CsvColumn column : columnsToParse) {
+                columns.add(column.name());
+            }
+        }
+        return of(builder.getStrategy().getType(), outputStream, charset, columns);
+    }
+
+    /**
+     * Set the field separator.
+     * @param separator the field separator
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public BeanToCsvWriter<T> separator(final char separator) throws IllegalStateException {
+        assertNotStarted();
+        this.separator = separator;
+        return this;
+    }
+
+    /**
+     * Set the quote character.
+     * <p>
+     * Without a quote character, writing fields that contain the
+     * separator or a line break fails.
+     * @param quoteChar the quote character, or {@link #NO_QUOTE_CHARACTER}
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public BeanToCsvWriter<T> quoteChar(final char quoteChar) throws IllegalStateException {
+        assertNotStarted();
+        this.quoteChar = quoteChar;
+        return this;
+    }
+
+    /**
+     * Set the escape character.
+     * <p>
+     * Escape characters inside quoted fields are preceded by another
+     * escape character, as the reader drops escape characters that
+     * do not escape anything.
+     * @param escapeChar the escape character, or {@link #NO_ESCAPE_CHARACTER}
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public BeanToCsvWriter<T> escapeChar(final char escapeChar) throws IllegalStateException {
+        assertNotStarted();
+        this.escapeChar = escapeChar;
+        return this;
+    }
+
+    /**
+     * Set the textual representation of {@code null} references.
+     * <p>
+     * Defaults to the empty String.
+     * @param nullString the textual representation of {@code null} references
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public BeanToCsvWriter<T> nullString(@NonNull final String nullString) throws IllegalStateException {
+        assertNotStarted();
+        this.nullString = nullString;
+        return this;
+    }
+
+    /**
+     * Set the line end.
+     * @param lineEnd the line end
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public BeanToCsvWriter<T> lineEnd(@NonNull final String lineEnd) throws IllegalStateException {
+        assertNotStarted();
+        this.lineEnd = lineEnd;
+        return this;
+    }
+
+    /**
+     * Register an encoder for a specific column.
+     * <p>
+     * Column encoders take precedence over type encoders.
+     * @param column the column name
+     * @param encoder the encoder
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     * @throws IllegalArgumentException if the column is not written
+     */
+    public BeanToCsvWriter<T> registerEncoder(@NonNull final String column, @NonNull final Encoder<?> encoder)
+            throws IllegalStateException, IllegalArgumentException {
+        assertNotStarted();
+        if (!columns.contains(column)) {
+            final String msg = String.format("column '%s' is not written", column);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        columnEncoders.put(column, encoder);
+        return this;
+    }
+
+    /**
+     * Register an encoder for all properties of a specific type.
+     * <p>
+     * Primitive types and their boxed counterparts are treated alike.
+     * @param propertyType the property type
+     * @param encoder the encoder
+     * @param <R> the property type
+     * @return this instance
+     * @throws IllegalStateException if writing has already started
+     */
+    public <R> BeanToCsvWriter<T> registerTypeEncoder(@NonNull final Class<R> propertyType,
+                                                      @NonNull final Encoder<? super R> encoder)
+            throws IllegalStateException {
+        assertNotStarted();
+        typeEncoders.put(MethodType.methodType(propertyType).wrap().returnType(), encoder);
+        return this;
+    }
+
+    /**
+     * Write the column names as header line.
+     * @throws IOException if the output cannot be written
+     */
+    public void writeHeader() throws IOException {
+        compileIfRequired();
+        for (int i = 0; i < columns.size(); ++i) {
+            if (i > 0) {
+                append(separator);
+            }
+            field.setLength(0);
+            field.append(columns.get(i));
+            appendField();
+        }
+        append(lineEndChars);
+    }
+
+    /**
+     * Write a bean as csv line.
+     * @param bean the bean to write
+     * @throws IOException if the output cannot be written, or if a field cannot
+     * be written verbatim for lack of a quote character
+     */
+    public void write(@NonNull final T bean) throws IOException {
+        compileIfRequired();
+        final int numColumns = encoders.length;
+        for (int i = 0; i < numColumns; ++i) {
+            if (i > 0) {
+                append(separator);
+            }
+            final Object value = getters.get(i).get(bean);
+            if (value == null) {
+                append(nullChars);
+            }
+            else {
+                field.setLength(0);
+                encoders[i].encode(value, field);
+                appendField();
+            }
+        }
+        append(lineEndChars);
+    }
+
+    /**
+     * Write all beans of an iterator.
+     * @param beans the beans to write
+     * @return the number of beans written
+     * @throws IOException if the output cannot be written
+     */
+    public long writeAll(@NonNull final Iterator<? extends T> beans) throws IOException {
+        long count = 0;
+        while (beans.hasNext()) {
+            write(beans.next());
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Flush all buffered data to the underlying stream.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        encodeChars(false);
+        writeBytes();
+        outputStream.flush();
+    }
+
+    /**
+     * Flush all buffered data and close the underlying stream.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encodeChars(true);
+            CoderResult result;
+            while ((result = charsetEncoder.flush(byteBuffer)).isOverflow()) {
+                writeBytes();
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            writeBytes();
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void assertNotStarted() throws IllegalStateException {
+        if (getters != null) {
+            final String msg = "cannot change the configuration after writing has started";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compileIfRequired() throws IOException {
+        if (closed) {
+            final String msg = "writer has already been closed";
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        if (getters != null) {
+            return;
+        }
+        final List<PropertyGetter<T>> compiledGetters = new ArrayList<>(columns.size());
+        final Encoder<Object>[] compiledEncoders = (Encoder<Object>[]) new Encoder<?>[columns.size()];
+        for (int i = 0; i < columns.size(); ++i) {
+            final String column = columns.get(i);
+            final PropertyGetter<T> getter = PropertyGetter.of(type, column);
+            Encoder<?> encoder = columnEncoders.get(column);
+            if (encoder == null) {
+                encoder = typeEncoders.get(getter.getType());
+            }
+            if (encoder == null) {
+                encoder = Encoders.forType(getter.getType());
+            }
+            compiledGetters.add(getter);
+            compiledEncoders[i] = (Encoder<Object>) encoder;
+        }
+        this.nullChars = nullString.toCharArray();
+        this.lineEndChars = lineEnd.toCharArray();
+        this.encoders = compiledEncoders;
+        this.getters = compiledGetters;
+    }
+
+    /**
+     * Append the current field, quoting it if required.
+     */
+    private void appendField() throws IOException {
+        final int length = field.length();
+        if (quoteChar == NO_QUOTE_CHARACTER && containsDelimiter(length)) {
+            final String msg = String.format("cannot write field '%s' without quote character", field);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        if (quoteChar == NO_QUOTE_CHARACTER || !requiresQuotes(length)) {
+            int start = 0;
+            while (start < length) {
+                final int end = Math.min(length, start + charBuffer.remaining());
+                field.getChars(start, end, chars, charBuffer.position());
+                charBuffer.position(charBuffer.position() + end - start);
+                start = end;
+                if (!charBuffer.hasRemaining()) {
+                    encodeChars(false);
+                }
+            }
+            return;
+        }
+        append(quoteChar);
+        for (int i = 0; i < length; ++i) {
+            final char c = field.charAt(i);
+            if (c == quoteChar) {
+                append(quoteChar);
+            }
+            else if (c == escapeChar && escapeChar != NO_ESCAPE_CHARACTER) {
+                append(escapeChar);
+            }
+            append(c);
+        }
+        append(quoteChar);
+    }
+
+    private boolean requiresQuotes(final int length) {
+        if (length == 0) {
+            return false;
+        }
+        if (Character.isWhitespace(field.charAt(0))) {
+            return true;
+        }
+        for (int i = 0; i < length; ++i) {
+            final char c = field.charAt(i);
+            if (c == separator || c == quoteChar || c == '\n' || c == '\r') {
+                return true;
+            }
+            if (c == escapeChar && escapeChar != NO_ESCAPE_CHARACTER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsDelimiter(final int length) {
+        for (int i = 0; i < length; ++i) {
+            final char c = field.charAt(i);
+            if (c == separator || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(final char c) throws IOException {
+        if (!charBuffer.hasRemaining()) {
+            encodeChars(false);
+        }
+        charBuffer.put(c);
+    }
+
+    private void append(final char[] src) throws IOException {
+        int start = 0;
+        while (start < src.length) {
+            if (!charBuffer.hasRemaining()) {
+                encodeChars(false);
+            }
+            final int count = Math.min(src.length - start, charBuffer.remaining());
+            charBuffer.put(src, start, count);
+            start += count;
+        }
+    }
+
+    /**
+     * Encode the buffered chars into the byte buffer, writing
+     * out the byte buffer whenever it is full.
+     * @param endOfInput whether no more chars will follow
+     */
+    private void encodeChars(final boolean endOfInput) throws IOException {
+        charBuffer.flip();
+        while (true) {
+            final CoderResult result = charsetEncoder.encode(charBuffer, byteBuffer, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            }
+            else if (result.isError()) {
+                result.throwException();
+            }
+            else {
+                break;
+            }
+        }
+        // an incomplete surrogate pair may remain
+        charBuffer.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        if (byteBuffer.position() > 0) {
+            outputStream.write(byteBuffer.array(), 0, byteBuffer.position());
+            byteBuffer.clear();
+        }
+    }
+
+}
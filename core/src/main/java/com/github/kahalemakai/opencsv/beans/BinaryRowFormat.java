@@ -0,0 +1,355 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and field types of the binary row format.
+ * <p>
+ * A file consists of a header, a sequence of rows and an end marker:
+ * <pre>
+ * header:  int magic, int version, UTF bean type, int #columns,
+ *          #columns * (UTF column name, byte field type)
+ * row:     int length, null bitmap of ceil(#columns / 8) bytes,
+ *          the non-null fields in column order
+ * end:     int -1
+ * </pre>
+ * All numbers are big-endian. Primitives are stored raw, Strings and
+ * other variable length fields are prefixed by their length in bytes.
+ * As every row carries its length, files can be streamed row by row.
+ *
+ * @see BinaryRowWriter
+ * @see Builder#withBinaryInputStream(java.io.InputStream)
+ */
+@Slf4j
+final class BinaryRowFormat {
+    /**
+     * Magic number of binary row files ("OCSB").
+     */
+    static final int MAGIC = 0x4f435342;
+
+    /**
+     * Version of the binary row format.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Marks the end of all rows.
+     */
+    static final int END_OF_ROWS = -1;
+
+    private BinaryRowFormat() {
+        // utility class
+    }
+
+    /**
+     * Size of the null bitmap of a row.
+     * @param numColumns number of columns
+     * @return size of the null bitmap in bytes
+     */
+    static int bitmapSize(final int numColumns) {
+        return (numColumns + 7) >>> 3;
+    }
+
+    /**
+     * Types of fields, and how they are stored.
+     * <p>
+     * The tags are part of the file format and must never be changed.
+     */
+    enum FieldType {
+        BOOLEAN(1) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.put((byte) ((Boolean) value ? 1 : 0));
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.get() != 0;
+            }
+        },
+        BYTE(2) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.put((Byte) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.get();
+            }
+        },
+        SHORT(3) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putShort((Short) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getShort();
+            }
+        },
+        CHAR(4) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putChar((Character) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getChar();
+            }
+        },
+        INT(5) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putInt((Integer) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getInt();
+            }
+        },
+        LONG(6) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putLong((Long) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getLong();
+            }
+        },
+        FLOAT(7) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putFloat((Float) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getFloat();
+            }
+        },
+        DOUBLE(8) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                buffer.putDouble((Double) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return buffer.getDouble();
+            }
+        },
+        STRING(9) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                putString(buffer, (String) value);
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return getString(buffer);
+            }
+        },
+        ENUM(10) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                putString(buffer, ((Enum<?>) value).name());
+            }
+
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                return Enum.valueOf((Class<? extends Enum>) type, getString(buffer));
+            }
+        },
+        DECIMAL(11) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                final BigDecimal decimal = (BigDecimal) value;
+                buffer.putInt(decimal.scale());
+                putBytes(buffer, decimal.unscaledValue().toByteArray());
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                final int scale = buffer.getInt();
+                return new BigDecimal(new BigInteger(getBytes(buffer)), scale);
+            }
+        },
+        SERIALIZED(12) {
+            @Override
+            void write(final ByteBuffer buffer, final Object value) {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(value);
+                } catch (IOException e) {
+                    final String msg = String.format("could not serialize value of type <%s>",
+                            value.getClass().getCanonicalName());
+                    log.error(msg);
+                    throw new CsvToBeanException(msg, e);
+                }
+                putBytes(buffer, bytes.toByteArray());
+            }
+
+            @Override
+            Object read(final ByteBuffer buffer, final Class<?> type) {
+                final byte[] bytes = getBytes(buffer);
+                try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return in.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    final String msg = String.format("could not deserialize value of type <%s>",
+                            type.getCanonicalName());
+                    log.error(msg);
+                    throw new CsvToBeanException(msg, e);
+                }
+            }
+        };
+
+        /**
+         * The tag of the field type inside of the file header.
+         * @return the tag of the field type
+         */
+        @Getter
+        private final byte tag;
+
+        FieldType(final int tag) {
+            this.tag = (byte) tag;
+        }
+
+        /**
+         * Write a non-null value.
+         * @param buffer the row buffer
+         * @param value the value
+         * @throws java.nio.BufferOverflowException if the buffer is too small
+         */
+        abstract void write(ByteBuffer buffer, Object value);
+
+        /**
+         * Read a non-null value.
+         * @param buffer the row buffer
+         * @param type the type of the target property
+         * @return the value
+         */
+        abstract Object read(ByteBuffer buffer, Class<?> type);
+
+        /**
+         * Get the field type of a tag.
+         * @param tag the tag
+         * @return the field type
+         * @throws IOException if the tag is unknown
+         */
+        static FieldType ofTag(final byte tag) throws IOException {
+            for (FieldType fieldType : values()) {
+                if (fieldType.tag == tag) {
+                    return fieldType;
+                }
+            }
+            final String msg = String.format("unknown field type tag %d", tag);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+
+        /**
+         * Get the field type for a property type.
+         * @param type the property type
+         * @return the field type
+         * @throws IllegalArgumentException if values of the type cannot be stored
+         */
+        static FieldType of(final Class<?> type) throws IllegalArgumentException {
+            final Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+            if (boxed == Boolean.class) return BOOLEAN;
+            if (boxed == Byte.class) return BYTE;
+            if (boxed == Short.class) return SHORT;
+            if (boxed == Character.class) return CHAR;
+            if (boxed == Integer.class) return INT;
+            if (boxed == Long.class) return LONG;
+            if (boxed == Float.class) return FLOAT;
+            if (boxed == Double.class) return DOUBLE;
+            if (boxed == String.class) return STRING;
+            if (boxed.isEnum()) return ENUM;
+            if (boxed == BigDecimal.class) return DECIMAL;
+            if (Serializable.class.isAssignableFrom(boxed)) return SERIALIZED;
+            final String msg = String.format("properties of type <%s> cannot be stored in binary rows",
+                    type.getCanonicalName());
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        private static void putString(final ByteBuffer buffer, final String value) {
+            final int length = value.length();
+            // fast path: plain ascii, as found in most csv data
+            if (buffer.remaining() >= length + 4) {
+                final int start = buffer.position();
+                buffer.position(start + 4);
+                int i = 0;
+                for (; i < length; ++i) {
+                    final char c = value.charAt(i);
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    buffer.put((byte) c);
+                }
+                if (i == length) {
+                    buffer.putInt(start, length);
+                    return;
+                }
+                buffer.position(start);
+            }
+            putBytes(buffer, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String getString(final ByteBuffer buffer) {
+            final int length = buffer.getInt();
+            final int start = buffer.position();
+            buffer.position(start + length);
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        private static void putBytes(final ByteBuffer buffer, final byte[] bytes) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private static byte[] getBytes(final ByteBuffer buffer) {
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+
+}
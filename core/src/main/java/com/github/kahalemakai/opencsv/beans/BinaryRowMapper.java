@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CsvToBeanMapper} that reads beans from binary rows.
+ * <p>
+ * The rows are streamed from the input one by one, so files larger
+ * than memory can be processed. Each column of the file is assigned to
+ * the bean property of the same name, without invoking any decoders.
+ * <p>
+ * An instance may only be constructed using the {@link Builder} class.
+ *
+ * @param <T> type of bean to be emitted
+ * @see BinaryRowWriter
+ */
+@Slf4j
+class BinaryRowMapper<T> implements CsvToBeanMapper<T> {
+    /**
+     * Size of the input buffer.
+     */
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+    private final HeaderDirectMappingStrategy<T> strategy;
+    private final DataInputStream inputStream;
+    private final Sink sink;
+    private final ExceptionalAction<IOException> finalizer;
+    private final List<PropertySetter<T>> setters;
+    private final FieldType[] fieldTypes;
+    private final int bitmapSize;
+    private final Iterator<T> iterator;
+    private byte[] row = new byte[512];
+
+    /**
+     * Read the file header and prepare the property setters.
+     * @param builder a {@code Builder} instance
+     * @throws CsvToBeanException if the file header cannot be read, or does not fit the bean type
+     */
+    BinaryRowMapper(final Builder<T> builder) throws CsvToBeanException {
+        this.strategy = builder.getStrategy();
+        this.inputStream = new DataInputStream(
+                new BufferedInputStream(builder.getBinaryInputStream(), INPUT_BUFFER_SIZE));
+        this.sink = builder.sinkForMapper();
+        this.finalizer = builder.finalizer();
+        final Class<? extends T> type = strategy.getType();
+        this.setters = new ArrayList<>();
+        try {
+            final int magic = inputStream.readInt();
+            if (magic != BinaryRowFormat.MAGIC) {
+                throw new IOException(String.format("not a binary row file, found magic number 0x%08x", magic));
+            }
+            final int version = inputStream.readInt();
+            if (version != BinaryRowFormat.FORMAT_VERSION) {
+                throw new IOException(String.format("unsupported binary row format version %d, expected %d",
+                        version, BinaryRowFormat.FORMAT_VERSION));
+            }
+            final String typeName = inputStream.readUTF();
+            log.debug(String.format("reading binary rows of bean type <%s> into <%s>", typeName, type.getName()));
+            final int numColumns = inputStream.readInt();
+            this.fieldTypes = new FieldType[numColumns];
+            for (int i = 0; i < numColumns; ++i) {
+                final String column = inputStream.readUTF();
+                final FieldType fieldType = FieldType.ofTag(inputStream.readByte());
+                final PropertySetter<T> setter = PropertySetter.of(type, column);
+                if (FieldType.of(setter.getType()) != fieldType) {
+                    final String msg = String.format("column %s is stored as %s, but property has type <%s>",
+                            column, fieldType, setter.getType().getCanonicalName());
+                    log.error(msg);
+                    throw new IOException(msg);
+                }
+                setters.add(setter);
+                fieldTypes[i] = fieldType;
+            }
+        } catch (IOException e) {
+            final String msg = "could not read header of binary rows";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        } catch (IllegalArgumentException e) {
+            final String msg = String.format("binary rows do not fit bean type <%s>", type.getCanonicalName());
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        this.bitmapSize = BinaryRowFormat.bitmapSize(fieldTypes.length);
+        this.iterator = new RowIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * As the rows are streamed, all invocations share the same position in the input.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return iterator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<? extends T> getType() {
+        return strategy.getType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void intoSink() throws UnsupportedOperationException, PluginException {
+        if (this.sink == null) {
+            final String msg = "no sink has been added";
+            log.error(msg);
+            throw new UnsupportedOperationException(msg);
+        }
+        try {
+            this.sink.accept(iterator);
+        } catch (Throwable e) {
+            final String msg = "caught exception in sink";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        finally {
+            try {
+                this.sink.close();
+            } catch (IOException e) {
+                final String msg = "failed to close sink";
+                log.error(msg);
+                throw new PluginException(msg, e);
+            }
+        }
+    }
+
+    /**
+     * Close the underlying {@code InputStream}.
+     * @throws IOException if the stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.finalizer.act();
+    }
+
+    /**
+     * Read the next row into a new bean.
+     * @return the next bean, or {@code null} at the end of rows
+     */
+    private T readRow() {
+        final int length;
+        try {
+            length = inputStream.readInt();
+            if (length == BinaryRowFormat.END_OF_ROWS) {
+                return null;
+            }
+            if (length > row.length) {
+                row = new byte[Math.max(length, row.length << 1)];
+            }
+            inputStream.readFully(row, 0, length);
+        } catch (EOFException e) {
+            final String msg = "binary rows are truncated";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        } catch (IOException e) {
+            final String msg = "could not read binary row";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        final T bean;
+        try {
+            bean = strategy.createBean();
+        } catch (InstantiationException | IllegalAccessException e) {
+            final String msg = "could not create new bean";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(row, 0, length);
+        buffer.position(bitmapSize);
+        for (int i = 0; i < fieldTypes.length; ++i) {
+            if ((row[i >>> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            final PropertySetter<T> setter = setters.get(i);
+            setter.set(bean, fieldTypes[i].read(buffer, setter.getType()));
+        }
+        return bean;
+    }
+
+    /**
+     * Iterator over the rows of the input.
+     */
+    private class RowIterator implements Iterator<T> {
+        private T next;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = readRow();
+                if (next == null) {
+                    done = true;
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        log.warn("could not close binary rows after reading the end marker");
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T bean = next;
+            next = null;
+            return bean;
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Write beans into a compact binary row format.
+ * <p>
+ * Each row is prefixed by its length and a bitmap of its {@code null}
+ * fields. Primitives are stored raw, Strings as UTF-8, enumerations by
+ * name, decimals by scale and unscaled value, and all other
+ * {@link java.io.Serializable} types by java serialization. The column
+ * names and types are stored in the file header, so that the file
+ * describes itself.
+ * <p>
+ * Reading the rows back by
+ * {@link Builder#withBinaryInputStream(java.io.InputStream)}
+ * requires neither csv parsing nor any decoding, so it is much faster
+ * than mapping the original csv data again.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @param <T> type of bean to write
+ */
+@Slf4j
+public final class BinaryRowWriter<T> implements Closeable, Flushable {
+    /**
+     * Initial size of the row buffer, it grows on demand.
+     */
+    private static final int INITIAL_ROW_SIZE = 512;
+
+    /**
+     * Size of the output buffer.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The type of bean to write.
+     * @return type of bean to write
+     */
+    @Getter
+    private final Class<? extends T> type;
+
+    /**
+     * The names of the columns to write.
+     * @return the names of the columns to write
+     */
+    @Getter
+    private final List<String> columns;
+
+    private final List<PropertyGetter<T>> getters;
+    private final FieldType[] fieldTypes;
+    private final int bitmapSize;
+    private final DataOutputStream outputStream;
+    private ByteBuffer row = ByteBuffer.allocate(INITIAL_ROW_SIZE);
+    private boolean headerWritten;
+    private boolean closed;
+
+    private BinaryRowWriter(final Class<? extends T> type,
+                            final List<String> columns,
+                            final OutputStream outputStream) {
+        this.type = type;
+        this.columns = columns;
+        this.getters = new ArrayList<>(columns.size());
+        this.fieldTypes = new FieldType[columns.size()];
+        for (int i = 0; i < columns.size(); ++i) {
+            final PropertyGetter<T> getter = PropertyGetter.of(type, columns.get(i));
+            getters.add(getter);
+            fieldTypes[i] = FieldType.of(getter.getType());
+        }
+        this.bitmapSize = BinaryRowFormat.bitmapSize(columns.size());
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream, OUTPUT_BUFFER_SIZE));
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param columns names of the bean properties to write, in order. If empty,
+     *                all readable properties are written, ordered by name
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     */
+    public static <S> BinaryRowWriter<S> of(@NonNull final Class<? extends S> type,
+                                            @NonNull final OutputStream outputStream,
+                                            @NonNull final List<String> columns)
+            throws IllegalArgumentException {
+        final List<String> columnList = new ArrayList<>(columns);
+        if (columnList.isEmpty()) {
+            for (PropertyGetter<S> getter : PropertyGetter.<S>allOf(type)) {
+                columnList.add(getter.getName());
+            }
+        }
+        return new BinaryRowWriter<>(type, Collections.unmodifiableList(columnList), outputStream);
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param columns names of the bean properties to write, in order
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     * @see #of(Class, OutputStream, List)
+     */
+    public static <S> BinaryRowWriter<S> of(@NonNull final Class<? extends S> type,
+                                            @NonNull final OutputStream outputStream,
+                                            final String... columns)
+            throws IllegalArgumentException {
+        return of(type, outputStream, Arrays.asList(columns));
+    }
+
+    /**
+     * Create a new writer for the beans emitted by a {@link CsvToBeanMapper}.
+     * <p>
+     * The csv columns configured for the {@link Builder} are written
+     * in the same order. If no header has been defined, all readable
+     * bean properties are written, ordered by name.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     */
+    public static <S> BinaryRowWriter<S> of(@NonNull final Builder<S> builder,
+                                            @NonNull final OutputStream outputStream)
+            throws IllegalArgumentException {
+        final List<String> columns = new ArrayList<>();
+        final List<CsvColumn> columnsToParse = builder.getStrategy().getColumnsToParse();
+        if (columnsToParse != null) {
+            for (CsvColumn column : columnsToParse) {
+                columns.add(column.name());
+            }
+        }
+        return of(builder.getStrategy().getType(), outputStream, columns);
+    }
+
+    /**
+     * Write a bean as binary row.
+     * @param bean the bean to write
+     * @throws IOException if the output cannot be written
+     */
+    public void write(@NonNull final T bean) throws IOException {
+        writeHeaderIfRequired();
+        while (true) {
+            try {
+                encode(bean);
+                break;
+            } catch (BufferOverflowException e) {
+                row = ByteBuffer.allocate(row.capacity() << 1);
+            }
+        }
+        outputStream.writeInt(row.position());
+        outputStream.write(row.array(), 0, row.position());
+    }
+
+    /**
+     * Write all beans of an iterator.
+     * @param beans the beans to write
+     * @return the number of beans written
+     * @throws IOException if the output cannot be written
+     */
+    public long writeAll(@NonNull final Iterator<? extends T> beans) throws IOException {
+        long count = 0;
+        while (beans.hasNext()) {
+            write(beans.next());
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Flush all buffered rows to the underlying stream.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        writeHeaderIfRequired();
+        outputStream.flush();
+    }
+
+    /**
+     * Write the end marker and close the underlying stream.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeHeaderIfRequired();
+            outputStream.writeInt(BinaryRowFormat.END_OF_ROWS);
+            outputStream.flush();
+        } finally {
+            closed = true;
+            outputStream.close();
+        }
+    }
+
+    private void encode(final T bean) {
+        row.clear();
+        final byte[] bitmap = row.array();
+        Arrays.fill(bitmap, 0, bitmapSize, (byte) 0);
+        row.position(bitmapSize);
+        for (int i = 0; i < fieldTypes.length; ++i) {
+            final Object value = getters.get(i).get(bean);
+            if (value == null) {
+                bitmap[i >>> 3] |= 1 << (i & 7);
+            }
+            else {
+                fieldTypes[i].write(row, value);
+            }
+        }
+    }
+
+    private void writeHeaderIfRequired() throws IOException {
+        if (closed) {
+            final String msg = "writer has already been closed";
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        outputStream.writeInt(BinaryRowFormat.MAGIC);
+        outputStream.writeInt(BinaryRowFormat.FORMAT_VERSION);
+        outputStream.writeUTF(type.getName());
+        outputStream.writeInt(columns.size());
+        for (int i = 0; i < columns.size(); ++i) {
+            outputStream.writeUTF(columns.get(i));
+            outputStream.writeByte(fieldTypes[i].getTag());
+        }
+    }
+
+}
@@ -17,7 +17,16 @@
 package com.github.kahalemakai.opencsv.beans;
 
 import com.github.kahalemakai.opencsv.beans.processing.*;
+import com.github.kahalemakai.opencsv.config.AsyncSink;
+import com.github.kahalemakai.opencsv.config.FanOutSink;
 import com.github.kahalemakai.opencsv.config.Sink;
+import com.github.kahalemakai.opencsv.config.SinkRoute;
+import com.github.kahalemakai.opencsv.config.TransformationPipeline;
+import com.github.kahalemakai.opencsv.config.TransformationStage;
+import com.github.kahalemakai.opencsv.io.Compression;
+import com.github.kahalemakai.opencsv.io.ReadAheadReader;
+import com.github.kahalemakai.opencsv.io.ParallelGzipInputStream;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -25,12 +34,18 @@ import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -86,6 +101,30 @@ public class Builder<T> {
      * expect multi line csv data per default
      */
     public static final boolean DEFAULT_MULTI_LINE = true;
+    /**
+     * decode line by line per default
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    /**
+     * run sinks on the parsing thread per default
+     */
+    public static final int DEFAULT_SINK_QUEUE_CAPACITY = 0;
+    /**
+     * default number of beans per batch handed over to an asynchronous sink
+     */
+    public static final int DEFAULT_SINK_BATCH_SIZE = 256;
+    /**
+     * read input streams as is per default
+     */
+    public static final Compression DEFAULT_COMPRESSION = Compression.NONE;
+    /**
+     * decompress on all available processors per default
+     */
+    public static final int DEFAULT_DECOMPRESSION_THREADS = Runtime.getRuntime().availableProcessors();
+    /**
+     * read on the parsing thread per default
+     */
+    public static final int DEFAULT_READ_AHEAD_BUFFERS = 0;
 
     static {
         if (Charset.isSupported("UTF-8")) {
@@ -168,6 +207,94 @@ public class Builder<T> {
     @Accessors(chain = true, fluent = true) @Getter @Setter
     private boolean multiLine = DEFAULT_MULTI_LINE;
 
+    /**
+     * Number of lines to decode at once.
+     * <p>
+     * For a batch size larger than 1, lines are read in batches, and each batch
+     * is decoded column by column, before the beans get assembled (column-major mode).
+     * This keeps the decoders of a single column busy in a tight loop. The
+     * emitted beans and errors are the same as in line-by-line mode.
+     *
+     * @param batchSize number of lines to decode at once
+     * @return number of lines to decode at once
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Number of bean batches that may wait for the sink.
+     * <p>
+     * For a capacity of 0, the sink consumes the beans on the parsing thread.
+     * Otherwise, the sink runs on a separate thread, decoupled from parsing
+     * by a bounded queue (see {@link AsyncSink}). Parsing blocks while the
+     * queue is full.
+     *
+     * @param sinkQueueCapacity number of bean batches that may wait for the sink
+     * @return number of bean batches that may wait for the sink
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int sinkQueueCapacity = DEFAULT_SINK_QUEUE_CAPACITY;
+
+    /**
+     * Number of beans per batch handed over to an asynchronous sink.
+     * <p>
+     * Only applies if {@link #sinkQueueCapacity()} is positive.
+     *
+     * @param sinkBatchSize number of beans per batch
+     * @return number of beans per batch
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int sinkBatchSize = DEFAULT_SINK_BATCH_SIZE;
+
+    /**
+     * Compression of the data read from an input stream or a file.
+     * <p>
+     * Compressed data gets decompressed ahead of the parser on a dedicated
+     * thread. Gzip members of known size are inflated in parallel
+     * (see {@link ParallelGzipInputStream}). This applies to binary rows, too.
+     *
+     * @param compression compression of the input data
+     * @return compression of the input data
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private Compression compression = DEFAULT_COMPRESSION;
+
+    /**
+     * Number of threads decompressing the input data.
+     * <p>
+     * Only applies if {@link #compression()} is not {@link Compression#NONE}.
+     *
+     * @param decompressionThreads number of threads decompressing the input data
+     * @return number of threads decompressing the input data
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int decompressionThreads = DEFAULT_DECOMPRESSION_THREADS;
+
+    /**
+     * Number of buffers read ahead of the parser.
+     * <p>
+     * For 0 buffers, the parser reads from the source directly. Otherwise,
+     * reading (and decoding) the source happens on a dedicated I/O thread,
+     * which fills the buffers ahead of the parser (see {@link ReadAheadReader}).
+     * This applies to readers, input streams and files.
+     *
+     * @param readAheadBuffers number of buffers read ahead of the parser
+     * @return number of buffers read ahead of the parser
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int readAheadBuffers = DEFAULT_READ_AHEAD_BUFFERS;
+
+    /**
+     * Number of characters per buffer read ahead of the parser.
+     * <p>
+     * Only applies if {@link #readAheadBuffers()} is positive.
+     *
+     * @param readAheadBufferSize number of characters per buffer
+     * @return number of characters per buffer
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int readAheadBufferSize = ReadAheadReader.DEFAULT_BUFFER_SIZE;
+
     /* ***********************************
      * boolean members and custom setters
      * ***********************************/
@@ -245,6 +372,56 @@ public class Builder<T> {
      */
     private InputStream inputStream;
 
+    /**
+     * An input stream of binary rows, written by a {@link BinaryRowWriter}.
+     *
+     * @return input stream of binary rows
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private InputStream binaryInputStream;
+
+    /**
+     * A columnar file, written by a {@link ColumnarWriter}.
+     *
+     * @return path of the columnar file
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private Path columnarFile;
+
+    /**
+     * Projection and filter for reading the columnar file.
+     *
+     * @return projection and filter of the columnar file
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private ColumnarScan columnarScan;
+
+    /**
+     * Set of csv files to be processed concurrently.
+     *
+     * @return set of csv files
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private FileSet fileSet;
+
+    /**
+     * The file backing the input stream, if any.
+     * <p>
+     * Enables the mapper to split the file by byte ranges for parallel streams.
+     */
+    private Path splittableFile;
+
+    /**
+     * Factory of the spliterator over {@link #splittableFile}, set up on {@link #build()}.
+     * <p>
+     * The mapper invokes it on the first call to {@code spliterator()}, such that
+     * mappers which are never streamed do not compile a template.
+     *
+     * @return factory of the spliterator over the file backing the input stream
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private Supplier<ByteRangeSpliterator<T>> fileSpliteratorFactory;
+
     /**
      * Determines if a source has been set up.
      */
@@ -274,6 +451,11 @@ public class Builder<T> {
     @Accessors(chain = true, fluent = true) @Getter
     private final Object[] $sinkLock = new Object[0];
 
+    /**
+     * The stages that transform the beans on their way to the sink.
+     */
+    private TransformationPipeline transformations;
+
     /**
      * Book-keep default values per column.
      * The default values are applied last to the
@@ -288,6 +470,20 @@ public class Builder<T> {
      */
     private final Map<String, String> defaultValueStringData = new HashMap<>();
 
+    /**
+     * Cache of setter methods per column.
+     * <p>
+     * Builders that are bound to a {@link MapperTemplate} share the cache
+     * of the template.
+     */
+    private final Map<String, Method> setterMethods;
+
+    /**
+     * Determines if the builder has been derived from a {@link MapperTemplate},
+     * i.e. if the decoder manager has already been frozen.
+     */
+    private final boolean fromTemplate;
+
     /* *************************
      * constructor and builder
      * *************************/
@@ -304,10 +500,57 @@ public class Builder<T> {
         this.readerSetup = new AtomicBoolean(false);
         this.columnRefs = new HashMap<>();
         this.columnData = new HashMap<>();
+        this.setterMethods = new HashMap<>();
+        this.fromTemplate = false;
         log.debug(String.format("setup CsvToBeanMapper for type <%s>", type.getCanonicalName()));
         this.strategy = HeaderDirectMappingStrategy.of(type);
     }
 
+    /**
+     * Construct a source-less copy of a Builder instance.
+     * <p>
+     * The copy shares the frozen decoder manager and the setter cache,
+     * and gets an independent copy of the mapping strategy. All parser
+     * options are copied.
+     *
+     * @param prototype the builder to copy
+     * @param decoderManager the frozen decoder manager
+     * @param columnRefs map of column references
+     * @param columnData map of constant column values
+     * @param setterMethods cache of setter methods
+     */
+    private Builder(final Builder<T> prototype,
+                    final DecoderManager decoderManager,
+                    final Map<String, String> columnRefs,
+                    final Map<String, Object> columnData,
+                    final Map<String, Method> setterMethods) {
+        this.decoderManager = decoderManager;
+        this.readerSetup = new AtomicBoolean(false);
+        this.columnRefs = columnRefs;
+        this.columnData = columnData;
+        this.setterMethods = setterMethods;
+        this.fromTemplate = true;
+        this.strategy = prototype.strategy.copy();
+        this.skipLines = prototype.skipLines;
+        this.escapeChar = prototype.escapeChar;
+        this.quoteChar = prototype.quoteChar;
+        this.separator = prototype.separator;
+        this.charset = prototype.charset;
+        this.quotingMode = prototype.quotingMode;
+        this.multiLine = prototype.multiLine;
+        this.batchSize = prototype.batchSize;
+        this.sinkQueueCapacity = prototype.sinkQueueCapacity;
+        this.sinkBatchSize = prototype.sinkBatchSize;
+        this.compression = prototype.compression;
+        this.decompressionThreads = prototype.decompressionThreads;
+        this.readAheadBuffers = prototype.readAheadBuffers;
+        this.readAheadBufferSize = prototype.readAheadBufferSize;
+        this.ignoreLeadingWhiteSpace = prototype.ignoreLeadingWhiteSpace;
+        this.ignoreTrailingWhiteSpace = prototype.ignoreTrailingWhiteSpace;
+        this.onErrorSkipLine = prototype.onErrorSkipLine;
+        this.transformations = prototype.transformations;
+    }
+
     /**
      * Construct a new {@code CsvToBeanMapper} from the builder.
      *
@@ -321,23 +564,168 @@ public class Builder<T> {
             log.error(msg);
             throw new IllegalStateException(msg);
         }
-        if (this.onErrorSkipLine) {
-            log.warn("set onErrorSkipLine - only use it if you really need it");
+        checkOptions();
+        if (this.binaryInputStream != null) {
+            this.binaryInputStream = decompress(this.binaryInputStream);
+            return new BinaryRowMapper<>(this);
+        }
+        if (this.columnarFile != null) {
+            return new ColumnarMapper<>(this);
+        }
+        if (this.fileSet != null) {
+            return new MultiFileMapper<>(compile(), this.fileSet, sinkForMapper());
         }
         // necessary to setup InputStreamReader at the end,
-        // so the character set will have been set before
+        // so the character set and compression will have been set before
         if (this.inputStream != null) {
-            this.reader = new InputStreamReader(this.inputStream, this.charset);
+            this.reader = new InputStreamReader(decompress(this.inputStream), this.charset);
         }
-        if (this.multiLine() && QuotingMode.IGNORE_QUOTES.equals(this.quotingMode())) {
-            final String msg = "when ignoring quotes, multi-line data cannot be parsed";
-            log.debug(msg);
+        if (this.reader != null && this.readAheadBuffers > 0) {
+            this.reader = ReadAheadReader.of(this.reader, this.readAheadBuffers, this.readAheadBufferSize);
+        }
+        applyDefaultValues();
+        if (this.splittableFile != null && this.sink == null) {
+            // a header captured by the mapper must not leak into the template
+            final Path file = this.splittableFile;
+            final boolean withHeader = this.strategy.isHeaderDefined();
+            this.fileSpliteratorFactory = () -> new ByteRangeSpliterator<>(compile(withHeader), file);
         }
-        this.defaultValues.forEach(this.decoderManager::setDefaultValue);
-        this.defaultValueStringData.forEach(this.decoderManager::decodeAndSetDefaultValue);
         return new CsvToBeanMapperImpl<>(this);
     }
 
+    /**
+     * Compile the configuration into a reusable {@link MapperTemplate}.
+     * <p>
+     * All decoders, postprocessors and postvalidators get frozen, and the
+     * configuration is copied into the template. Afterwards, the processing of
+     * the configured columns can no longer be changed on this builder, while
+     * changes to other options do not affect the template.
+     *
+     * @return the compiled template
+     * @throws IllegalStateException if a source or a sink has been set, or the configuration is invalid
+     */
+    public MapperTemplate<T> toTemplate() throws IllegalStateException {
+        log.debug("compiling MapperTemplate instance");
+        if (sourceWasChosen) {
+            final String msg = "a MapperTemplate cannot be compiled from a builder with a source";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.sink != null) {
+            final String msg = "a MapperTemplate cannot share a single sink, use MapperTemplate#withSinks() instead";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        checkOptions();
+        return compile();
+    }
+
+    /**
+     * Freeze the configuration into a template, without any checks of the source or sink.
+     * @return the compiled template
+     */
+    private MapperTemplate<T> compile() {
+        return compile(true);
+    }
+
+    /**
+     * Freeze the configuration into a template, optionally leaving out the header.
+     * @param withHeader if false, the template gets no header, even if one is defined
+     * @return the compiled template
+     */
+    private MapperTemplate<T> compile(final boolean withHeader) {
+        applyDefaultValues();
+        final Builder<T> prototype = new Builder<>(this,
+                getDecoderManager(),
+                Collections.unmodifiableMap(new HashMap<>(this.columnRefs)),
+                Collections.unmodifiableMap(new HashMap<>(this.columnData)),
+                new ConcurrentHashMap<>());
+        if (!withHeader) {
+            prototype.strategy = this.strategy.copy(false);
+        }
+        return new MapperTemplate<>(prototype, null);
+    }
+
+    /**
+     * Construct a push-based {@link FeedParser} from the builder.
+     * <p>
+     * Instead of a source, the parser gets the data pushed in chunks, and
+     * instead of a sink, the beans are handed over to a callback.
+     *
+     * @param callback consumer of the completed beans
+     * @return new {@code FeedParser} instance
+     * @throws IllegalStateException if a source or a sink has been set, or the configuration is invalid
+     */
+    public FeedParser<T> buildFeedParser(@NonNull final Consumer<? super T> callback) throws IllegalStateException {
+        log.debug("building FeedParser instance");
+        if (sourceWasChosen) {
+            final String msg = "a FeedParser cannot be built from a builder with a source";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.sink != null) {
+            final String msg = "a FeedParser hands over the beans to a callback, and cannot use a sink";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        checkOptions();
+        applyDefaultValues();
+        return new FeedParser<>(this, callback);
+    }
+
+    /**
+     * Construct a new {@link ColumnBatchReader} from the builder, with the default capacity.
+     *
+     * @return new {@code ColumnBatchReader} instance
+     * @throws IllegalStateException if builder is in any illegal state
+     * @see ColumnBatchReader#DEFAULT_CAPACITY
+     */
+    public ColumnBatchReader buildColumnBatchReader() throws IllegalStateException {
+        return buildColumnBatchReader(ColumnBatchReader.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new {@link ColumnBatchReader} from the builder.
+     * <p>
+     * Only csv sources are supported, i.e. lines, readers, input streams and files.
+     *
+     * @param capacity maximum number of rows per batch
+     * @return new {@code ColumnBatchReader} instance
+     * @throws IllegalStateException if builder is in any illegal state
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ColumnBatchReader buildColumnBatchReader(final int capacity)
+            throws IllegalStateException, IllegalArgumentException {
+        log.debug("building ColumnBatchReader instance");
+        if (capacity < 1) {
+            final String msg = String.format("expected: capacity > 0, got: %d", capacity);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (this.sink != null) {
+            final String msg = "a ColumnBatchReader hands over the values in batches, and cannot use a sink";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.binaryInputStream != null || this.columnarFile != null || this.fileSet != null) {
+            final String msg = "a ColumnBatchReader requires a csv source";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        return new ColumnBatchReader((CsvToBeanMapperImpl<T>) build(), capacity);
+    }
+
+    /**
+     * Create a source-less builder from a template prototype.
+     * <p>
+     * Creating the builder neither requires any reflection, nor compilation
+     * of the decoders.
+     * @return a new builder, sharing the immutable configuration of this instance
+     */
+    Builder<T> bindableCopy() {
+        return new Builder<>(this, decoderManager, columnRefs, columnData, setterMethods);
+    }
+
     /* ************
      * set source
      * ************/
@@ -445,10 +833,122 @@ public class Builder<T> {
             log.error(msg);
             throw new CsvToBeanException(msg, e);
         }
+        this.splittableFile = inputFile.toPath();
         log.debug(String.format("using file of type %s as source", inputStream.getClass().getCanonicalName()));
         return this;
     }
 
+    /**
+     * Declare the file backing the input stream, such that the mapper can split it for parallel streams.
+     * @param file the file the input stream reads from
+     * @return the {@code Builder} instance
+     */
+    Builder<T> splittableFile(final Path file) {
+        this.splittableFile = file;
+        return this;
+    }
+
+    /**
+     * Setup bean mapper with an inputstream of binary rows as source.
+     * <p>
+     * The rows must have been written by a {@link BinaryRowWriter}. They
+     * are assigned to the bean properties directly, so neither the csv parser
+     * options, nor the header, nor any decoders, post-processors or
+     * -validators apply.
+     *
+     * @param inputStream inputstream of binary rows
+     * @return the {@code Builder} instance
+     */
+    public Builder<T> withBinaryInputStream(@NonNull final InputStream inputStream) {
+        onSourceChosenThrow();
+        sourceWasChosen = true;
+        this.binaryInputStream = inputStream;
+        log.debug(String.format("using inputstream of type %s as binary source", inputStream.getClass().getCanonicalName()));
+        return this;
+    }
+
+    /**
+     * Setup bean mapper with a file of binary rows as source.
+     *
+     * @param inputFile file of binary rows
+     * @return the {@code Builder} instance
+     * @see #withBinaryInputStream(InputStream)
+     */
+    public Builder<T> withBinaryFile(@NonNull final File inputFile) {
+        try {
+            return withBinaryInputStream(new FileInputStream(inputFile));
+        } catch (FileNotFoundException e) {
+            final String msg = String.format("unable to find file %s", inputFile);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    /**
+     * Setup bean mapper with a columnar file as source.
+     * <p>
+     * The file must have been written by a {@link ColumnarWriter}.
+     * All columns are read, and assigned to the bean properties directly,
+     * so neither the csv parser options, nor the header, nor any decoders,
+     * post-processors or -validators apply.
+     *
+     * @param inputFile columnar file
+     * @return the {@code Builder} instance
+     * @see #withColumnarFile(File, ColumnarScan)
+     */
+    public Builder<T> withColumnarFile(@NonNull final File inputFile) {
+        return withColumnarFile(inputFile, ColumnarScan.of());
+    }
+
+    /**
+     * Setup bean mapper with a columnar file as source, reading only
+     * the selected columns and matching rows.
+     * <p>
+     * The file must have been written by a {@link ColumnarWriter}. Row
+     * groups that cannot contain matching rows according to their
+     * statistics are skipped, and only the chunks of selected or filtered
+     * columns are read. The selected columns are assigned to the bean
+     * properties directly, so neither the csv parser options, nor the header,
+     * nor any decoders, post-processors or -validators apply.
+     *
+     * @param inputFile columnar file
+     * @param scan the columns to read and the filters to apply
+     * @return the {@code Builder} instance
+     */
+    public Builder<T> withColumnarFile(@NonNull final File inputFile, @NonNull final ColumnarScan scan) {
+        if (!inputFile.isFile()) {
+            final String msg = String.format("unable to find file %s", inputFile);
+            log.error(msg);
+            throw new CsvToBeanException(msg, new FileNotFoundException(inputFile.toString()));
+        }
+        onSourceChosenThrow();
+        sourceWasChosen = true;
+        this.columnarFile = inputFile.toPath();
+        this.columnarScan = scan;
+        log.debug(String.format("using columnar file %s as source", inputFile));
+        return this;
+    }
+
+    /**
+     * Setup csv mapper with a set of files as source.
+     * <p>
+     * The files are processed concurrently by mappers sharing the
+     * configuration of this builder, as if it had been compiled by
+     * {@link #toTemplate()}. Unless the header is set, it is read from every
+     * file; the number of lines to skip applies to every file as well. If
+     * a sink is set, it receives the merged beans of all files.
+     *
+     * @param files the files and the options for processing them
+     * @return the {@code Builder} instance
+     * @see MultiFileMapper
+     */
+    public Builder<T> withFiles(@NonNull final FileSet files) {
+        onSourceChosenThrow();
+        sourceWasChosen = true;
+        this.fileSet = files;
+        log.debug(String.format("using %s as source", files));
+        return this;
+    }
 
     /* ***************************************************
      * register decoders, postprocessors and -validators
@@ -767,6 +1267,21 @@ public class Builder<T> {
         return this;
     }
 
+    /**
+     * Cache processed values of a specific column.
+     * <p>
+     * Useful for columns with few distinct values, e.g. enum-like or date-only columns.
+     * @param column name of column
+     * @param capacity maximum number of cached values
+     * @return the {@code Builder} instance
+     * @throws IllegalStateException if a cache has already been set up, or any decoder is not deterministic
+     * @see DecoderPropertyEditor#withCache(int)
+     */
+    public Builder<T> cache(final String column, final int capacity) throws IllegalStateException {
+        decoderManager.setCache(column, capacity);
+        return this;
+    }
+
     /**
      * Set a sink.
      * @param newSink the sink to add
@@ -785,6 +1300,85 @@ public class Builder<T> {
         throw new IllegalStateException(msg);
     }
 
+    /**
+     * Transform the beans on their way to the sink.
+     * <p>
+     * The transformations run on the parsing thread, or on the threads of the
+     * pipeline, before the beans are queued for an asynchronous sink or fanned
+     * out to several sinks. They apply to sinks only, not to
+     * {@link CsvToBeanMapper#iterator()}.
+     * @param pipeline the transformation stages
+     * @return the {@code Builder} instance
+     * @throws IllegalStateException if transformations have already been set
+     */
+    public Builder<T> transformations(@NonNull final TransformationPipeline pipeline) throws IllegalStateException {
+        if (this.transformations != null) {
+            final String msg = "trying to set transformations repeatedly";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        this.transformations = pipeline;
+        return this;
+    }
+
+    /**
+     * Transform the beans on their way to the sink.
+     * @param stages the transformation stages, run on the parsing thread
+     * @return the {@code Builder} instance
+     * @throws IllegalStateException if transformations have already been set
+     * @throws IllegalArgumentException if no stage is given
+     * @see #transformations(TransformationPipeline)
+     */
+    public Builder<T> transformations(@NonNull final TransformationStage... stages)
+            throws IllegalStateException, IllegalArgumentException {
+        return transformations(TransformationPipeline.of(stages));
+    }
+
+    /**
+     * Get the stages that transform the beans on their way to the sink.
+     * @return the stages, or {@code null} if none have been set
+     */
+    public TransformationPipeline getTransformations() {
+        return transformations;
+    }
+
+    /**
+     * Set several sinks, that are all fed from a single parsing pass.
+     * @param routes the routes to the sinks
+     * @return the {@code Builder} instance
+     * @throws IllegalStateException if a sink has already been set
+     * @throws IllegalArgumentException if no route is given
+     * @see FanOutSink
+     */
+    public Builder<T> sinks(@NonNull final List<SinkRoute> routes) throws IllegalStateException, IllegalArgumentException {
+        return sink(FanOutSink.of(routes));
+    }
+
+    /**
+     * Set several sinks, that are all fed from a single parsing pass.
+     * @param routes the routes to the sinks
+     * @return the {@code Builder} instance
+     * @throws IllegalStateException if a sink has already been set
+     * @throws IllegalArgumentException if no route is given
+     * @see #sinks(List)
+     */
+    public Builder<T> sinks(@NonNull final SinkRoute... routes) throws IllegalStateException, IllegalArgumentException {
+        return sinks(Arrays.asList(routes));
+    }
+
+    /**
+     * Get a builder for setting up one of several sinks.
+     * <p>
+     * Sink plugins configure a sink on a builder. In order to route to several
+     * sinks, each one gets configured on a builder of its own. The returned
+     * builder is a source-less and sink-less copy of this instance, such that
+     * plugins see the same bean type and columns.
+     * @return a builder for setting up a sink
+     */
+    public Builder<T> sinkBuilder() {
+        return new Builder<>(this, decoderManager, columnRefs, columnData, setterMethods);
+    }
+
     /**
      * Define a default value for a column.
      * @param column name of the column
@@ -881,6 +1475,9 @@ public class Builder<T> {
      * @return
      */
     DecoderManager getDecoderManager() {
+        if (fromTemplate) {
+            return decoderManager;
+        }
         final Map<String, DecoderPropertyEditor<?>> editorMap = decoderManager.getPropertyEditorMap();
         for (Map.Entry<String, DecoderPropertyEditor<?>> entry : editorMap.entrySet()) {
             final String column = entry.getKey();
@@ -890,7 +1487,7 @@ public class Builder<T> {
                 decoderManager.add(column, Decoder.IDENTITY);
             }
         }
-        return decoderManager.immutableCopy();
+        return decoderManager.freeze().immutableCopy();
     }
 
     /**
@@ -917,6 +1514,100 @@ public class Builder<T> {
      * non-public methods
      * ********************/
 
+    /**
+     * Get the cache of setter methods.
+     * @return the cache of setter methods
+     */
+    Map<String, Method> getSetterMethods() {
+        return setterMethods;
+    }
+
+    /**
+     * Get the sink to be consumed by a mapper.
+     * <p>
+     * If {@link #sinkQueueCapacity()} is positive, the sink gets wrapped
+     * into an {@link AsyncSink}. If transformations have been set, they
+     * are applied in front of it.
+     * @return the sink to be consumed by a mapper, or {@code null} if no sink has been set
+     */
+    Sink sinkForMapper() {
+        if (this.sink == null) {
+            return null;
+        }
+        final Sink queued = this.sinkQueueCapacity == 0
+                ? this.sink
+                : AsyncSink.of(this.sink, this.sinkQueueCapacity, this.sinkBatchSize);
+        return this.transformations == null ? queued : this.transformations.wrap(queued);
+    }
+
+    /**
+     * Check the consistency of all parser options.
+     * @throws IllegalStateException if the options are inconsistent
+     */
+    private void checkOptions() throws IllegalStateException {
+        if (this.onErrorSkipLine) {
+            log.warn("set onErrorSkipLine - only use it if you really need it");
+        }
+        if (this.batchSize < 1) {
+            final String msg = String.format("expected: batchSize > 0, got: %d", this.batchSize);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.sinkQueueCapacity < 0) {
+            final String msg = String.format("expected: sinkQueueCapacity >= 0, got: %d", this.sinkQueueCapacity);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.sinkBatchSize < 1) {
+            final String msg = String.format("expected: sinkBatchSize > 0, got: %d", this.sinkBatchSize);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.readAheadBuffers != 0 && (this.readAheadBuffers < 2 || this.readAheadBufferSize < 1)) {
+            final String msg = String.format(
+                    "expected: readAheadBuffers = 0, or readAheadBuffers > 1 and readAheadBufferSize > 0, got: %d and %d",
+                    this.readAheadBuffers, this.readAheadBufferSize);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.decompressionThreads < 1) {
+            final String msg = String.format("expected: decompressionThreads > 0, got: %d", this.decompressionThreads);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (this.multiLine() && QuotingMode.IGNORE_QUOTES.equals(this.quotingMode())) {
+            final String msg = "when ignoring quotes, multi-line data cannot be parsed";
+            log.debug(msg);
+        }
+    }
+
+    /**
+     * Wrap an input stream according to the configured compression.
+     * @param inputStream the possibly compressed input stream
+     * @return the uncompressed input stream
+     * @throws CsvToBeanException if the input stream cannot be inspected
+     */
+    private InputStream decompress(final InputStream inputStream) throws CsvToBeanException {
+        try {
+            return this.compression.decompress(inputStream, this.decompressionThreads);
+        } catch (IOException e) {
+            final String msg = String.format("unable to decompress input with compression %s",
+                    this.compression.getTextValue());
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    /**
+     * Hand all default values over to the decoder manager.
+     */
+    private void applyDefaultValues() {
+        this.defaultValues.forEach(this.decoderManager::setDefaultValue);
+        this.defaultValueStringData.forEach(this.decoderManager::decodeAndSetDefaultValue);
+        this.defaultValues.clear();
+        this.defaultValueStringData.clear();
+    }
+
     /**
      * Signal whether a reader was set up as input source.
      * @param value the new boolean state
@@ -952,6 +1643,9 @@ public class Builder<T> {
             if (this.inputStream != null) {
                 this.inputStream.close();
             }
+            if (this.binaryInputStream != null) {
+                this.binaryInputStream.close();
+            }
             if (this.reader != null) {
                 this.reader.close();
             }
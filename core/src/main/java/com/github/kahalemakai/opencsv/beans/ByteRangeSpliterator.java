@@ -0,0 +1,512 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.io.Compression;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over a csv file, splitting it by byte ranges at record boundaries.
+ * <p>
+ * On the first call to {@link #trySplit()} or {@link #estimateSize()}, the
+ * file gets scanned once for record boundaries. The scan keeps track of
+ * quoted fields, so line breaks within quotes are no boundaries. The file is
+ * cut into chunks of about {@link #DEFAULT_CHUNK_SIZE} bytes, and every split
+ * takes half of the remaining chunks. Each chunk is mapped by a mapper of its
+ * own, bound from the template to the byte range and the header of the file.
+ * The number of records found by the scan serves as size estimate.
+ * <p>
+ * A file is only split if its bytes can be scanned as is, i.e. if it is not
+ * compressed, and the charset encodes line breaks, quoting and escape characters
+ * as single ASCII bytes. Otherwise, or if traversal starts before splitting,
+ * the whole file is mapped sequentially.
+ *
+ * @param <T> type of bean to be emitted
+ */
+@Slf4j
+final class ByteRangeSpliterator<T> implements Spliterator<T> {
+    /**
+     * Default number of bytes per chunk.
+     */
+    static final long DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+    private final MapperTemplate<T> template;
+    private final Path file;
+    private final long chunkSize;
+    /**
+     * Mappers of all chunks currently traversed, shared by all splits.
+     */
+    private final Set<CsvToBeanMapper<T>> openMappers;
+    private Index index;
+    private int nextChunk;
+    private int endChunk;
+    private boolean started;
+    private CsvToBeanMapper<T> current;
+    private Iterator<T> iterator;
+    private long currentRecords;
+    private long emitted;
+
+    ByteRangeSpliterator(final MapperTemplate<T> template, final Path file) {
+        this(template, file, DEFAULT_CHUNK_SIZE);
+    }
+
+    ByteRangeSpliterator(final MapperTemplate<T> template, final Path file, final long chunkSize) {
+        this.template = template;
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.openMappers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    }
+
+    private ByteRangeSpliterator(final ByteRangeSpliterator<T> parent, final int fromChunk, final int toChunk) {
+        this.template = parent.template;
+        this.file = parent.file;
+        this.chunkSize = parent.chunkSize;
+        this.openMappers = parent.openMappers;
+        this.index = parent.index;
+        this.nextChunk = fromChunk;
+        this.endChunk = toChunk;
+    }
+
+    @Override
+    public boolean tryAdvance(@NonNull final Consumer<? super T> action) {
+        while (iterator == null || !iterator.hasNext()) {
+            closeCurrent();
+            if (!openNext()) {
+                return false;
+            }
+        }
+        action.accept(iterator.next());
+        ++emitted;
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (started) {
+            return null;
+        }
+        ensureIndexed();
+        if (endChunk - nextChunk < 2) {
+            return null;
+        }
+        final int middle = (nextChunk + endChunk) >>> 1;
+        final ByteRangeSpliterator<T> prefix = new ByteRangeSpliterator<>(this, nextChunk, middle);
+        nextChunk = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (index == null) {
+            if (started) {
+                return Long.MAX_VALUE;
+            }
+            ensureIndexed();
+        }
+        if (index.records == null) {
+            return Long.MAX_VALUE;
+        }
+        long size = Math.max(0, currentRecords - emitted);
+        for (int i = nextChunk; i < endChunk; ++i) {
+            size += index.records[i];
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Close the mappers of all chunks currently traversed by this spliterator or any of its splits.
+     * @throws IOException if any mapper cannot be closed
+     */
+    void close() throws IOException {
+        IOException failure = null;
+        for (CsvToBeanMapper<T> mapper : openMappers) {
+            openMappers.remove(mapper);
+            try {
+                mapper.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new IOException("could not close mapper of byte range", e);
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            log.error(failure.getMessage());
+            throw failure;
+        }
+    }
+
+    private void ensureIndexed() throws CsvToBeanException {
+        if (index != null) {
+            return;
+        }
+        try {
+            index = Index.scan(template, file, chunkSize);
+        } catch (IOException e) {
+            final String msg = String.format("could not scan file %s for record boundaries", file);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        nextChunk = 0;
+        endChunk = index.chunks();
+    }
+
+    /**
+     * Bind a mapper to the next chunk.
+     * @return if there is a next chunk
+     */
+    private boolean openNext() throws CsvToBeanException {
+        if (index == null) {
+            if (started) {
+                return false;
+            }
+            started = true;
+            currentRecords = 0;
+            open(template.newBuilder().withInputStream(openRange(0, Long.MAX_VALUE)));
+            return true;
+        }
+        started = true;
+        if (nextChunk >= endChunk) {
+            return false;
+        }
+        final int chunk = nextChunk++;
+        currentRecords = index.records == null ? 0 : index.records[chunk];
+        final Builder<T> builder = template.newBuilder();
+        if (index.records == null) {
+            open(builder.withInputStream(openRange(0, Long.MAX_VALUE)));
+            return true;
+        }
+        if (chunk > 0) {
+            builder.skipLines(0);
+            if (index.header != null) {
+                builder.setHeader(index.header);
+            }
+        }
+        final InputStream range = openRange(index.bounds[chunk], index.bounds[chunk + 1]);
+        open(builder.withReader(new InputStreamReader(range, builder.charset())));
+        return true;
+    }
+
+    private void open(final Builder<T> builder) {
+        current = builder.build();
+        openMappers.add(current);
+        iterator = current.iterator();
+        emitted = 0;
+    }
+
+    private void closeCurrent() throws CsvToBeanException {
+        if (current == null) {
+            return;
+        }
+        final CsvToBeanMapper<T> mapper = current;
+        current = null;
+        iterator = null;
+        openMappers.remove(mapper);
+        try {
+            mapper.close();
+        } catch (Exception e) {
+            final String msg = String.format("could not close mapper of file %s", file);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    private InputStream openRange(final long start, final long end) throws CsvToBeanException {
+        try {
+            return ByteRange.open(file, start, end);
+        } catch (IOException e) {
+            final String msg = String.format("could not open file %s", file);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    /**
+     * Chunks of a file, ending at record boundaries.
+     */
+    private static final class Index {
+        /**
+         * Start offsets of the chunks, followed by the size of the file.
+         */
+        private final long[] bounds;
+        /**
+         * Number of records per chunk, or {@code null} if the file is not split.
+         */
+        private final long[] records;
+        /**
+         * Header of the file, or {@code null} if defined by the template.
+         */
+        private final String[] header;
+
+        private Index(final long[] bounds, final long[] records, final String[] header) {
+            this.bounds = bounds;
+            this.records = records;
+            this.header = header;
+        }
+
+        int chunks() {
+            return bounds.length - 1;
+        }
+
+        static Index whole(final long size) {
+            return new Index(new long[]{0, size}, null, null);
+        }
+
+        static <S> Index scan(final MapperTemplate<S> template,
+                              final Path file,
+                              final long chunkSize) throws IOException {
+            final Builder<S> config = template.newBuilder();
+            final long size = Files.size(file);
+            if (size < 2 * chunkSize || !isScannable(config, file)) {
+                return whole(size);
+            }
+            final boolean ignoreQuotes = config.quotingMode().isIgnoreQuotes();
+            final byte quote = (byte) config.quoteChar();
+            final byte escape = (byte) config.escapeChar();
+            final boolean headerDefined = config.getStrategy().isHeaderDefined();
+            int linesToSkip = config.skipLines();
+            long dataStart = headerDefined && linesToSkip == 0 ? 0 : -1;
+            boolean inQuotes = false;
+            boolean escaped = false;
+            long count = 0;
+            long lastBound = 0;
+            long lastRecordEnd = 0;
+            final List<Long> bounds = new ArrayList<>();
+            final List<Long> records = new ArrayList<>();
+            bounds.add(0L);
+
+            final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            final byte[] bytes = buffer.array();
+            long offset = 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int n;
+                while ((n = channel.read(buffer)) >= 0) {
+                    for (int i = 0; i < n; ++i) {
+                        final byte b = bytes[i];
+                        if (linesToSkip > 0) {
+                            if (b == '\n' && --linesToSkip == 0 && headerDefined) {
+                                dataStart = offset + i + 1;
+                            }
+                            continue;
+                        }
+                        if (!ignoreQuotes) {
+                            if (escaped) {
+                                escaped = false;
+                                if (b == quote || b == escape) {
+                                    continue;
+                                }
+                            }
+                            if (b == escape && escape != quote) {
+                                escaped = true;
+                                continue;
+                            }
+                            if (b == quote) {
+                                inQuotes = !inQuotes;
+                                continue;
+                            }
+                        }
+                        if (b != '\n' || inQuotes) {
+                            continue;
+                        }
+                        final long end = offset + i + 1;
+                        lastRecordEnd = end;
+                        if (dataStart < 0) {
+                            dataStart = end;
+                            continue;
+                        }
+                        ++count;
+                        if (end - lastBound >= chunkSize && end < size) {
+                            bounds.add(end);
+                            records.add(count);
+                            lastBound = end;
+                            count = 0;
+                        }
+                    }
+                    offset += n;
+                    buffer.clear();
+                }
+            }
+            if (dataStart < 0 || bounds.size() == 1) {
+                return whole(size);
+            }
+            if (lastRecordEnd < size) {
+                ++count;
+            }
+            bounds.add(size);
+            records.add(count);
+            final String[] header = headerDefined ? null : readHeader(template, file, dataStart);
+            log.debug(String.format("split file %s into %d chunks", file, records.size()));
+            return new Index(bounds.stream().mapToLong(Long::longValue).toArray(),
+                    records.stream().mapToLong(Long::longValue).toArray(),
+                    header);
+        }
+
+        /**
+         * Tell if a character is encoded as the single byte it is compared against while scanning.
+         */
+        private static boolean encodesAsItself(final Charset charset, final char c) {
+            if (!charset.newEncoder().canEncode(c)) {
+                return false;
+            }
+            final byte[] bytes = String.valueOf(c).getBytes(charset);
+            return bytes.length == 1 && bytes[0] == (byte) c;
+        }
+
+        /**
+         * Tell if a file can be scanned for record boundaries on the byte level.
+         */
+        private static boolean isScannable(final Builder<?> config, final Path file) throws IOException {
+            final Charset charset = config.charset();
+            if (!StandardCharsets.UTF_8.equals(charset) && charset.newEncoder().maxBytesPerChar() != 1) {
+                return false;
+            }
+            // the scan compares raw bytes, e.g. EBCDIC encodes '\n' differently
+            for (char c : new char[]{'\n', '\r', config.quoteChar(), config.escapeChar()}) {
+                if (!encodesAsItself(charset, c)) {
+                    return false;
+                }
+            }
+            if (config.compression() == Compression.NONE) {
+                return true;
+            }
+            if (config.compression() == Compression.GZIP) {
+                return false;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                return in.read() != 0x1f || in.read() != 0x8b;
+            }
+        }
+
+        /**
+         * Read the header, as the mapper of the first chunk would.
+         */
+        private static <S> String[] readHeader(final MapperTemplate<S> template,
+                                               final Path file,
+                                               final long dataStart) throws IOException {
+            final Builder<S> builder = template.newBuilder();
+            final InputStream range = ByteRange.open(file, 0, dataStart);
+            final CsvToBeanMapper<S> probe = builder
+                    .withReader(new InputStreamReader(range, builder.charset()))
+                    .build();
+            try {
+                final List<String> header = builder.getStrategy().getHeader();
+                return header.toArray(new String[header.size()]);
+            } finally {
+                try {
+                    probe.close();
+                } catch (Exception e) {
+                    log.warn("could not close header probe", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream over a byte range of a file.
+     */
+    private static final class ByteRange extends FilterInputStream {
+        private long remaining;
+
+        private ByteRange(final InputStream in, final long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        static InputStream open(final Path file, final long start, final long end) throws IOException {
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                channel.position(start);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return new ByteRange(Channels.newInputStream(channel), end - start);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int b = super.read();
+            if (b >= 0) {
+                --remaining;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+}
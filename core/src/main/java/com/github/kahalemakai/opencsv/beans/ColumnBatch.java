@@ -0,0 +1,586 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reusable batch of rows, stored column by column in typed vectors.
+ * <p>
+ * There is a vector for every csv column that is mapped to a bean property.
+ * Its type is derived from the type of the property: integral numbers up to
+ * {@code int} go into an {@link IntVector}, {@code long}s into a {@link LongVector},
+ * floating point numbers into a {@link DoubleVector}, booleans into a
+ * {@link BooleanVector}, strings into a {@link DictionaryVector}, and all other
+ * values into an {@link ObjectVector}. Nulls are tracked by a bitmap per vector.
+ * <p>
+ * The arrays of the vectors are allocated once and overwritten by every batch,
+ * so only the first {@link #getSize()} rows are valid, and only until the next
+ * batch is read. This allows for tight loops over primitive arrays:
+ * <pre>{@code
+ * for (ColumnBatch batch : reader) {
+ *     final int[] points = batch.ints("points").getValues();
+ *     for (int row = 0; row < batch.getSize(); ++row) {
+ *         sum += points[row];
+ *     }
+ * }
+ * }</pre>
+ *
+ * @see ColumnBatchReader
+ */
+@Slf4j
+public final class ColumnBatch {
+    private final ColumnVector[] vectors;
+    private final Map<String, ColumnVector> vectorsByName;
+    /**
+     * Column names, in the order of the vectors.
+     * @return column names, in the order of the vectors
+     */
+    @Getter
+    private final List<String> columnNames;
+    /**
+     * Maximum number of rows of a batch.
+     * @return maximum number of rows of a batch
+     */
+    @Getter
+    private final int capacity;
+    /**
+     * Number of valid rows of the current batch.
+     * @return number of valid rows of the current batch
+     */
+    @Getter
+    private int size;
+
+    ColumnBatch(final List<ColumnVector> vectors, final int capacity) {
+        this.vectors = vectors.toArray(new ColumnVector[vectors.size()]);
+        this.vectorsByName = new LinkedHashMap<>();
+        for (ColumnVector vector : vectors) {
+            vectorsByName.put(vector.getName(), vector);
+        }
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(vectorsByName.keySet()));
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the number of columns.
+     * @return number of columns
+     */
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    /**
+     * Get the vector of a column by position.
+     * @param index position of the column
+     * @return the vector
+     * @throws IndexOutOfBoundsException if there is no such column
+     */
+    public ColumnVector column(final int index) throws IndexOutOfBoundsException {
+        return vectors[index];
+    }
+
+    /**
+     * Get the vector of a column by name.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public ColumnVector column(@NonNull final String name) throws IllegalArgumentException {
+        final ColumnVector vector = vectorsByName.get(name);
+        if (vector == null) {
+            final String msg = String.format("unknown column '%s', expected one of %s", name, columnNames);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return vector;
+    }
+
+    /**
+     * Get the int vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public IntVector ints(final String name) throws IllegalArgumentException {
+        return column(name, IntVector.class);
+    }
+
+    /**
+     * Get the long vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public LongVector longs(final String name) throws IllegalArgumentException {
+        return column(name, LongVector.class);
+    }
+
+    /**
+     * Get the double vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public DoubleVector doubles(final String name) throws IllegalArgumentException {
+        return column(name, DoubleVector.class);
+    }
+
+    /**
+     * Get the boolean vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public BooleanVector booleans(final String name) throws IllegalArgumentException {
+        return column(name, BooleanVector.class);
+    }
+
+    /**
+     * Get the dictionary encoded string vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public DictionaryVector strings(final String name) throws IllegalArgumentException {
+        return column(name, DictionaryVector.class);
+    }
+
+    /**
+     * Get the object vector of a column.
+     * @param name name of the column
+     * @return the vector
+     * @throws IllegalArgumentException if there is no such column, or it is of another type
+     */
+    public ObjectVector objects(final String name) throws IllegalArgumentException {
+        return column(name, ObjectVector.class);
+    }
+
+    private <V extends ColumnVector> V column(final String name, final Class<V> type) {
+        final ColumnVector vector = column(name);
+        if (!type.isInstance(vector)) {
+            final String msg = String.format("column '%s' is of type %s, not %s",
+                    name, vector.getClass().getSimpleName(), type.getSimpleName());
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return type.cast(vector);
+    }
+
+    /**
+     * Discard all rows.
+     */
+    void clear() {
+        for (ColumnVector vector : vectors) {
+            vector.clear(size);
+        }
+        size = 0;
+    }
+
+    /**
+     * Append a row of decoded values.
+     * @param row the decoded values, aligned with the vectors
+     */
+    void append(final Object[] row) {
+        for (int c = 0; c < vectors.length; ++c) {
+            vectors[c].set(size, row[c]);
+        }
+        ++size;
+    }
+
+    /**
+     * Create a vector fitting the type of a bean property.
+     * @param name name of the column
+     * @param propertyType type of the bean property
+     * @param capacity maximum number of rows
+     * @return the vector
+     */
+    static ColumnVector vectorFor(final String name, final Class<?> propertyType, final int capacity) {
+        if (propertyType == int.class || propertyType == Integer.class
+                || propertyType == short.class || propertyType == Short.class
+                || propertyType == byte.class || propertyType == Byte.class) {
+            return new IntVector(name, capacity);
+        }
+        if (propertyType == long.class || propertyType == Long.class) {
+            return new LongVector(name, capacity);
+        }
+        if (propertyType == double.class || propertyType == Double.class
+                || propertyType == float.class || propertyType == Float.class) {
+            return new DoubleVector(name, capacity);
+        }
+        if (propertyType == boolean.class || propertyType == Boolean.class) {
+            return new BooleanVector(name, capacity);
+        }
+        if (propertyType == String.class) {
+            return new DictionaryVector(name, capacity);
+        }
+        return new ObjectVector(name, capacity);
+    }
+
+    /**
+     * Values of a single column, with a bitmap of nulls.
+     */
+    public abstract static class ColumnVector {
+        /**
+         * Name of the column.
+         * @return name of the column
+         */
+        @Getter
+        private final String name;
+        /**
+         * Bitmap of nulls: row {@code r} is null, if bit {@code r % 64} of word {@code r / 64} is set.
+         * @return bitmap of nulls
+         */
+        @Getter
+        private final long[] nullBitmap;
+        /**
+         * Number of nulls in the current batch.
+         * @return number of nulls in the current batch
+         */
+        @Getter
+        private int nullCount;
+
+        ColumnVector(final String name, final int capacity) {
+            this.name = name;
+            this.nullBitmap = new long[(capacity + 63) >>> 6];
+        }
+
+        /**
+         * Tell if the value of a row is null.
+         * @param row the row
+         * @return if the value is null
+         */
+        public boolean isNull(final int row) {
+            return (nullBitmap[row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * Get the value of a row as object.
+         * @param row the row
+         * @return the value, or {@code null}
+         */
+        public abstract Object getObject(int row);
+
+        void set(final int row, final Object value) {
+            if (value == null) {
+                nullBitmap[row >>> 6] |= 1L << row;
+                ++nullCount;
+                setDefault(row);
+            }
+            else {
+                setValue(row, value);
+            }
+        }
+
+        abstract void setValue(int row, Object value);
+
+        abstract void setDefault(int row);
+
+        void clear(final int size) {
+            Arrays.fill(nullBitmap, 0, (size + 63) >>> 6, 0L);
+            nullCount = 0;
+        }
+    }
+
+    /**
+     * Vector of {@code int} values, for {@code byte}, {@code short} and {@code int} properties.
+     */
+    public static final class IntVector extends ColumnVector {
+        /**
+         * The values, {@code 0} for nulls.
+         * @return the values
+         */
+        @Getter
+        private final int[] values;
+
+        IntVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.values = new int[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, {@code 0} for nulls
+         */
+        public int get(final int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            values[row] = ((Number) value).intValue();
+        }
+
+        @Override
+        void setDefault(final int row) {
+            values[row] = 0;
+        }
+    }
+
+    /**
+     * Vector of {@code long} values.
+     */
+    public static final class LongVector extends ColumnVector {
+        /**
+         * The values, {@code 0} for nulls.
+         * @return the values
+         */
+        @Getter
+        private final long[] values;
+
+        LongVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.values = new long[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, {@code 0} for nulls
+         */
+        public long get(final int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        void setDefault(final int row) {
+            values[row] = 0;
+        }
+    }
+
+    /**
+     * Vector of {@code double} values, for {@code float} and {@code double} properties.
+     */
+    public static final class DoubleVector extends ColumnVector {
+        /**
+         * The values, {@code 0} for nulls.
+         * @return the values
+         */
+        @Getter
+        private final double[] values;
+
+        DoubleVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.values = new double[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, {@code 0} for nulls
+         */
+        public double get(final int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            values[row] = ((Number) value).doubleValue();
+        }
+
+        @Override
+        void setDefault(final int row) {
+            values[row] = 0;
+        }
+    }
+
+    /**
+     * Vector of {@code boolean} values.
+     */
+    public static final class BooleanVector extends ColumnVector {
+        /**
+         * The values, {@code false} for nulls.
+         * @return the values
+         */
+        @Getter
+        private final boolean[] values;
+
+        BooleanVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.values = new boolean[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, {@code false} for nulls
+         */
+        public boolean get(final int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            values[row] = (Boolean) value;
+        }
+
+        @Override
+        void setDefault(final int row) {
+            values[row] = false;
+        }
+    }
+
+    /**
+     * Vector of strings, encoded as codes into a dictionary of the distinct values of the batch.
+     * <p>
+     * The dictionary is rebuilt for every batch, so codes of different batches
+     * cannot be compared.
+     */
+    public static final class DictionaryVector extends ColumnVector {
+        /**
+         * Positions of the values in the dictionary, {@code -1} for nulls.
+         * @return positions of the values in the dictionary
+         */
+        @Getter
+        private final int[] codes;
+        private final List<String> distinct = new ArrayList<>();
+        private final Map<String, Integer> lookup = new HashMap<>();
+        /**
+         * Distinct values of the current batch, in order of their first occurrence.
+         * @return distinct values of the current batch
+         */
+        @Getter
+        private final List<String> dictionary = Collections.unmodifiableList(distinct);
+
+        DictionaryVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.codes = new int[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, or {@code null}
+         */
+        public String get(final int row) {
+            final int code = codes[row];
+            return code < 0 ? null : distinct.get(code);
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return get(row);
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            final String text = (String) value;
+            Integer code = lookup.get(text);
+            if (code == null) {
+                code = distinct.size();
+                distinct.add(text);
+                lookup.put(text, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        void setDefault(final int row) {
+            codes[row] = -1;
+        }
+
+        @Override
+        void clear(final int size) {
+            super.clear(size);
+            distinct.clear();
+            lookup.clear();
+        }
+    }
+
+    /**
+     * Vector of arbitrary objects, for all other property types.
+     */
+    public static final class ObjectVector extends ColumnVector {
+        /**
+         * The values.
+         * @return the values
+         */
+        @Getter
+        private final Object[] values;
+
+        ObjectVector(final String name, final int capacity) {
+            super(name, capacity);
+            this.values = new Object[capacity];
+        }
+
+        /**
+         * Get the value of a row.
+         * @param row the row
+         * @return the value, or {@code null}
+         */
+        public Object get(final int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object getObject(final int row) {
+            return values[row];
+        }
+
+        @Override
+        void setValue(final int row, final Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        void setDefault(final int row) {
+            values[row] = null;
+        }
+
+        @Override
+        void clear(final int size) {
+            super.clear(size);
+            Arrays.fill(values, 0, size, null);
+        }
+    }
+
+}
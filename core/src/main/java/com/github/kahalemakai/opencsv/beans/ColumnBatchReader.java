@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Reader of csv data into reusable {@link ColumnBatch}es, instead of beans.
+ * <p>
+ * The header, skipped lines and all decoders, post-processors and -validators
+ * apply as for a {@link CsvToBeanMapper}, but the decoded values are written
+ * into the typed column vectors of a batch, without instantiating beans or
+ * invoking setters. Only csv columns mapped to a bean property, and columns
+ * referencing them, become vectors; constant column data is left out.
+ * <p>
+ * The iterator returns the same batch instance on every call, filled with
+ * the next rows. Errors are handled by the {@code onErrorSkipLine} option:
+ * either erroneous lines are left out, or the rows before the error are
+ * returned first and the error is thrown by the following call.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @see Builder#buildColumnBatchReader(int)
+ */
+public final class ColumnBatchReader implements Iterable<ColumnBatch>, AutoCloseable {
+    /**
+     * default maximum number of rows per batch
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final CsvToBeanMapperImpl<?> mapper;
+    /**
+     * Maximum number of rows per batch.
+     * @return maximum number of rows per batch
+     */
+    @Getter
+    private final int capacity;
+
+    ColumnBatchReader(final CsvToBeanMapperImpl<?> mapper, final int capacity) {
+        this.mapper = mapper;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the type of bean whose properties define the columns.
+     * @return type of bean whose properties define the columns
+     */
+    public Class<?> getType() {
+        return mapper.getType();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The batch returned by {@code next()} is reused, and overwritten by the
+     * following call to either {@code hasNext()} or {@code next()}.
+     */
+    @Override
+    public Iterator<ColumnBatch> iterator() {
+        return mapper.columnBatchIterator(capacity);
+    }
+
+    /**
+     * Close the underlying source.
+     * @throws IOException if the source cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        mapper.close();
+    }
+
+}
@@ -0,0 +1,656 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constants, encodings and metadata of the columnar format.
+ * <p>
+ * A file consists of a header, a sequence of row groups, a footer and
+ * a trailer:
+ * <pre>
+ * header:     int magic, int version
+ * row group:  one column chunk per column, in column order
+ * chunk:      null bitmap of ceil(#rows / 8) bytes,
+ *             the non-null values in the encoding of the chunk
+ * footer:     UTF bean type, int #columns,
+ *             #columns * (UTF column name, byte field type),
+ *             int #row groups, #row groups * (int #rows, #columns * chunk meta)
+ * chunk meta: long offset, int length, byte encoding, int #nulls,
+ *             boolean has min/max, [int length, min, int length, max]
+ * trailer:    int footer length, int magic
+ * </pre>
+ * All numbers are big-endian, values are stored as in the binary row
+ * format unless the encoding of the chunk says otherwise. As the footer
+ * is found by its position relative to the end of the file, it can be
+ * read without touching any row group, and row groups or column chunks
+ * that are not required can be skipped entirely.
+ *
+ * @see ColumnarWriter
+ * @see Builder#withColumnarFile(java.io.File, ColumnarScan)
+ */
+@Slf4j
+final class ColumnarFormat {
+    /**
+     * Magic number of columnar files ("OCSC").
+     */
+    static final int MAGIC = 0x4f435343;
+
+    /**
+     * Version of the columnar format.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the trailer in bytes.
+     */
+    static final int TRAILER_SIZE = 8;
+
+    /**
+     * Maximum number of distinct values of a dictionary encoded chunk.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private ColumnarFormat() {
+        // utility class
+    }
+
+    /**
+     * Encodings of column chunks.
+     * <p>
+     * The tags are part of the file format and must never be changed.
+     */
+    enum Encoding {
+        /**
+         * Values one after another, as in binary rows.
+         */
+        PLAIN(0),
+        /**
+         * Distinct values, followed by bit-packed indices into them.
+         * Used for strings and enumerations with few distinct values.
+         */
+        DICTIONARY(1),
+        /**
+         * The first value and zig-zag varint differences of all following
+         * values. Used for integral numbers, such as epoch timestamps.
+         */
+        DELTA(2),
+        /**
+         * One bit per value. Used for booleans.
+         */
+        BIT_PACKED(3);
+
+        /**
+         * The tag of the encoding inside of the footer.
+         * @return the tag of the encoding
+         */
+        @Getter
+        private final byte tag;
+
+        Encoding(final int tag) {
+            this.tag = (byte) tag;
+        }
+
+        /**
+         * Get the encoding of a tag.
+         * @param tag the tag
+         * @return the encoding
+         * @throws IOException if the tag is unknown
+         */
+        static Encoding ofTag(final byte tag) throws IOException {
+            for (Encoding encoding : values()) {
+                if (encoding.tag == tag) {
+                    return encoding;
+                }
+            }
+            final String msg = String.format("unknown encoding tag %d", tag);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+    }
+
+    /**
+     * Location, encoding and statistics of a column chunk.
+     */
+    static final class ChunkMeta {
+        final long offset;
+        final int length;
+        final Encoding encoding;
+        final int nullCount;
+        final byte[] min;
+        final byte[] max;
+
+        ChunkMeta(final long offset, final int length, final Encoding encoding,
+                  final int nullCount, final byte[] min, final byte[] max) {
+            this.offset = offset;
+            this.length = length;
+            this.encoding = encoding;
+            this.nullCount = nullCount;
+            this.min = min;
+            this.max = max;
+        }
+
+        boolean hasMinMax() {
+            return min != null;
+        }
+    }
+
+    /**
+     * Number of rows and column chunks of a row group.
+     */
+    static final class RowGroupMeta {
+        final int rows;
+        final ChunkMeta[] chunks;
+
+        RowGroupMeta(final int rows, final ChunkMeta[] chunks) {
+            this.rows = rows;
+            this.chunks = chunks;
+        }
+    }
+
+    /**
+     * The footer of a columnar file.
+     */
+    static final class Footer {
+        final String typeName;
+        final List<String> columns;
+        final FieldType[] fieldTypes;
+        final List<RowGroupMeta> rowGroups;
+
+        Footer(final String typeName, final List<String> columns,
+               final FieldType[] fieldTypes, final List<RowGroupMeta> rowGroups) {
+            this.typeName = typeName;
+            this.columns = columns;
+            this.fieldTypes = fieldTypes;
+            this.rowGroups = rowGroups;
+        }
+
+        void write(final DataOutput out) throws IOException {
+            out.writeUTF(typeName);
+            out.writeInt(columns.size());
+            for (int i = 0; i < columns.size(); ++i) {
+                out.writeUTF(columns.get(i));
+                out.writeByte(fieldTypes[i].getTag());
+            }
+            out.writeInt(rowGroups.size());
+            for (RowGroupMeta rowGroup : rowGroups) {
+                out.writeInt(rowGroup.rows);
+                for (ChunkMeta chunk : rowGroup.chunks) {
+                    out.writeLong(chunk.offset);
+                    out.writeInt(chunk.length);
+                    out.writeByte(chunk.encoding.getTag());
+                    out.writeInt(chunk.nullCount);
+                    out.writeBoolean(chunk.hasMinMax());
+                    if (chunk.hasMinMax()) {
+                        out.writeInt(chunk.min.length);
+                        out.write(chunk.min);
+                        out.writeInt(chunk.max.length);
+                        out.write(chunk.max);
+                    }
+                }
+            }
+        }
+
+        static Footer read(final DataInput in) throws IOException {
+            final String typeName = in.readUTF();
+            final int numColumns = in.readInt();
+            final List<String> columns = new ArrayList<>(numColumns);
+            final FieldType[] fieldTypes = new FieldType[numColumns];
+            for (int i = 0; i < numColumns; ++i) {
+                columns.add(in.readUTF());
+                fieldTypes[i] = FieldType.ofTag(in.readByte());
+            }
+            final int numRowGroups = in.readInt();
+            final List<RowGroupMeta> rowGroups = new ArrayList<>(numRowGroups);
+            for (int g = 0; g < numRowGroups; ++g) {
+                final int rows = in.readInt();
+                final ChunkMeta[] chunks = new ChunkMeta[numColumns];
+                for (int i = 0; i < numColumns; ++i) {
+                    final long offset = in.readLong();
+                    final int length = in.readInt();
+                    final Encoding encoding = Encoding.ofTag(in.readByte());
+                    final int nullCount = in.readInt();
+                    byte[] min = null;
+                    byte[] max = null;
+                    if (in.readBoolean()) {
+                        min = new byte[in.readInt()];
+                        in.readFully(min);
+                        max = new byte[in.readInt()];
+                        in.readFully(max);
+                    }
+                    chunks[i] = new ChunkMeta(offset, length, encoding, nullCount, min, max);
+                }
+                rowGroups.add(new RowGroupMeta(rows, chunks));
+            }
+            return new Footer(typeName, Collections.unmodifiableList(columns), fieldTypes,
+                    Collections.unmodifiableList(rowGroups));
+        }
+    }
+
+    /**
+     * Size of the null bitmap of a chunk.
+     * @param rows number of rows in the row group
+     * @return size of the null bitmap in bytes
+     */
+    static int bitmapSize(final int rows) {
+        return (rows + 7) >>> 3;
+    }
+
+    /**
+     * Tell if min and max values are recorded for a field type.
+     * <p>
+     * Serialized values do not have a meaningful order.
+     * @param fieldType the field type
+     * @return if min and max values are recorded
+     */
+    static boolean hasStatistics(final FieldType fieldType) {
+        return fieldType != FieldType.SERIALIZED;
+    }
+
+    /**
+     * Decode a min or max value of the chunk statistics.
+     * @param fieldType the field type of the column
+     * @param type the type of the value
+     * @param bytes the encoded value
+     * @return the value
+     */
+    static Object decodeValue(final FieldType fieldType, final Class<?> type, final byte[] bytes) {
+        return fieldType.read(ByteBuffer.wrap(bytes), type);
+    }
+
+    /**
+     * Encodes column chunks into a reusable buffer.
+     * <p>
+     * Instances are not thread-safe.
+     */
+    static final class ChunkEncoder {
+        private final Output out = new Output();
+        private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+        /**
+         * Encode the values of a column chunk.
+         * <p>
+         * The result is available by {@link #array()} and {@link #size()}
+         * until the next invocation.
+         * @param fieldType the field type of the column
+         * @param values the values, {@code null} included
+         * @param rows the number of values
+         * @return the encoding that has been chosen
+         */
+        Encoding encode(final FieldType fieldType, final Object[] values, final int rows) {
+            out.reset();
+            final byte[] bitmap = new byte[bitmapSize(rows)];
+            int nonNull = 0;
+            for (int i = 0; i < rows; ++i) {
+                if (values[i] == null) {
+                    bitmap[i >>> 3] |= 1 << (i & 7);
+                }
+                else {
+                    ++nonNull;
+                }
+            }
+            out.write(bitmap, 0, bitmap.length);
+            switch (fieldType) {
+                case BOOLEAN:
+                    encodeBits(values, rows);
+                    return Encoding.BIT_PACKED;
+                case SHORT:
+                case INT:
+                case LONG:
+                    return encodeDelta(fieldType, values, rows, nonNull);
+                case STRING:
+                case ENUM:
+                    return encodeDictionary(fieldType, values, rows, nonNull);
+                default:
+                    encodePlain(fieldType, values, rows);
+                    return Encoding.PLAIN;
+            }
+        }
+
+        /**
+         * The encoded chunk.
+         * @return the buffer holding the encoded chunk
+         */
+        byte[] array() {
+            return out.array();
+        }
+
+        /**
+         * The size of the encoded chunk.
+         * @return the size of the encoded chunk in bytes
+         */
+        int size() {
+            return out.size();
+        }
+
+        /**
+         * Encode a single non-null value, as done by the plain encoding.
+         * @param fieldType the field type of the value
+         * @param value the value
+         * @return the encoded value
+         */
+        byte[] encodeValue(final FieldType fieldType, final Object value) {
+            final ByteBuffer buffer = plain(fieldType, value);
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+
+        private void encodePlain(final FieldType fieldType, final Object[] values, final int rows) {
+            for (int i = 0; i < rows; ++i) {
+                if (values[i] != null) {
+                    final ByteBuffer buffer = plain(fieldType, values[i]);
+                    out.write(buffer.array(), 0, buffer.position());
+                }
+            }
+        }
+
+        private void encodeBits(final Object[] values, final int rows) {
+            final BitPacker packer = new BitPacker(out, 1);
+            for (int i = 0; i < rows; ++i) {
+                if (values[i] != null) {
+                    packer.add((Boolean) values[i] ? 1 : 0);
+                }
+            }
+            packer.finish();
+        }
+
+        private Encoding encodeDelta(final FieldType fieldType, final Object[] values,
+                                     final int rows, final int nonNull) {
+            final int start = out.size();
+            boolean first = true;
+            long previous = 0;
+            for (int i = 0; i < rows; ++i) {
+                if (values[i] == null) {
+                    continue;
+                }
+                final long value = ((Number) values[i]).longValue();
+                writeVarLong(out, first ? value : value - previous);
+                first = false;
+                previous = value;
+            }
+            final int width = fieldType == FieldType.SHORT ? 2 : fieldType == FieldType.INT ? 4 : 8;
+            if (out.size() - start <= (long) width * nonNull) {
+                return Encoding.DELTA;
+            }
+            // random values: the differences take more space than the values themselves
+            out.truncate(start);
+            encodePlain(fieldType, values, rows);
+            return Encoding.PLAIN;
+        }
+
+        private Encoding encodeDictionary(final FieldType fieldType, final Object[] values,
+                                          final int rows, final int nonNull) {
+            final Map<Object, Integer> dictionary = new HashMap<>();
+            final List<Object> distinct = new ArrayList<>();
+            for (int i = 0; i < rows; ++i) {
+                final Object value = values[i];
+                if (value == null || dictionary.containsKey(value)) {
+                    continue;
+                }
+                if (distinct.size() == MAX_DICTIONARY_SIZE || distinct.size() >= nonNull >>> 1) {
+                    encodePlain(fieldType, values, rows);
+                    return Encoding.PLAIN;
+                }
+                dictionary.put(value, distinct.size());
+                distinct.add(value);
+            }
+            writeVarLong(out, distinct.size());
+            for (Object value : distinct) {
+                final ByteBuffer buffer = plain(fieldType, value);
+                out.write(buffer.array(), 0, buffer.position());
+            }
+            final int width = bitWidth(distinct.size() - 1);
+            out.write(width);
+            final BitPacker packer = new BitPacker(out, width);
+            for (int i = 0; i < rows; ++i) {
+                if (values[i] != null) {
+                    packer.add(dictionary.get(values[i]));
+                }
+            }
+            packer.finish();
+            return Encoding.DICTIONARY;
+        }
+
+        private ByteBuffer plain(final FieldType fieldType, final Object value) {
+            while (true) {
+                try {
+                    scratch.clear();
+                    fieldType.write(scratch, value);
+                    return scratch;
+                } catch (BufferOverflowException e) {
+                    scratch = ByteBuffer.allocate(scratch.capacity() << 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode a column chunk.
+     * @param encoding the encoding of the chunk
+     * @param fieldType the field type of the column
+     * @param type the type of the values
+     * @param chunk the encoded chunk, backed by an array
+     * @param rows the number of rows in the row group
+     * @return the values, {@code null} included
+     */
+    static Object[] decode(final Encoding encoding, final FieldType fieldType, final Class<?> type,
+                           final ByteBuffer chunk, final int rows) {
+        final int bitmapSize = bitmapSize(rows);
+        final byte[] bitmap = new byte[bitmapSize];
+        chunk.get(bitmap);
+        int nonNull = rows;
+        for (byte b : bitmap) {
+            nonNull -= Integer.bitCount(b & 0xff);
+        }
+        final Object[] nonNullValues = new Object[nonNull];
+        switch (encoding) {
+            case PLAIN:
+                for (int i = 0; i < nonNull; ++i) {
+                    nonNullValues[i] = fieldType.read(chunk, type);
+                }
+                break;
+            case BIT_PACKED: {
+                final BitUnpacker unpacker = new BitUnpacker(chunk, 1);
+                for (int i = 0; i < nonNull; ++i) {
+                    nonNullValues[i] = unpacker.next() != 0;
+                }
+                break;
+            }
+            case DELTA: {
+                long value = 0;
+                for (int i = 0; i < nonNull; ++i) {
+                    value = i == 0 ? readVarLong(chunk) : value + readVarLong(chunk);
+                    nonNullValues[i] = fieldType == FieldType.SHORT ? (Object) (short) value
+                            : fieldType == FieldType.INT ? (Object) (int) value
+                            : (Object) value;
+                }
+                break;
+            }
+            case DICTIONARY: {
+                final Object[] dictionary = new Object[(int) readVarLong(chunk)];
+                for (int i = 0; i < dictionary.length; ++i) {
+                    dictionary[i] = fieldType.read(chunk, type);
+                }
+                final BitUnpacker unpacker = new BitUnpacker(chunk, chunk.get());
+                for (int i = 0; i < nonNull; ++i) {
+                    nonNullValues[i] = dictionary[(int) unpacker.next()];
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("unhandled encoding " + encoding);
+        }
+        if (nonNull == rows) {
+            return nonNullValues;
+        }
+        final Object[] values = new Object[rows];
+        for (int i = 0, j = 0; i < rows; ++i) {
+            if ((bitmap[i >>> 3] & (1 << (i & 7))) == 0) {
+                values[i] = nonNullValues[j++];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Number of bits required to store a non-negative number.
+     * @param value the largest number to store
+     * @return the number of bits, at least 1
+     */
+    static int bitWidth(final long value) {
+        return Math.max(1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Write a zig-zag encoded varint.
+     * @param out the output
+     * @param value the value
+     */
+    static void writeVarLong(final ByteArrayOutputStream out, final long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7fL) != 0) {
+            out.write((int) ((zigZag & 0x7f) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    /**
+     * Read a zig-zag encoded varint.
+     * @param buffer the input
+     * @return the value
+     */
+    static long readVarLong(final ByteBuffer buffer) {
+        long zigZag = 0;
+        for (int shift = 0; ; shift += 7) {
+            final byte b = buffer.get();
+            zigZag |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Packs numbers of a fixed bit width, least significant bit first.
+     */
+    private static final class BitPacker {
+        private final ByteArrayOutputStream out;
+        private final int width;
+        private long bits;
+        private int numBits;
+
+        BitPacker(final ByteArrayOutputStream out, final int width) {
+            this.out = out;
+            this.width = width;
+        }
+
+        void add(final long value) {
+            for (int remaining = width, shift = 0; remaining > 0; ) {
+                final int take = Math.min(remaining, 64 - numBits);
+                final long part = (value >>> shift) & (take == 64 ? -1L : (1L << take) - 1);
+                bits |= part << numBits;
+                numBits += take;
+                shift += take;
+                remaining -= take;
+                while (numBits >= 8) {
+                    out.write((int) bits);
+                    bits >>>= 8;
+                    numBits -= 8;
+                }
+            }
+        }
+
+        void finish() {
+            if (numBits > 0) {
+                out.write((int) bits);
+                bits = 0;
+                numBits = 0;
+            }
+        }
+    }
+
+    /**
+     * Unpacks numbers written by a {@link BitPacker}.
+     */
+    private static final class BitUnpacker {
+        private final ByteBuffer buffer;
+        private final int width;
+        private long bits;
+        private int numBits;
+
+        BitUnpacker(final ByteBuffer buffer, final int width) {
+            this.buffer = buffer;
+            this.width = width;
+        }
+
+        long next() {
+            long value = 0;
+            for (int filled = 0; filled < width; ) {
+                if (numBits == 0) {
+                    bits = buffer.get() & 0xffL;
+                    numBits = 8;
+                }
+                final int take = Math.min(width - filled, numBits);
+                value |= (bits & ((1L << take) - 1)) << filled;
+                bits >>>= take;
+                numBits -= take;
+                filled += take;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * A {@link ByteArrayOutputStream} that exposes its buffer.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        Output() {
+            super(1 << 16);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void truncate(final int size) {
+            count = size;
+        }
+    }
+
+}
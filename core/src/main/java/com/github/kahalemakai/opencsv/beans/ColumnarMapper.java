@@ -0,0 +1,419 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.ChunkMeta;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.Footer;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.RowGroupMeta;
+import com.github.kahalemakai.opencsv.beans.ColumnarScan.Range;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link CsvToBeanMapper} that reads beans from a columnar file.
+ * <p>
+ * The footer of the file is read first. Row groups whose statistics
+ * rule out any match of the {@link ColumnarScan} filters are skipped,
+ * and of the remaining ones only the chunks of selected and filtered
+ * columns are read and decoded, one row group at a time. Each selected
+ * column is assigned to the bean property of the same name, without
+ * invoking any decoders.
+ * <p>
+ * An instance may only be constructed using the {@link Builder} class.
+ *
+ * @param <T> type of bean to be emitted
+ * @see ColumnarWriter
+ */
+@Slf4j
+class ColumnarMapper<T> implements CsvToBeanMapper<T> {
+    private final HeaderDirectMappingStrategy<T> strategy;
+    private final FileChannel channel;
+    private final Sink sink;
+    private final ExceptionalAction<IOException> finalizer;
+    private final Footer footer;
+    /**
+     * Indices of all columns that need to be decoded.
+     */
+    private final int[] columnsToRead;
+    /**
+     * Types of the values of the columns to read.
+     */
+    private final Class<?>[] valueTypes;
+    /**
+     * Setters of the selected columns, by position in {@link #columnsToRead}.
+     */
+    private final List<PropertySetter<T>> setters = new ArrayList<>();
+    /**
+     * Filters of the columns to read, by position in {@link #columnsToRead}.
+     */
+    private final Range[] ranges;
+    private final Iterator<T> iterator;
+    private int skippedRowGroups;
+
+    /**
+     * Read the file footer and prepare the property setters.
+     * @param builder a {@code Builder} instance
+     * @throws CsvToBeanException if the footer cannot be read, or does not fit the bean type or scan
+     */
+    ColumnarMapper(final Builder<T> builder) throws CsvToBeanException {
+        this.strategy = builder.getStrategy();
+        this.sink = builder.sinkForMapper();
+        this.finalizer = builder.finalizer();
+        final Path path = builder.getColumnarFile();
+        final ColumnarScan scan = builder.getColumnarScan();
+        final Class<? extends T> type = strategy.getType();
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            final String msg = String.format("unable to open columnar file %s", path);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        try {
+            this.footer = readFooter();
+            log.debug(String.format("reading %d row groups of bean type <%s> into <%s>",
+                    footer.rowGroups.size(), footer.typeName, type.getName()));
+            final List<String> selected = scan.getColumns().isEmpty() ? footer.columns : scan.getColumns();
+            final Map<String, Range> filters = scan.getRanges();
+            final List<Integer> indices = new ArrayList<>();
+            final List<Class<?>> types = new ArrayList<>();
+            for (String column : selected) {
+                final int index = indexOf(column);
+                final PropertySetter<T> setter = PropertySetter.of(type, column);
+                if (FieldType.of(setter.getType()) != footer.fieldTypes[index]) {
+                    final String msg = String.format("column %s is stored as %s, but property has type <%s>",
+                            column, footer.fieldTypes[index], setter.getType().getCanonicalName());
+                    log.error(msg);
+                    throw new IOException(msg);
+                }
+                indices.add(index);
+                types.add(MethodType.methodType(setter.getType()).wrap().returnType());
+                setters.add(setter);
+            }
+            this.ranges = new Range[selected.size() + filters.size()];
+            for (Map.Entry<String, Range> filter : filters.entrySet()) {
+                final int index = indexOf(filter.getKey());
+                final Class<?> rangeType = filter.getValue().getType();
+                if (FieldType.of(rangeType) != footer.fieldTypes[index]) {
+                    final String msg = String.format("column %s is stored as %s, but filter has type <%s>",
+                            filter.getKey(), footer.fieldTypes[index], rangeType.getCanonicalName());
+                    log.error(msg);
+                    throw new IOException(msg);
+                }
+                int position = indices.indexOf(index);
+                if (position < 0) {
+                    position = indices.size();
+                    indices.add(index);
+                    types.add(rangeType);
+                }
+                else if (types.get(position) != rangeType) {
+                    final String msg = String.format("filter of column %s has type <%s>, but property has type <%s>",
+                            filter.getKey(), rangeType.getCanonicalName(), types.get(position).getCanonicalName());
+                    log.error(msg);
+                    throw new IOException(msg);
+                }
+                ranges[position] = filter.getValue();
+            }
+            this.columnsToRead = new int[indices.size()];
+            for (int i = 0; i < columnsToRead.length; ++i) {
+                columnsToRead[i] = indices.get(i);
+            }
+            this.valueTypes = types.toArray(new Class<?>[types.size()]);
+        } catch (IOException e) {
+            closeChannel();
+            final String msg = String.format("could not read footer of columnar file %s", path);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        } catch (IllegalArgumentException e) {
+            closeChannel();
+            final String msg = String.format("columnar file does not fit bean type <%s>", type.getCanonicalName());
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        this.iterator = new RowIterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * As the row groups are streamed, all invocations share the same position in the file.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return iterator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<? extends T> getType() {
+        return strategy.getType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void intoSink() throws UnsupportedOperationException, PluginException {
+        if (this.sink == null) {
+            final String msg = "no sink has been added";
+            log.error(msg);
+            throw new UnsupportedOperationException(msg);
+        }
+        try {
+            this.sink.accept(iterator);
+        } catch (Throwable e) {
+            final String msg = "caught exception in sink";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        finally {
+            try {
+                this.sink.close();
+            } catch (IOException e) {
+                final String msg = "failed to close sink";
+                log.error(msg);
+                throw new PluginException(msg, e);
+            }
+        }
+    }
+
+    /**
+     * Close the underlying file.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            this.finalizer.act();
+        }
+    }
+
+    /**
+     * Get the number of row groups that have been skipped by their statistics so far.
+     * @return the number of skipped row groups
+     */
+    int getSkippedRowGroups() {
+        return skippedRowGroups;
+    }
+
+    private Footer readFooter() throws IOException {
+        final long size = channel.size();
+        if (size < ColumnarFormat.HEADER_SIZE + ColumnarFormat.TRAILER_SIZE) {
+            throw new EOFException(String.format("columnar file is truncated, found only %d bytes", size));
+        }
+        final ByteBuffer header = read(0, ColumnarFormat.HEADER_SIZE);
+        final int magic = header.getInt();
+        if (magic != ColumnarFormat.MAGIC) {
+            throw new IOException(String.format("not a columnar file, found magic number 0x%08x", magic));
+        }
+        final int version = header.getInt();
+        if (version != ColumnarFormat.FORMAT_VERSION) {
+            throw new IOException(String.format("unsupported columnar format version %d, expected %d",
+                    version, ColumnarFormat.FORMAT_VERSION));
+        }
+        final ByteBuffer trailer = read(size - ColumnarFormat.TRAILER_SIZE, ColumnarFormat.TRAILER_SIZE);
+        final int footerLength = trailer.getInt();
+        if (trailer.getInt() != ColumnarFormat.MAGIC
+                || footerLength < 0
+                || footerLength > size - ColumnarFormat.HEADER_SIZE - ColumnarFormat.TRAILER_SIZE) {
+            throw new IOException("columnar file is truncated, the footer is missing");
+        }
+        final ByteBuffer footerBytes = read(size - ColumnarFormat.TRAILER_SIZE - footerLength, footerLength);
+        return Footer.read(new DataInputStream(new ByteArrayInputStream(footerBytes.array())));
+    }
+
+    private int indexOf(final String column) throws IOException {
+        final int index = footer.columns.indexOf(column);
+        if (index < 0) {
+            throw new IOException(String.format("column %s is not contained in the columnar file", column));
+        }
+        return index;
+    }
+
+    private ByteBuffer read(final long offset, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("columnar file is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("could not close columnar file");
+        }
+    }
+
+    /**
+     * Tell if the statistics of a row group allow for matching rows.
+     * @param rowGroup the row group
+     * @return if the row group needs to be read
+     */
+    private boolean mayMatch(final RowGroupMeta rowGroup) {
+        for (int i = 0; i < columnsToRead.length; ++i) {
+            if (ranges[i] == null) {
+                continue;
+            }
+            final int column = columnsToRead[i];
+            final ChunkMeta chunk = rowGroup.chunks[column];
+            if (chunk.nullCount == rowGroup.rows) {
+                return false;
+            }
+            if (chunk.hasMinMax()) {
+                final FieldType fieldType = footer.fieldTypes[column];
+                final Object min = ColumnarFormat.decodeValue(fieldType, valueTypes[i], chunk.min);
+                final Object max = ColumnarFormat.decodeValue(fieldType, valueTypes[i], chunk.max);
+                if (!ranges[i].overlaps(min, max)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read and decode the required column chunks of a row group.
+     * @param rowGroup the row group
+     * @return the values of the columns to read
+     */
+    private Object[][] readRowGroup(final RowGroupMeta rowGroup) {
+        final Object[][] values = new Object[columnsToRead.length][];
+        for (int i = 0; i < columnsToRead.length; ++i) {
+            final int column = columnsToRead[i];
+            final ChunkMeta chunk = rowGroup.chunks[column];
+            final ByteBuffer bytes;
+            try {
+                bytes = read(chunk.offset, chunk.length);
+            } catch (IOException e) {
+                final String msg = String.format("could not read chunk of column %s", footer.columns.get(column));
+                log.error(msg);
+                throw new CsvToBeanException(msg, e);
+            }
+            values[i] = ColumnarFormat.decode(chunk.encoding, footer.fieldTypes[column],
+                    valueTypes[i], bytes, rowGroup.rows);
+        }
+        return values;
+    }
+
+    /**
+     * Iterator over the matching rows of all row groups.
+     */
+    private class RowIterator implements Iterator<T> {
+        private int nextRowGroup;
+        private Object[][] values;
+        private int rows;
+        private int nextRow;
+        private T next;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                if (values != null && nextRow < rows) {
+                    next = readRow(nextRow++);
+                }
+                else if (nextRowGroup < footer.rowGroups.size()) {
+                    final RowGroupMeta rowGroup = footer.rowGroups.get(nextRowGroup++);
+                    if (mayMatch(rowGroup)) {
+                        values = readRowGroup(rowGroup);
+                        rows = rowGroup.rows;
+                        nextRow = 0;
+                    }
+                    else {
+                        ++skippedRowGroups;
+                        log.debug(String.format("skipped row group %d by its statistics", nextRowGroup - 1));
+                    }
+                }
+                else {
+                    done = true;
+                    values = null;
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        log.warn("could not close columnar file after reading the last row group");
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T bean = next;
+            next = null;
+            return bean;
+        }
+
+        /**
+         * Read a row into a new bean.
+         * @param row the index of the row
+         * @return the bean, or {@code null} if the row does not match the filters
+         */
+        private T readRow(final int row) {
+            for (int i = 0; i < columnsToRead.length; ++i) {
+                if (ranges[i] != null && !ranges[i].contains(values[i][row])) {
+                    return null;
+                }
+            }
+            final T bean;
+            try {
+                bean = strategy.createBean();
+            } catch (InstantiationException | IllegalAccessException e) {
+                final String msg = "could not create new bean";
+                log.error(msg);
+                throw new CsvToBeanException(msg, e);
+            }
+            for (int i = 0; i < setters.size(); ++i) {
+                final Object value = values[i][row];
+                if (value != null) {
+                    setters.get(i).set(bean, value);
+                }
+            }
+            return bean;
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projection and filter for reading a columnar file.
+ * <p>
+ * Only the selected columns are read from the file, all others are
+ * skipped without being decoded. Range filters on columns are first
+ * checked against the min/max statistics of each row group, so row
+ * groups that cannot contain any matching row are skipped as a whole.
+ * Within the remaining row groups, the filters are applied row by row,
+ * so only matching beans are emitted.
+ * <p>
+ * Instances are not thread-safe while being configured.
+ *
+ * @see ColumnarWriter
+ * @see Builder#withColumnarFile(java.io.File, ColumnarScan)
+ */
+@Slf4j
+public final class ColumnarScan {
+    /**
+     * The columns to read. If empty, all columns of the file are read.
+     * @return the columns to read
+     */
+    @Getter
+    private final List<String> columns;
+
+    private final Map<String, Range> ranges = new LinkedHashMap<>();
+
+    private ColumnarScan(final List<String> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Create a new scan.
+     * @param columns names of the columns to read. If empty,
+     *                all columns of the file are read
+     * @return the new scan
+     */
+    public static ColumnarScan of(@NonNull final String... columns) {
+        return new ColumnarScan(Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns))));
+    }
+
+    /**
+     * Only emit rows whose value lies within an inclusive range.
+     * <p>
+     * Rows with a {@code null} value never match. The column does
+     * not need to be selected.
+     * @param column name of the column
+     * @param min the lower bound, or {@code null} if unbounded
+     * @param max the upper bound, or {@code null} if unbounded
+     * @param <C> type of the column values
+     * @return the {@code ColumnarScan} instance
+     * @throws IllegalArgumentException if both bounds are {@code null}, or the column is filtered twice
+     */
+    public <C extends Comparable<? super C>> ColumnarScan where(@NonNull final String column,
+                                                                final C min,
+                                                                final C max)
+            throws IllegalArgumentException {
+        if (min == null && max == null) {
+            final String msg = String.format("range of column %s must be bounded on at least one side", column);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (min != null && max != null && min.getClass() != max.getClass()) {
+            final String msg = String.format("bounds of column %s must be of the same type", column);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (ranges.containsKey(column)) {
+            final String msg = String.format("column %s is already filtered", column);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        ranges.put(column, new Range(min, max));
+        return this;
+    }
+
+    /**
+     * Only emit rows with a specific value.
+     * @param column name of the column
+     * @param value the value
+     * @param <C> type of the column values
+     * @return the {@code ColumnarScan} instance
+     * @throws IllegalArgumentException if the column is filtered twice
+     * @see #where(String, Comparable, Comparable)
+     */
+    public <C extends Comparable<? super C>> ColumnarScan whereEquals(@NonNull final String column,
+                                                                      @NonNull final C value)
+            throws IllegalArgumentException {
+        return where(column, value, value);
+    }
+
+    /**
+     * The range filters by column name.
+     * @return the range filters by column name
+     */
+    Map<String, Range> getRanges() {
+        return Collections.unmodifiableMap(ranges);
+    }
+
+    /**
+     * An inclusive range of values.
+     */
+    static final class Range {
+        private final Comparable<Object> min;
+        private final Comparable<Object> max;
+
+        @SuppressWarnings("unchecked")
+        private Range(final Comparable<?> min, final Comparable<?> max) {
+            this.min = (Comparable<Object>) min;
+            this.max = (Comparable<Object>) max;
+        }
+
+        /**
+         * The type of the bounds. Enumeration constants with a body
+         * are mapped to their enumeration type.
+         * @return the type of the bounds
+         */
+        Class<?> getType() {
+            final Object bound = min != null ? min : max;
+            return bound instanceof Enum ? ((Enum<?>) bound).getDeclaringClass() : bound.getClass();
+        }
+
+        /**
+         * Tell if a value lies within the range.
+         * @param value the value, may be {@code null}
+         * @return if the value lies within the range
+         */
+        boolean contains(final Object value) {
+            return value != null
+                    && (min == null || min.compareTo(value) <= 0)
+                    && (max == null || max.compareTo(value) >= 0);
+        }
+
+        /**
+         * Tell if the range overlaps with the values of a row group.
+         * @param lowest the smallest value of the row group
+         * @param highest the largest value of the row group
+         * @return if the range overlaps
+         */
+        boolean overlaps(final Object lowest, final Object highest) {
+            return (min == null || min.compareTo(highest) <= 0)
+                    && (max == null || max.compareTo(lowest) >= 0);
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.ChunkEncoder;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.ChunkMeta;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.Encoding;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.Footer;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.RowGroupMeta;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Write beans into a columnar format with per-chunk statistics.
+ * <p>
+ * The beans are buffered into row groups of {@link #getRowGroupSize()}
+ * rows. Each row group is stored column by column, and each column chunk
+ * gets its own encoding: dictionary encoding for strings and enumerations
+ * with few distinct values, delta encoding for integral numbers, such as
+ * epoch timestamps, bit-packing for booleans, and the plain encoding of
+ * binary rows for everything else. The footer records the min and max
+ * value and the number of {@code null} values of every chunk.
+ * <p>
+ * Reading the file back by
+ * {@link Builder#withColumnarFile(java.io.File, ColumnarScan)}
+ * decodes only the selected columns, and skips all row groups whose
+ * statistics rule out any match of the scan filters.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @param <T> type of bean to write
+ * @see BinaryRowWriter
+ */
+@Slf4j
+public final class ColumnarWriter<T> implements Closeable, Flushable {
+    /**
+     * Default number of rows per row group.
+     */
+    public static final int DEFAULT_ROW_GROUP_SIZE = 1 << 16;
+
+    /**
+     * Size of the output buffer.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The type of bean to write.
+     * @return type of bean to write
+     */
+    @Getter
+    private final Class<? extends T> type;
+
+    /**
+     * The names of the columns to write.
+     * @return the names of the columns to write
+     */
+    @Getter
+    private final List<String> columns;
+
+    /**
+     * The number of rows per row group.
+     * @return the number of rows per row group
+     */
+    @Getter
+    private int rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+
+    private final List<PropertyGetter<T>> getters;
+    private final FieldType[] fieldTypes;
+    private final OutputStream outputStream;
+    private final ChunkEncoder encoder = new ChunkEncoder();
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+    private Object[][] values;
+    private int rows;
+    private long position;
+    private boolean headerWritten;
+    private boolean closed;
+
+    private ColumnarWriter(final Class<? extends T> type,
+                           final List<String> columns,
+                           final OutputStream outputStream) {
+        this.type = type;
+        this.columns = columns;
+        this.getters = new ArrayList<>(columns.size());
+        this.fieldTypes = new FieldType[columns.size()];
+        for (int i = 0; i < columns.size(); ++i) {
+            final PropertyGetter<T> getter = PropertyGetter.of(type, columns.get(i));
+            getters.add(getter);
+            fieldTypes[i] = FieldType.of(getter.getType());
+        }
+        this.outputStream = new BufferedOutputStream(outputStream, OUTPUT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param columns names of the bean properties to write, in order. If empty,
+     *                all readable properties are written, ordered by name
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     */
+    public static <S> ColumnarWriter<S> of(@NonNull final Class<? extends S> type,
+                                           @NonNull final OutputStream outputStream,
+                                           @NonNull final List<String> columns)
+            throws IllegalArgumentException {
+        final List<String> columnList = new ArrayList<>(columns);
+        if (columnList.isEmpty()) {
+            for (PropertyGetter<S> getter : PropertyGetter.<S>allOf(type)) {
+                columnList.add(getter.getName());
+            }
+        }
+        return new ColumnarWriter<>(type, Collections.unmodifiableList(columnList), outputStream);
+    }
+
+    /**
+     * Create a new writer.
+     * @param type type of bean to write
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param columns names of the bean properties to write, in order
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     * @see #of(Class, OutputStream, List)
+     */
+    public static <S> ColumnarWriter<S> of(@NonNull final Class<? extends S> type,
+                                           @NonNull final OutputStream outputStream,
+                                           final String... columns)
+            throws IllegalArgumentException {
+        return of(type, outputStream, Arrays.asList(columns));
+    }
+
+    /**
+     * Create a new writer for the beans emitted by a {@link CsvToBeanMapper}.
+     * <p>
+     * The csv columns configured for the {@link Builder} are written
+     * in the same order. If no header has been defined, all readable
+     * bean properties are written, ordered by name.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the stream to write to, it gets closed together with the writer
+     * @param <S> type of bean to write
+     * @return the new writer
+     * @throws IllegalArgumentException if a property cannot be read or stored
+     */
+    public static <S> ColumnarWriter<S> of(@NonNull final Builder<S> builder,
+                                           @NonNull final OutputStream outputStream)
+            throws IllegalArgumentException {
+        final List<String> columns = new ArrayList<>();
+        final List<CsvColumn> columnsToParse = builder.getStrategy().getColumnsToParse();
+        if (columnsToParse != null) {
+            for (CsvColumn column : columnsToParse) {
+                columns.add(column.name());
+            }
+        }
+        return of(builder.getStrategy().getType(), outputStream, columns);
+    }
+
+    /**
+     * Set the number of rows per row group.
+     * <p>
+     * Larger row groups compress better, smaller ones can be skipped
+     * more selectively. All rows of a row group are buffered in memory.
+     * @param rowGroupSize the number of rows per row group
+     * @return the {@code ColumnarWriter} instance
+     * @throws IllegalArgumentException if the size is not positive
+     * @throws IllegalStateException if rows have already been written
+     */
+    public ColumnarWriter<T> rowGroupSize(final int rowGroupSize)
+            throws IllegalArgumentException, IllegalStateException {
+        if (rowGroupSize <= 0) {
+            final String msg = String.format("rowGroupSize must be positive, got %d", rowGroupSize);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (values != null) {
+            final String msg = "rowGroupSize cannot be changed after rows have been written";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        this.rowGroupSize = rowGroupSize;
+        return this;
+    }
+
+    /**
+     * Write a bean.
+     * <p>
+     * The bean is buffered until its row group is complete.
+     * @param bean the bean to write
+     * @throws IOException if the output cannot be written
+     */
+    public void write(@NonNull final T bean) throws IOException {
+        writeHeaderIfRequired();
+        if (values == null) {
+            values = new Object[fieldTypes.length][rowGroupSize];
+        }
+        for (int i = 0; i < fieldTypes.length; ++i) {
+            values[i][rows] = getters.get(i).get(bean);
+        }
+        if (++rows == rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Write all beans of an iterator.
+     * @param beans the beans to write
+     * @return the number of beans written
+     * @throws IOException if the output cannot be written
+     */
+    public long writeAll(@NonNull final Iterator<? extends T> beans) throws IOException {
+        long count = 0;
+        while (beans.hasNext()) {
+            write(beans.next());
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Flush all completed row groups to the underlying stream.
+     * <p>
+     * The rows of the current row group stay buffered, so that
+     * flushing does not cut row groups short.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        writeHeaderIfRequired();
+        outputStream.flush();
+    }
+
+    /**
+     * Write the last row group and the footer, and close the underlying stream.
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeHeaderIfRequired();
+            if (rows > 0) {
+                writeRowGroup();
+            }
+            final ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            try (final DataOutputStream out = new DataOutputStream(footer)) {
+                new Footer(type.getName(), columns, fieldTypes, rowGroups).write(out);
+                out.writeInt(footer.size());
+                out.writeInt(ColumnarFormat.MAGIC);
+            }
+            outputStream.write(footer.toByteArray());
+            outputStream.flush();
+        } finally {
+            closed = true;
+            values = null;
+            outputStream.close();
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        final ChunkMeta[] chunks = new ChunkMeta[fieldTypes.length];
+        for (int i = 0; i < fieldTypes.length; ++i) {
+            final FieldType fieldType = fieldTypes[i];
+            final Object[] column = values[i];
+            final Encoding encoding = encoder.encode(fieldType, column, rows);
+            final int length = encoder.size();
+            int nullCount = 0;
+            Comparable<Object> min = null;
+            Comparable<Object> max = null;
+            for (int r = 0; r < rows; ++r) {
+                @SuppressWarnings("unchecked")
+                final Comparable<Object> value = (Comparable<Object>) column[r];
+                if (value == null) {
+                    ++nullCount;
+                }
+                else if (ColumnarFormat.hasStatistics(fieldType)) {
+                    if (min == null || value.compareTo(min) < 0) {
+                        min = value;
+                    }
+                    if (max == null || value.compareTo(max) > 0) {
+                        max = value;
+                    }
+                }
+            }
+            chunks[i] = new ChunkMeta(position, length, encoding, nullCount,
+                    min == null ? null : encoder.encodeValue(fieldType, min),
+                    max == null ? null : encoder.encodeValue(fieldType, max));
+            outputStream.write(encoder.array(), 0, length);
+            position += length;
+            Arrays.fill(column, 0, rows, null);
+        }
+        rowGroups.add(new RowGroupMeta(rows, chunks));
+        log.debug(String.format("wrote row group %d with %d rows", rowGroups.size() - 1, rows));
+        rows = 0;
+    }
+
+    private void writeHeaderIfRequired() throws IOException {
+        if (closed) {
+            final String msg = "writer has already been closed";
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(ColumnarFormat.MAGIC);
+        out.writeInt(ColumnarFormat.FORMAT_VERSION);
+        position = ColumnarFormat.HEADER_SIZE;
+    }
+
+}
@@ -16,6 +16,12 @@
 
 package com.github.kahalemakai.opencsv.beans;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Interface type for easy-to-use mappers that convert csvs into beans.
  * @param <T> type the bean shall be converted to
@@ -35,6 +41,75 @@ public interface CsvToBeanMapper<T> extends AutoCloseable, Iterable<T> {
      */
     void intoSink() throws UnsupportedOperationException;
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The spliterator is {@code ORDERED} and {@code NONNULL}.
+     * @throws UnsupportedOperationException if a sink has been setup
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Get a sequential stream of the beans.
+     * <p>
+     * Closing the stream closes the mapper.
+     * @return a sequential stream of the beans
+     * @throws UnsupportedOperationException if a sink has been setup
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("could not close mapper", e);
+            }
+        });
+    }
+
+    /**
+     * Get a parallel stream of the beans.
+     * <p>
+     * Mappers of a file split it by byte ranges at record boundaries, such that
+     * parsing scales with the number of threads. Other sources are read
+     * sequentially and only the downstream operations run in parallel.
+     * Closing the stream closes the mapper.
+     * @return a parallel stream of the beans
+     * @throws UnsupportedOperationException if a sink has been setup
+     */
+    default Stream<T> parallelStream() {
+        return stream().parallel();
+    }
+
+    /**
+     * Get a publisher that emits the beans on demand of a subscriber.
+     * <p>
+     * Parsing advances only as far as the subscriber has requested, on the
+     * requesting thread. The mapper gets closed on completion, error or
+     * cancellation. If a read-ahead buffer is configured, reading still
+     * runs ahead of parsing by at most that buffer.
+     * @return the publisher
+     * @see BeanPublisher#of(CsvToBeanMapper)
+     */
+    default BeanPublisher<T> publisher() {
+        return BeanPublisher.of(this);
+    }
+
+    /**
+     * Get a publisher that emits the beans on demand of a subscriber,
+     * parsing on an executor.
+     * @param executor the executor for parsing and emitting beans
+     * @return the publisher
+     * @see BeanPublisher#of(CsvToBeanMapper, Executor)
+     */
+    default BeanPublisher<T> publisher(final Executor executor) {
+        return BeanPublisher.of(this, executor);
+    }
+
     /**
      * Get a new {@code Builder} instance for creating a {@code CsvToBeanMapper}.
      *
@@ -16,6 +16,7 @@
 
 package com.github.kahalemakai.opencsv.beans;
 
+import com.github.kahalemakai.opencsv.beans.processing.ColumnPipeline;
 import com.github.kahalemakai.opencsv.beans.processing.DecoderManager;
 import com.github.kahalemakai.opencsv.config.PluginException;
 import com.github.kahalemakai.opencsv.config.Sink;
@@ -34,6 +35,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 
 /**
@@ -60,14 +62,29 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
     private final Map<String, Object> columnData;
     @Getter(AccessLevel.PRIVATE)
     private final List<CsvColumn> columnsForIteration;
+    /**
+     * Compiled pipelines, aligned with {@link #columnsForIteration} and resolved on first use.
+     */
+    private ColumnPipeline<?>[] pipelines;
+    /**
+     * Property descriptors, aligned with {@link #columnsForIteration} and resolved once the header is known.
+     */
+    private PropertyDescriptor[] descriptors;
     private final Sink sink;
     private final ExceptionalAction<IOException> finalizer;
+    /**
+     * Factory of the spliterator splitting the source file by byte ranges, or {@code null}
+     * if the source is not a file. Invoked by the first call to {@link #spliterator()}.
+     */
+    private final Supplier<ByteRangeSpliterator<T>> fileSpliteratorFactory;
+    private ByteRangeSpliterator<T> fileSpliterator;
 
     @Getter(AccessLevel.PRIVATE) @Setter
     private boolean errorOnClosingReader;
     @Getter private final boolean onErrorSkipLine;
     @Getter private final boolean multiLine;
     @Getter private final int skipLines;
+    @Getter private final int batchSize;
     @Getter private final char escapeChar;
     @Getter private final char quoteChar;
     @Getter private final char separator;
@@ -92,18 +109,20 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
         this.decoderManager = nonNull(builder.getDecoderManager(), "decoderManager");
         this.onErrorSkipLine = builder.isOnErrorSkipLine();
         this.skipLines = builder.skipLines();
+        this.batchSize = builder.batchSize();
         this.escapeChar = builder.escapeChar();
         this.quoteChar = builder.quoteChar();
         this.separator = builder.separator();
         this.ignoreQuotes = builder.quotingMode().isIgnoreQuotes();
         this.ignoreLeadingWhiteSpace = builder.isIgnoreLeadingWhiteSpace();
         this.strictQuotes = builder.quotingMode().isStrictQuotes();
-        this.setterMethods = new HashMap<>();
+        this.setterMethods = builder.getSetterMethods();
         this.columnRefs = builder.getColumnRefs();
         this.columnData = builder.getColumnData();
         this.columnsForIteration = new ArrayList<>();
-        this.sink = builder.sink();
+        this.sink = builder.sinkForMapper();
         this.finalizer = builder.finalizer();
+        this.fileSpliteratorFactory = builder.getFileSpliteratorFactory();
         this.multiLine = builder.multiLine();
         this.source = defineSource(builder.source(), builder.getReader(), builder.getLineIterator());
         log.debug("new CsvToBeanMapper instance built:\n{}", this);
@@ -183,6 +202,23 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
         return obtainIteratorForInternalAccess();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the source is a file, the first spliterator splits it by byte ranges
+     * at record boundaries, each of which is parsed independently.
+     * @throws UnsupportedOperationException if a sink was set up
+     * @see ByteRangeSpliterator
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        if (this.fileSpliteratorFactory == null || this.fileSpliterator != null || this.sink != null) {
+            return CsvToBeanMapper.super.spliterator();
+        }
+        this.fileSpliterator = this.fileSpliteratorFactory.get();
+        return this.fileSpliterator;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -226,6 +262,9 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
     @Override
     public void close() throws IOException {
         this.finalizer.act();
+        if (this.fileSpliterator != null) {
+            this.fileSpliterator.close();
+        }
     }
 
     /**
@@ -277,66 +316,128 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
      * Decode a parsed line into a bean.
      * <p>
      * The heavy-lifting is done by the {@link DecoderManager} and the
-     * {@link com.github.kahalemakai.opencsv.beans.processing.DecoderPropertyEditor}.
+     * {@link com.github.kahalemakai.opencsv.beans.processing.ColumnPipeline}.
      * @param mapper the mapping strategy to be used
      * @param line the parsed line
      * @return the decoded bean
      */
     private T processLine(final HeaderDirectMappingStrategy<T> mapper,
                             final String[] line) {
-        T bean = null;
+        final T bean = createBean(mapper);
+        final List<CsvColumn> columns = this.columnsForIteration;
+        final PropertyDescriptor[] props = descriptorsFor(mapper, columns);
+        final ColumnPipeline<?>[] columnPipelines = pipelinesFor(columns);
+        for (int i = 0; i < props.length; ++i) {
+            final PropertyDescriptor prop = props[i];
+            if (null != prop) {
+                final CsvColumn csvColumn = columns.get(i);
+                final String value = getText(csvColumn, line);
+                final Object obj;
+                try {
+                    obj = columnPipelines[i].apply(value);
+                } catch (CsvToBeanException e) {
+                    throw conversionError(mapper, csvColumn.index(), value, e);
+                }
+                assignValue(bean, mapper, csvColumn, prop, obj);
+            }
+        }
+        assignColumnData(bean);
+        return bean;
+    }
+
+    /**
+     * Create a new and empty bean.
+     * @param mapper the mapping strategy to be used
+     * @return the new bean
+     */
+    private T createBean(final HeaderDirectMappingStrategy<T> mapper) {
         try {
-            bean = mapper.createBean();
+            return mapper.createBean();
         } catch (InstantiationException | IllegalAccessException e) {
             final String msg = "could not create new bean";
             log.error(msg);
             throw new CsvToBeanException(msg, e);
         }
-        for (CsvColumn csvColumn: this.columnsForIteration) {
-            final String columnName = csvColumn.name();
-            int col = csvColumn.index();
-            PropertyDescriptor prop = null;
-            try {
-                prop = mapper.findDescriptor(columnName);
-            } catch (IntrospectionException e) {
-                final String msg =
-                        processingErrorMsg(mapper, col, "could not find descriptor");
-                log.error(msg);
-                throw new CsvToBeanException(msg, e);
-            }
-            if (null != prop) {
-                Object obj = null;
-                String text;
-                try {
-                    text = line[col];
-                } catch (ArrayIndexOutOfBoundsException e) {
-                    if (!csvColumn.isOptional()) {
-                        throw e;
-                    }
-                    text = csvColumn.defaultValue();
-                }
-                final String value = text;
-                try {
-                    obj = convertValue(value, prop);
-                } catch (InstantiationException | IllegalAccessException | CsvToBeanException e) {
-                    final String msg =
-                            processingErrorMsg(mapper, col, "could not convert value %s",
-                                    value == null ? "null" : value);
-                    log.error(msg);
-                    throw new CsvToBeanException(msg, e);
-                }
-                try {
-                    Method setter = getSetter(bean, columnName, prop);
-                    assert setter != null;
-                    setter.invoke(bean, obj);
-                } catch (NoSuchMethodException | InvocationTargetException | NoSuchFieldException | IllegalArgumentException | IllegalAccessException e) {
-                    final String msg = processingErrorMsg(mapper, col, "could not assign object %s of type %s",
-                            obj, obj != null ? obj.getClass().getCanonicalName() : "null");
-                    log.error(msg);
-                    throw new CsvToBeanException(msg, e);
-                }
+    }
+
+    /**
+     * Find the property descriptor for a column.
+     * @param mapper the mapping strategy to be used
+     * @param csvColumn the column to look up
+     * @return the property descriptor, or {@code null} if the column is not mapped
+     */
+    private PropertyDescriptor findDescriptor(final HeaderDirectMappingStrategy<T> mapper,
+                                              final CsvColumn csvColumn) {
+        try {
+            return mapper.findDescriptor(csvColumn.name());
+        } catch (IntrospectionException e) {
+            final String msg =
+                    processingErrorMsg(mapper, csvColumn.index(), "could not find descriptor");
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    /**
+     * Get the raw text of a column from a parsed line.
+     * @param csvColumn the column to look up
+     * @param line the parsed line
+     * @return the raw text, or the default value if an optional column is missing
+     * @throws ArrayIndexOutOfBoundsException if a mandatory column is missing
+     */
+    private static String getText(final CsvColumn csvColumn, final String[] line)
+            throws ArrayIndexOutOfBoundsException {
+        try {
+            return line[csvColumn.index()];
+        } catch (ArrayIndexOutOfBoundsException e) {
+            if (!csvColumn.isOptional()) {
+                throw e;
             }
+            return csvColumn.defaultValue();
         }
+    }
+
+    private CsvToBeanException conversionError(final HeaderDirectMappingStrategy<T> mapper,
+                                               final int col,
+                                               final String value,
+                                               final Throwable cause) {
+        final String msg =
+                processingErrorMsg(mapper, col, "could not convert value %s",
+                        value == null ? "null" : value);
+        log.error(msg);
+        return new CsvToBeanException(msg, cause);
+    }
+
+    /**
+     * Assign a decoded value to the bean.
+     * @param bean the bean to assign the value to
+     * @param mapper the mapping strategy to be used
+     * @param csvColumn the column of the value
+     * @param prop the corresponding property's descriptor
+     * @param obj the decoded value
+     */
+    private void assignValue(final T bean,
+                             final HeaderDirectMappingStrategy<T> mapper,
+                             final CsvColumn csvColumn,
+                             final PropertyDescriptor prop,
+                             final Object obj) {
+        try {
+            Method setter = getSetter(bean, csvColumn.name(), prop);
+            assert setter != null;
+            setter.invoke(bean, obj);
+        } catch (NoSuchMethodException | InvocationTargetException | NoSuchFieldException | IllegalArgumentException | IllegalAccessException e) {
+            final String msg = processingErrorMsg(mapper, csvColumn.index(), "could not assign object %s of type %s",
+                    obj, obj != null ? obj.getClass().getCanonicalName() : "null");
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+    }
+
+    /**
+     * Assign the constant column data to the bean.
+     * @param bean the bean to assign the data to
+     */
+    private void assignColumnData(final T bean) {
         for (Map.Entry<String, Object> entry : columnData.entrySet()) {
             final String column = entry.getKey();
             final Object value = entry.getValue();
@@ -350,7 +451,6 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
                 throw new CsvToBeanException(msg, e);
             }
         }
-        return bean;
     }
 
     /**
@@ -423,6 +523,51 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
                 + String.format(" (in column %s at csv position %d)", mapper.getColumnName(col), col);
     }
 
+    /**
+     * Get the pipelines array matching the columns to iterate over.
+     * <p>
+     * Pipelines are resolved by the property name on first use, since the property
+     * descriptor is only known when processing a line.
+     * @param columns the columns to iterate over
+     * @return array of (possibly not yet resolved) pipelines
+     */
+    private ColumnPipeline<?>[] pipelinesFor(final List<CsvColumn> columns) {
+        final ColumnPipeline<?>[] currentPipelines = this.pipelines;
+        if (currentPipelines != null && currentPipelines.length == columns.size()) {
+            return currentPipelines;
+        }
+        final ColumnPipeline<?>[] newPipelines = new ColumnPipeline<?>[columns.size()];
+        this.pipelines = newPipelines;
+        return newPipelines;
+    }
+
+    /**
+     * Get the property descriptors matching the columns to iterate over.
+     * <p>
+     * All descriptors are looked up at once, and the pipelines of the mapped
+     * columns get resolved alongside, such that nothing is resolved per line.
+     * @param mapper the mapping strategy to be used
+     * @param columns the columns to iterate over
+     * @return array of descriptors, {@code null} for unmapped columns
+     */
+    private PropertyDescriptor[] descriptorsFor(final HeaderDirectMappingStrategy<T> mapper,
+                                                final List<CsvColumn> columns) {
+        final PropertyDescriptor[] currentDescriptors = this.descriptors;
+        if (currentDescriptors != null && currentDescriptors.length == columns.size()) {
+            return currentDescriptors;
+        }
+        final ColumnPipeline<?>[] columnPipelines = pipelinesFor(columns);
+        final PropertyDescriptor[] newDescriptors = new PropertyDescriptor[columns.size()];
+        for (int i = 0; i < newDescriptors.length; ++i) {
+            newDescriptors[i] = findDescriptor(mapper, columns.get(i));
+            if (newDescriptors[i] != null && columnPipelines[i] == null) {
+                columnPipelines[i] = decoderManager.getPipeline(newDescriptors[i].getName());
+            }
+        }
+        this.descriptors = newDescriptors;
+        return newDescriptors;
+    }
+
     /**
      * Calculate the columns that are either directly mapped to csv columns, or
      * reference another column.
@@ -447,6 +592,21 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
         }
     }
 
+    /**
+     * Decode a single record, that has been parsed outside of this mapper.
+     * <p>
+     * The header must have been defined before.
+     * @param record the parsed record
+     * @return the decoded bean
+     * @see FeedParser
+     */
+    T decodeRecord(final String[] record) {
+        if (getColumnsForIteration().isEmpty()) {
+            setupColumnsForIteration(getStrategy());
+        }
+        return processLine(getStrategy(), record);
+    }
+
     /**
      * Provide an iterator over the complete data set.
      * <p>
@@ -463,9 +623,54 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
         }
         final int linesToSkip = getReaderSetup().get() ? 0 : getSkipLines();
         final Iterator<String[]> iterator = source.iterator();
+        if (getBatchSize() > 1) {
+            return new BatchingIterator(linesToSkip, iterator, getBatchSize());
+        }
         return isOnErrorSkipLine() ? new SkippingIterator(linesToSkip, iterator) : new NonSkippingIterator(linesToSkip, iterator);
     }
 
+    /**
+     * Skip lines and parse the header, if not set previously.
+     * @param skipLines number of lines to skip
+     * @param iterator iterator over the parsed lines
+     */
+    private void prepareIteration(final int skipLines, final Iterator<String[]> iterator) {
+        try {
+            for (int i = 0; i < skipLines; ++i) {
+                if (iterator.hasNext())
+                    iterator.next();
+            }
+            if (!isHeaderDefined()) {
+                if (iterator.hasNext()) {
+                    final String[] nextLine = iterator.next();
+                    Builder.setHeader(getStrategy(), nextLine);
+                }
+            }
+        } catch (CsvToBeanException e) {
+            final String msg = "caught exception when trying to skip lines on iterator invocation";
+            log.warn(msg, e);
+        }
+        if (getColumnsForIteration().isEmpty()) {
+            setupColumnsForIteration(getStrategy());
+        }
+    }
+
+    /**
+     * Provide an iterator over reusable column batches, instead of beans.
+     * @param capacity maximum number of rows per batch
+     * @return iterator over the column batches
+     * @see ColumnBatchReader
+     */
+    Iterator<ColumnBatch> columnBatchIterator(final int capacity) {
+        if (source == null) {
+            final String msg = "no csv data source defined";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        final int linesToSkip = getReaderSetup().get() ? 0 : getSkipLines();
+        return new ColumnBatchIterator(linesToSkip, source.iterator(), capacity);
+    }
+
     /**
      * Abstract base class for iterators over parsed csv columns.
      * <p>
@@ -481,24 +686,7 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
 
         BaseCsvIterator(final int skipLines, final Iterator<String[]> iterator) {
             this.iterator = iterator;
-            try {
-                for (int i = 0; i < skipLines; ++i) {
-                    if (this.iterator.hasNext())
-                        this.iterator.next();
-                }
-                if (!isHeaderDefined()) {
-                    if (this.iterator.hasNext()) {
-                        final String[] nextLine = this.iterator.next();
-                        Builder.setHeader(getStrategy(), nextLine);
-                    }
-                }
-            } catch (CsvToBeanException e) {
-                final String msg = "caught exception when trying to skip lines on iterator invocation";
-                log.warn(msg, e);
-            }
-            if (getColumnsForIteration().isEmpty()) {
-                setupColumnsForIteration(getStrategy());
-            }
+            prepareIteration(skipLines, iterator);
         }
 
     }
@@ -642,4 +830,382 @@ class CsvToBeanMapperImpl<T> extends AbstractCSVToBean implements CsvToBeanMappe
 
     }
 
+    /**
+     * Iterator class used for decoding the input in batches of lines.
+     * <p>
+     * A batch of lines is read from the input source, and decoded column by column,
+     * using {@link ColumnPipeline#applyBatch(String[], int, Object[], RuntimeException[])}.
+     * Afterwards, the beans are assembled line by line. Errors are reported exactly as
+     * by the {@link NonSkippingIterator}, or the respective lines are skipped
+     * if {@link #isOnErrorSkipLine()} is set.
+     */
+    class BatchingIterator extends BaseCsvIterator {
+        private final String[][] lines;
+        private final String[] values;
+        private final Object[] beans;
+        private final Throwable[] failures;
+        private Object[][] outputs;
+        private RuntimeException[][] errors;
+        private RuntimeException sourceError;
+        private long counter;
+        private int size;
+        private int position;
+
+        BatchingIterator(final int skipLines, final Iterator<String[]> iterator, final int batchSize) {
+            super(skipLines, iterator);
+            this.lines = new String[batchSize][];
+            this.values = new String[batchSize];
+            this.beans = new Object[batchSize];
+            this.failures = new Throwable[batchSize];
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (position < size) {
+                    if (failures[position] == null || !isOnErrorSkipLine()) {
+                        return true;
+                    }
+                    log.debug("found error on line {}\n{}", counter - size + position + 1, failures[position]);
+                    lines[position] = null;
+                    position++;
+                    continue;
+                }
+                if (sourceError != null) {
+                    return true;
+                }
+                if (!getIterator().hasNext()) {
+                    return false;
+                }
+                readBatch();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (position == size) {
+                final RuntimeException e = sourceError;
+                sourceError = null;
+                throw e;
+            }
+            final int row = position++;
+            final String[] line = lines[row];
+            final Object bean = beans[row];
+            final Throwable failure = failures[row];
+            lines[row] = null;
+            beans[row] = null;
+            failures[row] = null;
+            if (failure != null) {
+                final String msg = String.format(
+                        "could not generate bean from line %d\nline: %s\nbean class: %s",
+                        counter - size + row + 1,
+                        new ArrayList<>(Arrays.asList(line)),
+                        getType().getCanonicalName());
+                log.error(msg);
+                throw new CsvToBeanException(msg, failure);
+            }
+            return (T) bean;
+        }
+
+        /**
+         * Read and decode the next batch of lines.
+         * <p>
+         * An exception thrown by the input source ends the batch. It is re-thrown
+         * once all lines read before have been emitted.
+         */
+        private void readBatch() {
+            size = 0;
+            position = 0;
+            try {
+                while (size < lines.length && getIterator().hasNext()) {
+                    lines[size] = getIterator().next();
+                    size++;
+                }
+            } catch (RuntimeException e) {
+                sourceError = e;
+            }
+            counter += size;
+            log.debug("processing lines {} to {}", counter - size + 1, counter);
+            processBatch(getStrategy());
+        }
+
+        private void processBatch(final HeaderDirectMappingStrategy<T> mapper) {
+            final List<CsvColumn> columns = getColumnsForIteration();
+            final int numColumns = columns.size();
+            if (outputs == null || outputs.length != numColumns) {
+                outputs = new Object[numColumns][lines.length];
+                errors = new RuntimeException[numColumns][lines.length];
+            }
+            final ColumnPipeline<?>[] columnPipelines = pipelinesFor(columns);
+            final PropertyDescriptor[] props = new PropertyDescriptor[numColumns];
+            final RuntimeException[] columnErrors = new RuntimeException[numColumns];
+
+            // decode column by column
+            for (int c = 0; c < numColumns; ++c) {
+                final CsvColumn csvColumn = columns.get(c);
+                try {
+                    props[c] = findDescriptor(mapper, csvColumn);
+                } catch (CsvToBeanException e) {
+                    columnErrors[c] = e;
+                    continue;
+                }
+                if (props[c] == null) {
+                    continue;
+                }
+                if (columnPipelines[c] == null) {
+                    columnPipelines[c] = decoderManager.getPipeline(props[c].getName());
+                }
+                for (int r = 0; r < size; ++r) {
+                    try {
+                        values[r] = getText(csvColumn, lines[r]);
+                    } catch (ArrayIndexOutOfBoundsException e) {
+                        values[r] = null;
+                    }
+                }
+                columnPipelines[c].applyBatch(values, size, outputs[c], errors[c]);
+            }
+
+            // assemble the beans line by line
+            for (int r = 0; r < size; ++r) {
+                try {
+                    beans[r] = assembleBean(mapper, columns, props, columnErrors, r);
+                    failures[r] = null;
+                } catch (Throwable e) {
+                    beans[r] = null;
+                    failures[r] = e;
+                }
+            }
+            for (int c = 0; c < numColumns; ++c) {
+                Arrays.fill(outputs[c], 0, size, null);
+                Arrays.fill(errors[c], 0, size, null);
+            }
+            Arrays.fill(values, 0, size, null);
+        }
+
+        private T assembleBean(final HeaderDirectMappingStrategy<T> mapper,
+                               final List<CsvColumn> columns,
+                               final PropertyDescriptor[] props,
+                               final RuntimeException[] columnErrors,
+                               final int row) {
+            final T bean = createBean(mapper);
+            for (int c = 0; c < props.length; ++c) {
+                if (columnErrors[c] != null) {
+                    throw columnErrors[c];
+                }
+                if (props[c] == null) {
+                    continue;
+                }
+                final CsvColumn csvColumn = columns.get(c);
+                // re-reading the raw text throws for missing mandatory columns
+                final String value = getText(csvColumn, lines[row]);
+                final RuntimeException error = errors[c][row];
+                if (error instanceof CsvToBeanException) {
+                    throw conversionError(mapper, csvColumn.index(), value, error);
+                }
+                if (error != null) {
+                    throw error;
+                }
+                assignValue(bean, mapper, csvColumn, props[c], outputs[c][row]);
+            }
+            assignColumnData(bean);
+            return bean;
+        }
+
+    }
+
+    /**
+     * Iterator class used for decoding the input into {@link ColumnBatch}es.
+     * <p>
+     * Lines are decoded column by column, as by the {@link BatchingIterator},
+     * but the values are copied into the typed vectors of a single, reused
+     * batch instead of being assigned to beans. Lines with errors are skipped
+     * if {@link #isOnErrorSkipLine()} is set. Otherwise, the lines before the
+     * erroneous one are emitted as a batch, and the error is thrown by the
+     * following call to {@link #next()}, after which iteration resumes
+     * with the next line.
+     */
+    class ColumnBatchIterator implements Iterator<ColumnBatch> {
+        private final Iterator<String[]> iterator;
+        private final List<CsvColumn> columns;
+        private final PropertyDescriptor[] props;
+        private final ColumnPipeline<?>[] columnPipelines;
+        private final int[] vectorColumns;
+        private final ColumnBatch batch;
+        private final String[][] lines;
+        private final String[] values;
+        private final boolean[] missing;
+        private final Object[][] outputs;
+        private final RuntimeException[][] errors;
+        private final Object[] row;
+        private RuntimeException sourceError;
+        private RuntimeException pendingError;
+        private boolean ready;
+        private long counter;
+        private int size;
+        private int position;
+
+        ColumnBatchIterator(final int skipLines, final Iterator<String[]> iterator, final int capacity) {
+            this.iterator = iterator;
+            prepareIteration(skipLines, iterator);
+            final HeaderDirectMappingStrategy<T> mapper = getStrategy();
+            this.columns = getColumnsForIteration();
+            final int numColumns = columns.size();
+            this.props = descriptorsFor(mapper, columns);
+            this.columnPipelines = pipelinesFor(columns);
+            final List<ColumnBatch.ColumnVector> vectors = new ArrayList<>();
+            final List<Integer> mappedColumns = new ArrayList<>();
+            for (int c = 0; c < numColumns; ++c) {
+                if (props[c] == null) {
+                    continue;
+                }
+                final CsvColumn csvColumn = columns.get(c);
+                vectors.add(ColumnBatch.vectorFor(csvColumn.name(), props[c].getPropertyType(), capacity));
+                mappedColumns.add(c);
+            }
+            this.vectorColumns = new int[mappedColumns.size()];
+            for (int v = 0; v < vectorColumns.length; ++v) {
+                vectorColumns[v] = mappedColumns.get(v);
+            }
+            this.batch = new ColumnBatch(vectors, capacity);
+            this.lines = new String[capacity][];
+            this.values = new String[capacity];
+            this.missing = new boolean[capacity];
+            this.outputs = new Object[numColumns][capacity];
+            this.errors = new RuntimeException[numColumns][capacity];
+            this.row = new Object[vectorColumns.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && pendingError == null) {
+                fillBatch();
+            }
+            return ready || pendingError != null;
+        }
+
+        /**
+         * Return the next batch.
+         * <p>
+         * The batch instance is reused, and gets overwritten by the following
+         * call to either {@link #hasNext()} or {@link #next()}.
+         * @return the next batch
+         */
+        @Override
+        public ColumnBatch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (ready) {
+                ready = false;
+                return batch;
+            }
+            final RuntimeException e = pendingError;
+            pendingError = null;
+            throw e;
+        }
+
+        private void fillBatch() {
+            batch.clear();
+            while (batch.getSize() < batch.getCapacity() && pendingError == null) {
+                if (position == size) {
+                    if (sourceError != null) {
+                        pendingError = sourceError;
+                        sourceError = null;
+                        break;
+                    }
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    readLines();
+                    continue;
+                }
+                appendLine(getStrategy(), position++);
+            }
+            ready = batch.getSize() > 0;
+        }
+
+        /**
+         * Read and decode the next lines, as many as fit into a batch.
+         * <p>
+         * An exception thrown by the input source ends the lines. It is re-thrown
+         * once all lines read before have been emitted.
+         */
+        private void readLines() {
+            Arrays.fill(lines, 0, size, null);
+            size = 0;
+            position = 0;
+            try {
+                while (size < lines.length && iterator.hasNext()) {
+                    lines[size] = iterator.next();
+                    size++;
+                }
+            } catch (RuntimeException e) {
+                sourceError = e;
+            }
+            counter += size;
+            log.debug("processing lines {} to {}", counter - size + 1, counter);
+            Arrays.fill(missing, 0, size, false);
+            for (int c : vectorColumns) {
+                final CsvColumn csvColumn = columns.get(c);
+                for (int r = 0; r < size; ++r) {
+                    try {
+                        values[r] = getText(csvColumn, lines[r]);
+                    } catch (ArrayIndexOutOfBoundsException e) {
+                        values[r] = null;
+                        missing[r] = true;
+                    }
+                }
+                columnPipelines[c].applyBatch(values, size, outputs[c], errors[c]);
+            }
+            Arrays.fill(values, 0, size, null);
+        }
+
+        private void appendLine(final HeaderDirectMappingStrategy<T> mapper, final int line) {
+            try {
+                for (int v = 0; v < vectorColumns.length; ++v) {
+                    final int c = vectorColumns[v];
+                    final CsvColumn csvColumn = columns.get(c);
+                    final RuntimeException error = errors[c][line];
+                    if (missing[line] || error != null) {
+                        // re-reading the raw text throws for missing mandatory columns
+                        final String value = getText(csvColumn, lines[line]);
+                        if (error instanceof CsvToBeanException) {
+                            throw conversionError(mapper, csvColumn.index(), value, error);
+                        }
+                        if (error != null) {
+                            throw error;
+                        }
+                    }
+                    row[v] = outputs[c][line];
+                }
+            } catch (RuntimeException e) {
+                final long lineNumber = counter - size + line + 1;
+                if (isOnErrorSkipLine()) {
+                    log.debug("found error on line {}\n{}", lineNumber, e);
+                    return;
+                }
+                final String msg = String.format(
+                        "could not decode line %d\nline: %s",
+                        lineNumber,
+                        new ArrayList<>(Arrays.asList(lines[line])));
+                log.error(msg);
+                pendingError = new CsvToBeanException(msg, e);
+                return;
+            }
+            finally {
+                for (int c : vectorColumns) {
+                    outputs[c][line] = null;
+                    errors[c][line] = null;
+                }
+            }
+            batch.append(row);
+            Arrays.fill(row, null);
+        }
+
+    }
+
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A push-based parser for csv data arriving in chunks of arbitrary size.
+ * <p>
+ * Where a {@link CsvToBeanMapper} pulls its data from a blocking source,
+ * a {@code FeedParser} gets the data pushed by {@link #feed(ByteBuffer)} or
+ * {@link #feed(CharBuffer)}, e.g. from the event loop of a non-blocking
+ * channel. Every completed bean is handed over to a callback before the
+ * call returns, and no call ever blocks. Incomplete characters, lines and
+ * (multi-line) records are carried over to the next chunk, until
+ * {@link #endOfInput()} flushes the remainder.
+ * <p>
+ * Bytes are decoded by the charset of the {@link Builder}. The parser
+ * options, the header, skipped lines and all decoders, post-processors and
+ * -validators apply, as they would for a {@code Reader}. Lines are terminated
+ * by {@code \n}, {@code \r\n} or {@code \r}. To keep the memory bounded, a record
+ * may span at most {@link #maxRecordLength()} characters.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @param <T> type of bean for conversion
+ * @see Builder#buildFeedParser(Consumer)
+ * @see MapperTemplate#forFeed(Consumer)
+ */
+@Slf4j
+public final class FeedParser<T> {
+    /**
+     * default maximum number of characters of a single record
+     */
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 1 << 20;
+    /**
+     * Capacity above which the line buffer is not kept after a long record.
+     */
+    private static final int LINE_BUFFER_RETAIN_CAPACITY = 1 << 13;
+    private static final int CHAR_BUFFER_SIZE = 1 << 13;
+    /**
+     * Upper bound of the bytes of a single character that may be split across chunks.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 16;
+
+    private final CsvToBeanMapperImpl<T> mapper;
+    private final CsvParser parser;
+    private final Consumer<? super T> callback;
+    private final CharsetDecoder decoder;
+    private final CharBuffer decoded = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final ByteBuffer carry;
+    private final boolean onErrorSkipLine;
+    private StringBuilder line = new StringBuilder();
+    private String[] record;
+    private boolean afterCarriageReturn;
+    private int linesToSkip;
+    private boolean ended;
+
+    /**
+     * Maximum number of characters of a single record, including line
+     * breaks within quoted fields.
+     *
+     * @param maxRecordLength maximum number of characters of a single record
+     * @return maximum number of characters of a single record
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int maxRecordLength = DEFAULT_MAX_RECORD_LENGTH;
+    /**
+     * Number of lines read so far.
+     * @return number of lines read so far
+     */
+    @Getter
+    private long lineCount;
+    /**
+     * Number of beans handed over to the callback so far.
+     * @return number of beans handed over to the callback so far
+     */
+    @Getter
+    private long beanCount;
+
+    FeedParser(final Builder<T> builder, final Consumer<? super T> callback) {
+        this.mapper = new CsvToBeanMapperImpl<>(builder);
+        this.parser = CsvParser.of(
+                builder.separator(),
+                builder.quoteChar(),
+                builder.escapeChar(),
+                builder.quotingMode().isStrictQuotes(),
+                builder.isIgnoreLeadingWhiteSpace(),
+                builder.quotingMode().isIgnoreQuotes(),
+                builder.multiLine());
+        this.callback = callback;
+        this.decoder = builder.charset()
+                .newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.carry = ByteBuffer.allocate(MAX_BYTES_PER_CHAR);
+        this.onErrorSkipLine = builder.isOnErrorSkipLine();
+        this.linesToSkip = builder.skipLines();
+    }
+
+    /**
+     * Parse a chunk of bytes.
+     * <p>
+     * All bytes remaining in the buffer are consumed.
+     * @param bytes the chunk of bytes
+     * @throws IllegalStateException if the end of the input has been signalled
+     * @throws CsvToBeanException if a record cannot be parsed or decoded, or exceeds the maximum length
+     */
+    public void feed(@NonNull final ByteBuffer bytes) throws IllegalStateException, CsvToBeanException {
+        checkNotEnded();
+        // complete a character split across chunks first
+        while (carry.position() > 0 && bytes.hasRemaining()) {
+            carry.put(bytes.get());
+            carry.flip();
+            decode(carry, false);
+            carry.compact();
+        }
+        if (carry.position() == 0) {
+            decode(bytes, false);
+        }
+        if (bytes.hasRemaining()) {
+            carry.put(bytes);
+        }
+    }
+
+    /**
+     * Parse a chunk of characters.
+     * <p>
+     * All characters remaining in the buffer are consumed.
+     * @param chars the chunk of characters
+     * @throws IllegalStateException if the end of the input has been signalled
+     * @throws CsvToBeanException if a record cannot be parsed or decoded, or exceeds the maximum length
+     */
+    public void feed(@NonNull final CharBuffer chars) throws IllegalStateException, CsvToBeanException {
+        checkNotEnded();
+        accept(chars);
+    }
+
+    /**
+     * Signal the end of the input, and parse the remaining data.
+     * @throws IllegalStateException on repeated invocation
+     * @throws CsvToBeanException if the remaining data cannot be parsed or decoded
+     */
+    public void endOfInput() throws IllegalStateException, CsvToBeanException {
+        checkNotEnded();
+        ended = true;
+        carry.flip();
+        decode(carry, true);
+        carry.clear();
+        decoded.clear();
+        decoder.flush(decoded);
+        decoded.flip();
+        accept(decoded);
+        if (line.length() > 0) {
+            acceptLine(line.toString());
+        }
+        if (parser.isPending()) {
+            final String msg = String.format("un-terminated quoted field at end of input in line %d", lineCount);
+            log.error(msg);
+            throw new CsvToBeanException(msg, new IOException(msg));
+        }
+        log.debug(String.format("parsed %d lines into %d beans", lineCount, beanCount));
+    }
+
+    /**
+     * Get the type of bean for conversion.
+     * @return type of bean for conversion
+     */
+    public Class<? extends T> getType() {
+        return mapper.getType();
+    }
+
+    private void checkNotEnded() throws IllegalStateException {
+        if (ended) {
+            final String msg = "the end of the input has already been signalled";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    /**
+     * Decode bytes, and parse the characters.
+     */
+    private void decode(final ByteBuffer bytes, final boolean endOfInput) {
+        while (true) {
+            decoded.clear();
+            final CoderResult result = decoder.decode(bytes, decoded, endOfInput);
+            decoded.flip();
+            accept(decoded);
+            if (!result.isOverflow()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Split characters into lines.
+     */
+    private void accept(final CharBuffer chars) {
+        while (chars.hasRemaining()) {
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (chars.get(chars.position()) == '\n') {
+                    chars.get();
+                    continue;
+                }
+            }
+            final int start = chars.position();
+            final int limit = chars.limit();
+            int end = start;
+            while (end < limit) {
+                final char c = chars.get(end);
+                if (c == '\n' || c == '\r') {
+                    break;
+                }
+                ++end;
+            }
+            checkLength(end - start);
+            final CharSequence content = chars.subSequence(0, end - start);
+            if (end == limit) {
+                line.append(content);
+                chars.position(limit);
+                return;
+            }
+            afterCarriageReturn = chars.get(end) == '\r';
+            chars.position(end + 1);
+            if (line.length() == 0) {
+                acceptLine(content.toString());
+            }
+            else {
+                line.append(content);
+                final String text = line.toString();
+                resetLine();
+                acceptLine(text);
+            }
+        }
+    }
+
+    /**
+     * Fail, if appending to the current record would exceed the maximum length.
+     */
+    private void checkLength(final int additional) throws CsvToBeanException {
+        final String pending = parser.getPendingLine();
+        final long length = (long) line.length() + additional + (pending == null ? 0 : pending.length());
+        if (length > maxRecordLength) {
+            final String msg = String.format("record in line %d exceeds the maximum length of %d characters",
+                    lineCount + 1, maxRecordLength);
+            log.error(msg);
+            throw new CsvToBeanException(msg, new IOException(msg));
+        }
+    }
+
+    private void resetLine() {
+        if (line.capacity() > LINE_BUFFER_RETAIN_CAPACITY) {
+            line = new StringBuilder();
+        }
+        else {
+            line.setLength(0);
+        }
+    }
+
+    /**
+     * Parse a complete line, and emit the record once it is complete, too.
+     */
+    private void acceptLine(final String text) {
+        ++lineCount;
+        if (linesToSkip > 0) {
+            --linesToSkip;
+            return;
+        }
+        final String[] fields;
+        try {
+            fields = parser.parseLine(text, parser.isMultiLine());
+        } catch (IOException e) {
+            final String msg = String.format("could not parse line %d ['%s']", lineCount, text);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        if (fields.length > 0) {
+            record = record == null ? fields : combine(record, fields);
+        }
+        if (parser.isPending()) {
+            return;
+        }
+        final String[] complete = record;
+        record = null;
+        if (complete != null) {
+            acceptRecord(complete);
+        }
+    }
+
+    private void acceptRecord(final String[] complete) {
+        if (!mapper.getStrategy().isHeaderDefined()) {
+            Builder.setHeader(mapper.getStrategy(), complete);
+            return;
+        }
+        final T bean;
+        try {
+            bean = mapper.decodeRecord(complete);
+        } catch (Throwable e) {
+            final String msg = String.format("could not generate bean from line %d\nline: %s\nbean class: %s",
+                    lineCount, Arrays.asList(complete), getType().getCanonicalName());
+            if (onErrorSkipLine) {
+                log.warn(msg, e);
+                return;
+            }
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        ++beanCount;
+        callback.accept(bean);
+    }
+
+    private static String[] combine(final String[] first, final String[] second) {
+        final String[] combined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, combined, first.length, second.length);
+        return combined;
+    }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A set of csv files to be processed by a single mapper.
+ * <p>
+ * The files are given either explicitly, as all regular files of a
+ * directory, or as the files of a directory tree matching a glob pattern.
+ * Directories and glob patterns are expanded only when processing starts,
+ * and the files are processed in the lexicographical order of their paths.
+ * <p>
+ * Besides the files, a set determines how they are processed: the number
+ * of files processed concurrently, whether the beans are emitted file by
+ * file, and what happens if a single file fails.
+ *
+ * @see MultiFileMapper
+ */
+@Slf4j
+public final class FileSet {
+    /**
+     * default number of files processed concurrently
+     */
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    /**
+     * default number of bean batches that may wait per file
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+    /**
+     * default number of beans per batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final List<Path> paths;
+    private final Path directory;
+    private final PathMatcher matcher;
+    private final String pattern;
+
+    /**
+     * Number of files processed concurrently.
+     *
+     * @param parallelism number of files processed concurrently
+     * @return number of files processed concurrently
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int parallelism = DEFAULT_PARALLELISM;
+    /**
+     * Emit the beans file by file, in the order of the files.
+     * <p>
+     * Otherwise, the beans of all files are interleaved as they get
+     * ready, while the order within every file is kept.
+     *
+     * @param ordered emit the beans file by file
+     * @return if the beans are emitted file by file
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private boolean ordered;
+    /**
+     * Number of bean batches that may wait per file.
+     *
+     * @param queueCapacity number of bean batches that may wait per file
+     * @return number of bean batches that may wait per file
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /**
+     * Number of beans per batch handed over from a file worker.
+     *
+     * @param batchSize number of beans per batch
+     * @return number of beans per batch
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /**
+     * What to do, if a single file fails.
+     *
+     * @param onFailure what to do, if a single file fails
+     * @return what to do, if a single file fails
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private OnFailure onFailure = OnFailure.ABORT;
+
+    private FileSet(final List<Path> paths, final Path directory, final String pattern) {
+        this.paths = paths;
+        this.directory = directory;
+        this.pattern = pattern;
+        this.matcher = pattern == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    }
+
+    /**
+     * Create a set of the given files.
+     * @param paths the files
+     * @return the new set
+     * @throws IllegalArgumentException if no file is given
+     */
+    public static FileSet of(@NonNull final List<Path> paths) throws IllegalArgumentException {
+        if (paths.isEmpty()) {
+            final String msg = "expected at least one file";
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return new FileSet(Collections.unmodifiableList(new ArrayList<>(paths)), null, null);
+    }
+
+    /**
+     * Create a set of the given files.
+     * @param paths the files
+     * @return the new set
+     * @throws IllegalArgumentException if no file is given
+     */
+    public static FileSet of(@NonNull final Path... paths) throws IllegalArgumentException {
+        return of(Arrays.asList(paths));
+    }
+
+    /**
+     * Create a set of all regular files of a directory.
+     * <p>
+     * Subdirectories are not descended into.
+     * @param directory the directory
+     * @return the new set
+     */
+    public static FileSet directory(@NonNull final Path directory) {
+        return new FileSet(null, directory, null);
+    }
+
+    /**
+     * Create a set of all regular files in a directory tree, matching a glob pattern.
+     * <p>
+     * The pattern is matched against the paths relative to {@code directory},
+     * e.g. {@code *.csv} for the csv files of the directory itself, or
+     * {@code 2016-*}{@code /*.csv} for the csv files of the subdirectories
+     * of the year 2016. See {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * for the syntax.
+     * @param directory the base directory
+     * @param pattern the glob pattern
+     * @return the new set
+     */
+    public static FileSet glob(@NonNull final Path directory, @NonNull final String pattern) {
+        return new FileSet(null, directory, pattern);
+    }
+
+    /**
+     * Resolve the files of this set.
+     * @return the files, ordered by path
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<Path> resolve() throws IOException {
+        if (paths != null) {
+            return paths;
+        }
+        if (!Files.isDirectory(directory)) {
+            final String msg = String.format("not a directory: %s", directory);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        final int depth = matcher == null ? 1 : Integer.MAX_VALUE;
+        try (Stream<Path> stream = Files.walk(directory, depth)) {
+            final List<Path> files = stream
+                    .filter(Files::isRegularFile)
+                    .filter(path -> matcher == null || matcher.matches(directory.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+            log.debug(String.format("resolved %d file(s) in %s", files.size(), directory));
+            return files;
+        }
+    }
+
+    /**
+     * Check the consistency of the processing options.
+     * @throws IllegalStateException if the options are inconsistent
+     */
+    void checkOptions() throws IllegalStateException {
+        if (parallelism < 1) {
+            final String msg = String.format("expected: parallelism > 0, got: %d", parallelism);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (queueCapacity < 1) {
+            final String msg = String.format("expected: queueCapacity > 0, got: %d", queueCapacity);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (batchSize < 1) {
+            final String msg = String.format("expected: batchSize > 0, got: %d", batchSize);
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (paths != null) {
+            return String.format("FileSet(files=%d)", paths.size());
+        }
+        return pattern == null
+                ? String.format("FileSet(directory=%s)", directory)
+                : String.format("FileSet(directory=%s, pattern=%s)", directory, pattern);
+    }
+
+    /**
+     * Enumerate the reactions to a failing file.
+     */
+    @RequiredArgsConstructor
+    public enum OnFailure {
+        /**
+         * Stop processing all files, and rethrow the error.
+         */
+        ABORT("abort"),
+        /**
+         * Log the error and go on with the other files.
+         * <p>
+         * The beans that have been emitted for the failing file
+         * before the error occurred are not revoked.
+         */
+        SKIP("skip");
+
+        /**
+         * The corresponding text value.
+         * @return the corresponding text value
+         */
+        @Getter
+        private final String textValue;
+
+        /**
+         * Get the enumeration corresponding to the given text.
+         * @param text text to be mapped to an enumeration constant
+         * @return the corresponding enumeration constant
+         * @throws IllegalArgumentException if no enumeration constant corresponds to the given text
+         */
+        public static OnFailure forText(@NonNull final String text) throws IllegalArgumentException {
+            for (OnFailure value : values()) {
+                if (value.getTextValue().equals(text)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException(String.format("unknown failure policy: %s", text));
+        }
+    }
+
+}
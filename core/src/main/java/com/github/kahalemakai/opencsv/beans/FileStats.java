@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput statistics of a single file processed by a {@link MultiFileMapper}.
+ */
+public final class FileStats {
+    /**
+     * The processed file.
+     * @return the processed file
+     */
+    @Getter
+    private final Path path;
+    /**
+     * Size of the file in bytes.
+     * @return size of the file in bytes
+     */
+    @Getter
+    private final long bytes;
+    /**
+     * Number of beans emitted for the file.
+     * @return number of beans emitted for the file
+     */
+    @Getter
+    private final long rows;
+    /**
+     * Time spent on the file in nanoseconds, including the time spent
+     * waiting for the consumer of the beans.
+     * @return time spent on the file in nanoseconds
+     */
+    @Getter
+    private final long nanos;
+    /**
+     * The error the file failed with, or {@code null}.
+     * @return the error the file failed with, or {@code null}
+     */
+    @Getter
+    private final Throwable failure;
+
+    FileStats(final Path path, final long bytes, final long rows, final long nanos, final Throwable failure) {
+        this.path = path;
+        this.bytes = bytes;
+        this.rows = rows;
+        this.nanos = nanos;
+        this.failure = failure;
+    }
+
+    /**
+     * Tell if the file failed.
+     * @return if the file failed
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Get the number of beans emitted per second.
+     * @return number of beans emitted per second
+     */
+    public double getRowsPerSecond() {
+        return perSecond(rows);
+    }
+
+    /**
+     * Get the number of bytes read per second.
+     * @return number of bytes read per second
+     */
+    public double getBytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    private double perSecond(final long count) {
+        return nanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FileStats(path=%s, bytes=%d, rows=%d, millis=%d, failed=%s)",
+                path, bytes, rows, TimeUnit.NANOSECONDS.toMillis(nanos), isFailed());
+    }
+
+}
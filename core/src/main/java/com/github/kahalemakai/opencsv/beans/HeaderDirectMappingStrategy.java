@@ -198,6 +198,51 @@ public class HeaderDirectMappingStrategy<T> extends HeaderColumnNameMappingStrat
         return strategy;
     }
 
+    /**
+     * Create an independent copy of the strategy.
+     * <p>
+     * The copy shares the header and the already introspected bean properties
+     * with this instance, thus creating it requires no reflection at all. Since
+     * both the header and the property lookup tables are never modified after
+     * initialization, the copy may be used concurrently to this instance.
+     * @return a copy of the strategy
+     * @throws IllegalStateException if the bean type cannot be introspected
+     */
+    HeaderDirectMappingStrategy<T> copy() throws IllegalStateException {
+        return copy(true);
+    }
+
+    /**
+     * Create an independent copy of the strategy, optionally leaving out the header.
+     * @param withHeader if false, the copy gets no header, even if one is defined
+     * @return a copy of the strategy
+     * @throws IllegalStateException if the bean type cannot be introspected
+     * @see #copy()
+     */
+    HeaderDirectMappingStrategy<T> copy(final boolean withHeader) throws IllegalStateException {
+        if (descriptorMap == null) {
+            try {
+                descriptorMap = loadDescriptorMap();
+            } catch (IntrospectionException e) {
+                final String msg = String.format("could not introspect bean type <%s>", getType());
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+        }
+        final HeaderDirectMappingStrategy<T> copy = new HeaderDirectMappingStrategy<>();
+        copy.type = type;
+        copy.annotationDriven = annotationDriven;
+        copy.fieldMap = fieldMap;
+        copy.descriptorMap = descriptorMap;
+        if (headerDefined && withHeader) {
+            copy.header = header;
+            copy.headerAsList = headerAsList;
+            copy.columnsToParse = columnsToParse;
+            copy.headerDefined = true;
+        }
+        return copy;
+    }
+
     @Override
     public String toString() {
         return String.format("HeaderDirectMappingStrategy(type=%s, header=%s)",
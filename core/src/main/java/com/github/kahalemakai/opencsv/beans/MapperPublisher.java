@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BeanPublisher} pulling the beans from the iterator of a {@link CsvToBeanMapper}.
+ * <p>
+ * The iterator is obtained on the first request, and advanced only as far
+ * as requested, such that parsing never runs ahead of the subscriber. On
+ * completion, error and cancellation, the mapper gets closed, which in turn
+ * closes the underlying reader. Requests are serialized by a work-in-progress
+ * counter: whichever thread finds it at zero drains the outstanding demand,
+ * all other threads merely add to the demand. Hence, requesting from within
+ * {@link BeanPublisher.Subscriber#onNext(Object)} does not recurse.
+ *
+ * @param <T> type of bean to be emitted
+ */
+@Slf4j
+final class MapperPublisher<T> implements BeanPublisher<T> {
+    private final CsvToBeanMapper<T> mapper;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    MapperPublisher(final CsvToBeanMapper<T> mapper, final Executor executor) {
+        this.mapper = mapper;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(@NonNull final Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            final String msg = "publisher supports a single subscriber only";
+            log.error(msg);
+            subscriber.onSubscribe(NoopSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException(msg));
+            return;
+        }
+        subscriber.onSubscribe(new Drain(subscriber));
+    }
+
+    private enum NoopSubscription implements Subscription {
+        INSTANCE;
+
+        @Override
+        public void request(final long n) { }
+
+        @Override
+        public void cancel() { }
+    }
+
+    private final class Drain implements Subscription, Runnable {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        /**
+         * Only accessed by the draining thread.
+         */
+        private Iterator<T> iterator;
+        private boolean done;
+
+        Drain(final Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                final String msg = String.format("expected: n > 0, got: %d", n);
+                log.error(msg);
+                invalidRequest = new IllegalArgumentException(msg);
+            }
+            else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+            if (executor == null) {
+                run();
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                log.error("executor rejected the publisher", e);
+                fail(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (!done) {
+                if (cancelled) {
+                    done = true;
+                    final Exception e = closeMapper();
+                    if (e != null) {
+                        log.warn("could not close mapper on cancellation", e);
+                    }
+                    return;
+                }
+                if (invalidRequest != null) {
+                    fail(invalidRequest);
+                    return;
+                }
+                final long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled && invalidRequest == null) {
+                    final T bean;
+                    try {
+                        if (iterator == null) {
+                            iterator = mapper.iterator();
+                        }
+                        if (!iterator.hasNext()) {
+                            complete();
+                            return;
+                        }
+                        bean = iterator.next();
+                    } catch (RuntimeException e) {
+                        fail(e);
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(bean);
+                    } catch (RuntimeException e) {
+                        done = true;
+                        closeMapper();
+                        throw e;
+                    }
+                    ++emitted;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void complete() {
+            done = true;
+            final Exception e = closeMapper();
+            if (e == null) {
+                subscriber.onComplete();
+            }
+            else {
+                log.error("could not close mapper", e);
+                subscriber.onError(e);
+            }
+        }
+
+        private void fail(final Throwable cause) {
+            done = true;
+            final Exception e = closeMapper();
+            if (e != null) {
+                cause.addSuppressed(e);
+            }
+            subscriber.onError(cause);
+        }
+
+        private Exception closeMapper() {
+            try {
+                mapper.close();
+                return null;
+            } catch (Exception e) {
+                return e;
+            }
+        }
+    }
+
+}
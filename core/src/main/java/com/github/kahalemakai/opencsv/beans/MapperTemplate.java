@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.config.Sink;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compiled, immutable configuration of a {@link CsvToBeanMapper}.
+ * <p>
+ * A template is created once, either by {@link Builder#toTemplate()} or by
+ * {@link com.github.kahalemakai.opencsv.config.ConfigParser#compile()}, and
+ * can then be bound to an arbitrary number of sources. Binding a source
+ * neither requires parsing an xml config file, nor instantiating or compiling
+ * decoders, nor introspecting the bean type: all of that is shared between
+ * the mappers created from the same template.
+ * <p>
+ * A template may be used concurrently from multiple threads. The
+ * {@code CsvToBeanMapper} instances obtained from it are independent of
+ * each other, but are themselves not thread-safe, as usual.
+ * <p>
+ * Since a {@link Sink} consumes a single iterator, sinks cannot be shared.
+ * Instead, a factory for sinks can be attached to the template by
+ * {@link #withSinks(Supplier)}, which gets invoked once per binding.
+ *
+ * @param <T> type of bean for conversion
+ */
+@Slf4j
+public final class MapperTemplate<T> {
+    private final Builder<T> prototype;
+    private final Supplier<? extends Sink> sinkFactory;
+
+    MapperTemplate(final Builder<T> prototype, final Supplier<? extends Sink> sinkFactory) {
+        this.prototype = prototype;
+        this.sinkFactory = sinkFactory;
+    }
+
+    /**
+     * Compile the configuration of a {@link Builder} into a template.
+     * @param builder the configured builder, without any source or sink
+     * @param <S> type of bean for conversion
+     * @return the compiled template
+     * @throws IllegalStateException if a source or a sink has been set, or the configuration is invalid
+     * @see Builder#toTemplate()
+     */
+    public static <S> MapperTemplate<S> of(@NonNull final Builder<S> builder) throws IllegalStateException {
+        return builder.toTemplate();
+    }
+
+    /**
+     * Get a template that equips every bound mapper with a fresh sink.
+     * @param sinkFactory factory that is invoked once per binding
+     * @return a new template, sharing the configuration of this instance
+     */
+    public MapperTemplate<T> withSinks(@NonNull final Supplier<? extends Sink> sinkFactory) {
+        return new MapperTemplate<>(prototype, sinkFactory);
+    }
+
+    /**
+     * Tell if the bound mappers get a sink attached.
+     * @return if the bound mappers get a sink attached
+     */
+    public boolean hasSinks() {
+        return sinkFactory != null;
+    }
+
+    /**
+     * Get the type of bean for conversion.
+     * @return type of bean for conversion
+     */
+    public Class<? extends T> getType() {
+        return prototype.getStrategy().getType();
+    }
+
+    /**
+     * Bind the template to a {@code Reader}.
+     * @param reader reader of csv data
+     * @return a new mapper instance
+     */
+    public CsvToBeanMapper<T> forReader(@NonNull final Reader reader) {
+        return bind(newBuilder().withReader(reader));
+    }
+
+    /**
+     * Bind the template to an {@code InputStream}.
+     * <p>
+     * The stream gets decoded using the template's charset.
+     * @param inputStream stream of csv data
+     * @return a new mapper instance
+     */
+    public CsvToBeanMapper<T> forInputStream(@NonNull final InputStream inputStream) {
+        return bind(newBuilder().withInputStream(inputStream));
+    }
+
+    /**
+     * Bind the template to a file.
+     * <p>
+     * Unless the template has sinks, the {@link CsvToBeanMapper#parallelStream()}
+     * of the mapper splits the file by byte ranges.
+     * @param path path of the csv file
+     * @return a new mapper instance
+     * @throws IOException if the file cannot be opened
+     */
+    public CsvToBeanMapper<T> forPath(@NonNull final Path path) throws IOException {
+        final InputStream inputStream = Files.newInputStream(path);
+        try {
+            return bind(newBuilder().withInputStream(inputStream).splittableFile(path));
+        } catch (RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Bind the template to an {@code Iterable} of unparsed lines.
+     * @param lines the unparsed lines
+     * @return a new mapper instance
+     * @throws IllegalStateException if the iterable is depleted
+     */
+    public CsvToBeanMapper<T> forLines(@NonNull final Iterable<String> lines) throws IllegalStateException {
+        return bind(newBuilder().withLines(lines));
+    }
+
+    /**
+     * Bind the template to an {@code Iterable} of already parsed lines.
+     * @param lines the parsed lines
+     * @return a new mapper instance
+     * @throws IllegalStateException if the iterable is depleted
+     */
+    public CsvToBeanMapper<T> forParsedLines(@NonNull final Iterable<String[]> lines) throws IllegalStateException {
+        return bind(newBuilder().withParsedLines(lines));
+    }
+
+    /**
+     * Bind the template to an {@code InputStream} of binary rows.
+     * <p>
+     * Only the bean type and the sinks of the template apply to binary rows.
+     * @param inputStream stream of binary rows
+     * @return a new mapper instance
+     * @see Builder#withBinaryInputStream(InputStream)
+     */
+    public CsvToBeanMapper<T> forBinaryInputStream(@NonNull final InputStream inputStream) {
+        return bind(newBuilder().withBinaryInputStream(inputStream));
+    }
+
+    /**
+     * Bind the template to a columnar file.
+     * <p>
+     * Only the bean type and the sinks of the template apply to columnar files.
+     * @param path path of the columnar file
+     * @param scan the columns to read and the filters to apply
+     * @return a new mapper instance
+     * @see Builder#withColumnarFile(java.io.File, ColumnarScan)
+     */
+    public CsvToBeanMapper<T> forColumnarFile(@NonNull final Path path, @NonNull final ColumnarScan scan) {
+        return bind(newBuilder().withColumnarFile(path.toFile(), scan));
+    }
+
+    /**
+     * Bind the template to a set of files.
+     * <p>
+     * If the template has sinks, every file gets a sink of its own.
+     * Otherwise, the beans of all files are merged into a single iterator.
+     * @param files the files and the options for processing them
+     * @return a new mapper instance
+     * @throws IllegalStateException if the processing options are invalid
+     * @see MultiFileMapper
+     */
+    public MultiFileMapper<T> forFiles(@NonNull final FileSet files) throws IllegalStateException {
+        return new MultiFileMapper<>(this, files, null);
+    }
+
+    /**
+     * Create a push-based parser from the template.
+     * <p>
+     * The sinks of the template do not apply, the beans are handed over to the callback instead.
+     * @param callback consumer of the completed beans
+     * @return a new parser instance
+     * @see Builder#buildFeedParser(Consumer)
+     */
+    public FeedParser<T> forFeed(@NonNull final Consumer<? super T> callback) {
+        return newBuilder().buildFeedParser(callback);
+    }
+
+    /**
+     * Create a source-less builder, sharing the configuration of this template.
+     * @return a new builder
+     */
+    Builder<T> newBuilder() {
+        return prototype.bindableCopy();
+    }
+
+    /**
+     * Obtain a new sink from the sink factory.
+     * @return the new sink
+     * @throws IllegalStateException if the factory returns {@code null}
+     */
+    Sink newSink() throws IllegalStateException {
+        final Sink sink = sinkFactory.get();
+        if (sink == null) {
+            final String msg = "sink factory returned null";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        return sink;
+    }
+
+    private CsvToBeanMapper<T> bind(final Builder<T> builder) {
+        if (sinkFactory != null) {
+            builder.sink(newSink());
+        }
+        return builder.build();
+    }
+
+}
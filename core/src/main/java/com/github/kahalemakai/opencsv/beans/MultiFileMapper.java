@@ -0,0 +1,473 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link CsvToBeanMapper} for all files of a {@link FileSet}.
+ * <p>
+ * Every file is mapped by a mapper of its own, bound to the same
+ * {@link MapperTemplate}, such that all files share a single compiled
+ * configuration. Unless the header has been set explicitly, it is read
+ * from the first line of every file, after skipping the configured number
+ * of lines. At most {@link FileSet#parallelism()} files are processed at
+ * the same time.
+ * <p>
+ * The beans of all files are either merged into a single iterator, which
+ * may also be fed into a single sink, or every file gets a sink of its own,
+ * if the template has been equipped with a sink factory by
+ * {@link MapperTemplate#withSinks(java.util.function.Supplier)}. Throughput
+ * statistics for every processed file are available from {@link #getFileStats()}.
+ * <p>
+ * A failing file either aborts processing of all files, or it gets skipped,
+ * depending on {@link FileSet#onFailure()}.
+ *
+ * @param <T> type of bean for conversion
+ */
+@Slf4j
+public final class MultiFileMapper<T> implements CsvToBeanMapper<T> {
+    /**
+     * Marker for the end of a file in the queue of bean batches.
+     */
+    private static final Object[] END_OF_FILE = new Object[0];
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final MapperTemplate<T> template;
+    private final FileSet files;
+    private final Sink sink;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile AtomicReferenceArray<FileStats> stats = new AtomicReferenceArray<>(0);
+    private volatile ExecutorService executor;
+
+    /**
+     * Create a mapper for a set of files.
+     * @param template the template to bind to every file
+     * @param files the files
+     * @param sink the sink for the merged beans of all files, or {@code null}
+     */
+    MultiFileMapper(final MapperTemplate<T> template, final FileSet files, final Sink sink) {
+        files.checkOptions();
+        this.template = template;
+        this.files = files;
+        this.sink = sink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<? extends T> getType() {
+        return template.getType();
+    }
+
+    /**
+     * Get an iterator over the beans of all files.
+     * <p>
+     * Processing of the files starts with this call. The beans of every file
+     * keep their order; if the file set is {@link FileSet#ordered() ordered},
+     * the beans are emitted file by file.
+     * @return an iterator over the beans of all files
+     * @throws UnsupportedOperationException if any sink has been added
+     * @throws IllegalStateException on repeated invocation
+     */
+    @Override
+    public Iterator<T> iterator() throws UnsupportedOperationException, IllegalStateException {
+        if (this.sink != null || template.hasSinks()) {
+            final String msg = "direct iteration forbidden, since a sink was added";
+            log.error(msg);
+            throw new UnsupportedOperationException(msg);
+        }
+        return mergedIterator();
+    }
+
+    /**
+     * Feed the beans into the sink(s).
+     * <p>
+     * With a single sink, the merged beans of all files are fed into it.
+     * With a sink per file, every file is consumed by its sink on the
+     * worker thread of the file.
+     * @throws UnsupportedOperationException if no sink has been added
+     * @throws IllegalStateException on repeated invocation
+     */
+    @Override
+    public void intoSink() throws UnsupportedOperationException, IllegalStateException, PluginException {
+        if (this.sink != null) {
+            try {
+                this.sink.accept(mergedIterator());
+            } catch (Throwable e) {
+                final String msg = "caught exception in sink";
+                log.error(msg);
+                throw new CsvToBeanException(msg, e);
+            }
+            finally {
+                try {
+                    this.sink.close();
+                } catch (IOException e) {
+                    final String msg = "failed to close sink";
+                    log.error(msg);
+                    throw new PluginException(msg, e);
+                }
+            }
+        }
+        else if (template.hasSinks()) {
+            intoSinkPerFile();
+        }
+        else {
+            final String msg = "no sink has been added";
+            log.error(msg);
+            throw new UnsupportedOperationException(msg);
+        }
+    }
+
+    /**
+     * Get the statistics of all files processed so far.
+     * @return the statistics, in the order of the files
+     */
+    public List<FileStats> getFileStats() {
+        final AtomicReferenceArray<FileStats> current = this.stats;
+        final List<FileStats> result = new ArrayList<>(current.length());
+        for (int i = 0; i < current.length(); ++i) {
+            final FileStats fileStats = current.get(i);
+            if (fileStats != null) {
+                result.add(fileStats);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Stop processing, and close all files.
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private Iterator<T> mergedIterator() {
+        final List<Path> paths = start();
+        final List<BlockingQueue<Object[]>> queues = new ArrayList<>();
+        if (files.ordered()) {
+            for (int i = 0; i < paths.size(); ++i) {
+                queues.add(new ArrayBlockingQueue<>(files.queueCapacity()));
+            }
+        }
+        else {
+            queues.add(new ArrayBlockingQueue<>(files.queueCapacity() * files.parallelism()));
+        }
+        for (int i = 0; i < paths.size(); ++i) {
+            final int index = i;
+            final BlockingQueue<Object[]> queue = queues.get(files.ordered() ? i : 0);
+            executor.execute(() -> readFile(index, paths.get(index), queue));
+        }
+        return new MergingIterator(paths.size(), queues);
+    }
+
+    private void intoSinkPerFile() {
+        final List<Path> paths = start();
+        final List<Future<?>> futures = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); ++i) {
+            final int index = i;
+            futures.add(executor.submit(() -> sinkFile(index, paths.get(index))));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final String msg = "interrupted while waiting for files";
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            shutdown();
+        }
+        rethrowFailure();
+    }
+
+    private List<Path> start() {
+        if (!started.compareAndSet(false, true)) {
+            final String msg = "the files have already been processed";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        final List<Path> paths;
+        try {
+            paths = files.resolve();
+        } catch (IOException e) {
+            final String msg = String.format("could not resolve %s", files);
+            log.error(msg);
+            throw new CsvToBeanException(msg, e);
+        }
+        if (paths.isEmpty()) {
+            log.warn(String.format("no files found for %s", files));
+        }
+        log.info(String.format("processing %d file(s) on %d thread(s)", paths.size(), files.parallelism()));
+        this.stats = new AtomicReferenceArray<>(paths.size());
+        this.executor = Executors.newFixedThreadPool(files.parallelism(), runnable -> {
+            final Thread thread = new Thread(runnable, "opencsv-file-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return paths;
+    }
+
+    /**
+     * Map a single file and hand its beans over in batches.
+     * <p>
+     * The end of the file is signalled even if processing has been
+     * aborted by another file, such that the consumer never waits in vain.
+     */
+    private void readFile(final int index, final Path path, final BlockingQueue<Object[]> queue) {
+        try {
+            if (failure.get() == null) {
+                mapFile(index, path, queue);
+            }
+            queue.put(END_OF_FILE);
+        } catch (InterruptedException e) {
+            // processing has been stopped
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void mapFile(final int index, final Path path, final BlockingQueue<Object[]> queue)
+            throws InterruptedException {
+        final long startTime = System.nanoTime();
+        long rows = 0;
+        Throwable error = null;
+        try (CsvToBeanMapper<T> mapper = template.forPath(path)) {
+            Object[] batch = new Object[files.batchSize()];
+            int size = 0;
+            for (T bean : mapper) {
+                batch[size++] = bean;
+                ++rows;
+                if (size == batch.length) {
+                    queue.put(batch);
+                    batch = new Object[files.batchSize()];
+                    size = 0;
+                    if (failure.get() != null) {
+                        // another file has failed, the statistics still cover the rows handed over
+                        break;
+                    }
+                }
+            }
+            if (size > 0) {
+                queue.put(Arrays.copyOf(batch, size));
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Throwable e) {
+            error = e;
+        }
+        finish(index, path, rows, System.nanoTime() - startTime, error);
+    }
+
+    /**
+     * Map a single file into a sink of its own.
+     */
+    private void sinkFile(final int index, final Path path) {
+        if (failure.get() != null) {
+            return;
+        }
+        final long startTime = System.nanoTime();
+        final AtomicLong rows = new AtomicLong();
+        Throwable error = null;
+        try {
+            final InputStream inputStream = Files.newInputStream(path);
+            final Builder<T> builder;
+            try {
+                builder = template.newBuilder().withInputStream(inputStream);
+                builder.sink(new CountingSink(template.newSink(), rows));
+            } catch (RuntimeException e) {
+                inputStream.close();
+                throw e;
+            }
+            try (CsvToBeanMapper<T> mapper = builder.build()) {
+                mapper.intoSink();
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+        finish(index, path, rows.get(), System.nanoTime() - startTime, error);
+    }
+
+    /**
+     * Record the statistics of a file, and apply the failure policy.
+     */
+    private void finish(final int index, final Path path, final long rows, final long nanos, final Throwable error) {
+        long bytes;
+        try {
+            bytes = Files.size(path);
+        } catch (IOException e) {
+            bytes = -1;
+        }
+        final FileStats fileStats = new FileStats(path, bytes, rows, nanos, error);
+        stats.set(index, fileStats);
+        if (error == null) {
+            log.info(String.format("processed %s: %d rows, %.1f rows/s, %.1f MB/s",
+                    path, rows, fileStats.getRowsPerSecond(), fileStats.getBytesPerSecond() / (1 << 20)));
+        }
+        else if (files.onFailure() == FileSet.OnFailure.SKIP) {
+            log.warn(String.format("skipping failed file %s after %d rows", path, rows), error);
+        }
+        else {
+            final String msg = String.format("failed to process file %s", path);
+            log.error(msg);
+            failure.compareAndSet(null, new CsvToBeanException(msg, error));
+        }
+    }
+
+    private void rethrowFailure() {
+        final Throwable error = failure.get();
+        if (error instanceof CsvToBeanException) {
+            throw (CsvToBeanException) error;
+        }
+        if (error != null) {
+            throw new CsvToBeanException("failed to process files", error);
+        }
+    }
+
+    private void shutdown() {
+        final ExecutorService current = this.executor;
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * Drains the queue(s) of bean batches.
+     */
+    private final class MergingIterator implements Iterator<T> {
+        private final int numFiles;
+        private final List<BlockingQueue<Object[]>> queues;
+        private int finished;
+        private Object[] batch = END_OF_FILE;
+        private int position;
+
+        MergingIterator(final int numFiles, final List<BlockingQueue<Object[]>> queues) {
+            this.numFiles = numFiles;
+            this.queues = queues;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == batch.length) {
+                if (finished == numFiles) {
+                    shutdown();
+                    return false;
+                }
+                final Object[] next;
+                try {
+                    next = queues.get(files.ordered() ? finished : 0).take();
+                } catch (InterruptedException e) {
+                    shutdown();
+                    Thread.currentThread().interrupt();
+                    final String msg = "interrupted while waiting for files";
+                    log.error(msg);
+                    throw new CsvToBeanException(msg, e);
+                }
+                if (next == END_OF_FILE) {
+                    ++finished;
+                    if (failure.get() != null) {
+                        shutdown();
+                        rethrowFailure();
+                    }
+                }
+                else {
+                    batch = next;
+                    position = 0;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (T) batch[position++];
+        }
+    }
+
+    /**
+     * Counts the beans handed over to another sink.
+     */
+    private static final class CountingSink implements Sink {
+        private final Sink sink;
+        private final AtomicLong rows;
+
+        CountingSink(final Sink sink, final AtomicLong rows) {
+            this.sink = sink;
+            this.rows = rows;
+        }
+
+        @Override
+        public void accept(final Iterator<?> iterator) {
+            sink.accept(new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    final Object bean = iterator.next();
+                    rows.incrementAndGet();
+                    return bean;
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Precompiled read access to a bean property.
+ * <p>
+ * The getter method is looked up once, and then bound into a
+ * {@link Function} by means of the {@link LambdaMetafactory}. Reading
+ * a property thus costs about as much as a direct method call, and
+ * doesn't involve any reflection.
+ *
+ * @param <T> type of bean
+ */
+@Slf4j
+public final class PropertyGetter<T> {
+    /**
+     * The name of the property.
+     * @return the name of the property
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The type of the property, primitives are boxed.
+     * @return the type of the property, primitives are boxed
+     */
+    @Getter
+    private final Class<?> type;
+
+    private final Function<? super T, ?> getter;
+
+    private PropertyGetter(final String name, final Class<?> type, final Function<? super T, ?> getter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /**
+     * Read the property of a bean.
+     * @param bean the bean to read from
+     * @return the property value
+     */
+    public Object get(final T bean) {
+        return getter.apply(bean);
+    }
+
+    /**
+     * Compile the getter of a bean property.
+     * @param type the bean type
+     * @param property the name of the property
+     * @param <S> the bean type
+     * @return the compiled getter
+     * @throws IllegalArgumentException if the property has no getter
+     */
+    public static <S> PropertyGetter<S> of(@NonNull final Class<? extends S> type,
+                                           @NonNull final String property)
+            throws IllegalArgumentException {
+        for (PropertyDescriptor descriptor : getDescriptors(type)) {
+            if (descriptor.getName().equals(property) && descriptor.getReadMethod() != null) {
+                return compile(type, descriptor);
+            }
+        }
+        final String msg = String.format("bean type <%s> has no getter for property '%s'",
+                type.getCanonicalName(), property);
+        log.error(msg);
+        throw new IllegalArgumentException(msg);
+    }
+
+    /**
+     * Compile the getters of all readable bean properties.
+     * <p>
+     * The {@code class} property inherited from {@link Object} is excluded.
+     * @param type the bean type
+     * @param <S> the bean type
+     * @return the compiled getters, ordered by property name
+     */
+    public static <S> List<PropertyGetter<S>> allOf(@NonNull final Class<? extends S> type) {
+        final List<PropertyGetter<S>> getters = new ArrayList<>();
+        for (PropertyDescriptor descriptor : getDescriptors(type)) {
+            final Method readMethod = descriptor.getReadMethod();
+            if (readMethod != null && readMethod.getDeclaringClass() != Object.class) {
+                getters.add(compile(type, descriptor));
+            }
+        }
+        return Collections.unmodifiableList(getters);
+    }
+
+    private static PropertyDescriptor[] getDescriptors(final Class<?> type) {
+        try {
+            final BeanInfo beanInfo = Introspector.getBeanInfo(type);
+            return beanInfo.getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            final String msg = String.format("could not introspect bean type <%s>", type.getCanonicalName());
+            log.error(msg);
+            throw new IllegalArgumentException(msg, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> PropertyGetter<S> compile(final Class<? extends S> beanType,
+                                                 final PropertyDescriptor descriptor) {
+        final Method readMethod = descriptor.getReadMethod();
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(readMethod);
+        } catch (IllegalAccessException e) {
+            final String msg = String.format("getter %s of bean type <%s> is not accessible",
+                    readMethod.getName(), beanType.getCanonicalName());
+            log.error(msg);
+            throw new IllegalArgumentException(msg, e);
+        }
+        final Class<?> propertyType = MethodType.methodType(readMethod.getReturnType()).wrap().returnType();
+        Function<? super S, ?> getter;
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(propertyType, readMethod.getDeclaringClass()));
+            getter = (Function<? super S, ?>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // e.g. bean classes that are invisible to this class loader
+            log.debug(String.format("falling back to method handle for getter %s of bean type <%s>",
+                    readMethod.getName(), beanType.getCanonicalName()));
+            final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            getter = bean -> {
+                try {
+                    return generic.invokeExact((Object) bean);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+        return new PropertyGetter<>(descriptor.getName(), propertyType, getter);
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Precompiled write access to a bean property.
+ * <p>
+ * This is the counterpart of the {@link PropertyGetter}. The setter is
+ * looked up by name, such that chained setters (returning the bean
+ * instead of {@code void}) are supported, too.
+ *
+ * @param <T> type of bean
+ */
+@Slf4j
+public final class PropertySetter<T> {
+    /**
+     * The name of the property.
+     * @return the name of the property
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The type of the property, primitives are not boxed.
+     * @return the type of the property, primitives are not boxed
+     */
+    @Getter
+    private final Class<?> type;
+
+    private final BiConsumer<? super T, Object> setter;
+
+    private PropertySetter(final String name, final Class<?> type, final BiConsumer<? super T, Object> setter) {
+        this.name = name;
+        this.type = type;
+        this.setter = setter;
+    }
+
+    /**
+     * Set the property of a bean.
+     * <p>
+     * {@code null} references are ignored for primitive properties.
+     * @param bean the bean to write to
+     * @param value the new property value
+     */
+    public void set(final T bean, final Object value) {
+        if (value == null && type.isPrimitive()) {
+            return;
+        }
+        setter.accept(bean, value);
+    }
+
+    /**
+     * Compile the setter of a bean property.
+     * <p>
+     * If the setter is overloaded, the one whose parameter matches the
+     * type of the field of the same name is chosen.
+     * @param type the bean type
+     * @param property the name of the property
+     * @param <S> the bean type
+     * @return the compiled setter
+     * @throws IllegalArgumentException if the property has no setter
+     */
+    public static <S> PropertySetter<S> of(@NonNull final Class<? extends S> type,
+                                           @NonNull final String property)
+            throws IllegalArgumentException {
+        if (property.isEmpty()) {
+            final String msg = "cannot find setter method for an empty property name";
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        final String setterName = "set" + property.substring(0, 1).toUpperCase() + property.substring(1);
+        final List<Method> candidates = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (setterName.equals(method.getName()) && method.getParameterCount() == 1) {
+                candidates.add(method);
+            }
+        }
+        Method setter = null;
+        if (candidates.size() == 1) {
+            setter = candidates.get(0);
+        }
+        else if (candidates.size() > 1) {
+            try {
+                setter = type.getMethod(setterName, type.getDeclaredField(property).getType());
+            } catch (NoSuchFieldException | NoSuchMethodException e) {
+                log.debug(String.format("cannot disambiguate setter %s by field type", setterName));
+            }
+        }
+        if (setter == null) {
+            final String msg = String.format("bean type <%s> has no unique setter for property '%s'",
+                    type.getCanonicalName(), property);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return compile(type, property, setter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> PropertySetter<S> compile(final Class<? extends S> beanType,
+                                                 final String property,
+                                                 final Method method) {
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            final String msg = String.format("setter %s of bean type <%s> is not accessible",
+                    method.getName(), beanType.getCanonicalName());
+            log.error(msg);
+            throw new IllegalArgumentException(msg, e);
+        }
+        final Class<?> propertyType = method.getParameterTypes()[0];
+        final Class<?> boxedType = MethodType.methodType(propertyType).wrap().returnType();
+        BiConsumer<? super S, Object> setter;
+        try {
+            final CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, method.getDeclaringClass(), boxedType));
+            setter = (BiConsumer<? super S, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // e.g. bean classes that are invisible to this class loader
+            log.debug(String.format("falling back to method handle for setter %s of bean type <%s>",
+                    method.getName(), beanType.getCanonicalName()));
+            final MethodHandle generic = handle
+                    .asType(handle.type().changeReturnType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            setter = (bean, value) -> {
+                try {
+                    generic.invokeExact((Object) bean, value);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+        return new PropertySetter<>(property, propertyType, setter);
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Immutable processing pipeline for a single csv column.
+ * <p>
+ * A {@code ColumnPipeline} is compiled from a {@link DecoderPropertyEditor}, once
+ * the configuration is complete. All decoders, postprocessors and postvalidators
+ * are kept in flat arrays, and all configuration switches (trimming, null-fallthrough,
+ * default values, caching) are resolved ahead of time. Thus, processing a value neither
+ * requires any locks, nor any mutable state, and a single instance may safely be
+ * shared between threads.
+ * <p>
+ * The processing semantics are exactly those described in {@link DecoderPropertyEditor#getValue()}.
+ *
+ * @param <T> type of the output bean field
+ */
+@Slf4j
+public final class ColumnPipeline<T> {
+    /**
+     * Name of the referenced csv column.
+     * @return name of the referenced csv column
+     */
+    @Getter
+    private final String columnName;
+    private final boolean trim;
+    private final Decoder<? extends T>[] decoders;
+    private final PostProcessor<T>[] postProcessors;
+    private final PostValidator<T>[] postValidators;
+    private final boolean hasDefaultValue;
+    private final T defaultValue;
+    private final boolean nullFallthroughForPostProcessors;
+    private final boolean nullFallthroughForPostValidators;
+    private final DecodingCache<T> cache;
+    private final Function<String, T> processor;
+
+    ColumnPipeline(final String columnName,
+                   final boolean trim,
+                   final Decoder<? extends T>[] decoders,
+                   final PostProcessor<T>[] postProcessors,
+                   final PostValidator<T>[] postValidators,
+                   final boolean hasDefaultValue,
+                   final T defaultValue,
+                   final boolean nullFallthroughForPostProcessors,
+                   final boolean nullFallthroughForPostValidators,
+                   final DecodingCache<T> cache) {
+        this.columnName = columnName;
+        this.trim = trim;
+        this.decoders = decoders;
+        this.postProcessors = postProcessors;
+        this.postValidators = postValidators;
+        this.hasDefaultValue = hasDefaultValue;
+        this.defaultValue = defaultValue;
+        this.nullFallthroughForPostProcessors = nullFallthroughForPostProcessors;
+        this.nullFallthroughForPostValidators = nullFallthroughForPostValidators;
+        this.cache = cache;
+        this.processor = this::process;
+    }
+
+    /**
+     * Convert a raw csv value into the bean field value.
+     * @param raw the raw csv value
+     * @return the decoded, postprocessed and post-validated value
+     * @throws DataDecodingException if the String value could not be decoded to the bean field type
+     * @throws PostProcessingException if a postprocessing step fails
+     * @throws PostValidationException if a post-validation step fails
+     */
+    public T apply(final String raw) throws DataDecodingException, PostProcessingException, PostValidationException {
+        final String value = trim && raw != null ? raw.trim() : raw;
+        if (cache != null) {
+            return cache.get(value, processor);
+        }
+        return process(value);
+    }
+
+    /**
+     * Convert a batch of raw csv values of this column.
+     * <p>
+     * The decoding phase runs decoder by decoder over the whole batch, using
+     * {@link Decoder#decodeBatch(String[], int, Object[])}, such that each decoder
+     * gets invoked in a tight loop. The postprocessing and post-validation phases
+     * are carried out value by value afterwards. For columns with a cache, all values
+     * are processed as by {@link #apply(String)}.
+     * <p>
+     * Failures do not abort the batch. Instead, the exception that {@link #apply(String)}
+     * would have thrown for a value gets stored in the {@code errors} array, and the
+     * corresponding {@code output} slot is set to {@code null}.
+     * @param values the raw csv values (will get trimmed in place if configured so)
+     * @param count number of values to process, starting at index 0
+     * @param output receives the processed values
+     * @param errors receives the exceptions for failed values, or {@code null} for successful ones
+     * @return number of failed values
+     */
+    public int applyBatch(final String[] values,
+                          final int count,
+                          final Object[] output,
+                          final RuntimeException[] errors) {
+        Arrays.fill(errors, 0, count, null);
+        if (cache != null) {
+            int failures = 0;
+            for (int i = 0; i < count; ++i) {
+                try {
+                    output[i] = apply(values[i]);
+                } catch (RuntimeException e) {
+                    output[i] = null;
+                    errors[i] = e;
+                    ++failures;
+                }
+            }
+            return failures;
+        }
+        if (trim) {
+            for (int i = 0; i < count; ++i) {
+                if (values[i] != null) {
+                    values[i] = values[i].trim();
+                }
+            }
+        }
+        decodeBatch(values, count, output, errors);
+        int failures = 0;
+        for (int i = 0; i < count; ++i) {
+            if (errors[i] == null) {
+                try {
+                    @SuppressWarnings("unchecked")
+                    final T postProcessedValue = postProcess((T) output[i]);
+                    postValidate(postProcessedValue);
+                    output[i] = postProcessedValue;
+                    continue;
+                } catch (RuntimeException e) {
+                    errors[i] = e;
+                }
+            }
+            output[i] = null;
+            ++failures;
+        }
+        return failures;
+    }
+
+    private void decodeBatch(final String[] values,
+                             final int count,
+                             final Object[] output,
+                             final RuntimeException[] errors) {
+        Arrays.fill(output, 0, count, Decoder.UNDECODED);
+        int pending = count;
+        for (int k = 0; k < decoders.length && pending > 0; ++k) {
+            try {
+                pending = decoders[k].decodeBatch(values, count, output);
+            } catch (Throwable e) {
+                // fall back to the scalar path, which attributes the failure to the offending value
+                for (int i = 0; i < count; ++i) {
+                    if (output[i] == Decoder.UNDECODED) {
+                        try {
+                            output[i] = decodeFrom(values[i], k);
+                        } catch (DataDecodingException decodingException) {
+                            errors[i] = decodingException;
+                        }
+                    }
+                }
+                return;
+            }
+        }
+        if (pending == 0) {
+            return;
+        }
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != Decoder.UNDECODED) {
+                continue;
+            }
+            if (hasDefaultValue) {
+                output[i] = defaultValue;
+            }
+            else {
+                final String msg = String.format("[col: %s] could not decode value '%s'", columnName, values[i]);
+                log.error(msg);
+                errors[i] = new DataDecodingException(msg);
+            }
+        }
+    }
+
+    /**
+     * Get the number of decoders, after fusing known decoder sequences.
+     * @return number of decoders
+     */
+    public int getNumDecoders() {
+        return decoders.length;
+    }
+
+    private T process(final String value) {
+        final T decodedValue = decode(value);
+        final T postProcessedValue = postProcess(decodedValue);
+        postValidate(postProcessedValue);
+        return postProcessedValue;
+    }
+
+    /**
+     * Run the decoding phase only.
+     * @param value the (possibly trimmed) csv value
+     * @return the decoded value
+     * @throws DataDecodingException if the String value could not be decoded to the bean field type
+     */
+    T decode(final String value) throws DataDecodingException {
+        return decodeFrom(value, 0);
+    }
+
+    private T decodeFrom(final String value, final int firstDecoder) throws DataDecodingException {
+        for (int k = firstDecoder; k < decoders.length; ++k) {
+            final ResultWrapper<? extends T> wrapper;
+            try {
+                wrapper = decoders[k].decode(value);
+            } catch (Throwable e) {
+                final String msg = String.format("[col: %s] could not decode value '%s'", columnName, value);
+                log.error(msg);
+                throw new DataDecodingException(msg, e);
+            }
+            if (wrapper.success()) {
+                return wrapper.get();
+            }
+        }
+        if (hasDefaultValue) {
+            return defaultValue;
+        }
+        final String msg = String.format("[col: %s] could not decode value '%s'", columnName, value);
+        log.error(msg);
+        throw new DataDecodingException(msg);
+    }
+
+    private T postProcess(final T value) throws PostProcessingException {
+        if (postProcessors.length == 0 || (value == null && nullFallthroughForPostProcessors)) {
+            return value;
+        }
+        T processedValue = value;
+        try {
+            for (final PostProcessor<T> postProcessor : postProcessors) {
+                processedValue = postProcessor.process(processedValue);
+            }
+        } catch (Exception e) {
+            final String msg = String.format("[col: %s] error while trying to postprocess value %s", columnName, value);
+            log.error(msg);
+            throw new PostProcessingException(msg, e);
+        }
+        return processedValue;
+    }
+
+    private void postValidate(final T value) throws PostValidationException {
+        if (postValidators.length == 0 || (value == null && nullFallthroughForPostValidators)) {
+            return;
+        }
+        for (int i = 0; i < postValidators.length; ++i) {
+            if (!postValidators[i].validate(value)) {
+                final String msg = String.format("[col: %s] could not validate data\ninput: %s\nvalidation step: %d", columnName, value, i + 1);
+                log.error(msg);
+                throw new PostValidationException(msg);
+            }
+        }
+    }
+
+}
@@ -33,6 +33,17 @@ public interface Decoder<T> {
      */
     Decoder<String> IDENTITY = (Decoder<String>) ResultWrapper::of;
 
+    /**
+     * Placeholder for values of a batch that have not been decoded (yet).
+     * @see #decodeBatch(String[], int, Object[])
+     */
+    Object UNDECODED = new Object() {
+        @Override
+        public String toString() {
+            return "<undecoded>";
+        }
+    };
+
     /**
      * Decode a String value into the respective type.
      * <p>
@@ -49,6 +60,43 @@ public interface Decoder<T> {
      */
     ResultWrapper<? extends T> decode(String value) throws DataDecodingException;
 
+    /**
+     * Decode a batch of String values.
+     * <p>
+     * Only those values are decoded, whose corresponding {@code output} slot
+     * holds {@link #UNDECODED}. On success, the decoded value is stored in that slot,
+     * otherwise the slot is left untouched, such that the next decoder in the
+     * chain may try again. Slots holding any other object are already decoded
+     * and must not be modified.
+     * <p>
+     * The default implementation invokes {@link #decode(String)} for each pending value.
+     * Implementations may override this method with a tighter loop, but must
+     * yield the same results as {@link #decode(String)}.
+     *
+     * @param values the String input messages
+     * @param count number of values to process, starting at index 0
+     * @param output decoded values, or {@link #UNDECODED} for pending values
+     * @return number of values that are still pending
+     * @throws DataDecodingException if an unrecoverable state is encountered
+     */
+    default int decodeBatch(final String[] values, final int count, final Object[] output)
+            throws DataDecodingException {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final ResultWrapper<? extends T> result = decode(values[i]);
+            if (result.success()) {
+                output[i] = result.get();
+            }
+            else {
+                ++pending;
+            }
+        }
+        return pending;
+    }
+
     /**
      * Indicate unsuccessful decoding of a String value.
      * <p>
@@ -74,6 +122,21 @@ public interface Decoder<T> {
         return ResultWrapper.of(value);
     }
 
+    /**
+     * Tell whether decoding the same String value always yields the same result.
+     * <p>
+     * Decoders depending on external state (e.g. the current time or a random source)
+     * must return {@code false}. Columns containing such a decoder will refuse
+     * to cache decoded values.
+     * <p>
+     * Defaults to {@code true}.
+     *
+     * @return true if the decoder is deterministic, else false
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
     /**
      * Return a wrapped {@code null} reference.
      * @param <S> type of object to be wrapped
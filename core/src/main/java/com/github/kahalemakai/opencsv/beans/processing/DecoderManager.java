@@ -303,6 +303,19 @@ public class DecoderManager {
         return this;
     }
 
+    /**
+     * Cache processed values of a specific column.
+     * @param column name of column
+     * @param capacity maximum number of cached values
+     * @return the {@code DecoderManager} instance
+     * @throws IllegalStateException if a cache has already been set up, or any decoder is not deterministic
+     * @see DecoderPropertyEditor#withCache(int)
+     */
+    public DecoderManager setCache(final String column, final int capacity) throws IllegalStateException {
+        getPropertyEditor(column).withCache(capacity);
+        return this;
+    }
+
     /**
      * Set a default value for a column.
      * <p>
@@ -320,7 +333,7 @@ public class DecoderManager {
     /**
      * Set a default value for a column by decoding string data.
      * <p>
-     * The data are handled by the {@link DecoderPropertyEditor#decodeValue()} method.
+     * The data are handled by the {@link DecoderPropertyEditor#withDefaultFromString(String)} method.
      * This method throws on repeated invocation for the same column.
      * @param column name of column
      * @param value String data for the default value to use
@@ -331,6 +344,33 @@ public class DecoderManager {
         return this;
     }
 
+    /**
+     * Compile the processing pipelines of all columns and reject any further configuration.
+     * <p>
+     * Known sequences of built-in decoders get fused into single decoders.
+     * This method should be invoked once the configuration is complete.
+     * @return the {@code DecoderManager} instance
+     * @see DecoderPropertyEditor#freeze()
+     * @see com.github.kahalemakai.opencsv.beans.processing.decoders.DecoderChains
+     */
+    public DecoderManager freeze() {
+        propertyEditorMap.values().forEach(DecoderPropertyEditor::freeze);
+        return this;
+    }
+
+    /**
+     * Return the compiled processing pipeline of a column.
+     * <p>
+     * Columns without any configuration get processed by an identity pipeline.
+     * @param column name of column to be looked up
+     * @return the compiled processing pipeline
+     * @see DecoderPropertyEditor#getPipeline()
+     */
+    public ColumnPipeline<?> getPipeline(@NonNull final String column) {
+        final DecoderPropertyEditor<?> editor = propertyEditorMap.get(column.toLowerCase());
+        return editor != null ? editor.getPipeline() : DecoderPropertyEditor.IDENTITY.getPipeline();
+    }
+
     /**
      * Get an immutable view of teh map of columns to propertyEditors.
      * @return the map of columns to propertyEditors
@@ -16,13 +16,14 @@
 
 package com.github.kahalemakai.opencsv.beans.processing;
 
+import com.github.kahalemakai.opencsv.beans.processing.decoders.DecoderChains;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
 import java.beans.PropertyEditorSupport;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Optional;
 
 /**
  *The {@code DecoderPropertyEditor} contains all the logic of processing csv column values into bean field values.
@@ -32,7 +33,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * When processing a split csv line, a the field value is processed as follows:
  * <p>
  * {@code String field -> #setAsText(field) -> #getValue()}
+ * <p>
+ * Once the configuration is complete, the editor gets compiled into an immutable
+ * {@link ColumnPipeline}, which is used for processing the actual csv data. After
+ * {@link #freeze() freezing} the editor, any further configuration attempt throws.
  * @see #getValue()
+ * @see #getPipeline()
  *
  * @param <T> class, the csv column should be converted to
  */
@@ -40,9 +46,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Slf4j
 public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
     private static final String ANY_COLUMN = "*";
-    private final List<Decoder<? extends T>> decoders = new LinkedList<>();
-    private PostProcessor<T> postProcessor = PostProcessor.identity();
-    private final List<PostValidator<T>> postValidators = new LinkedList<>();
+    private final List<Decoder<? extends T>> decoders = new ArrayList<>();
+    private final List<PostProcessor<T>> postProcessors = new ArrayList<>();
+    private final List<PostValidator<T>> postValidators = new ArrayList<>();
     @Getter(AccessLevel.PACKAGE)
     private String data;
     /**
@@ -51,19 +57,14 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
      */
     @Getter
     private final String columnName;
-    private int numDecoders;
-    private final Object[] $decoderLock = new Object[0];
-    private final Object[] $postProcessorLock = new Object[0];
-    private final Object[] $postValidatorLock = new Object[0];
 
     /**
-     * Define trimming behaviour for csv String values before decoding them.
+     * Trimming behaviour for csv String values before decoding them.
      * <p>
      * Defaults to {@code false}.
-     * @param trim new value for trimming behaviour
      * @return the trimming behaviour
      */
-    @Getter @Setter
+    @Getter
     private boolean trim = false;
 
     /**
@@ -76,38 +77,93 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
     private Class<? extends T> type;
 
     /**
-     * Define behaviour for encountering nulls in postprocessing.
-     * <p>
-     * When setting this field to {@code true}, nulls will not be further processed, but simply returned.
-     * A value of {@code false} marks nulls to be processed.
+     * Behaviour for encountering nulls in postprocessing.
      * <p>
      * Defaults to {@code false}.
      *
-     * @param nullFallthroughForPostProcessors mode for postprocessing null values
      * @return mode for postprocessing null values
+     * @see #setNullFallthroughForPostProcessors(boolean)
      */
-    @Getter @Setter
+    @Getter
     private boolean nullFallthroughForPostProcessors;
 
     /**
-     * Define behaviour for encountering nulls in postvalidation.
-     * <p>
-     * When setting this field to {@code true}, nulls will not be validated.
-     * A value of {@code false} marks nulls to be validated.
+     * Behaviour for encountering nulls in postvalidation.
      * <p>
      * Defaults to {@code false}.
      *
-     * @param nullFallthroughForPostValidators mode for postprocessing null values
      * @return mode for postvalidating null values
+     * @see #setNullFallthroughForPostValidators(boolean)
      */
-    @Getter @Setter
+    @Getter
     private boolean nullFallthroughForPostValidators;
 
     /**
      * The default value to return if decoding fails.
      */
     private T defaultValue;
-    private AtomicBoolean defaultValueWasSet = new AtomicBoolean(false);
+    private boolean defaultValueWasSet;
+
+    /**
+     * Optional cache of processed values, keyed by the raw csv value.
+     */
+    private DecodingCache<T> cache;
+
+    /**
+     * The compiled pipeline, or {@code null} if the configuration has changed since the last compilation.
+     */
+    private volatile ColumnPipeline<T> pipeline;
+
+    /**
+     * Tell whether the configuration has been frozen.
+     * @return true if the editor does not accept any further configuration, else false
+     * @see #freeze()
+     */
+    @Getter
+    private volatile boolean frozen;
+
+    /**
+     * Define trimming behaviour for csv String values before decoding them.
+     * @param trim new value for trimming behaviour
+     * @throws IllegalStateException if the editor has been frozen
+     */
+    public synchronized void setTrim(final boolean trim) throws IllegalStateException {
+        checkNotFrozen();
+        this.trim = trim;
+        invalidate();
+    }
+
+    /**
+     * Define behaviour for encountering nulls in postprocessing.
+     * <p>
+     * When setting this field to {@code true}, nulls will not be further processed, but simply returned.
+     * A value of {@code false} marks nulls to be processed.
+     *
+     * @param nullFallthroughForPostProcessors mode for postprocessing null values
+     * @throws IllegalStateException if the editor has been frozen
+     */
+    public synchronized void setNullFallthroughForPostProcessors(final boolean nullFallthroughForPostProcessors)
+            throws IllegalStateException {
+        checkNotFrozen();
+        this.nullFallthroughForPostProcessors = nullFallthroughForPostProcessors;
+        invalidate();
+    }
+
+    /**
+     * Define behaviour for encountering nulls in postvalidation.
+     * <p>
+     * When setting this field to {@code true}, nulls will not be validated.
+     * A value of {@code false} marks nulls to be validated.
+     *
+     * @param nullFallthroughForPostValidators mode for postvalidating null values
+     * @throws IllegalStateException if the editor has been frozen
+     */
+    public synchronized void setNullFallthroughForPostValidators(final boolean nullFallthroughForPostValidators)
+            throws IllegalStateException {
+        checkNotFrozen();
+        this.nullFallthroughForPostValidators = nullFallthroughForPostValidators;
+        invalidate();
+    }
 
     /**
      * Define a default value that will be used if no decoder can decode a given value.
@@ -116,82 +172,126 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
      * @param value the default value to use
      * @return the {@code DecoderPropertyEditor} instance
      */
-    public DecoderPropertyEditor<T> withDefault(final T value) {
-        if (defaultValueWasSet.compareAndSet(false, true)) {
-            this.defaultValue = value;
-        }
-        else {
-            final String msg = String.format("trying to set default value on column %s repeatedly", this.columnName);
-            log.error(msg);
-            throw new IllegalStateException(msg);
-        }
+    public synchronized DecoderPropertyEditor<T> withDefault(final T value) {
+        checkNotFrozen();
+        checkDefaultValueNotSet();
+        this.defaultValueWasSet = true;
+        this.defaultValue = value;
+        invalidate();
         return this;
     }
 
     /**
      * Define a default value (by decoding String data) that will be used if no decoder can decode a given value.
      * <p>
-     * The data will be decoded by the method {@link #decodeValue()}.
+     * The data will be trimmed (if configured so) and decoded by the current decoder chain.
      * This method throws on repeated invocation.
      * @param value the default value to use
      * @return the {@code DecoderPropertyEditor} instance
      */
-    public DecoderPropertyEditor<T> withDefaultFromString(final String value) {
-        if (defaultValueWasSet.compareAndSet(false, true)) {
-            this.setAsText(value);
-            this.defaultValue = decodeValue();
-        }
-        else {
-            final String msg = String.format("trying to set default value on column %s repeatedly", this.columnName);
-            log.error(msg);
-            throw new IllegalStateException(msg);
-        }
+    public synchronized DecoderPropertyEditor<T> withDefaultFromString(final String value) {
+        checkNotFrozen();
+        checkDefaultValueNotSet();
+        this.defaultValueWasSet = true;
+        invalidate();
+        final String text = isTrim() ? value.trim() : value;
+        this.defaultValue = getPipeline().decode(text);
+        invalidate();
         return this;
     }
 
     /**
      * Add a new decoder to the decoding chain.
-     * @see #decodeValue() decodeValue()
+     * @see #getValue() getValue()
      *
      * @param decoder decoder instance to be added to the decoding chain
      * @return the {@code DecoderPropertyEditor} instance
      */
-    public DecoderPropertyEditor<T> add(Decoder<? extends T> decoder) {
-        synchronized ($decoderLock) {
-            decoders.add(decoder);
-            numDecoders++;
+    public synchronized DecoderPropertyEditor<T> add(Decoder<? extends T> decoder) {
+        checkNotFrozen();
+        if (cache != null && !decoder.isDeterministic()) {
+            final String msg = String.format("[col: %s] cannot add non-deterministic decoder %s to a cached column",
+                    this.columnName, decoder.getClass().getCanonicalName());
+            log.error(msg);
+            throw new IllegalStateException(msg);
         }
+        decoders.add(decoder);
+        invalidate();
         return this;
     }
 
     /**
      * Add a new postprocessor to the postprocessing chain.
-     * @see #postProcess(Object) postProcess()
+     * @see #getValue() getValue()
      *
      * @param postProcessor postprocessor instance to be added to the postprocessing chain
      * @return the {@code DecoderPropertyEditor} instance
      */
-    public DecoderPropertyEditor<T> addPostProcessor(final PostProcessor<T> postProcessor) {
-        synchronized ($postProcessorLock) {
-            this.postProcessor = PostProcessor.compose(this.postProcessor, postProcessor);
+    public synchronized DecoderPropertyEditor<T> addPostProcessor(final PostProcessor<T> postProcessor) {
+        checkNotFrozen();
+        if (postProcessor != PostProcessor.IDENTITY) {
+            postProcessors.add(postProcessor);
+            invalidate();
         }
-       return this;
+        return this;
     }
 
     /**
      * Add a new postvalidator to the postvalidation chain.
-     * @see #postValidate(Object) postValidate()
+     * @see #getValue() getValue()
      *
      * @param postValidator postvalidator instance to be added to the postvalidation chain
      * @return the {@code DecoderPropertyEditor} instance
      */
-    public DecoderPropertyEditor<T> addPostValidator(final PostValidator<T> postValidator) {
-        synchronized ($postValidatorLock) {
-            postValidators.add(postValidator);
+    public synchronized DecoderPropertyEditor<T> addPostValidator(final PostValidator<T> postValidator) {
+        checkNotFrozen();
+        postValidators.add(postValidator);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Cache processed values of this column.
+     * <p>
+     * The cache maps the (possibly trimmed) raw csv value onto the decoded, postprocessed
+     * and post-validated result. Values failing any of the processing steps are not cached.
+     * Since results are shared between beans, caching should only be used for columns
+     * whose decoded values are immutable.
+     * <p>
+     * This method throws on repeated invocation, or if any registered decoder
+     * is not deterministic.
+     * @param capacity maximum number of cached values
+     * @return the {@code DecoderPropertyEditor} instance
+     * @throws IllegalStateException if a cache has already been set up, or any decoder is not deterministic
+     * @see Decoder#isDeterministic()
+     */
+    public synchronized DecoderPropertyEditor<T> withCache(final int capacity) throws IllegalStateException {
+        checkNotFrozen();
+        if (cache != null) {
+            final String msg = String.format("trying to set up cache on column %s repeatedly", this.columnName);
+            log.error(msg);
+            throw new IllegalStateException(msg);
         }
+        for (Decoder<? extends T> decoder : decoders) {
+            if (!decoder.isDeterministic()) {
+                final String msg = String.format("[col: %s] cannot cache values of non-deterministic decoder %s",
+                        this.columnName, decoder.getClass().getCanonicalName());
+                log.error(msg);
+                throw new IllegalStateException(msg);
+            }
+        }
+        this.cache = new DecodingCache<>(capacity);
+        invalidate();
         return this;
     }
 
+    /**
+     * Get the hit and miss statistics of the value cache.
+     * @return statistics of the value cache, or an empty {@code Optional} if caching is disabled
+     */
+    public synchronized Optional<DecodingCache.Statistics> getCacheStatistics() {
+        return cache == null ? Optional.empty() : Optional.of(cache.getStatistics());
+    }
 
     /**
      * Convert a String value obtained from a parsed csv into a Java object.
@@ -227,6 +327,10 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
      * All post-validators will be executed sequentially. If a post-validator
      * returns {@code false}, a {@code PostValidationException} will get thrown.
      *
+     * <h1>Caching</h1>
+     * If a cache has been set up by {@link #withCache(int)}, the result of all three phases
+     * is looked up by the raw value first, and only computed on a cache miss.
+     *
      * <h1>Treatment of {@code null}s</h1>
      * If the decoding step produces a {@code null} reference, the postprocessing
      * or post-validation, respectively, may pass it on without processing or validating it.
@@ -248,105 +352,110 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
      */
     @Override
     public T getValue() throws DataDecodingException, PostProcessingException, PostValidationException {
-        final T decodedValue = decodeValue();
-        final T postProcessedValue = postProcess(decodedValue);
-        postValidate(postProcessedValue);
-        return postProcessedValue;
+        return getPipeline().apply(data);
     }
 
     /**
      * Set the String-valued csv field as text for further processing.
      * <p>
-     * If {@link #isTrim()} evaluates to true, the text will get trimmed before setting it.
+     * If {@link #isTrim()} evaluates to true, the text will get trimmed on processing.
      *
      * @param text the text to set for further processing
      * @throws IllegalArgumentException only declared for matching the interface
      */
     @Override
     public void setAsText(String text) throws IllegalArgumentException {
-        this.data = isTrim() ? text.trim() : text;
+        this.data = text;
+    }
+
+    /**
+     * Get the compiled processing pipeline of this column.
+     * <p>
+     * The pipeline reflects the configuration at the time of invocation. Known sequences
+     * of built-in decoders are fused on compilation.
+     * @return the compiled processing pipeline
+     * @throws IllegalArgumentException if a lookup table of a choice decoder cannot be compiled
+     * @see DecoderChains#fuse(List)
+     */
+    public ColumnPipeline<T> getPipeline() throws IllegalArgumentException {
+        final ColumnPipeline<T> currentPipeline = this.pipeline;
+        if (currentPipeline != null) {
+            return currentPipeline;
+        }
+        synchronized (this) {
+            if (this.pipeline == null) {
+                this.pipeline = compile();
+            }
+            return this.pipeline;
+        }
+    }
+
+    /**
+     * Compile the pipeline and reject any further configuration.
+     * <p>
+     * This method should be invoked once the configuration is complete. Repeated
+     * invocations have no effect.
+     * @return the compiled processing pipeline
+     * @throws IllegalArgumentException if a lookup table of a choice decoder cannot be compiled
+     */
+    public synchronized ColumnPipeline<T> freeze() throws IllegalArgumentException {
+        final ColumnPipeline<T> frozenPipeline = getPipeline();
+        this.frozen = true;
+        return frozenPipeline;
     }
 
     /**
      * Get the number of registered decoders.
      * @return number of registered decoders
      */
-    public int getNumDecoders() {
-        synchronized ($decoderLock) {
-            return numDecoders;
-        }
+    public synchronized int getNumDecoders() {
+        return decoders.size();
     }
 
-    private T decodeValue() throws DataDecodingException {
-        log.debug("decoding value '{}' using decoder chain of length {}", data, decoders.size());
-        for (int i = 0; i < decoders.size(); ++i) {
-            log.debug("trying decoder nr. {}", i + 1);
-            final Decoder<? extends T> decoder = decoders.get(i);
-            try {
-                final ResultWrapper<? extends T> wrapper = decoder.decode(data);
-                if (!wrapper.success()) {
-                    continue;
-                }
-                final T decodedValue = wrapper.get();
-                if (log.isDebugEnabled()) {
-                    log.debug("successfully decoded value {} -> {} : <{}>",
-                            data,
-                            decodedValue,
-                            decodedValue == null ? "null" : decodedValue.getClass().getCanonicalName());
-                }
-                return decodedValue;
-            } catch (Throwable e) {
-                final String msg = String.format("[col: %s] could not decode value '%s'", getColumnName(), data);
-                log.error(msg);
-                throw new DataDecodingException(msg, e);
-            }
-        }
-        if (defaultValueWasSet.get()) {
-            return this.defaultValue;
+    @SuppressWarnings("unchecked")
+    private ColumnPipeline<T> compile() throws IllegalArgumentException {
+        try {
+            DecoderChains.compileLookupTables(decoders);
+        } catch (IllegalArgumentException e) {
+            final String msg = String.format("[col: %s] invalid decoder configuration", this.columnName);
+            log.error(msg);
+            throw new IllegalArgumentException(msg, e);
         }
-        final String msg = String.format("[col: %s] could not decode value '%s'", getColumnName(), data);
-        log.error(msg);
-        throw new DataDecodingException(msg);
+        final List<Decoder<? extends T>> fusedDecoders = DecoderChains.fuse(decoders);
+        return new ColumnPipeline<>(
+                columnName,
+                trim,
+                (Decoder<? extends T>[]) fusedDecoders.toArray(new Decoder<?>[fusedDecoders.size()]),
+                (PostProcessor<T>[]) postProcessors.toArray(new PostProcessor<?>[postProcessors.size()]),
+                (PostValidator<T>[]) postValidators.toArray(new PostValidator<?>[postValidators.size()]),
+                defaultValueWasSet,
+                defaultValue,
+                nullFallthroughForPostProcessors,
+                nullFallthroughForPostValidators,
+                cache);
     }
 
-    private T postProcess(final T value) throws PostProcessingException {
-        if (postProcessor == PostProcessor.IDENTITY) {
-            log.debug("no postprocessor setup, returning identical value");
-            return value;
+    private void invalidate() {
+        if (pipeline != null && cache != null) {
+            // values cached by the previous configuration are stale now
+            cache = new DecodingCache<>(cache.getStatistics().getCapacity());
         }
-        if (!isNullFallthroughForPostProcessors() || value != null) {
-            try {
-                final T postProcessedValue = postProcessor.process(value);
-                log.debug("postprocessing value {} -> {}",
-                        value,
-                        postProcessedValue);
-                return postProcessedValue;
-            } catch (Exception e) {
-                final String msg = String.format("[col: %s] error while trying to postprocess value %s", getColumnName(), value);
-                log.error(msg);
-                throw new PostProcessingException(msg, e);
-            }
-        }
-        else {
-            log.debug("null falls through on postprocessing");
-        }
-        return null;
+        pipeline = null;
     }
 
-    private void postValidate(final T value) throws PostValidationException {
-        if (!isNullFallthroughForPostValidators() || value != null) {
-            int counter = 1;
-            for (PostValidator<T> postValidator : postValidators) {
-                if (!postValidator.validate(value)) {
-                    final String msg = String.format("[col: %s] could not validate data\ninput: %s\nvalidation step: %d", getColumnName(), value, counter);
-                    log.error(msg);
-                    throw new PostValidationException(msg);
-                }
-                counter++;
-            }
+    private void checkNotFrozen() throws IllegalStateException {
+        if (frozen) {
+            final String msg = String.format("[col: %s] trying to configure a frozen column", this.columnName);
+            log.error(msg);
+            throw new IllegalStateException(msg);
         }
-        else {
-            log.debug("null falls through on validation");
+    }
+
+    private void checkDefaultValueNotSet() throws IllegalStateException {
+        if (defaultValueWasSet) {
+            final String msg = String.format("trying to set default value on column %s repeatedly", this.columnName);
+            log.error(msg);
+            throw new IllegalStateException(msg);
         }
     }
 
@@ -355,4 +464,8 @@ public class DecoderPropertyEditor<T> extends PropertyEditorSupport {
                     .<String>forColumn(ANY_COLUMN)
                     .add(Decoder.IDENTITY);
 
+    static {
+        IDENTITY.freeze();
+    }
+
 }
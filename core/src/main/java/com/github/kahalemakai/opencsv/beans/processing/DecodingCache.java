@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache mapping raw csv values onto their fully processed counterparts.
+ * <p>
+ * Entries are evicted following the CLOCK policy: every entry carries a reference
+ * bit that is set on each hit. When the cache is full, the clock hand sweeps over
+ * the slots, clearing reference bits, until it finds an entry that has not been
+ * used since the last sweep. That entry gets replaced.
+ * <p>
+ * Lookups are lock-free. Only insertions of new entries synchronize on the cache.
+ * Values computed by the loader are only cached if the loader returns normally,
+ * i.e. failing values will be processed again on every occurrence.
+ *
+ * @param <T> type of the cached values
+ */
+@Slf4j
+public final class DecodingCache<T> {
+    /**
+     * Maximum number of entries.
+     * @return maximum number of entries
+     */
+    @Getter
+    private final int capacity;
+    private final ConcurrentHashMap<String, Entry<T>> index;
+    private final Entry<T>[] slots;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // guarded by this
+    private int hand;
+    // guarded by this
+    private int size;
+
+    /**
+     * Create a new cache.
+     * @param capacity maximum number of entries
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public DecodingCache(final int capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            final String msg = String.format("expected: cache capacity > 0, got: %d", capacity);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        this.capacity = capacity;
+        this.index = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.slots = (Entry<T>[]) new Entry<?>[capacity];
+    }
+
+    /**
+     * Look up the value for a raw csv value, computing and caching it on a miss.
+     * <p>
+     * {@code null} keys are never cached, the loader is invoked directly.
+     * @param key the raw csv value
+     * @param loader function computing the value on a cache miss
+     * @return the cached or computed value
+     */
+    public T get(final String key, final Function<String, ? extends T> loader) {
+        if (key == null) {
+            return loader.apply(null);
+        }
+        final Entry<T> entry = index.get(key);
+        if (entry != null) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        final T value = loader.apply(key);
+        insert(key, value);
+        return value;
+    }
+
+    /**
+     * Get a snapshot of the hit and miss counters.
+     * @return snapshot of the cache statistics
+     */
+    public Statistics getStatistics() {
+        final int currentSize;
+        synchronized (this) {
+            currentSize = size;
+        }
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), currentSize, capacity);
+    }
+
+    private synchronized void insert(final String key, final T value) {
+        if (index.containsKey(key)) {
+            return;
+        }
+        final Entry<T> entry = new Entry<>(key, value);
+        if (size < capacity) {
+            slots[size++] = entry;
+        }
+        else {
+            while (true) {
+                final Entry<T> candidate = slots[hand];
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                    advanceHand();
+                    continue;
+                }
+                index.remove(candidate.key);
+                slots[hand] = entry;
+                advanceHand();
+                evictions.increment();
+                break;
+            }
+        }
+        index.put(key, entry);
+    }
+
+    private void advanceHand() {
+        if (++hand == capacity) {
+            hand = 0;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry<T> {
+        private final String key;
+        private final T value;
+        private volatile boolean referenced;
+    }
+
+    /**
+     * Immutable snapshot of cache statistics.
+     */
+    @Getter
+    @ToString
+    @RequiredArgsConstructor
+    public static final class Statistics {
+        /**
+         * Number of lookups answered from the cache.
+         * @return number of cache hits
+         */
+        private final long hits;
+        /**
+         * Number of lookups that required processing the raw value.
+         * @return number of cache misses
+         */
+        private final long misses;
+        /**
+         * Number of entries that have been evicted.
+         * @return number of evictions
+         */
+        private final long evictions;
+        /**
+         * Number of entries currently held.
+         * @return current number of entries
+         */
+        private final int size;
+        /**
+         * Maximum number of entries.
+         * @return maximum number of entries
+         */
+        private final int capacity;
+
+        /**
+         * Ratio of hits to all lookups.
+         * @return the hit ratio, or {@code 0} if no lookups have been made
+         */
+        public double getHitRatio() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans.processing;
+
+/**
+ * Encodes an object into textual data.
+ * <p>
+ * This is the reverse operation of a {@link Decoder}. Instead of returning
+ * a new String, the textual representation is appended to a buffer,
+ * which gets reused for all values of a column.
+ * <p>
+ * This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #encode(Object, StringBuilder)}.
+ *
+ * @param <T> type of input value
+ */
+@FunctionalInterface
+public interface Encoder<T> {
+
+    /**
+     * Encoder using the {@code toString()} method of an object.
+     */
+    Encoder<Object> TO_STRING = (value, buffer) -> buffer.append(value);
+
+    /**
+     * Encode a value into its textual representation.
+     * <p>
+     * {@code null} references are never passed to an encoder, but
+     * are handled by the caller.
+     *
+     * @param value the value to encode, never {@code null}
+     * @param buffer the buffer to append the textual representation to
+     * @throws IllegalArgumentException if the value cannot be encoded
+     */
+    void encode(T value, StringBuilder buffer) throws IllegalArgumentException;
+
+}
@@ -9,7 +9,8 @@ import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
  * Usually when implementing the {@link Decoder} interface, the
  * {@link Decoder#decode(String)} method has to be overridden.
  * When extending this class, however, override {@link #isTrue(String)}
- * and {@link #isFalse(String)} instead.
+ * and {@link #isFalse(String)} instead. If both checks can be answered
+ * by a single lookup, additionally override {@link #lookup(String)}.
  */
 public abstract class AbstractBooleanDecoder implements Decoder<Boolean> {
     /**
@@ -36,6 +37,24 @@ public abstract class AbstractBooleanDecoder implements Decoder<Boolean> {
      */
     abstract protected boolean isFalse(String value);
 
+    /**
+     * Map a value onto {@code true}, {@code false}, or neither.
+     * <p>
+     * The default implementation delegates to {@link #isTrue(String)}
+     * and {@link #isFalse(String)}.
+     * @param value the string data to be decoded
+     * @return the corresponding {@code Boolean}, or {@code null} if the value maps to neither
+     */
+    protected Boolean lookup(String value) {
+        if (isTrue(value)) {
+            return Boolean.TRUE;
+        }
+        if (isFalse(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
     /**
      * Decode string data into a {@code boolean}.
      * <p>
@@ -48,13 +67,40 @@ public abstract class AbstractBooleanDecoder implements Decoder<Boolean> {
      */
     @Override
     public final ResultWrapper<? extends Boolean> decode(String value) {
-        if (isTrue(value)) {
-            return TRUE;
+        final Boolean result = lookup(value);
+        if (result == null) {
+            return decodingFailed();
         }
-        if (isFalse(value)) {
-            return FALSE;
+        return result ? TRUE : FALSE;
+    }
+
+    /**
+     * Decode a batch of string data into {@code boolean}s.
+     * <p>
+     * This method maps the values by {@link #lookup(String)} directly,
+     * without wrapping the results.
+     *
+     * @param values the String input messages
+     * @param count number of values to process
+     * @param output decoded values, or {@link #UNDECODED} for pending values
+     * @return number of values that are still pending
+     */
+    @Override
+    public final int decodeBatch(final String[] values, final int count, final Object[] output) {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final Boolean result = lookup(values[i]);
+            if (result == null) {
+                ++pending;
+            }
+            else {
+                output[i] = result;
+            }
         }
-        return decodingFailed();
+        return pending;
     }
 
 }
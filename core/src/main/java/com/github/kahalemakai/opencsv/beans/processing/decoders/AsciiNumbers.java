@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+/**
+ * Exception-free fast paths for parsing ASCII numbers.
+ * <p>
+ * The methods only handle the common, unambiguous cases. Whenever the result
+ * might differ from the respective {@code parse} method of the JDK (e.g. for
+ * non-ASCII digits or possible overflows), {@link #UNRESOLVED} is returned,
+ * and the caller has to fall back to the JDK method.
+ */
+final class AsciiNumbers {
+    /**
+     * The input is definitely not a valid number.
+     */
+    static final long FAILED = Long.MIN_VALUE;
+    /**
+     * The input could not be handled by the fast path.
+     */
+    static final long UNRESOLVED = Long.MAX_VALUE;
+
+    /**
+     * Longest sequence of decimal digits that cannot overflow a {@code long}.
+     */
+    private static final int MAX_SAFE_DIGITS = 18;
+
+    /**
+     * Largest integer {@code m} such that all integers up to {@code m} are exactly representable as doubles.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private AsciiNumbers() {}
+
+    /**
+     * Parse a signed decimal integer, mimicking {@link Long#parseLong(String)}.
+     * @param value the String to parse
+     * @return the parsed value, {@link #FAILED} or {@link #UNRESOLVED}
+     */
+    static long parseDecimal(final String value) {
+        if (value == null) {
+            return FAILED;
+        }
+        final int length = value.length();
+        if (length == 0) {
+            return FAILED;
+        }
+        int i = 0;
+        boolean negative = false;
+        final char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (length == 1) {
+                return FAILED;
+            }
+            i = 1;
+        }
+        if (length - i > MAX_SAFE_DIGITS) {
+            return UNRESOLVED;
+        }
+        long result = 0;
+        for (; i < length; ++i) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                // non-ASCII digits are accepted by the JDK
+                return value.charAt(i) < 128 ? FAILED : UNRESOLVED;
+            }
+            result = 10 * result + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parse a plain decimal floating point number, mimicking {@link Double#parseDouble(String)}.
+     * <p>
+     * Only numbers of the form {@code [+-]digits[.digits][(e|E)[+-]digits]} with at most
+     * 2<sup>53</sup> as mantissa and an absolute decimal exponent of at most 22 are handled. For those,
+     * a single floating point multiplication or division is correctly rounded.
+     * @param value the String to parse
+     * @return the parsed value, or {@code null} if the fast path does not apply
+     */
+    static Double parseDouble(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < length; ++i) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = 10 * mantissa + (c - '0');
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return null;
+                }
+                ++digits;
+                if (inFraction) {
+                    ++fractionDigits;
+                }
+            }
+            else if (c == '.' && !inFraction) {
+                inFraction = true;
+            }
+            else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        int exponent = 0;
+        if (i < length) {
+            final char c = value.charAt(i);
+            if (c != 'e' && c != 'E' || ++i == length) {
+                return null;
+            }
+            boolean negativeExponent = false;
+            if (value.charAt(i) == '-' || value.charAt(i) == '+') {
+                negativeExponent = value.charAt(i) == '-';
+                if (++i == length) {
+                    return null;
+                }
+            }
+            // more than two digits always leave the fast path
+            if (length - i > 2) {
+                return null;
+            }
+            for (; i < length; ++i) {
+                final int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return null;
+                }
+                exponent = 10 * exponent + digit;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        exponent -= fractionDigits;
+        if (exponent < -22 || exponent > 22) {
+            return null;
+        }
+        double result = mantissa;
+        if (exponent < 0) {
+            result /= EXACT_POWERS_OF_TEN[-exponent];
+        }
+        else {
+            result *= EXACT_POWERS_OF_TEN[exponent];
+        }
+        return negative ? -result : result;
+    }
+
+}
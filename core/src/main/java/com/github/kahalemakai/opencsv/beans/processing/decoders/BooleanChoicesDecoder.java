@@ -1,35 +1,49 @@
 package com.github.kahalemakai.opencsv.beans.processing.decoders;
 
-import lombok.AccessLevel;
-import lombok.Setter;
+import lombok.Getter;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Decode text to {@code booleans} in form of a many-to-one mapping.
+ * <p>
+ * Both sets of text data are compiled into a single {@link PerfectHashTable},
+ * so decoding a value requires one lookup only. If a value is contained in both
+ * sets, it maps to {@code true}.
  */
 public class BooleanChoicesDecoder extends AbstractBooleanDecoder {
     /**
-     * Set the text data, evaluating to {@code true}.
-     * @param truthyValues the set of data that maps to {@code true}
+     * The text data, evaluating to {@code true}.
      */
-    @Setter(AccessLevel.PROTECTED)
     private Set<String> truthyValues = new HashSet<>();
 
     /**
-     * Set the text data, evaluating to {@code false}.
-     * @param falsyValues the set of data that maps to {@code false}
+     * The text data, evaluating to {@code false}.
      */
-    @Setter(AccessLevel.PROTECTED)
     private Set<String> falsyValues = new HashSet<>();
 
+    /**
+     * Match values case-insensitively.
+     * @return true if values are matched case-insensitively, else false
+     */
+    @Getter
+    private final boolean ignoreCase;
+
+    /**
+     * The compiled mapping, or {@code null} if it has to be (re-)compiled.
+     */
+    private volatile PerfectHashTable<Boolean> lookupTable;
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected boolean isFalse(String value) {
-        return falsyValues.contains(value);
+        return Boolean.FALSE.equals(getLookupTable().get(value));
     }
 
     /**
@@ -37,7 +51,59 @@ public class BooleanChoicesDecoder extends AbstractBooleanDecoder {
      */
     @Override
     protected boolean isTrue(String value) {
-        return truthyValues.contains(value);
+        return Boolean.TRUE.equals(getLookupTable().get(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Boolean lookup(String value) {
+        return getLookupTable().get(value);
+    }
+
+    /**
+     * Set the text data, evaluating to {@code true}.
+     * @param truthyValues the set of data that maps to {@code true}
+     */
+    protected synchronized void setTruthyValues(final Set<String> truthyValues) {
+        this.truthyValues = truthyValues;
+        this.lookupTable = null;
+    }
+
+    /**
+     * Set the text data, evaluating to {@code false}.
+     * @param falsyValues the set of data that maps to {@code false}
+     */
+    protected synchronized void setFalsyValues(final Set<String> falsyValues) {
+        this.falsyValues = falsyValues;
+        this.lookupTable = null;
+    }
+
+    /**
+     * Get the compiled mapping from text data to {@code Boolean}.
+     * <p>
+     * The lookup table also allows for decoding raw {@code char} or {@code byte} slices.
+     * @return the compiled mapping
+     */
+    public final PerfectHashTable<Boolean> getLookupTable() {
+        final PerfectHashTable<Boolean> table = lookupTable;
+        if (table != null) {
+            return table;
+        }
+        synchronized (this) {
+            if (lookupTable == null) {
+                final Map<String, Boolean> mapping = new LinkedHashMap<>();
+                for (String value : falsyValues) {
+                    mapping.put(value, Boolean.FALSE);
+                }
+                for (String value : truthyValues) {
+                    mapping.put(value, Boolean.TRUE);
+                }
+                lookupTable = PerfectHashTable.of(mapping, ignoreCase);
+            }
+            return lookupTable;
+        }
     }
 
     /**
@@ -46,13 +112,25 @@ public class BooleanChoicesDecoder extends AbstractBooleanDecoder {
      * {@code "true" -> true}, {@code "false" -> false}
      */
     public BooleanChoicesDecoder() {
+        this.ignoreCase = false;
         truthyValues.add("true");
-        truthyValues.add("false");
+        falsyValues.add("false");
     }
 
     public BooleanChoicesDecoder(final Set<String> truthyValues, final Set<String> falsyValues) {
-        this.truthyValues = truthyValues;
-        this.falsyValues = falsyValues;
+        this(truthyValues, falsyValues, false);
+    }
+
+    /**
+     * Create a new {@code Decoder} instance.
+     * @param truthyValues the set of data that maps to {@code true}
+     * @param falsyValues the set of data that maps to {@code false}
+     * @param ignoreCase if true, match values case-insensitively
+     */
+    public BooleanChoicesDecoder(final Set<String> truthyValues, final Set<String> falsyValues, final boolean ignoreCase) {
+        this.truthyValues = Collections.unmodifiableSet(new HashSet<>(truthyValues));
+        this.falsyValues = Collections.unmodifiableSet(new HashSet<>(falsyValues));
+        this.ignoreCase = ignoreCase;
     }
 
 }
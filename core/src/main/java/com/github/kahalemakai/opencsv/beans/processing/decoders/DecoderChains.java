@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * Configuration-time optimizer for decoder chains.
+ * <p>
+ * Chains consisting of built-in null decoders, followed by a built-in value decoder,
+ * are very common, e.g. {@code NullDecoder -> IntDecoder}. Such sequences get fused into a single
+ * decoder that classifies the raw value once by its length and first character, and only
+ * then either returns {@code null}, or dispatches to the value decoder.
+ * <p>
+ * Fusion only applies to the exact built-in classes. Subclasses and custom
+ * decoders are kept as they are, and are processed by the generic chain.
+ * A fused chain produces exactly the same results as the original chain.
+ */
+@Slf4j
+public final class DecoderChains {
+
+    /**
+     * Value decoders that may be fused with a preceding null decoder.
+     */
+    private static final Set<Class<?>> FUSIBLE_VALUE_DECODERS = new HashSet<>(Arrays.asList(
+            IntDecoder.class,
+            LongDecoder.class,
+            ShortDecoder.class,
+            DoubleDecoder.class,
+            BooleanDecoder.class,
+            BooleanChoicesDecoder.class,
+            EnumDecoder.class,
+            Decoder.IDENTITY.getClass()));
+
+    private DecoderChains() {}
+
+    /**
+     * Compile the lookup tables of all choice decoders of a chain.
+     * <p>
+     * The tables are otherwise compiled on first decoding. Compiling them
+     * along with the chain lets configuration errors surface while the
+     * column gets set up, instead of while processing rows.
+     * @param chain the decoder chain
+     * @throws IllegalArgumentException if any lookup table cannot be compiled
+     */
+    public static void compileLookupTables(final List<? extends Decoder<?>> chain) throws IllegalArgumentException {
+        for (Decoder<?> decoder : chain) {
+            if (decoder instanceof EnumDecoder) {
+                ((EnumDecoder<?>) decoder).getLookupTable();
+            }
+            else if (decoder instanceof BooleanChoicesDecoder) {
+                ((BooleanChoicesDecoder) decoder).getLookupTable();
+            }
+            else if (decoder instanceof NullChoicesDecoder) {
+                ((NullChoicesDecoder) decoder).getLookupTable();
+            }
+        }
+    }
+
+    /**
+     * Fuse known sequences of built-in decoders.
+     * <p>
+     * The input chain is not modified.
+     * @param chain the decoder chain to optimize
+     * @param <T> target type of the decoder chain
+     * @return a new decoder chain, yielding identical results
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<Decoder<? extends T>> fuse(final List<? extends Decoder<? extends T>> chain) {
+        final List<Decoder<? extends T>> fused = new ArrayList<>(chain.size());
+        int i = 0;
+        while (i < chain.size()) {
+            final Decoder<? extends T> decoder = chain.get(i);
+            if (!isFusibleNullDecoder(decoder)) {
+                fused.add(decoder);
+                ++i;
+                continue;
+            }
+            // collect consecutive null decoders sharing the same case sensitivity
+            final boolean ignoreCase = ignoresCase(decoder);
+            final Set<String> nullValues = new LinkedHashSet<>();
+            int j = i;
+            while (j < chain.size()
+                    && isFusibleNullDecoder(chain.get(j))
+                    && ignoresCase(chain.get(j)) == ignoreCase) {
+                nullValues.addAll(getNullValues(chain.get(j)));
+                ++j;
+            }
+            final NullValueMatcher nullValueMatcher = new NullValueMatcher(nullValues, ignoreCase);
+            if (j < chain.size() && FUSIBLE_VALUE_DECODERS.contains(chain.get(j).getClass())) {
+                fused.add(new NullableDecoder<>(nullValueMatcher, chain.get(j)));
+                ++j;
+            }
+            else if (j - i > 1) {
+                fused.add((Decoder<? extends T>) new NullableDecoder<>(nullValueMatcher, null));
+            }
+            else {
+                fused.add(decoder);
+            }
+            i = j;
+        }
+        if (log.isDebugEnabled() && fused.size() != chain.size()) {
+            log.debug("fused decoder chain of length {} into chain of length {}", chain.size(), fused.size());
+        }
+        return fused;
+    }
+
+    private static boolean isFusibleNullDecoder(final Decoder<?> decoder) {
+        final Class<?> decoderClass = decoder.getClass();
+        if (decoderClass == NullDecoder.class) {
+            // a missing null value makes the original decoder throw on every value, so keep it as is
+            return ((NullDecoder) decoder).getNullValue() != null;
+        }
+        return decoderClass == NullChoicesDecoder.class;
+    }
+
+    private static boolean ignoresCase(final Decoder<?> decoder) {
+        return decoder instanceof NullChoicesDecoder && ((NullChoicesDecoder) decoder).isIgnoreCase();
+    }
+
+    private static Collection<String> getNullValues(final Decoder<?> decoder) {
+        if (decoder instanceof NullDecoder) {
+            return Collections.singleton(((NullDecoder) decoder).getNullValue());
+        }
+        return ((NullChoicesDecoder) decoder).getNullValues();
+    }
+
+}
@@ -32,6 +32,10 @@ public class DoubleDecoder implements Decoder<Double> {
      */
     @Override
     public ResultWrapper<? extends Double> decode(String value) {
+        final Double parsed = AsciiNumbers.parseDouble(value);
+        if (parsed != null) {
+            return success(parsed);
+        }
         try {
             return success(Double.parseDouble(value));
         } catch (NumberFormatException e) {
@@ -43,4 +47,30 @@ public class DoubleDecoder implements Decoder<Double> {
             return decodingFailed();
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decodeBatch(final String[] values, final int count, final Object[] output) {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final Double parsed = AsciiNumbers.parseDouble(values[i]);
+            if (parsed != null) {
+                output[i] = parsed;
+                continue;
+            }
+            final ResultWrapper<? extends Double> result = decode(values[i]);
+            if (result.success()) {
+                output[i] = result.get();
+            }
+            else {
+                ++pending;
+            }
+        }
+        return pending;
+    }
 }
@@ -2,8 +2,7 @@ package com.github.kahalemakai.opencsv.beans.processing.decoders;
 
 import com.github.kahalemakai.opencsv.beans.processing.Decoder;
 import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
-import lombok.AccessLevel;
-import lombok.Setter;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
@@ -11,6 +10,9 @@ import java.util.Map;
 
 /**
  * Decode textual data into an enumeration of custom type.
+ * <p>
+ * Upon first decoding, the mapping is compiled into a {@link PerfectHashTable}.
+ * Any later modification of the mapping causes a recompilation.
  * @param <E> type of the target enumeration
  */
 @Slf4j
@@ -18,11 +20,23 @@ public class EnumDecoder<E extends Enum<E>> implements Decoder<E> {
 
     /**
      * The actual mapping from String key to Enumeration.
-     * @param mapping the actual mapping from String key to Enumeration
      */
-    @Setter(AccessLevel.PROTECTED)
     private Map<String, E> mapping = new HashMap<>();
 
+    /**
+     * Match keys case-insensitively.
+     * <p>
+     * Defaults to {@code false}.
+     * @return true if keys are matched case-insensitively, else false
+     */
+    @Getter
+    private boolean ignoreCase;
+
+    /**
+     * The compiled mapping, or {@code null} if it has to be (re-)compiled.
+     */
+    private volatile PerfectHashTable<E> lookupTable;
+
     /**
      * The target enumeration type.
      */
@@ -58,11 +72,55 @@ public class EnumDecoder<E extends Enum<E>> implements Decoder<E> {
         if (!enumMapping.containsKey(value)) {
             throw new IllegalArgumentException(String.format("cannot map value '%s' to enum constant of enum class %s", value, getClass().getCanonicalName()));
         }
-        mapping.put(key, enumMapping.get(value));
+        synchronized (this) {
+            mapping.put(key, enumMapping.get(value));
+            lookupTable = null;
+        }
+    }
+
+    /**
+     * Match keys case-insensitively, or not.
+     * @param ignoreCase if true, match keys case-insensitively
+     */
+    public final void setIgnoreCase(final boolean ignoreCase) {
+        synchronized (this) {
+            this.ignoreCase = ignoreCase;
+            lookupTable = null;
+        }
+    }
+
+    /**
+     * Replace the actual mapping from String key to Enumeration.
+     * @param mapping the actual mapping from String key to Enumeration
+     */
+    protected void setMapping(final Map<String, E> mapping) {
+        synchronized (this) {
+            this.mapping = mapping;
+            lookupTable = null;
+        }
+    }
+
+    /**
+     * Get the compiled mapping from String key to Enumeration.
+     * <p>
+     * The lookup table also allows for decoding raw {@code char} or {@code byte} slices.
+     * @return the compiled mapping
+     */
+    public final PerfectHashTable<E> getLookupTable() {
+        final PerfectHashTable<E> table = lookupTable;
+        if (table != null) {
+            return table;
+        }
+        synchronized (this) {
+            if (lookupTable == null) {
+                lookupTable = PerfectHashTable.of(mapping, ignoreCase);
+            }
+            return lookupTable;
+        }
     }
 
     private E getEnumConstant(final String key) {
-        return mapping.get(key);
+        return getLookupTable().get(key);
     }
 
     // FIXME: turn this into a static constructor, if possible
@@ -31,10 +31,48 @@ public class IntDecoder implements Decoder<Integer> {
      */
     @Override
     public ResultWrapper<? extends Integer> decode(String value) {
-        try {
-            return success(Integer.parseInt(value));
-        } catch (NumberFormatException e) {
+        final long parsed = AsciiNumbers.parseDecimal(value);
+        if (parsed == AsciiNumbers.UNRESOLVED) {
+            try {
+                return success(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                return decodingFailed();
+            }
+        }
+        if (parsed < Integer.MIN_VALUE || parsed > Integer.MAX_VALUE) {
+            // this includes AsciiNumbers.FAILED
             return decodingFailed();
         }
+        return success((int) parsed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decodeBatch(final String[] values, final int count, final Object[] output) {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final long parsed = AsciiNumbers.parseDecimal(values[i]);
+            if (parsed >= Integer.MIN_VALUE && parsed <= Integer.MAX_VALUE) {
+                output[i] = (int) parsed;
+            }
+            else if (parsed != AsciiNumbers.UNRESOLVED) {
+                ++pending;
+            }
+            else {
+                final ResultWrapper<? extends Integer> result = decode(values[i]);
+                if (result.success()) {
+                    output[i] = result.get();
+                }
+                else {
+                    ++pending;
+                }
+            }
+        }
+        return pending;
     }
 }
@@ -31,10 +31,47 @@ public class LongDecoder implements Decoder<Long> {
      */
     @Override
     public ResultWrapper<? extends Long> decode(String value) {
+        final long parsed = AsciiNumbers.parseDecimal(value);
+        if (parsed == AsciiNumbers.FAILED) {
+            return decodingFailed();
+        }
+        if (parsed != AsciiNumbers.UNRESOLVED) {
+            return success(parsed);
+        }
         try {
             return success(Long.parseLong(value));
         } catch (NumberFormatException e) {
             return decodingFailed();
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decodeBatch(final String[] values, final int count, final Object[] output) {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final long parsed = AsciiNumbers.parseDecimal(values[i]);
+            if (parsed == AsciiNumbers.FAILED) {
+                ++pending;
+            }
+            else if (parsed != AsciiNumbers.UNRESOLVED) {
+                output[i] = parsed;
+            }
+            else {
+                final ResultWrapper<? extends Long> result = decode(values[i]);
+                if (result.success()) {
+                    output[i] = result.get();
+                }
+                else {
+                    ++pending;
+                }
+            }
+        }
+        return pending;
+    }
 }
@@ -16,8 +16,7 @@
 
 package com.github.kahalemakai.opencsv.beans.processing.decoders;
 
-import lombok.AccessLevel;
-import lombok.Setter;
+import lombok.Getter;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -25,6 +24,8 @@ import java.util.Set;
 
 /**
  * Decode textual data to the {@code null} reference in a many-to-one mapping.
+ * <p>
+ * The text data are compiled into a {@link PerfectHashTable} upon first decoding.
  */
 public class NullChoicesDecoder extends AbstractNullDecoder {
     /**
@@ -34,17 +35,63 @@ public class NullChoicesDecoder extends AbstractNullDecoder {
 
     /**
      * The set of text data that maps to {@code null}.
-     * @param nullValues the set of text data that maps to {@code null}
      */
-    @Setter(AccessLevel.PROTECTED)
     private Set<String> nullValues = new HashSet<>();
 
+    /**
+     * Match text data case-insensitively.
+     * @return true if text data are matched case-insensitively, else false
+     */
+    @Getter
+    private final boolean ignoreCase;
+
+    /**
+     * The compiled set of text data, or {@code null} if it has to be (re-)compiled.
+     */
+    private volatile PerfectHashTable<Boolean> lookupTable;
+
     /**
      * {@inheritDoc}
      */
     @Override
     boolean isNullValued(String value) {
-        return nullValues.contains(value);
+        return getLookupTable().get(value) != null;
+    }
+
+    /**
+     * Set the text data that maps to {@code null}.
+     * @param nullValues the set of text data that maps to {@code null}
+     */
+    protected synchronized void setNullValues(final Set<String> nullValues) {
+        this.nullValues = nullValues;
+        this.lookupTable = null;
+    }
+
+    /**
+     * Get an immutable view of the text data that maps to {@code null}.
+     * @return the text data that maps to {@code null}
+     */
+    synchronized Set<String> getNullValues() {
+        return Collections.unmodifiableSet(nullValues);
+    }
+
+    /**
+     * Get the compiled set of text data that maps to {@code null}.
+     * <p>
+     * The lookup table also allows for checking raw {@code char} or {@code byte} slices.
+     * @return the compiled set of text data
+     */
+    public final PerfectHashTable<Boolean> getLookupTable() {
+        final PerfectHashTable<Boolean> table = lookupTable;
+        if (table != null) {
+            return table;
+        }
+        synchronized (this) {
+            if (lookupTable == null) {
+                lookupTable = PerfectHashTable.ofKeys(nullValues, ignoreCase);
+            }
+            return lookupTable;
+        }
     }
 
     /**
@@ -52,11 +99,22 @@ public class NullChoicesDecoder extends AbstractNullDecoder {
      * @param nullValues the set of text data that maps to {@code null}
      */
     public NullChoicesDecoder(final Set<String> nullValues) {
+        this(nullValues, false);
+    }
+
+    /**
+     * Create a new {@code Decoder} instance.
+     * @param nullValues the set of text data that maps to {@code null}
+     * @param ignoreCase if true, match text data case-insensitively
+     */
+    public NullChoicesDecoder(final Set<String> nullValues, final boolean ignoreCase) {
         this.nullValues.addAll(nullValues);
+        this.ignoreCase = ignoreCase;
     }
 
     public NullChoicesDecoder(final String...nullValues) {
         Collections.addAll(this.nullValues, nullValues);
+        this.ignoreCase = false;
     }
 
     /**
@@ -64,5 +122,6 @@ public class NullChoicesDecoder extends AbstractNullDecoder {
      */
     public NullChoicesDecoder() {
         this.nullValues.add(DEFAULT_NULL_VALUE);
+        this.ignoreCase = false;
     }
 }
@@ -42,6 +42,14 @@ public class NullDecoder extends AbstractNullDecoder {
         nullValue = DEFAULT_NULL_VALUE;
     }
 
+    /**
+     * Get the String that maps to {@code null}.
+     * @return the String that maps to {@code null}
+     */
+    String getNullValue() {
+        return nullValue;
+    }
+
     /**
      * @inheritDoc
      */
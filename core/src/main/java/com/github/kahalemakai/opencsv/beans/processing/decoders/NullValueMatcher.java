@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Precompiled matcher for a set of null-valued Strings.
+ * <p>
+ * Values are classified by their first character before any comparison is made.
+ * Thus, e.g. numeric values are rejected immediately, if no null-valued String
+ * starts with a digit.
+ */
+final class NullValueMatcher {
+    private final long[] firstCharMask = new long[2];
+    private final boolean anyNonAsciiFirstChar;
+    private final boolean matchesEmpty;
+    private final boolean matchesNull;
+    private final String single;
+    private final PerfectHashTable<Boolean> table;
+
+    NullValueMatcher(final Collection<String> nullValues, final boolean ignoreCase) {
+        boolean nonAscii = ignoreCase;
+        boolean empty = false;
+        boolean containsNull = false;
+        final List<String> nonNullValues = new ArrayList<>(nullValues.size());
+        for (String nullValue : nullValues) {
+            if (nullValue == null) {
+                containsNull = true;
+                continue;
+            }
+            nonNullValues.add(nullValue);
+            if (nullValue.isEmpty()) {
+                empty = true;
+                continue;
+            }
+            final char first = nullValue.charAt(0);
+            if (first >= 0x80) {
+                nonAscii = true;
+            }
+            else if (ignoreCase) {
+                mark(Character.toLowerCase(first));
+                mark(Character.toUpperCase(first));
+            }
+            else {
+                mark(first);
+            }
+        }
+        this.anyNonAsciiFirstChar = nonAscii;
+        this.matchesEmpty = empty;
+        this.matchesNull = containsNull;
+        if (nonNullValues.size() == 1 && !ignoreCase) {
+            this.single = nonNullValues.get(0);
+            this.table = null;
+        }
+        else {
+            this.single = null;
+            this.table = PerfectHashTable.ofKeys(nonNullValues, ignoreCase);
+        }
+    }
+
+    /**
+     * Test if a value maps to {@code null}.
+     * @param value the raw value
+     * @return true if the value maps to {@code null}, else false
+     */
+    boolean matches(final String value) {
+        if (value == null) {
+            return matchesNull;
+        }
+        if (value.isEmpty()) {
+            return matchesEmpty;
+        }
+        final char first = value.charAt(0);
+        if (first < 0x80) {
+            if ((firstCharMask[first >>> 6] & (1L << first)) == 0) {
+                return false;
+            }
+        }
+        else if (!anyNonAsciiFirstChar) {
+            return false;
+        }
+        return single != null ? single.equals(value) : table.contains(value);
+    }
+
+    private void mark(final char c) {
+        firstCharMask[c >>> 6] |= 1L << c;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Fused decoder, replacing a sequence of null decoders and an optional value decoder.
+ * @see DecoderChains
+ * @param <T> target type of the value decoder
+ */
+@RequiredArgsConstructor
+final class NullableDecoder<T> implements Decoder<T> {
+    private final NullValueMatcher nullValueMatcher;
+    /**
+     * The value decoder to dispatch to, or {@code null} if the chain only contained null decoders.
+     */
+    private final Decoder<? extends T> valueDecoder;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultWrapper<? extends T> decode(String value) {
+        if (nullValueMatcher.matches(value)) {
+            return Decoder.returnNull();
+        }
+        if (valueDecoder == null) {
+            return decodingFailed();
+        }
+        return valueDecoder.decode(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDeterministic() {
+        return valueDecoder == null || valueDecoder.isDeterministic();
+    }
+
+}
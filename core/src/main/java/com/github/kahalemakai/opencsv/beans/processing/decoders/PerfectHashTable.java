@@ -0,0 +1,377 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable lookup table for a fixed set of String keys, using a perfect hash function.
+ * <p>
+ * The table is compiled once using the hash-and-displace scheme: keys are
+ * distributed into buckets, and for every bucket a displacement is searched,
+ * such that all keys of the bucket end up in distinct, yet unused slots.
+ * Hence, each lookup hashes the input exactly once and compares it against
+ * at most one key. Inputs whose length does not match any key are rejected
+ * without hashing at all.
+ * <p>
+ * Lookups can be done on {@code CharSequence}s as well as on raw {@code char}
+ * or {@code byte} slices, so no intermediate {@code String} has to be allocated.
+ * Byte slices are interpreted as UTF-8. Optionally, keys are matched case-insensitively,
+ * following the same rules as {@link String#equalsIgnoreCase(String)}.
+ * A {@code null} key is kept apart from the hashed keys, and matches
+ * {@code null} inputs only.
+ *
+ * @param <V> type of the mapped values
+ */
+@Slf4j
+public final class PerfectHashTable<V> {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long DISPLACEMENT_STEP = 0x9e3779b97f4a7c15L;
+    private static final int MAX_DISPLACEMENTS = 1 << 12;
+    // colliding 64-bit hashes cannot be separated by any number of slots
+    private static final int MAX_SLOT_DOUBLINGS = 8;
+    private static final int LONG_KEYS_BIT = 63;
+
+    /**
+     * Tell whether keys are matched case-insensitively.
+     * @return true if keys are matched case-insensitively, else false
+     */
+    @Getter
+    private final boolean ignoreCase;
+    /**
+     * Number of keys in the table.
+     * @return number of keys in the table
+     */
+    @Getter
+    private final int size;
+    private final int slotMask;
+    private final int bucketMask;
+    private final int[] displacements;
+    private final char[][] keys;
+    private final Object[] values;
+    // bit i is set, if a key of length i exists; bit 63 marks keys of length >= 63
+    private final long lengthMask;
+    private final int maxLength;
+    private final Object nullKeyValue;
+
+    private PerfectHashTable(final boolean ignoreCase,
+                             final int size,
+                             final int[] displacements,
+                             final char[][] keys,
+                             final Object[] values,
+                             final long lengthMask,
+                             final int maxLength,
+                             final Object nullKeyValue) {
+        this.ignoreCase = ignoreCase;
+        this.size = size;
+        this.slotMask = keys.length - 1;
+        this.bucketMask = displacements.length - 1;
+        this.displacements = displacements;
+        this.keys = keys;
+        this.values = values;
+        this.lengthMask = lengthMask;
+        this.maxLength = maxLength;
+        this.nullKeyValue = nullKeyValue;
+    }
+
+    /**
+     * Compile a lookup table from a mapping.
+     * @param mapping the key-value pairs to be looked up
+     * @param ignoreCase if true, match keys case-insensitively
+     * @param <V> type of the mapped values
+     * @return the compiled lookup table
+     * @throws IllegalArgumentException if two keys only differ in case but map to different values, while ignoring case,
+     * or no perfect hash function can be found for the keys
+     */
+    public static <V> PerfectHashTable<V> of(final Map<String, ? extends V> mapping, final boolean ignoreCase)
+            throws IllegalArgumentException {
+        final Map<String, V> foldedMapping = new LinkedHashMap<>();
+        V nullKeyValue = null;
+        for (Map.Entry<String, ? extends V> entry : mapping.entrySet()) {
+            if (entry.getKey() == null) {
+                nullKeyValue = entry.getValue();
+                continue;
+            }
+            final String key = ignoreCase ? fold(entry.getKey()) : entry.getKey();
+            final V previous = foldedMapping.put(key, entry.getValue());
+            if (previous != null && !previous.equals(entry.getValue())) {
+                final String msg = String.format("key '%s' is mapped to different values when ignoring case", entry.getKey());
+                log.error(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+        final String[] allKeys = foldedMapping.keySet().toArray(new String[foldedMapping.size()]);
+        int numSlots = nextPowerOfTwo(allKeys.length + (allKeys.length >>> 2));
+        for (int doublings = 0; doublings <= MAX_SLOT_DOUBLINGS; ++doublings) {
+            final PerfectHashTable<V> table = tryCompile(allKeys, foldedMapping, nullKeyValue, ignoreCase, numSlots);
+            if (table != null) {
+                return table;
+            }
+            numSlots <<= 1;
+            log.debug("could not find perfect hash function, retrying with {} slots", numSlots);
+        }
+        final String msg = String.format("could not find perfect hash function for %d keys", allKeys.length);
+        log.error(msg);
+        throw new IllegalArgumentException(msg);
+    }
+
+    /**
+     * Compile a lookup table for a set of keys, all mapping to {@code Boolean.TRUE}.
+     * @param keys the keys to be looked up
+     * @param ignoreCase if true, match keys case-insensitively
+     * @return the compiled lookup table
+     * @throws IllegalArgumentException if no perfect hash function can be found for the keys
+     */
+    public static PerfectHashTable<Boolean> ofKeys(final Collection<String> keys, final boolean ignoreCase) {
+        final Map<String, Boolean> mapping = new LinkedHashMap<>();
+        for (String key : keys) {
+            mapping.put(key, Boolean.TRUE);
+        }
+        return of(mapping, ignoreCase);
+    }
+
+    /**
+     * Look up the value for a key.
+     * @param key the key to look up
+     * @return the mapped value, or {@code null} if the key is unknown
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final CharSequence key) {
+        if (key == null) {
+            return (V) nullKeyValue;
+        }
+        final int length = key.length();
+        if (!hasKeyOfLength(length)) {
+            return null;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < length; ++i) {
+            hash = (hash ^ unit(key.charAt(i))) * FNV_PRIME;
+        }
+        final int slot = slotOf(hash);
+        final char[] candidate = keys[slot];
+        if (candidate == null || candidate.length != length) {
+            return null;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (unit(key.charAt(i)) != candidate[i]) {
+                return null;
+            }
+        }
+        return (V) values[slot];
+    }
+
+    /**
+     * Look up the value for a key, given as slice of a {@code char} array.
+     * @param buffer array containing the key
+     * @param offset start of the key
+     * @param length length of the key
+     * @return the mapped value, or {@code null} if the key is unknown
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final char[] buffer, final int offset, final int length) {
+        if (!hasKeyOfLength(length)) {
+            return null;
+        }
+        final int end = offset + length;
+        long hash = FNV_OFFSET;
+        for (int i = offset; i < end; ++i) {
+            hash = (hash ^ unit(buffer[i])) * FNV_PRIME;
+        }
+        final int slot = slotOf(hash);
+        final char[] candidate = keys[slot];
+        if (candidate == null || candidate.length != length) {
+            return null;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (unit(buffer[offset + i]) != candidate[i]) {
+                return null;
+            }
+        }
+        return (V) values[slot];
+    }
+
+    /**
+     * Look up the value for a key, given as UTF-8 encoded slice of a {@code byte} array.
+     * <p>
+     * Pure ASCII slices are looked up directly, other slices get decoded first.
+     * @param buffer array containing the key
+     * @param offset start of the key
+     * @param length length of the key in bytes
+     * @return the mapped value, or {@code null} if the key is unknown
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final byte[] buffer, final int offset, final int length) {
+        final int end = offset + length;
+        long hash = FNV_OFFSET;
+        for (int i = offset; i < end; ++i) {
+            final byte b = buffer[i];
+            if (b < 0) {
+                return get(new String(buffer, offset, length, StandardCharsets.UTF_8));
+            }
+            hash = (hash ^ unit((char) b)) * FNV_PRIME;
+        }
+        if (!hasKeyOfLength(length)) {
+            return null;
+        }
+        final int slot = slotOf(hash);
+        final char[] candidate = keys[slot];
+        if (candidate == null || candidate.length != length) {
+            return null;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (unit((char) buffer[offset + i]) != candidate[i]) {
+                return null;
+            }
+        }
+        return (V) values[slot];
+    }
+
+    /**
+     * Tell whether a key is contained in the table.
+     * @param key the key to look up
+     * @return true if the key is contained, else false
+     */
+    public boolean contains(final CharSequence key) {
+        return get(key) != null;
+    }
+
+    private boolean hasKeyOfLength(final int length) {
+        if (length < LONG_KEYS_BIT) {
+            return (lengthMask & (1L << length)) != 0;
+        }
+        return lengthMask < 0 && length <= maxLength;
+    }
+
+    private char unit(final char c) {
+        return ignoreCase ? foldChar(c) : c;
+    }
+
+    private int slotOf(final long hash) {
+        final long mixed = mix(hash);
+        final int displacement = displacements[(int) (mixed >>> 32) & bucketMask];
+        return (int) mix(mixed + displacement * DISPLACEMENT_STEP) & slotMask;
+    }
+
+    private static <V> PerfectHashTable<V> tryCompile(final String[] allKeys,
+                                                      final Map<String, V> mapping,
+                                                      final V nullKeyValue,
+                                                      final boolean ignoreCase,
+                                                      final int numSlots) {
+        final int numBuckets = nextPowerOfTwo(Math.max(1, allKeys.length >>> 1));
+        final long[] mixedHashes = new long[allKeys.length];
+        final List<List<Integer>> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; ++i) {
+            buckets.add(new ArrayList<>());
+        }
+        long lengthMask = 0;
+        int maxLength = 0;
+        for (int i = 0; i < allKeys.length; ++i) {
+            final String key = allKeys[i];
+            long hash = FNV_OFFSET;
+            for (int j = 0; j < key.length(); ++j) {
+                hash = (hash ^ key.charAt(j)) * FNV_PRIME;
+            }
+            mixedHashes[i] = mix(hash);
+            buckets.get((int) (mixedHashes[i] >>> 32) & (numBuckets - 1)).add(i);
+            lengthMask |= 1L << Math.min(key.length(), LONG_KEYS_BIT);
+            maxLength = Math.max(maxLength, key.length());
+        }
+        final Integer[] bucketOrder = new Integer[numBuckets];
+        for (int i = 0; i < numBuckets; ++i) {
+            bucketOrder[i] = i;
+        }
+        Arrays.sort(bucketOrder, (a, b) -> Integer.compare(buckets.get(b).size(), buckets.get(a).size()));
+
+        final int[] displacements = new int[numBuckets];
+        final char[][] keys = new char[numSlots][];
+        final Object[] values = new Object[numSlots];
+        final boolean[] occupied = new boolean[numSlots];
+        for (Integer bucketIndex : bucketOrder) {
+            final List<Integer> bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            final int[] slots = new int[bucket.size()];
+            boolean placed = false;
+            for (int displacement = 0; displacement < MAX_DISPLACEMENTS && !placed; ++displacement) {
+                placed = true;
+                for (int k = 0; k < slots.length && placed; ++k) {
+                    final int slot = (int) mix(mixedHashes[bucket.get(k)] + displacement * DISPLACEMENT_STEP) & (numSlots - 1);
+                    if (occupied[slot]) {
+                        placed = false;
+                    }
+                    for (int l = 0; l < k && placed; ++l) {
+                        if (slots[l] == slot) {
+                            placed = false;
+                        }
+                    }
+                    slots[k] = slot;
+                }
+                if (placed) {
+                    displacements[bucketIndex] = displacement;
+                }
+            }
+            if (!placed) {
+                return null;
+            }
+            for (int k = 0; k < slots.length; ++k) {
+                final String key = allKeys[bucket.get(k)];
+                occupied[slots[k]] = true;
+                keys[slots[k]] = key.toCharArray();
+                values[slots[k]] = mapping.get(key);
+            }
+        }
+        final int size = nullKeyValue == null ? allKeys.length : allKeys.length + 1;
+        return new PerfectHashTable<>(ignoreCase, size, displacements, keys, values, lengthMask, maxLength, nullKeyValue);
+    }
+
+    private static String fold(final String value) {
+        final char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = foldChar(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char foldChar(final char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int nextPowerOfTwo(final int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+
+}
@@ -20,6 +20,11 @@ import java.time.format.DateTimeParseException;
 public class TimestampDecoder implements Decoder<Long> {
     public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * Marker for values that cannot be handled by {@link #parseFast(String)}.
+     */
+    private static final long UNRESOLVED = Long.MIN_VALUE;
+
     /**
      * Convert a {@code LocalDateTime} instance into milli seconds since unix epoch.
      * <p>
@@ -35,6 +40,10 @@ public class TimestampDecoder implements Decoder<Long> {
 
     @Override
     public ResultWrapper<? extends Long> decode(String data) {
+        final long millis = parseFast(data);
+        if (millis != UNRESOLVED) {
+            return success(millis);
+        }
         try {
             final LocalDateTime dateTime = LocalDateTime.parse(data, FORMAT);
             return success(convert(dateTime));
@@ -47,4 +56,99 @@ public class TimestampDecoder implements Decoder<Long> {
             return decodingFailed();
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int decodeBatch(final String[] values, final int count, final Object[] output) {
+        int pending = 0;
+        for (int i = 0; i < count; ++i) {
+            if (output[i] != UNDECODED) {
+                continue;
+            }
+            final long millis = parseFast(values[i]);
+            if (millis != UNRESOLVED) {
+                output[i] = millis;
+                continue;
+            }
+            final ResultWrapper<? extends Long> result = decode(values[i]);
+            if (result.success()) {
+                output[i] = result.get();
+            }
+            else {
+                ++pending;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Parse well-formed timestamps without the {@code DateTimeFormatter} machinery.
+     * <p>
+     * Only timestamps consisting of ASCII digits at the expected positions, and
+     * denoting a valid date and time, are handled. Anything else (including dates
+     * that the formatter would adjust, e.g. Feb 30th) is left to the formatter.
+     * @param data the String to parse
+     * @return milli seconds since unix epoch, or {@link #UNRESOLVED}
+     */
+    private static long parseFast(final String data) {
+        if (data == null || data.length() != 19
+                || data.charAt(4) != '-' || data.charAt(7) != '-' || data.charAt(10) != ' '
+                || data.charAt(13) != ':' || data.charAt(16) != ':') {
+            return UNRESOLVED;
+        }
+        final int year = digits(data, 0, 4);
+        final int month = digits(data, 5, 2);
+        final int day = digits(data, 8, 2);
+        final int hour = digits(data, 11, 2);
+        final int minute = digits(data, 14, 2);
+        final int second = digits(data, 17, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            // negative values mark non-digit characters
+            return UNRESOLVED;
+        }
+        final long seconds = daysSinceEpoch(year, month, day) * 86400L + hour * 3600 + minute * 60 + second;
+        return seconds * 1000;
+    }
+
+    private static int digits(final String data, final int offset, final int length) {
+        int result = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            final int digit = data.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = 10 * result + digit;
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                final boolean leapYear = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Count the days since 1970-01-01 in the proleptic gregorian calendar.
+     */
+    private static long daysSinceEpoch(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = y / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
 }
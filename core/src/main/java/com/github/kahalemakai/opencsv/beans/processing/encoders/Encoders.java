@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.beans.processing.encoders;
+
+import com.github.kahalemakai.opencsv.beans.processing.Encoder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Standard encoders for boxed primitives and Strings.
+ * <p>
+ * All of them append to the buffer directly, without creating
+ * intermediate String objects.
+ */
+public final class Encoders {
+    /**
+     * Encoder for {@code Integer}s.
+     */
+    public static final Encoder<Integer> INT = (value, buffer) -> buffer.append(value.intValue());
+
+    /**
+     * Encoder for {@code Long}s.
+     */
+    public static final Encoder<Long> LONG = (value, buffer) -> buffer.append(value.longValue());
+
+    /**
+     * Encoder for {@code Short}s.
+     */
+    public static final Encoder<Short> SHORT = (value, buffer) -> buffer.append(value.shortValue());
+
+    /**
+     * Encoder for {@code Byte}s.
+     */
+    public static final Encoder<Byte> BYTE = (value, buffer) -> buffer.append(value.byteValue());
+
+    /**
+     * Encoder for {@code Double}s.
+     */
+    public static final Encoder<Double> DOUBLE = (value, buffer) -> buffer.append(value.doubleValue());
+
+    /**
+     * Encoder for {@code Float}s.
+     */
+    public static final Encoder<Float> FLOAT = (value, buffer) -> buffer.append(value.floatValue());
+
+    /**
+     * Encoder for {@code Boolean}s.
+     */
+    public static final Encoder<Boolean> BOOLEAN = (value, buffer) -> buffer.append(value.booleanValue());
+
+    /**
+     * Encoder for {@code Character}s.
+     */
+    public static final Encoder<Character> CHAR = (value, buffer) -> buffer.append(value.charValue());
+
+    /**
+     * Encoder for {@code CharSequence}s, including Strings.
+     */
+    public static final Encoder<CharSequence> STRING = (value, buffer) -> buffer.append(value);
+
+    /**
+     * Encoder for enum constants, using their names.
+     */
+    public static final Encoder<Enum<?>> ENUM_NAME = (value, buffer) -> buffer.append(value.name());
+
+    private static final Map<Class<?>, Encoder<?>> ENCODERS;
+
+    static {
+        final Map<Class<?>, Encoder<?>> encoders = new HashMap<>();
+        encoders.put(Integer.class, INT);
+        encoders.put(int.class, INT);
+        encoders.put(Long.class, LONG);
+        encoders.put(long.class, LONG);
+        encoders.put(Short.class, SHORT);
+        encoders.put(short.class, SHORT);
+        encoders.put(Byte.class, BYTE);
+        encoders.put(byte.class, BYTE);
+        encoders.put(Double.class, DOUBLE);
+        encoders.put(double.class, DOUBLE);
+        encoders.put(Float.class, FLOAT);
+        encoders.put(float.class, FLOAT);
+        encoders.put(Boolean.class, BOOLEAN);
+        encoders.put(boolean.class, BOOLEAN);
+        encoders.put(Character.class, CHAR);
+        encoders.put(char.class, CHAR);
+        encoders.put(String.class, STRING);
+        ENCODERS = Collections.unmodifiableMap(encoders);
+    }
+
+    private Encoders() {
+        // utility class
+    }
+
+    /**
+     * Get the standard encoder for a type.
+     * <p>
+     * Enumerations are encoded by their names, all other types without
+     * a standard encoder by their {@code toString()} method.
+     * @param type the type of values to encode
+     * @param <T> the type of values to encode
+     * @return the standard encoder
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Encoder<? super T> forType(final Class<T> type) {
+        final Encoder<?> encoder = ENCODERS.get(type);
+        if (encoder != null) {
+            return (Encoder<? super T>) encoder;
+        }
+        if (type.isEnum()) {
+            return (Encoder<? super T>) ENUM_NAME;
+        }
+        return Encoder.TO_STRING;
+    }
+
+}
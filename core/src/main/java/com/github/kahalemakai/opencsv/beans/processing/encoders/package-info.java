@@ -0,0 +1,10 @@
+/**
+ * Included standard encoders.
+ * <p>
+ * This package includes encoders for all boxed primitives, Strings
+ * and enumerations. They are used for writing beans back out
+ * into textual formats.
+ *
+ * @see com.github.kahalemakai.opencsv.beans.processing.Encoder Encoder
+ */
+package com.github.kahalemakai.opencsv.beans.processing.encoders;
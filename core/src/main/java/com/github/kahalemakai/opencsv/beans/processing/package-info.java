@@ -9,5 +9,9 @@
  * {@link com.github.kahalemakai.opencsv.beans.processing.Decoder}s,
  * {@link com.github.kahalemakai.opencsv.beans.processing.PostProcessor}s and
  * {@link com.github.kahalemakai.opencsv.beans.processing.PostValidator}s.
+ * <p>
+ * For the reverse direction, an
+ * {@link com.github.kahalemakai.opencsv.beans.processing.Encoder}
+ * turns bean fields back into textual data.
  */
 package com.github.kahalemakai.opencsv.beans.processing;
\ No newline at end of file
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A {@link Sink} that runs another sink on a separate thread.
+ * <p>
+ * The calling thread keeps on parsing and hands the beans over in batches
+ * through a bounded queue, while a dedicated sink thread drains the queue
+ * and feeds the beans to the wrapped sink. If the queue is full, parsing
+ * blocks until the sink has caught up (backpressure).
+ * <p>
+ * Errors are propagated in both directions. If parsing fails, the wrapped sink
+ * sees the same exception when iterating past the last bean handed over. If
+ * the wrapped sink fails, parsing stops at the next batch. In either case,
+ * {@link #accept(Iterator)} only returns after the sink thread has terminated,
+ * and rethrows the first error. Closing this sink closes the wrapped one.
+ * <p>
+ * This is a {@link FanOutSink} with a single, unfiltered route.
+ */
+public final class AsyncSink implements Sink {
+    private final FanOutSink fanOut;
+
+    private AsyncSink(final FanOutSink fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Run a sink on a separate thread.
+     * @param sink the sink to wrap
+     * @param queueCapacity maximum number of batches waiting for the sink
+     * @param batchSize number of beans per batch
+     * @return the wrapping sink
+     * @throws IllegalArgumentException if capacity or batch size are not positive
+     */
+    public static AsyncSink of(@NonNull final Sink sink,
+                               final int queueCapacity,
+                               final int batchSize) throws IllegalArgumentException {
+        return new AsyncSink(FanOutSink.of(SinkRoute.of(sink)
+                .queueCapacity(queueCapacity)
+                .batchSize(batchSize)));
+    }
+
+    @Override
+    public void accept(final Iterator<?> iterator) {
+        fanOut.accept(iterator);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fanOut.close();
+    }
+
+}
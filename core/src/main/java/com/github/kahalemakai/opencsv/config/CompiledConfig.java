@@ -0,0 +1,795 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.beans.Builder;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.MapperTemplate;
+import com.github.kahalemakai.opencsv.beans.QuotingMode;
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import com.github.kahalemakai.opencsv.beans.processing.PostProcessor;
+import com.github.kahalemakai.opencsv.beans.processing.PostValidator;
+import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.EnumDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.NullChoicesDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.NullDecoder;
+import com.github.kahalemakai.opencsv.io.Compression;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A fully resolved xml configuration.
+ * <p>
+ * A {@code CompiledConfig} is the result of {@link ConfigParser#resolve()}. It contains
+ * the header, all reader options and a flat list of instructions for setting
+ * up the columns, i.e. all xml entity references, type shortcuts, global null strings
+ * and trimming modes, and all processor class names have already been resolved. The
+ * sink configuration is kept as the plain attributes of each sink plugin's
+ * {@code <config>} tag, and each transformation stage as its kind, class name and attributes.
+ * <p>
+ * The configuration can be written to a compact binary file by {@link #writeTo(OutputStream)}
+ * and read back by {@link #readFrom(InputStream)}. Setting up a {@code CsvToBeanMapper}
+ * from a {@code CompiledConfig} requires neither an xml parser, nor the xsd schemas, nor the
+ * {@link java.util.ServiceLoader} lookup of plugins. Each file records a digest of the
+ * xml config (after parameter substitution) it has been created from, such that it can be
+ * checked for being stale by {@link ConfigParser#isUpToDate(CompiledConfig)}.
+ * <p>
+ * Sink plugins have to implement {@link SinkPlugin#configure(Builder, Map)} in order
+ * to be set up from a {@code CompiledConfig}.
+ */
+@Slf4j
+public final class CompiledConfig {
+    /**
+     * Magic number at the start of every binary file ("OCSV").
+     */
+    private static final int MAGIC = 0x4f435356;
+    /**
+     * Version of the binary file format.
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private final byte[] digest;
+    private final String typeName;
+    private final String[] header;
+    private final Map<String, String> readerAttributes;
+    private final List<Instruction> instructions;
+    private final List<SinkEntry> sinks;
+    private final Map<String, String> transformationAttributes;
+    private final List<StageEntry> stages;
+
+    CompiledConfig(final byte[] digest,
+                   final String typeName,
+                   final String[] header,
+                   final Map<String, String> readerAttributes,
+                   final List<Instruction> instructions,
+                   final List<SinkEntry> sinks,
+                   final Map<String, String> transformationAttributes,
+                   final List<StageEntry> stages) {
+        this.digest = digest;
+        this.typeName = typeName;
+        this.header = header;
+        this.readerAttributes = Collections.unmodifiableMap(readerAttributes);
+        this.instructions = Collections.unmodifiableList(instructions);
+        this.sinks = Collections.unmodifiableList(sinks);
+        this.transformationAttributes = Collections.unmodifiableMap(transformationAttributes);
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Get the digest of the xml config, this configuration has been resolved from.
+     * @return the digest of the xml config
+     */
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    /**
+     * Get the fully qualified name of the target bean type.
+     * @return the fully qualified name of the target bean type
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Tell if a sink has been configured.
+     * @return if a sink has been configured
+     */
+    public boolean hasSink() {
+        return !sinks.isEmpty();
+    }
+
+    /**
+     * Tell if the beans get fanned out to several sinks.
+     * @return if the beans get fanned out to several sinks
+     * @see FanOutSink
+     */
+    public boolean fansOut() {
+        return fansOut(sinks.stream().map(SinkEntry::getAttributes).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tell if a set of sink configs requires a {@link FanOutSink}.
+     * <p>
+     * This is the case for several sinks, or a single sink with a filter.
+     * @param sinkAttributes the attributes of each sink config
+     * @return if a {@link FanOutSink} is required
+     */
+    static boolean fansOut(final List<Map<String, String>> sinkAttributes) {
+        return sinkAttributes.size() > 1
+                || sinkAttributes.stream().anyMatch(attributes -> attributes.containsKey("filter"));
+    }
+
+    /**
+     * Create a new {@link Builder}, configured with everything but the data source and the sink.
+     * <p>
+     * The queue options of a single asynchronous sink are applied, though.
+     * @param <T> type of desired output bean
+     * @return the configured builder
+     * @throws ClassNotFoundException if the bean class or any processor class cannot be found
+     * @throws InstantiationException if a processor cannot be instantiated, or column ref data cannot be decoded
+     * @throws IllegalAccessException if a processor constructor is inaccessible
+     * @throws NoSuchMethodException if no decoder constructor matches the configured arguments
+     * @throws InvocationTargetException if a decoder constructor throws
+     */
+    public <T> Builder<T> newBuilder()
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        @SuppressWarnings("unchecked")
+        final Class<? extends T> type = (Class<? extends T>) Class.forName(typeName);
+        final Builder<T> builder = CsvToBeanMapper.builder(type);
+        applyReaderAttributes(builder);
+        builder.setHeader(header);
+        for (Instruction instruction : instructions) {
+            instruction.applyTo(builder);
+        }
+        if (hasSink() && !fansOut()) {
+            applySinkQueueAttributes(builder, sinks.get(0).getAttributes());
+        }
+        if (!stages.isEmpty()) {
+            builder.transformations(newTransformationPipeline());
+        }
+        return builder;
+    }
+
+    /**
+     * Create the transformation stages, together with new instances of their functions.
+     * @return the transformation pipeline
+     * @throws IllegalStateException if a stage cannot be instantiated or configured
+     */
+    private TransformationPipeline newTransformationPipeline() throws IllegalStateException {
+        final List<TransformationStage> transformationStages = new ArrayList<>(stages.size());
+        for (StageEntry entry : stages) {
+            transformationStages.add(entry.toStage());
+        }
+        final int parallelism = Integer.parseInt(transformationAttributes.getOrDefault("parallelism",
+                String.valueOf(TransformationPipeline.DEFAULT_PARALLELISM)));
+        final int batchSize = Integer.parseInt(transformationAttributes.getOrDefault("batchSize",
+                String.valueOf(TransformationPipeline.DEFAULT_BATCH_SIZE)));
+        return TransformationPipeline.of(transformationStages).parallel(parallelism, batchSize);
+    }
+
+    /**
+     * Attach a new sink to a builder, if a sink has been configured.
+     * <p>
+     * The sink plugins are instantiated directly, without a {@link java.util.ServiceLoader} lookup.
+     * If several sinks have been configured, each one is set up on its own
+     * {@link Builder#sinkBuilder()}, and they are attached as a {@link FanOutSink}.
+     * @param builder the builder to attach the sink to
+     * @param <T> type of desired output bean
+     * @throws IllegalStateException if a sink plugin cannot be instantiated or configured
+     */
+    public <T> void configureSink(@NonNull final Builder<T> builder) throws IllegalStateException {
+        if (!hasSink()) {
+            return;
+        }
+        if (!fansOut()) {
+            sinks.get(0).configure(builder);
+            return;
+        }
+        final List<SinkRoute> routes = new ArrayList<>(sinks.size());
+        for (SinkEntry entry : sinks) {
+            final Builder<T> sinkBuilder = builder.sinkBuilder();
+            entry.configure(sinkBuilder);
+            routes.add(SinkRoute.fromAttributes(sinkBuilder.sink(), entry.getAttributes()));
+        }
+        builder.sinks(routes);
+    }
+
+    /**
+     * Compile the configuration into a {@link MapperTemplate}.
+     * <p>
+     * If a sink has been configured, every mapper bound to the template gets a fresh sink.
+     * @param <T> type of desired output bean
+     * @return the compiled template
+     * @throws ClassNotFoundException if the bean class or any processor class cannot be found
+     * @throws InstantiationException if a processor cannot be instantiated, or column ref data cannot be decoded
+     * @throws IllegalAccessException if a processor constructor is inaccessible
+     * @throws NoSuchMethodException if no decoder constructor matches the configured arguments
+     * @throws InvocationTargetException if a decoder constructor throws
+     */
+    public <T> MapperTemplate<T> toTemplate()
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        final Builder<T> builder = newBuilder();
+        final MapperTemplate<T> template = builder.toTemplate();
+        if (!hasSink()) {
+            return template;
+        }
+        return template.withSinks(() -> {
+            final Builder<T> sinkBuilder;
+            synchronized (builder) {
+                sinkBuilder = builder.sinkBuilder();
+            }
+            configureSink(sinkBuilder);
+            return sinkBuilder.sink();
+        });
+    }
+
+    /**
+     * Write the configuration in binary form.
+     * @param outputStream the stream to write to (will not be closed)
+     * @throws IOException if writing fails
+     */
+    public void writeTo(@NonNull final OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeShort(digest.length);
+        out.write(digest);
+        out.writeUTF(typeName);
+        writeStrings(out, header);
+        writeMap(out, readerAttributes);
+        out.writeInt(instructions.size());
+        for (Instruction instruction : instructions) {
+            out.writeByte(instruction.op.ordinal());
+            out.writeUTF(instruction.column);
+            writeStrings(out, instruction.args);
+        }
+        out.writeInt(sinks.size());
+        for (SinkEntry entry : sinks) {
+            out.writeUTF(entry.getPluginClassName());
+            writeMap(out, entry.getAttributes());
+        }
+        writeMap(out, transformationAttributes);
+        out.writeInt(stages.size());
+        for (StageEntry entry : stages) {
+            out.writeUTF(entry.getKind());
+            out.writeUTF(entry.getClassName());
+            writeMap(out, entry.getAttributes());
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a configuration written by {@link #writeTo(OutputStream)}.
+     * @param inputStream the stream to read from (will not be closed)
+     * @return the configuration
+     * @throws IOException if reading fails, or the data is not a compiled configuration of the current format
+     */
+    public static CompiledConfig readFrom(@NonNull final InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            final String msg = "input is not a compiled opencsv configuration";
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        final int version = in.readUnsignedShort();
+        if (version != FORMAT_VERSION) {
+            final String msg = String.format("expected: format version %d, got: %d", FORMAT_VERSION, version);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+        final byte[] digest = new byte[in.readUnsignedShort()];
+        in.readFully(digest);
+        final String typeName = in.readUTF();
+        final String[] header = readStrings(in);
+        final Map<String, String> readerAttributes = readMap(in);
+        final int numInstructions = in.readInt();
+        final List<Instruction> instructions = new ArrayList<>(numInstructions);
+        final Op[] ops = Op.values();
+        for (int i = 0; i < numInstructions; ++i) {
+            final int op = in.readUnsignedByte();
+            if (op >= ops.length) {
+                final String msg = String.format("unknown instruction code %d", op);
+                log.error(msg);
+                throw new IOException(msg);
+            }
+            instructions.add(new Instruction(ops[op], in.readUTF(), readStrings(in)));
+        }
+        final int numSinks = in.readInt();
+        final List<SinkEntry> sinks = new ArrayList<>(numSinks);
+        for (int i = 0; i < numSinks; ++i) {
+            sinks.add(new SinkEntry(in.readUTF(), readMap(in)));
+        }
+        final Map<String, String> transformationAttributes = readMap(in);
+        final int numStages = in.readInt();
+        final List<StageEntry> stages = new ArrayList<>(numStages);
+        for (int i = 0; i < numStages; ++i) {
+            stages.add(new StageEntry(in.readUTF(), in.readUTF(), readMap(in)));
+        }
+        return new CompiledConfig(digest, typeName, header, readerAttributes, instructions, sinks,
+                transformationAttributes, stages);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String[] readStrings(final DataInputStream in) throws IOException {
+        final String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            strings[i] = in.readUTF();
+        }
+        return strings;
+    }
+
+    private static void writeMap(final DataOutputStream out, final Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; ++i) {
+            map.put(in.readUTF(), in.readUTF());
+        }
+        return map;
+    }
+
+    private static <T> void applySinkQueueAttributes(final Builder<T> builder, final Map<String, String> sinkAttributes) {
+        final String queueCapacity = sinkAttributes.get("queueCapacity");
+        if (queueCapacity != null) {
+            builder.sinkQueueCapacity(Integer.parseInt(queueCapacity));
+        }
+        final String queueBatchSize = sinkAttributes.get("queueBatchSize");
+        if (queueBatchSize != null) {
+            builder.sinkBatchSize(Integer.parseInt(queueBatchSize));
+        }
+    }
+
+    private <T> void applyReaderAttributes(final Builder<T> builder) {
+        readerAttributes.forEach((name, value) -> {
+            switch (name) {
+                case "quoteChar":
+                    builder.quoteChar(value.charAt(0));
+                    break;
+                case "escapeChar":
+                    builder.escapeChar(value.charAt(0));
+                    break;
+                case "multiLine":
+                    builder.multiLine(Boolean.valueOf(value));
+                    break;
+                case "separator":
+                    builder.separator(value.charAt(0));
+                    break;
+                case "ignoreLeadingWhiteSpace":
+                    if (!Boolean.parseBoolean(value)) builder.dontIgnoreLeadingWhiteSpace();
+                    break;
+                case "onErrorSkipLine":
+                    if (Boolean.parseBoolean(value)) builder.onErrorSkipLine();
+                    break;
+                case "quotingBehaviour":
+                    builder.quotingMode(QuotingMode.forText(value));
+                    break;
+                case "skipLines":
+                    builder.skipLines(Integer.parseInt(value));
+                    break;
+                case "charset":
+                    builder.charset(Charset.forName(value));
+                    break;
+                case "batchSize":
+                    builder.batchSize(Integer.parseInt(value));
+                    break;
+                case "compression":
+                    builder.compression(Compression.forText(value));
+                    break;
+                case "decompressionThreads":
+                    builder.decompressionThreads(Integer.parseInt(value));
+                    break;
+                case "readAheadBuffers":
+                    builder.readAheadBuffers(Integer.parseInt(value));
+                    break;
+                case "readAheadBufferSize":
+                    builder.readAheadBufferSize(Integer.parseInt(value));
+                    break;
+                default:
+                    final String msg = String.format("unknown reader attribute '%s'", name);
+                    log.error(msg);
+                    throw new IllegalStateException(msg);
+            }
+        });
+    }
+
+    /**
+     * The plugin and attributes of a single {@code <sink:config>} tag.
+     */
+    static final class SinkEntry {
+        private final String pluginClassName;
+        private final Map<String, String> attributes;
+
+        SinkEntry(final String pluginClassName, final Map<String, String> attributes) {
+            this.pluginClassName = pluginClassName;
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+
+        String getPluginClassName() {
+            return pluginClassName;
+        }
+
+        Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        <T> void configure(final Builder<T> builder) throws IllegalStateException {
+            final SinkPlugin plugin;
+            try {
+                plugin = (SinkPlugin) Class.forName(pluginClassName).newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+                final String msg = String.format("could not instantiate sink plugin %s", pluginClassName);
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+            try {
+                plugin.configure(builder, attributes);
+            } catch (PluginConfigurationException e) {
+                final String msg = String.format("could not configure sink plugin %s", pluginClassName);
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+        }
+    }
+
+    /**
+     * A single stage inside of the {@code <opencsv:transformations>} tag.
+     * <p>
+     * The kind is the local name of the tag ({@code map}, {@code filter} or
+     * {@code flatMap}), or {@link #PLUGIN} for the {@code <config>} tag of a
+     * {@link TransformationPlugin}.
+     */
+    static final class StageEntry {
+        static final String PLUGIN = "plugin";
+
+        private final String kind;
+        private final String className;
+        private final Map<String, String> attributes;
+
+        StageEntry(final String kind, final String className, final Map<String, String> attributes) {
+            this.kind = kind;
+            this.className = className;
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+
+        String getKind() {
+            return kind;
+        }
+
+        String getClassName() {
+            return className;
+        }
+
+        Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        @SuppressWarnings("unchecked")
+        TransformationStage toStage() throws IllegalStateException {
+            final Object instance;
+            try {
+                instance = Class.forName(className).newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+                final String msg = String.format("could not instantiate transformation %s", className);
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+            final TransformationStage stage;
+            try {
+                switch (kind) {
+                    case "map":
+                        stage = TransformationStage.map((Function<?, ?>) instance);
+                        break;
+                    case "filter":
+                        stage = TransformationStage.filter((Predicate<?>) instance);
+                        break;
+                    case "flatMap":
+                        stage = TransformationStage.flatMap((Function<?, ? extends Iterable<?>>) instance);
+                        break;
+                    case PLUGIN:
+                        final TransformationPlugin<?, ?> plugin = (TransformationPlugin<?, ?>) instance;
+                        plugin.configure(attributes);
+                        stage = TransformationStage.map(plugin.getTransformation());
+                        break;
+                    default:
+                        final String msg = String.format("unknown kind of transformation '%s'", kind);
+                        log.error(msg);
+                        throw new IllegalStateException(msg);
+                }
+            } catch (ClassCastException | PluginConfigurationException e) {
+                final String msg = String.format("could not set up %s transformation %s", kind, className);
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+            return stage.stateless(!"false".equals(attributes.get("stateless")));
+        }
+    }
+
+    /**
+     * Kinds of column setup instructions.
+     * <p>
+     * The ordinal values are part of the binary file format: only append new constants.
+     */
+    enum Op {
+        NULL_FALLTHROUGH_FOR_POSTPROCESSORS,
+        NULL_FALLTHROUGH_FOR_POSTVALIDATORS,
+        TRIM,
+        NULL_DECODER,
+        NULL_CHOICES_DECODER,
+        DECODER,
+        DECODER_WITH_ARGUMENTS,
+        ENUM_DECODER,
+        IDENTITY_DECODER,
+        POSTPROCESSOR,
+        POSTVALIDATOR,
+        COLUMN_REF,
+        COLUMN_VALUE,
+        DEFAULT_VALUE,
+        CACHE
+    }
+
+    /**
+     * A single, resolved column setup instruction.
+     * <p>
+     * All arguments are kept as Strings:
+     * <ul>
+     *     <li>{@code TRIM}: {@code [doTrim]}</li>
+     *     <li>{@code NULL_DECODER}: {@code [nullString]}</li>
+     *     <li>{@code NULL_CHOICES_DECODER}: {@code [nullString...]}</li>
+     *     <li>{@code DECODER}, {@code POSTPROCESSOR}, {@code POSTVALIDATOR}: {@code [className]}</li>
+     *     <li>{@code DECODER_WITH_ARGUMENTS}: {@code [className, (type, value)...]}</li>
+     *     <li>{@code ENUM_DECODER}: {@code [enumClassName, ignoreCase or "", (key, value)...]}</li>
+     *     <li>{@code COLUMN_REF}: {@code [referencedColumn]}</li>
+     *     <li>{@code COLUMN_VALUE}: {@code [decoderClassName or "", data]}</li>
+     *     <li>{@code DEFAULT_VALUE}: {@code [value]}</li>
+     *     <li>{@code CACHE}: {@code [capacity]}</li>
+     * </ul>
+     */
+    static final class Instruction {
+        private final Op op;
+        private final String column;
+        private final String[] args;
+
+        private Instruction(final Op op, final String column, final String[] args) {
+            this.op = op;
+            this.column = column;
+            this.args = args;
+        }
+
+        static Instruction of(final Op op, final String column, final String...args) {
+            return new Instruction(op, column, args);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T, R> void applyTo(final Builder<T> builder)
+                throws ClassNotFoundException, InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+            switch (op) {
+                case NULL_FALLTHROUGH_FOR_POSTPROCESSORS:
+                    builder.setNullFallthroughForPostProcessors(column);
+                    break;
+                case NULL_FALLTHROUGH_FOR_POSTVALIDATORS:
+                    builder.setNullFallthroughForPostValidators(column);
+                    break;
+                case TRIM:
+                    builder.trim(column, Boolean.valueOf(args[0]));
+                    break;
+                case NULL_DECODER:
+                    final String nullString = args[0];
+                    builder.registerDecoder(
+                            column,
+                            () -> new NullDecoder(nullString),
+                            String.format("%s#%s", NullDecoder.class.getCanonicalName(), nullString));
+                    break;
+                case NULL_CHOICES_DECODER:
+                    final SortedSet<String> nullValues = new TreeSet<>(Arrays.asList(args));
+                    builder.registerDecoder(
+                            column,
+                            () -> new NullChoicesDecoder(nullValues),
+                            String.format("%s#%s", NullChoicesDecoder.class.getCanonicalName(), nullValues));
+                    break;
+                case DECODER:
+                    builder.registerDecoder(column, (Class<? extends Decoder<?>>) Class.forName(args[0]));
+                    break;
+                case DECODER_WITH_ARGUMENTS:
+                    registerDecoderWithArguments(builder);
+                    break;
+                case ENUM_DECODER:
+                    builder.registerDecoder(column, newEnumDecoder());
+                    break;
+                case IDENTITY_DECODER:
+                    builder.registerDecoder(column, Decoder.IDENTITY);
+                    break;
+                case POSTPROCESSOR:
+                    builder.registerPostProcessor(column, (Class<? extends PostProcessor<R>>) Class.forName(args[0]));
+                    break;
+                case POSTVALIDATOR:
+                    builder.registerPostValidator(column, (Class<? extends PostValidator<?>>) Class.forName(args[0]));
+                    break;
+                case COLUMN_REF:
+                    builder.setColumnRef(args[0], column);
+                    break;
+                case COLUMN_VALUE:
+                    builder.setColumnValue(column, decodeColumnValue());
+                    break;
+                case DEFAULT_VALUE:
+                    builder.defaultValueFromString(column, args[0]);
+                    break;
+                case CACHE:
+                    builder.cache(column, Integer.parseInt(args[0]));
+                    break;
+            }
+        }
+
+        private Object decodeColumnValue() throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+            final String data = args[1];
+            if (args[0].isEmpty()) {
+                return data;
+            }
+            final Decoder<?> decoder = (Decoder<?>) Class.forName(args[0]).newInstance();
+            final ResultWrapper<?> wrapper = decoder.decode(data);
+            if (!wrapper.success()) {
+                final String msg = String.format("could not decode refData '%s' with decoder %s", data, args[0]);
+                log.error(msg);
+                throw new InstantiationError(msg);
+            }
+            return wrapper.get();
+        }
+
+        private <E extends Enum<E>> EnumDecoder<E> newEnumDecoder() throws ClassNotFoundException {
+            @SuppressWarnings("unchecked")
+            final Class<? extends E> enumClass = (Class<? extends E>) Class.forName(args[0]);
+            final EnumDecoder<E> decoder = new EnumDecoder<>();
+            decoder.setType(enumClass);
+            if (!args[1].isEmpty()) {
+                decoder.setIgnoreCase(Boolean.parseBoolean(args[1]));
+            }
+            for (int i = 2; i + 1 < args.length; i += 2) {
+                decoder.put(args[i], args[i + 1]);
+            }
+            return decoder;
+        }
+
+        private <T, D> void registerDecoderWithArguments(final Builder<T> builder)
+                throws ClassNotFoundException, NoSuchMethodException {
+            @SuppressWarnings("unchecked")
+            final Class<? extends Decoder<D>> decoderClass = (Class<? extends Decoder<D>>) Class.forName(args[0]);
+            final int numArgs = (args.length - 1) / 2;
+            final Class<?>[] argTypes = new Class<?>[numArgs];
+            final Object[] argValues = new Object[numArgs];
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < numArgs; ++i) {
+                final String type = args[1 + 2 * i];
+                final String value = args[2 + 2 * i];
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(type).append(':').append(value);
+                try {
+                    switch (type) {
+                        case "int":
+                            argTypes[i] = int.class;
+                            argValues[i] = Integer.valueOf(value);
+                            break;
+                        case "short":
+                            argTypes[i] = short.class;
+                            argValues[i] = Short.valueOf(value);
+                            break;
+                        case "long":
+                            argTypes[i] = long.class;
+                            argValues[i] = Long.valueOf(value);
+                            break;
+                        case "float":
+                            argTypes[i] = float.class;
+                            argValues[i] = Float.valueOf(value);
+                            break;
+                        case "double":
+                            argTypes[i] = double.class;
+                            argValues[i] = Double.valueOf(value);
+                            break;
+                        case "boolean":
+                            argTypes[i] = boolean.class;
+                            argValues[i] = Boolean.valueOf(value);
+                            break;
+                        default:
+                            argTypes[i] = String.class;
+                            argValues[i] = value;
+                    }
+                } catch (Throwable e) {
+                    final String msg = String.format("could not parse decoder argument '%s' to type '%s'",
+                            value, type);
+                    log.error(msg);
+                    throw new IllegalArgumentException(msg, e);
+                }
+            }
+            final String constructorArgsRepr = sb.toString();
+            final String repr = String.format("%s#%s", decoderClass.getCanonicalName(), constructorArgsRepr);
+            builder.registerDecoder(column, () -> {
+                try {
+                    return newDecoder(decoderClass, argTypes, argValues);
+                } catch (IllegalAccessException
+                         | InvocationTargetException
+                         | InstantiationException
+                         | NoSuchMethodException e) {
+                    final String msg = String.format("cannot create new decoder of type %s with arguments (%s)",
+                            decoderClass.getCanonicalName(), constructorArgsRepr);
+                    log.error(msg);
+                    // FIXME: use appropriate exception type
+                    throw new RuntimeException(msg);
+                }
+            }, repr);
+        }
+
+        private static <T> Decoder<T> newDecoder(final Class<? extends Decoder<T>> decoderClass,
+                                                 final Class<?>[] argTypes,
+                                                 final Object[] argValues)
+                throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException {
+            Constructor<? extends Decoder<T>> constructor;
+            try {
+                constructor = decoderClass.getConstructor(argTypes);
+                return constructor.newInstance(argValues);
+            } catch (NoSuchMethodException e) {
+                final boolean allTheSame = Arrays.stream(argTypes)
+                        .distinct()
+                        .count() == 1;
+                if (allTheSame) {
+                    final Class<?> arrayType = Array.newInstance(argTypes[0], 0).getClass();
+                    constructor = decoderClass.getConstructor(arrayType);
+                    return constructor.newInstance(getArrayArguments(argTypes[0], argValues));
+                }
+                throw e;
+            }
+        }
+
+        private static <T> T[][] getArrayArguments(final Class<? extends T> parameterType, Object[] args) {
+            @SuppressWarnings("unchecked")
+            final T[] array = (T[]) Array.newInstance(parameterType, args.length);
+            for (int i = 0; i < args.length; ++i) {
+                @SuppressWarnings("unchecked")
+                final T arg = (T) args[i];
+                array[i] = arg;
+            }
+            @SuppressWarnings("unchecked")
+            final T[][] outerArray = (T[][]) Array.newInstance(array.getClass(), 1);
+            outerArray[0] = array;
+            return outerArray;
+        }
+    }
+
+}
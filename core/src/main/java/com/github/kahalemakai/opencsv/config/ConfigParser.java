@@ -18,21 +18,19 @@ package com.github.kahalemakai.opencsv.config;
 
 import com.github.kahalemakai.opencsv.beans.Builder;
 import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
-import com.github.kahalemakai.opencsv.beans.QuotingMode;
-import com.github.kahalemakai.opencsv.beans.processing.Decoder;
-import com.github.kahalemakai.opencsv.beans.processing.PostProcessor;
-import com.github.kahalemakai.opencsv.beans.processing.PostValidator;
-import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
-import com.github.kahalemakai.opencsv.beans.processing.decoders.EnumDecoder;
-import com.github.kahalemakai.opencsv.beans.processing.decoders.NullChoicesDecoder;
-import com.github.kahalemakai.opencsv.beans.processing.decoders.NullDecoder;
+import com.github.kahalemakai.opencsv.beans.FileSet;
+import com.github.kahalemakai.opencsv.beans.MapperTemplate;
+import com.github.kahalemakai.opencsv.config.CompiledConfig.Instruction;
+import com.github.kahalemakai.opencsv.config.CompiledConfig.Op;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.*;
@@ -40,15 +38,22 @@ import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import java.io.*;
-import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.w3c.dom.Node.ELEMENT_NODE;
 
@@ -163,10 +168,69 @@ public class ConfigParser {
     public static final String DEFAULT_PROCESSING_PACKAGE = "com.github.kahalemakai.opencsv.beans.processing";
 
     /**
-     * List of all registered plugins.
+     * Attributes of the {@code <csv:reader>} tag that configure the {@link Builder}.
      */
-    private static final ServiceLoader<SinkPlugin> registeredSinkPlugins = ServiceLoader.load(SinkPlugin.class);
-    private final List<SinkPlugin> sinkPlugins;
+    private static final List<String> READER_ATTRIBUTES = Collections.unmodifiableList(Arrays.asList(
+            "quoteChar", "escapeChar", "multiLine", "separator", "ignoreLeadingWhiteSpace",
+            "onErrorSkipLine", "quotingBehaviour", "skipLines", "charset", "batchSize",
+            "compression", "decompressionThreads", "readAheadBuffers",
+            "readAheadBufferSize"));
+    /**
+     * Supported types of decoder constructor arguments.
+     */
+    private static final Set<String> DECODER_ARGUMENT_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "int", "short", "long", "float", "double", "boolean", "String")));
+    /**
+     * Algorithm used for detecting stale {@link CompiledConfig}s.
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    /**
+     * Number of bytes inspected for a byte order mark or an xml encoding declaration.
+     */
+    private static final int PROLOG_LENGTH = 256;
+    /**
+     * Pattern of the encoding declaration inside the xml prolog.
+     */
+    private static final Pattern ENCODING_DECLARATION = Pattern.compile(
+            "^<\\?xml[^>]*?\\sencoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._-]*)[\"']");
+    /**
+     * Compiled schemas, keyed by the system ids of the opencsv.xsd and all plugin schemas.
+     * <p>
+     * {@link Schema} instances are immutable and thread-safe, so they can be shared JVM-wide.
+     */
+    private static final ConcurrentMap<List<String>, Schema> SCHEMA_CACHE = new ConcurrentHashMap<>();
+    /**
+     * Turns schema violations into exceptions, which the default handler would merely print.
+     */
+    private static final ErrorHandler VALIDATION_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(final SAXParseException exception) {
+            log.warn("xml config: {}", exception.getMessage());
+        }
+
+        @Override
+        public void error(final SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(final SAXParseException exception) {
+            // only raised for documents that are not well-formed
+            final String msg = String.format("xml config is not well-formed: %s (line: %d, column: %d)",
+                    exception.getMessage(), exception.getLineNumber(), exception.getColumnNumber());
+            log.error(msg);
+            //FIXME: use specific exception, see sinkPlugins()
+            throw new RuntimeException(msg, exception);
+        }
+    };
+    /**
+     * Types of all registered plugins, discovered once per JVM.
+     */
+    private static volatile List<Class<? extends SinkPlugin>> sinkPluginTypes;
+    @SuppressWarnings("rawtypes")
+    private static volatile List<Class<? extends TransformationPlugin>> transformationPluginTypes;
+    private List<SinkPlugin> sinkPlugins;
+    private List<TransformationPlugin<?, ?>> transformationPlugins;
 
     // variables passed to the Builder instance
     private final Optional<File> xmlFile;
@@ -175,6 +239,7 @@ public class ConfigParser {
     private final Iterable<String> unparsedLines;
     private final Iterable<String[]> parsedLines;
     private final InputStream inputStream;
+    private FileSet fileSet;
     private final ParameterMap parameters;
     private final Map<String, NodeList> defs;
 
@@ -199,15 +264,6 @@ public class ConfigParser {
         this.inputStream = inputStream;
         this.parameters = ParameterMap.init();
         this.defs = new HashMap<>();
-        try {
-            this.sinkPlugins = getSinkPlugins();
-        } catch (IllegalAccessException | InstantiationException e) {
-            final String msg = "could not setup sink plugins";
-            log.error(msg, e);
-            // FIXME: you specific exception and think about exception usage
-            // in ConfigParser in general
-            throw new RuntimeException(msg, e);
-        }
     }
 
     /**
@@ -232,15 +288,6 @@ public class ConfigParser {
         this.inputStream = inputStream;
         this.parameters = ParameterMap.init();
         this.defs = new HashMap<>();
-        try {
-            this.sinkPlugins = getSinkPlugins();
-        } catch (IllegalAccessException | InstantiationException e) {
-            final String msg = "could not setup sink plugins";
-            log.error(msg, e);
-            // FIXME: you specific exception and think about exception usage
-            // in ConfigParser in general
-            throw new RuntimeException(msg, e);
-        }
     }
 
     /**
@@ -285,7 +332,10 @@ public class ConfigParser {
      * found anywhere inside an xml document (wellformedness of xml limits possible locations to
      * attribute values), it will be replaced by the registered parameter value.
      * <p>
-     * FIXME: care for different character encodings
+     * The xml config is read in a single, buffered pass. Its character encoding is
+     * taken from a byte order mark or from the xml declaration, defaulting to UTF-8,
+     * and the result is written in that same encoding, such that the declaration
+     * stays valid.
      * @param xmlInputStream the xml config file as an {@link InputStream}
      * @return a byte array with parameters substituted by the corresponding values
      * @throws NoSuchElementException if an unregistered parameter is encountered
@@ -294,9 +344,11 @@ public class ConfigParser {
      */
     private byte[] withParameters(final InputStream xmlInputStream)
             throws NoSuchElementException, IllegalStateException, IOException {
-        final InputStreamReader reader = new InputStreamReader(xmlInputStream);
-        final ByteArrayOutputStream sink = new ByteArrayOutputStream();
-        final OutputStreamWriter writer = new OutputStreamWriter(sink);
+        final BufferedInputStream inputStream = new BufferedInputStream(xmlInputStream);
+        final Charset charset = detectCharset(inputStream);
+        final Reader reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+        final ByteArrayOutputStream sink = new ByteArrayOutputStream(Math.max(32, inputStream.available()));
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(sink, charset));
         boolean dollarFound = false,
                 paramFound = false;
         int paramLength = 0,
@@ -386,39 +438,109 @@ public class ConfigParser {
                 }
             }
         }
-        // no need to check for un-closed parameter patterns at the end
-        // xml is well-formed, so every attribute (only place for ${...} patterns)
-        // will be closed until the eof and thus no further checking is required
+        // well-formedness is only checked while parsing the substituted document,
+        // so a parameter pattern might still be open at the eof
+        if (paramFound) {
+            final String msg = new StringBuilder()
+                    .append("found unclosed parameter substitution sequence '${")
+                    .append(paramBuffer, 0, paramLength)
+                    .append("' at line: ")
+                    .append(currentLine)
+                    .append(", column: ")
+                    .append(parameterSequenceStartCol)
+                    .toString();
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        if (dollarFound) {
+            writer.write(dollar);
+        }
         writer.flush(); // remaining chars get written to the ByteArrayOutputStream
         return sink.toByteArray();
     }
 
+    /**
+     * Detect the character encoding of an xml document.
+     * <p>
+     * A byte order mark takes precedence over the encoding declaration
+     * of the xml prolog. Without either, UTF-8 is assumed. The stream is
+     * reset to its start afterwards.
+     * @param inputStream the xml document
+     * @return the character encoding
+     * @throws IOException if the document cannot be read
+     * @throws IllegalStateException if the declared encoding is not supported
+     */
+    private static Charset detectCharset(final BufferedInputStream inputStream)
+            throws IOException, IllegalStateException {
+        final byte[] prolog = new byte[PROLOG_LENGTH];
+        inputStream.mark(PROLOG_LENGTH);
+        int length = 0, nRead;
+        while (length < PROLOG_LENGTH
+                && (nRead = inputStream.read(prolog, length, PROLOG_LENGTH - length)) != -1) {
+            length += nRead;
+        }
+        inputStream.reset();
+        if (length >= 2) {
+            final int first = prolog[0] & 0xff, second = prolog[1] & 0xff;
+            if ((first == 0xfe && second == 0xff) || (first == 0xff && second == 0xfe)) {
+                return StandardCharsets.UTF_16;
+            }
+        }
+        if (length >= 3
+                && (prolog[0] & 0xff) == 0xef
+                && (prolog[1] & 0xff) == 0xbb
+                && (prolog[2] & 0xff) == 0xbf) {
+            return StandardCharsets.UTF_8;
+        }
+        final Matcher matcher = ENCODING_DECLARATION
+                .matcher(new String(prolog, 0, length, StandardCharsets.ISO_8859_1));
+        if (!matcher.find()) {
+            return StandardCharsets.UTF_8;
+        }
+        final String encoding = matcher.group(1);
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            final String msg = String.format("unsupported encoding '%s' declared by the xml config", encoding);
+            log.error(msg);
+            throw new IllegalStateException(msg, e);
+        }
+    }
+
     /**
      * Get a {@code Schema} instance corresponding to the
-     * opencsv.xsd schema file.
+     * opencsv.xsd schema file and the schemas of all sink and transformation plugins.
+     * <p>
+     * Compiled schemas are cached JVM-wide, keyed by the set of schema files.
      * @return the corresponding schema
-     * @throws SAXException if the schema file cannot be parsed
+     * @throws SAXException if a schema file cannot be parsed
      */
-    private Schema getSchema() throws SAXException, FileNotFoundException {
-        final URL schemaUrl = getClass()
-                .getResource("/schemas/opencsv.xsd");
+    private Schema getSchema() throws SAXException {
+        final URL schemaUrl = ConfigParser.class.getResource("/schemas/opencsv.xsd");
         assert schemaUrl != null;
-        SchemaFactory schemaFactory = SchemaFactory
+        final List<String> systemIds = new ArrayList<>();
+        systemIds.add(schemaUrl.toExternalForm());
+        for (SinkPlugin sinkPlugin : sinkPlugins()) {
+            systemIds.add(sinkPlugin.getSchemaUrl().toExternalForm());
+        }
+        for (TransformationPlugin<?, ?> transformationPlugin : transformationPlugins()) {
+            systemIds.add(transformationPlugin.getSchemaUrl().toExternalForm());
+        }
+        final List<String> key = Collections.unmodifiableList(systemIds);
+        final Schema cached = SCHEMA_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final SchemaFactory schemaFactory = SchemaFactory
                 .newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        final StreamSource opencsvSchemaSource = new StreamSource(new File(schemaUrl.getFile()));
-        opencsvSchemaSource.setSystemId(schemaUrl.toExternalForm());
-        final int numSchemas = sinkPlugins.size() + 1;
-        final List<StreamSource> schemas = sinkPlugins
-                .stream()
-                .map((sinkPlugin) -> {
-                    final URL url = sinkPlugin.getSchemaUrl();
-                    final StreamSource source = new StreamSource(new File(url.getFile()));
-                    source.setSystemId(url.toExternalForm());
-                    return source;
-                })
-                .collect(Collectors.toList());
-        schemas.add(0, opencsvSchemaSource);
-        return schemaFactory.newSchema(schemas.toArray(new Source[numSchemas]));
+        final Source[] schemas = new Source[key.size()];
+        for (int i = 0; i < schemas.length; ++i) {
+            // let the factory resolve the system id, so that schemas can reside inside of jar files
+            schemas[i] = new StreamSource(key.get(i));
+        }
+        final Schema schema = schemaFactory.newSchema(schemas);
+        final Schema previous = SCHEMA_CACHE.putIfAbsent(key, schema);
+        return previous != null ? previous : schema;
     }
 
     /**
@@ -436,39 +558,233 @@ public class ConfigParser {
      */
     public <T> CsvToBeanMapper<T> parse()
             throws ParserConfigurationException, IOException, SAXException, InstantiationException, ClassNotFoundException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        final byte[] bytes = loadXml();
+        final Document doc = parseDocument(bytes);
+        final Builder<T> builder = resolve(doc, digest(bytes)).newBuilder();
 
-        // check wellformedness
-        final boolean wellFormed = isWellFormed(getXmlInputStream());
-        if (!wellFormed) {
-            //FIXME
-            throw new RuntimeException("not well-formed");
+        // set the input source
+        if (this.reader != null) {
+            builder.withReader(this.reader);
+        }
+        else if (this.parsedLines != null) {
+            builder.withParsedLines(this.parsedLines);
         }
-        final byte[] bytes = withParameters(getXmlInputStream());
+        else if (this.unparsedLines != null) {
+            builder.withLines(this.unparsedLines);
+        }
+        else if (this.inputStream != null) {
+            builder.withInputStream(this.inputStream);
+        }
+        else if (this.fileSet != null) {
+            builder.withFiles(this.fileSet);
+        }
+        else {
+            final String msg = "input source must be one of [Reader, Iterable<String>, Iterable<String[]>, InputStream, FileSet]";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+
+        configureSinks(builder, getSinkConfigs(doc));
+
+        return builder.build();
+    }
+
+    /**
+     * Compile the xml config file into a reusable {@link MapperTemplate}.
+     * <p>
+     * The config file is parsed and validated exactly once. The resulting
+     * template can be bound to any number of csv sources, without repeating
+     * the xml processing or the setup of decoders, postprocessors and
+     * postvalidators. A data source passed to the factory method of this
+     * {@code ConfigParser} is ignored.
+     * <p>
+     * If a sink is configured, the corresponding plugin gets invoked once per
+     * binding of the template, such that each mapper receives its own sink.
+     * @param <T> type of desired output bean
+     * @return the compiled template
+     * @throws ParserConfigurationException if the parser configuration is skewed
+     * @throws IOException if the xml config cannot be read
+     * @throws SAXException if the xsd schema or the xml config file cannot be parsed
+     * @throws InstantiationException if the DOM builder or the decoders/processors/validators cannot be instantiated
+     * @throws ClassNotFoundException if the bean output class defined in the config file cannot be found
+     * @throws IllegalAccessException if instance creation of decoder/processor/validator is forbidden
+     * @see #of(File)
+     * @see #of(InputStream)
+     */
+    public <T> MapperTemplate<T> compile()
+            throws ParserConfigurationException, IOException, SAXException, InstantiationException, ClassNotFoundException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        final byte[] bytes = loadXml();
+        final Document doc = parseDocument(bytes);
+        final Builder<T> builder = resolve(doc, digest(bytes)).newBuilder();
+        final MapperTemplate<T> template = builder.toTemplate();
+        final List<Map.Entry<SinkPlugin, Node>> sinkConfigs = getSinkConfigs(doc);
+        if (sinkConfigs.isEmpty()) {
+            return template;
+        }
+        log.info(String.format("using %d sink(s) for template", sinkConfigs.size()));
+        return template.withSinks(() -> {
+            // neither the plugins nor the DOM are thread-safe
+            synchronized (doc) {
+                final Builder<T> sinkBuilder = builder.sinkBuilder();
+                configureSinks(sinkBuilder, sinkConfigs);
+                return sinkBuilder.sink();
+            }
+        });
+    }
+
+    /**
+     * Resolve the xml config file into a {@link CompiledConfig}.
+     * <p>
+     * The config file is parsed and validated as by {@link #parse()}, but no
+     * {@code CsvToBeanMapper} is set up. The result can be stored in a compact
+     * binary file by {@link CompiledConfig#writeTo(OutputStream)}, such that
+     * later runs can skip all xml processing.
+     * @return the resolved config
+     * @throws ParserConfigurationException if the parser configuration is skewed
+     * @throws IOException if the xml config cannot be read
+     * @throws SAXException if the xsd schema or the xml config file cannot be parsed
+     * @throws ClassNotFoundException if a processor class defined in the config file cannot be found
+     * @see #compile(Path)
+     */
+    public CompiledConfig resolve()
+            throws ParserConfigurationException, IOException, SAXException, ClassNotFoundException {
+        final byte[] bytes = loadXml();
+        return resolve(parseDocument(bytes), digest(bytes));
+    }
+
+    /**
+     * Check if a {@link CompiledConfig} has been resolved from the current xml config.
+     * <p>
+     * The check compares digests of the xml config after parameter substitution,
+     * thus it does not require parsing the xml.
+     * @param config the compiled config
+     * @return if the compiled config is up to date
+     * @throws IOException if the xml config cannot be read
+     */
+    public boolean isUpToDate(@NonNull final CompiledConfig config) throws IOException {
+        return MessageDigest.isEqual(config.getDigest(), digest(loadXml()));
+    }
+
+    /**
+     * Compile the xml config file into a {@link MapperTemplate}, using a binary artifact as cache.
+     * <p>
+     * If {@code artifact} contains a {@link CompiledConfig} that is up to date with
+     * respect to the xml config, the template is created from it without any xml processing.
+     * Otherwise, the xml config is resolved and the result gets (atomically) written to
+     * {@code artifact} for subsequent runs.
+     * <p>
+     * Sinks are set up by {@link CompiledConfig#configureSink(Builder)}.
+     * @param artifact path of the binary artifact
+     * @param <T> type of desired output bean
+     * @return the compiled template
+     * @throws ParserConfigurationException if the parser configuration is skewed
+     * @throws IOException if the xml config cannot be read, or the artifact cannot be written
+     * @throws SAXException if the xsd schema or the xml config file cannot be parsed
+     * @throws InstantiationException if the decoders/processors/validators cannot be instantiated
+     * @throws ClassNotFoundException if the bean output class defined in the config file cannot be found
+     * @throws IllegalAccessException if instance creation of decoder/processor/validator is forbidden
+     */
+    public <T> MapperTemplate<T> compile(@NonNull final Path artifact)
+            throws ParserConfigurationException, IOException, SAXException, InstantiationException, ClassNotFoundException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        if (Files.isReadable(artifact)) {
+            CompiledConfig cached = null;
+            try (InputStream inputStream = Files.newInputStream(artifact)) {
+                cached = CompiledConfig.readFrom(inputStream);
+            } catch (IOException e) {
+                log.warn(String.format("ignoring unreadable compiled config %s", artifact), e);
+            }
+            if (cached != null && isUpToDate(cached)) {
+                log.debug(String.format("using compiled config %s", artifact));
+                return cached.toTemplate();
+            }
+            log.info(String.format("compiled config %s is stale", artifact));
+        }
+        final CompiledConfig config = resolve();
+        final Path directory = artifact.toAbsolutePath().getParent();
+        final Path tmpFile = Files.createTempFile(directory, artifact.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tmpFile)) {
+                config.writeTo(outputStream);
+            }
+            try {
+                Files.move(tmpFile, artifact, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, artifact, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+        return config.toTemplate();
+    }
+
+    /**
+     * Read the xml config file and substitute all parameters.
+     * <p>
+     * Well-formedness is checked later on by {@link #parseDocument(byte[])}.
+     * @return the xml config file with parameters substituted
+     */
+    private byte[] loadXml() throws IOException {
+        try (final InputStream xmlInputStream = getXmlInputStream()) {
+            return withParameters(xmlInputStream);
+        }
+    }
+
+    /**
+     * Validate and parse the xml config file.
+     * <p>
+     * Validation happens while building the DOM, so the document
+     * is parsed exactly once.
+     * @param bytes the xml config file with parameters substituted
+     * @return the document root
+     * @throws SAXException if the xml config is not valid
+     * @throws RuntimeException if the xml config is not well-formed
+     */
+    private Document parseDocument(final byte[] bytes) throws ParserConfigurationException, IOException, SAXException {
+        this.defs.clear();
         final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
         // don't set validating behaviour to true -> or else a DTD is expected
         documentBuilderFactory.setSchema(this.getSchema());
         documentBuilderFactory.setNamespaceAware(true);
-        final Schema schema = documentBuilderFactory.getSchema();
-        final Validator validator = schema.newValidator();
-        validator.validate(new StreamSource(new ByteArrayInputStream(bytes)));
         final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        documentBuilder.setErrorHandler(VALIDATION_ERROR_HANDLER);
         final Document doc = documentBuilder.parse(new ByteArrayInputStream(bytes));
         doc.getDocumentElement().normalize();
+        return doc;
+    }
+
+    /**
+     * Compute the digest of an xml config file.
+     * @param bytes the xml config file with parameters substituted
+     * @return the digest
+     */
+    private static byte[] digest(final byte[] bytes) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            final String msg = String.format("digest algorithm %s is not available", DIGEST_ALGORITHM);
+            log.error(msg);
+            throw new IllegalStateException(msg, e);
+        }
+    }
+
+    /**
+     * Resolve the parsed xml config into a {@link CompiledConfig}.
+     * @param doc the document root
+     * @param digest digest of the xml config
+     * @return the resolved config
+     * @throws ClassNotFoundException if a processor class cannot be found
+     */
+    private CompiledConfig resolve(final Document doc, final byte[] digest) throws ClassNotFoundException {
         final Node reader = doc.getElementsByTagNameNS(OPENCSV_NAMESPACE, "reader").item(0);
-        final Optional<String> separator = getAttributeValue(reader, "separator");
-        final Optional<String> skipLines = getAttributeValue(reader, "skipLines");
 
         /* ********************
          * get the attributes
          * ********************/
 
-        final Optional<String> quoteChar = getAttributeValue(reader, "quoteChar");
-        final Optional<String> escapeChar = getAttributeValue(reader, "escapeChar");
-        final Optional<String> multiLine = getAttributeValue(reader, "mutliLine");
-        final Optional<String> ignoreLeadingWhiteSpace = getAttributeValue(reader, "ignoreLeadingWhiteSpace");
-        final Optional<String> onErrorSkipLine = getAttributeValue(reader, "onErrorSkipLine");
-        final Optional<String> quotingBehaviour = getAttributeValue(reader, "quotingBehaviour");
-        final Optional<String> charset = getAttributeValue(reader, "charset");
+        final Map<String, String> readerAttributes = new LinkedHashMap<>();
+        for (String attribute : READER_ATTRIBUTES) {
+            getAttributeValue(reader, attribute).ifPresent(s -> readerAttributes.put(attribute, s));
+        }
 
         final Node config = doc.getElementsByTagNameNS(OPENCSV_NAMESPACE, "beanConfig").item(0);
         final Optional<String> className = getAttributeValue(config, "class");
@@ -503,100 +819,151 @@ public class ConfigParser {
          * get the sub-elements
          ************************/
 
-        Class<? extends T> type;
         try {
-            type = (Class<? extends T>) Class.forName(className.get());
+            Class.forName(className.get());
         } catch (ClassNotFoundException e) {
             log.error(String.format("no class found for target bean type %s", className.get()), e);
             throw new IllegalStateException(e);
         }
-        final Builder<T> builder = CsvToBeanMapper.builder(type);
-
-        quoteChar.ifPresent(s -> builder.quoteChar(s.charAt(0)));
-        escapeChar.ifPresent(s -> builder.escapeChar(s.charAt(0)));
-        multiLine.ifPresent(s -> builder.multiLine(Boolean.valueOf(s)));
-        separator.ifPresent(s -> builder.separator(s.charAt(0)));
-        if (ignoreLeadingWhiteSpace.isPresent()) {
-            final boolean b = Boolean.parseBoolean(ignoreLeadingWhiteSpace.get());
-            if (!b) builder.dontIgnoreLeadingWhiteSpace();
-        }
-        if (onErrorSkipLine.isPresent()) {
-            final boolean b = Boolean.parseBoolean(onErrorSkipLine.get());
-            if (b) builder.onErrorSkipLine();
-        }
-        if (quotingBehaviour.isPresent()) {
-            final QuotingMode correspondingMode = QuotingMode.forText(quotingBehaviour.get());
-            builder.quotingMode(correspondingMode);
-        }
-        if (skipLines.isPresent()) {
-            final int i = Integer.parseInt(skipLines.get());
-            builder.skipLines(i);
-        }
-        if (charset.isPresent()) builder.charset(Charset.forName(charset.get()));
 
         final String[] header = getHeader(reader);
-        builder.setHeader(header);
+        final List<Instruction> instructions = new ArrayList<>();
+        resolveFields(config, instructions);
 
-        // set the input source
-        if (this.reader != null) {
-            builder.withReader(this.reader);
-        }
-        else if (this.parsedLines != null) {
-            builder.withParsedLines(this.parsedLines);
-        }
-        else if (this.unparsedLines != null) {
-            builder.withLines(this.unparsedLines);
+        final List<CompiledConfig.SinkEntry> sinks = new ArrayList<>();
+        for (Map.Entry<SinkPlugin, Node> sinkConfig : getSinkConfigs(doc)) {
+            sinks.add(new CompiledConfig.SinkEntry(sinkConfig.getKey().getClass().getName(),
+                    getAttributes(sinkConfig.getValue())));
         }
-        else if (this.inputStream != null) {
-            builder.withInputStream(this.inputStream);
+        final Map<String, String> transformationAttributes = new LinkedHashMap<>();
+        final List<CompiledConfig.StageEntry> stages = new ArrayList<>();
+        resolveTransformations(doc, transformationAttributes, stages);
+        return new CompiledConfig(digest, className.get(), header, readerAttributes, instructions, sinks,
+                transformationAttributes, stages);
+    }
+
+    /**
+     * Resolve the {@code <opencsv:transformations>} tag.
+     * <p>
+     * Built-in stages are resolved by their {@code class} attribute, all other
+     * stages by the {@link TransformationPlugin} of their namespace.
+     * @param doc the {@link Document} root of the xml configuration file
+     * @param attributes the map to add the attributes of the transformations tag to
+     * @param stages the list to add the resolved stages to
+     * @throws IllegalStateException if no transformation plugin is registered for a namespace
+     */
+    private void resolveTransformations(final Document doc,
+                                        final Map<String, String> attributes,
+                                        final List<CompiledConfig.StageEntry> stages) throws IllegalStateException {
+        final NodeList nodeList = doc.getElementsByTagNameNS(OPENCSV_NAMESPACE, "transformations");
+        if (nodeList.getLength() == 0) {
+            return;
         }
-        else {
-            final String msg = "input source must be one of [Reader, Iterable<String>, Iterable<String[]>, InputStream]";
-            log.error(msg);
-            throw new IllegalStateException(msg);
+        final Node transformations = nodeList.item(0);
+        attributes.putAll(getAttributes(transformations));
+        final NodeList childNodes = transformations.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); ++i) {
+            final Node node = childNodes.item(i);
+            if (node.getNodeType() != ELEMENT_NODE) {
+                continue;
+            }
+            final Map<String, String> stageAttributes = getAttributes(node);
+            if (OPENCSV_NAMESPACE.equals(node.getNamespaceURI())) {
+                // presence of the class attribute enforced by xsd
+                stages.add(new CompiledConfig.StageEntry(node.getLocalName(),
+                        stageAttributes.get("class"), stageAttributes));
+                continue;
+            }
+            final TransformationPlugin<?, ?> plugin = transformationPlugins()
+                    .stream()
+                    .filter(p -> p.getNameSpace().equals(node.getNamespaceURI()))
+                    .findFirst()
+                    .orElseThrow(() -> {
+                        final String msg = String.format("no transformation plugin registered for namespace %s",
+                                node.getNamespaceURI());
+                        log.error(msg);
+                        return new IllegalStateException(msg);
+                    });
+            log.info(String.format("using %s transformation plugin of namespace %s",
+                    plugin.getClass().getCanonicalName(), plugin.getNameSpace()));
+            stages.add(new CompiledConfig.StageEntry(CompiledConfig.StageEntry.PLUGIN,
+                    plugin.getClass().getName(), stageAttributes));
         }
-
-        configureFields(config, builder);
-        configureSinkIfRequired(builder, doc);
-
-        return builder.build();
     }
 
     /**
-     * Configure a {@code <opencsv:sinkConfig>} tag.
+     * Find all {@code <opencsv:sinkConfig>} tags, together with the plugin of their namespace.
      * <p>
-     * A plugin {@link Plugin#configure(Builder, Document)} method
-     * is only invoked, if a corresponding tag is found. At most, one
-     * sink plugin will be configured and the remaining registered
-     * ones will be silently ignored.
+     * Tags that cannot be mapped to any registered plugin are silently ignored.
+     * @param doc the {@link Document} root of the xml configuration file
+     * @return the sink configs in the order of the registered plugins
+     */
+    private List<Map.Entry<SinkPlugin, Node>> getSinkConfigs(final Document doc) {
+        final List<Map.Entry<SinkPlugin, Node>> sinkConfigs = new ArrayList<>();
+        for (SinkPlugin plugin : sinkPlugins()) {
+            final NodeList nodeList = doc.getElementsByTagNameNS(plugin.getNameSpace(), "config");
+            for (int i = 0; i < nodeList.getLength(); ++i) {
+                sinkConfigs.add(new AbstractMap.SimpleImmutableEntry<>(plugin, nodeList.item(i)));
+            }
+        }
+        return sinkConfigs;
+    }
+
+    /**
+     * Configure the {@code <opencsv:sinkConfig>} tags.
      * <p>
-     * The {@link ConfigParser} does currently not check if a
-     * tag cannot be mapped to any plugin.
+     * A single sink is configured on the builder itself by the plugin's
+     * {@link SinkPlugin#configure(Builder, Node)} method. Several sinks, or a
+     * sink with a filter, are each configured on a {@link Builder#sinkBuilder()},
+     * and attached as a {@link FanOutSink}.
      * @param builder the {@link Builder} instance to be configured
-     * @param doc the {@link Document} root of the xml configuration file
+     * @param sinkConfigs the sink configs as returned by {@link #getSinkConfigs(Document)}
      * @param <T> target bean type for the {@link Builder}
+     * @throws IllegalStateException if a sink plugin cannot be configured
      */
-    private <T> void configureSinkIfRequired(final Builder<T> builder, final Document doc) {
-        for (SinkPlugin plugin : sinkPlugins) {
-            try {
-                plugin.configure(builder, doc);
-                return;
-            } catch (PluginConfigurationException ignored) {}
+    private static <T> void configureSinks(final Builder<T> builder,
+                                           final List<Map.Entry<SinkPlugin, Node>> sinkConfigs) throws IllegalStateException {
+        if (sinkConfigs.isEmpty()) {
+            return;
+        }
+        final List<Map<String, String>> attributes = new ArrayList<>(sinkConfigs.size());
+        for (Map.Entry<SinkPlugin, Node> sinkConfig : sinkConfigs) {
+            attributes.add(getAttributes(sinkConfig.getValue()));
+        }
+        if (!CompiledConfig.fansOut(attributes)) {
+            configureSink(builder, sinkConfigs.get(0));
+            return;
+        }
+        final List<SinkRoute> routes = new ArrayList<>(sinkConfigs.size());
+        for (int i = 0; i < sinkConfigs.size(); ++i) {
+            final Builder<T> sinkBuilder = builder.sinkBuilder();
+            configureSink(sinkBuilder, sinkConfigs.get(i));
+            routes.add(SinkRoute.fromAttributes(sinkBuilder.sink(), attributes.get(i)));
+        }
+        builder.sinks(routes);
+    }
+
+    private static <T> void configureSink(final Builder<T> builder,
+                                          final Map.Entry<SinkPlugin, Node> sinkConfig) throws IllegalStateException {
+        final SinkPlugin plugin = sinkConfig.getKey();
+        try {
+            plugin.configure(builder, sinkConfig.getValue());
+        } catch (PluginConfigurationException e) {
+            final String msg = String.format("could not configure sink plugin of namespace %s",
+                    plugin.getNameSpace());
+            log.error(msg);
+            throw new IllegalStateException(msg, e);
         }
     }
 
     /**
-     * Configure the {@code bean:field} xml objects.
+     * Resolve the {@code bean:field} xml objects.
      * @param config the parent {@code bean:config} node
-     * @param builder the {@code Builder} instance
-     * @param <T> type of bean to be eventually emitted
+     * @param instructions the list to add the resolved column instructions to
      * @throws ClassNotFoundException if class of decoders/... cannot be found
-     * @throws InstantiationException if decoder/... cannot be instantiated, or column ref data cannot be decoded
-     * @throws IllegalAccessException if decoder/... default constructor is inaccessible
      */
-    private <T> void configureFields(final Node config, Builder<T> builder) throws ClassNotFoundException, InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+    private void resolveFields(final Node config, final List<Instruction> instructions) throws ClassNotFoundException {
         final NodeList fields = config.getChildNodes();
-//        final Class<? extends T> builderType = builder.getStrategy().getType();
         for (int i = 0; i < fields.getLength(); ++i) {
             final Node field = fields.item(i);
             final String fieldNs = field.getNamespaceURI();
@@ -608,20 +975,19 @@ public class ConfigParser {
             if (nullFallsThrough.isPresent()) {
                 switch (NullFallsThroughType.forText(nullFallsThrough.get())) {
                     case BOTH:
-                        builder.setNullFallthroughForPostProcessors(column);
-                        builder.setNullFallthroughForPostValidators(column);
+                        instructions.add(Instruction.of(Op.NULL_FALLTHROUGH_FOR_POSTPROCESSORS, column));
+                        instructions.add(Instruction.of(Op.NULL_FALLTHROUGH_FOR_POSTVALIDATORS, column));
                         break;
                     case POST_PROCESSOR:
-                        builder.setNullFallthroughForPostProcessors(column);
+                        instructions.add(Instruction.of(Op.NULL_FALLTHROUGH_FOR_POSTPROCESSORS, column));
                         break;
                     case POST_VALIDATOR:
-                        builder.setNullFallthroughForPostValidators(column);
+                        instructions.add(Instruction.of(Op.NULL_FALLTHROUGH_FOR_POSTVALIDATORS, column));
                         break;
                 }
             }
             final Optional<String> trim = getAttributeValue(field, "trim");
-            final boolean doTrim = Boolean.valueOf(trim.orElse(globalTrimmingMode));
-            builder.trim(column, doTrim);
+            instructions.add(Instruction.of(Op.TRIM, column, trim.orElse(globalTrimmingMode)));
 
             final NodeList processors = field.getChildNodes();
             final SortedSet<String> nullValues = new TreeSet<>();
@@ -646,22 +1012,16 @@ public class ConfigParser {
                     nullValues.add(nullString);
                 }
                 if (nullValues.size() == 1) {
-                    final String nullString = nullValues.first();
-                    builder.registerDecoder(
-                            column,
-                            () -> new NullDecoder(nullString),
-                            String.format("%s#%s", NullDecoder.class.getCanonicalName(), nullString));
+                    instructions.add(Instruction.of(Op.NULL_DECODER, column, nullValues.first()));
                 }
                 else {
-                    builder.registerDecoder(
-                            column,
-                            () -> new NullChoicesDecoder(nullValues),
-                            String.format("%s#%s", NullChoicesDecoder.class.getCanonicalName(), nullValues));
+                    instructions.add(Instruction.of(Op.NULL_CHOICES_DECODER, column,
+                            nullValues.toArray(new String[nullValues.size()])));
                 }
             }
             final Optional<String> type = getAttributeValue(field, "type");
             if (type.isPresent() && !type.get().equals("String")) {
-                defineType(builder, column, fieldNs, type.get());
+                defineType(instructions, column, fieldNs, type.get());
             }
             final Optional<String> ref = getAttributeValue(field, "ref");
             if (ref.isPresent()) {
@@ -671,49 +1031,40 @@ public class ConfigParser {
                     String data = refData.get();
                     switch (refType) {
                         case "column":
-                            builder.setColumnRef(data, column);
+                            instructions.add(Instruction.of(Op.COLUMN_REF, column, data));
                             break;
                         case "value":
-                            Object decodedRefData = data;
+                            String decoderClassName = "";
                             if (type.isPresent() && !type.get().equals("String")) {
                                 final String decoderType = String.format("%s%sDecoder",
                                         type.get().substring(0, 1).toUpperCase(), type.get().substring(1));
-                                final Class<? extends Decoder<?>> decoderClass =
-                                        getProcessorClass(decoderType, fieldNs, BEAN_DECODER);
-                                final Decoder<?> decoder = decoderClass.newInstance();
-                                final ResultWrapper<?> wrapper = decoder.decode(data);
-                                if (wrapper.success()) {
-                                    decodedRefData = wrapper.get();
-                                }
-                                else {
-                                    final String msg = String.format("could not decode refData '%s' as type %s",
-                                            data, type);
-                                    log.error(msg);
-                                    throw new InstantiationError(msg);
-                                }
+                                decoderClassName = getProcessorClass(decoderType, fieldNs, BEAN_DECODER).getName();
                             }
-                            builder.setColumnValue(column, decodedRefData);
+                            instructions.add(Instruction.of(Op.COLUMN_VALUE, column, decoderClassName, data));
                             break;
                     }
                 }
 
             }
 
-            final boolean anyDecoder = registerDecoders(builder, column, processors);
+            final boolean anyDecoder = resolveDecoders(instructions, column, processors);
             // if isNullable, then a null decoder has been registered
             // but the null decoder only decodes null-valued Strings to null.
             // if no additional decoder has been registered, we have to assume the
             // target type to be string and thus add the identity decoder t -> t
             if (isNullable && !anyDecoder) {
-                builder.registerDecoder(column, Decoder.IDENTITY);
+                instructions.add(Instruction.of(Op.IDENTITY_DECODER, column));
             }
 
             final Optional<String> defaultValue = getAttributeValue(field, "default");
-            defaultValue.ifPresent(s -> builder.defaultValueFromString(column, s));
+            defaultValue.ifPresent(s -> instructions.add(Instruction.of(Op.DEFAULT_VALUE, column, s)));
+
+            final Optional<String> cacheCapacity = getAttributeValue(field, "cache");
+            cacheCapacity.ifPresent(s -> instructions.add(Instruction.of(Op.CACHE, column, s)));
         }
     }
 
-    private <T> boolean registerDecoders(final Builder<T> builder, final String column, final NodeList processors) throws ClassNotFoundException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+    private boolean resolveDecoders(final List<Instruction> instructions, final String column, final NodeList processors) throws ClassNotFoundException {
         boolean anyDecoder = false;
         for (int j = 0; j < processors.getLength(); ++j) {
             final Node processor = processors.item(j);
@@ -729,10 +1080,10 @@ public class ConfigParser {
                         log.error(msg);
                         throw new IllegalStateException(msg);
                     }
-                    anyDecoder |= registerDecoders(builder, column, this.defs.get(name));
+                    anyDecoder |= resolveDecoders(instructions, column, this.defs.get(name));
                 }
                 else {
-                    registerProcessor(column, builder, processor);
+                    resolveProcessor(column, instructions, processor);
                     if (localName.equals(BEAN_DECODER)) {
                         anyDecoder = true;
                     }
@@ -744,70 +1095,63 @@ public class ConfigParser {
 
     /**
      * Map a primitive type name to the corresponding decoder.
-     * @param builder the {@code Builder} instance
+     * @param instructions the list of column instructions
      * @param columnName name of bean field to be configured
      * @param type name of primitive type
-     * @param <T> type of bean to be eventually emitted
      * @throws ClassNotFoundException if the decoder class cannot be found
-     * @throws InstantiationException if the decoder cannot be instantiated
      */
-    private <T> void defineType(final Builder<T> builder,
-                                final String columnName,
-                                final String ns,
-                                final String type) throws ClassNotFoundException, InstantiationException {
+    private void defineType(final List<Instruction> instructions,
+                            final String columnName,
+                            final String ns,
+                            final String type) throws ClassNotFoundException {
         final String decoderType = String.format("%s%sDecoder", type.substring(0, 1).toUpperCase(), type.substring(1));
-        builder.registerDecoder(columnName, getProcessorClass(decoderType, ns, BEAN_DECODER));
+        final Class<?> decoderClass = getProcessorClass(decoderType, ns, BEAN_DECODER);
+        instructions.add(Instruction.of(Op.DECODER, columnName, decoderClass.getName()));
     }
 
     /**
-     * Register a processor of type decoder/postProcessor/postValidator/enumDecoder.
+     * Resolve a processor of type decoder/postProcessor/postValidator/enumDecoder.
      * <p>
      * The processor class is first looked up as-is, and if not found, the
      * config parser tries to find it in an opencsv package.
      * @param column name of bean field to be configured
-     * @param builder the {@code Builder} instance
+     * @param instructions the list of column instructions
      * @param processor the corresponding xml node
-     * @param <T> type of bean to be eventually emitted
-     * @param <R> type of corresponding bean field
-     * @throws InstantiationException if the processor cannot be instantiated
      * @throws ClassNotFoundException if the processor class cannot be found
      */
-    private <T, R> void registerProcessor(final String column,
-                                       final Builder<T> builder,
-                                       final Node processor) throws InstantiationException, ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+    private void resolveProcessor(final String column,
+                                  final List<Instruction> instructions,
+                                  final Node processor) throws ClassNotFoundException {
         final String processorNodeName = processor.getLocalName();
         // present of attribute "type" is enforced by xsd
         final String type = getAttributeValue(processor, "type").get();
         final String processorNs = processor.getNamespaceURI();
         switch (processorNodeName) {
             case BEAN_DECODER:
-                final Class<? extends Decoder<R>> decoderClass = getProcessorClass(type, processorNs, BEAN_DECODER);
-                registerDecoder(builder, column, decoderClass, processor.getChildNodes());
+                final Class<?> decoderClass = getProcessorClass(type, processorNs, BEAN_DECODER);
+                resolveDecoder(instructions, column, decoderClass, processor.getChildNodes());
                 break;
             case BEAN_POSTPROCESSOR:
-                final Class<? extends PostProcessor<R>> postProcessorClass = getProcessorClass(type, processorNs, BEAN_POSTPROCESSOR);
-                builder.registerPostProcessor(column, postProcessorClass);
+                final Class<?> postProcessorClass = getProcessorClass(type, processorNs, BEAN_POSTPROCESSOR);
+                instructions.add(Instruction.of(Op.POSTPROCESSOR, column, postProcessorClass.getName()));
                 break;
             case BEAN_POSTVALIDATOR:
-                final Class<? extends PostValidator<R>> postValidatorClass = getProcessorClass(type, processorNs, BEAN_POSTVALIDATOR);
-                builder.registerPostValidator(column, postValidatorClass);
+                final Class<?> postValidatorClass = getProcessorClass(type, processorNs, BEAN_POSTVALIDATOR);
+                instructions.add(Instruction.of(Op.POSTVALIDATOR, column, postValidatorClass.getName()));
                 break;
             case BEAN_ENUM:
-                final EnumDecoder<?> enumDecoder = getEnumDecoder(processor);
-                builder.registerDecoder(column, enumDecoder);
+                instructions.add(resolveEnumDecoder(column, processor));
                 break;
         }
 
     }
 
-    private <R, T> void registerDecoder(final Builder<R> builder,
-                                     final String column,
-                                     final Class<? extends Decoder<T>> decoderClass,
-                                     final NodeList arguments) throws InstantiationException, NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        final List<Object> constructorArgumentValues = new ArrayList<>();
-        final List<Class<?>> constructorArgumentTypes = new ArrayList<>();
-        final StringBuilder sb = new StringBuilder();
-
+    private void resolveDecoder(final List<Instruction> instructions,
+                                final String column,
+                                final Class<?> decoderClass,
+                                final NodeList arguments) {
+        final List<String> args = new ArrayList<>();
+        args.add(decoderClass.getName());
         for (int i = 0; i < arguments.getLength(); i++) {
             final Node arg = arguments.item(i);
             if (arg.getNodeType() != ELEMENT_NODE) {
@@ -816,126 +1160,31 @@ public class ConfigParser {
             // presence enforced by xsd schema
             final String value = getAttributeValue(arg, "value").get();
             final String type = getAttributeValue(arg, "type").get();
-            final Optional<String> name = getAttributeValue(arg, "name");
-            try {
-                sb.append(type);
-                sb.append(':');
-                sb.append(value);
-                sb.append(',');
-                sb.append(' ');
-                switch (type) {
-                    case "int":
-                        constructorArgumentTypes.add(int.class);
-                        constructorArgumentValues.add(Integer.valueOf(value));
-                        break;
-                    case "short":
-                        constructorArgumentTypes.add(short.class);
-                        constructorArgumentValues.add(Short.valueOf(value));
-                        break;
-                    case "long":
-                        constructorArgumentTypes.add(long.class);
-                        constructorArgumentValues.add(Long.valueOf(value));
-                        break;
-                    case "float":
-                        constructorArgumentTypes.add(float.class);
-                        constructorArgumentValues.add(Float.valueOf(value));
-                        break;
-                    case "double":
-                        constructorArgumentTypes.add(double.class);
-                        constructorArgumentValues.add(Double.valueOf(value));
-                        break;
-                    case "boolean":
-                        constructorArgumentTypes.add(boolean.class);
-                        constructorArgumentValues.add(Boolean.valueOf(value));
-                        break;
-                    case "String":
-                        constructorArgumentTypes.add(String.class);
-                        constructorArgumentValues.add(value);
-                        break;
-                    default:
-                }
-            } catch (Throwable e) {
-                final String msg = String.format("could not parse decoder argument '%s' to type '%s'",
-                        value, type) + (name.isPresent() ? " " + name : "");
-                log.error(msg);
-                throw new IllegalArgumentException(msg, e);
+            if (DECODER_ARGUMENT_TYPES.contains(type)) {
+                args.add(type);
+                args.add(value);
             }
         }
-        if (constructorArgumentTypes.isEmpty()) {
-            builder.registerDecoder(column, decoderClass);
+        if (args.size() == 1) {
+            instructions.add(Instruction.of(Op.DECODER, column, decoderClass.getName()));
         }
         else {
-            sb.delete(sb.length() - 2, sb.length());
-            final Class<?>[] argTypes = constructorArgumentTypes.stream().toArray(Class<?>[]::new);
-            final Object[] argValues = constructorArgumentValues.stream().toArray(Object[]::new);
-            final String constructorArgsRepr = sb.toString();
-            final String repr = String.format("%s#%s", decoderClass.getCanonicalName(), constructorArgsRepr);
-            builder.registerDecoder(column, () -> {
-                try {
-                    return newDecoder(decoderClass, argTypes, argValues);
-                } catch (IllegalAccessException
-                         | InvocationTargetException
-                         | InstantiationException
-                         | NoSuchMethodException e) {
-                    final String msg = String.format("cannot create new decoder of type %s with arguments (%s)",
-                            decoderClass.getCanonicalName(), constructorArgsRepr);
-                    log.error(msg);
-                    // FIXME: use appropriate exception type
-                    throw new RuntimeException(msg);
-                }
-            }, repr);
-        }
-    }
-
-    private static <T> Decoder<T> newDecoder(final Class<? extends Decoder<T>> decoderClass,
-                                                                    final Class<?>[] argTypes,
-                                                                    final Object[] argValues)
-            throws IllegalAccessException, InvocationTargetException, InstantiationException, NoSuchMethodException {
-        Constructor<? extends Decoder<T>> constructor;
-        try {
-            constructor = decoderClass.getConstructor(argTypes);
-            return constructor.newInstance(argValues);
-        } catch (NoSuchMethodException e) {
-            final boolean allTheSame = Arrays.stream(argTypes)
-                    .distinct()
-                    .count() == 1;
-            if (allTheSame) {
-                final Class<?> arrayType = Array.newInstance(argTypes[0], 0).getClass();
-                constructor = decoderClass.getConstructor(arrayType);
-                return constructor.newInstance(getArrayArguments(argTypes[0], argValues));
-            }
-            throw e;
+            instructions.add(Instruction.of(Op.DECODER_WITH_ARGUMENTS, column, args.toArray(new String[args.size()])));
         }
     }
 
-    private static <T> T[][] getArrayArguments(final Class<? extends T> parameterType, Object[] args) {
-        @SuppressWarnings("unchecked")
-        final T[] array = (T[]) Array.newInstance(parameterType, args.length);
-        for (int i = 0; i < args.length; ++i) {
-            @SuppressWarnings("unchecked")
-            final T arg = (T) args[i];
-            array[i] = arg;
-        }
-        @SuppressWarnings("unchecked")
-        final T[][] outerArray = (T[][]) Array.newInstance(array.getClass(), 1);
-        outerArray[0] = array;
-        return outerArray;
-    }
-
     /**
-     * Setup an enum decoder.
+     * Resolve an enum decoder.
+     * @param column name of bean field to be configured
      * @param processor the corresponding xml node
-     * @param <E> type of target enumeration
-     * @return the enum decoder
-     * @throws ClassNotFoundException if the corresponding enum decoder class cannot be found
+     * @return the corresponding instruction
      */
-    private <E extends Enum<E>> EnumDecoder<E> getEnumDecoder(final Node processor) throws ClassNotFoundException {
+    private Instruction resolveEnumDecoder(final String column, final Node processor) {
         final NodeList maps = processor.getChildNodes();
+        final List<String> args = new ArrayList<>();
         // presence of attribute "type" is enforced by xsd
-        final String typeName = getAttributeValue(processor, "type").get();
-        final Class<? extends E> enumClass = (Class<? extends E>) Class.forName(typeName);
-        final EnumDecoder<E> decoder = new EnumDecoder<>();
-        decoder.setType(enumClass);
+        args.add(getAttributeValue(processor, "type").get());
+        args.add(getAttributeValue(processor, "ignoreCase").orElse(""));
         for (int i = 0; i < maps.getLength(); ++i) {
             final Node node = maps.item(i);
             final String ns = node.getNamespaceURI();
@@ -944,12 +1193,11 @@ public class ConfigParser {
                     && BEAN_NAMESPACE.equals(ns)
                     && BEAN_ENUM_MAP.equals(localName)) {
                 // presence of attributes "key", "value" is enforced by xsd
-                final String key = getAttributeValue(node, "key").get();
-                final String value = getAttributeValue(node, "value").get();
-                decoder.put(key, value);
+                args.add(getAttributeValue(node, "key").get());
+                args.add(getAttributeValue(node, "value").get());
             }
         }
-        return decoder;
+        return Instruction.of(Op.ENUM_DECODER, column, args.toArray(new String[args.size()]));
     }
 
     /**
@@ -1089,6 +1337,28 @@ public class ConfigParser {
         return sink.toByteArray();
     }
 
+    /**
+     * Get the sink plugins of this instance.
+     * <p>
+     * The plugins are looked up on first use only, such that loading
+     * a {@link CompiledConfig} does not require a {@link ServiceLoader} scan.
+     * @return the sink plugins
+     */
+    private List<SinkPlugin> sinkPlugins() {
+        if (this.sinkPlugins == null) {
+            try {
+                this.sinkPlugins = getSinkPlugins();
+            } catch (IllegalAccessException | InstantiationException e) {
+                final String msg = "could not setup sink plugins";
+                log.error(msg, e);
+                // FIXME: you specific exception and think about exception usage
+                // in ConfigParser in general
+                throw new RuntimeException(msg, e);
+            }
+        }
+        return this.sinkPlugins;
+    }
+
     /**
      * Get a copy of the registered sink plugins.
      * @return a copy of the registered sink plugins
@@ -1096,15 +1366,105 @@ public class ConfigParser {
      * @throws InstantiationException if the creation of a new {@link SinkPlugin} fails
      */
     private static List<SinkPlugin> getSinkPlugins() throws IllegalAccessException, InstantiationException {
-        registeredSinkPlugins.reload();
         final List<SinkPlugin> plugins = new ArrayList<>();
-        for (SinkPlugin plugin : registeredSinkPlugins) {
-            final SinkPlugin sinkPlugin = plugin.getClass().newInstance();
-            plugins.add(sinkPlugin);
+        for (Class<? extends SinkPlugin> type : getSinkPluginTypes()) {
+            plugins.add(type.newInstance());
         }
         return Collections.unmodifiableList(plugins);
     }
 
+    /**
+     * Get the types of all registered sink plugins.
+     * <p>
+     * The {@link ServiceLoader} scan is performed once per JVM only.
+     * @return the types of all registered sink plugins
+     */
+    private static List<Class<? extends SinkPlugin>> getSinkPluginTypes() {
+        List<Class<? extends SinkPlugin>> types = sinkPluginTypes;
+        if (types == null) {
+            synchronized (ConfigParser.class) {
+                types = sinkPluginTypes;
+                if (types == null) {
+                    final List<Class<? extends SinkPlugin>> discovered = new ArrayList<>();
+                    for (SinkPlugin plugin : ServiceLoader.load(SinkPlugin.class)) {
+                        discovered.add(plugin.getClass());
+                    }
+                    types = Collections.unmodifiableList(discovered);
+                    sinkPluginTypes = types;
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Get the transformation plugins of this instance.
+     * <p>
+     * The plugins are looked up on first use only, just as the sink plugins.
+     * They only provide the namespaces and schemas, every stage gets
+     * a plugin instance of its own.
+     * @return the transformation plugins
+     */
+    @SuppressWarnings("rawtypes")
+    private List<TransformationPlugin<?, ?>> transformationPlugins() {
+        if (this.transformationPlugins == null) {
+            final List<TransformationPlugin<?, ?>> plugins = new ArrayList<>();
+            for (Class<? extends TransformationPlugin> type : getTransformationPluginTypes()) {
+                try {
+                    plugins.add(type.newInstance());
+                } catch (IllegalAccessException | InstantiationException e) {
+                    final String msg = "could not setup transformation plugins";
+                    log.error(msg, e);
+                    throw new IllegalStateException(msg, e);
+                }
+            }
+            this.transformationPlugins = Collections.unmodifiableList(plugins);
+        }
+        return this.transformationPlugins;
+    }
+
+    /**
+     * Get the types of all registered transformation plugins.
+     * <p>
+     * The {@link ServiceLoader} scan is performed once per JVM only.
+     * @return the types of all registered transformation plugins
+     */
+    @SuppressWarnings("rawtypes")
+    private static List<Class<? extends TransformationPlugin>> getTransformationPluginTypes() {
+        List<Class<? extends TransformationPlugin>> types = transformationPluginTypes;
+        if (types == null) {
+            synchronized (ConfigParser.class) {
+                types = transformationPluginTypes;
+                if (types == null) {
+                    final List<Class<? extends TransformationPlugin>> discovered = new ArrayList<>();
+                    for (TransformationPlugin plugin : ServiceLoader.load(TransformationPlugin.class)) {
+                        discovered.add(plugin.getClass());
+                    }
+                    types = Collections.unmodifiableList(discovered);
+                    transformationPluginTypes = types;
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Obtain all xml attributes of a specific node.
+     * @param node the xml node
+     * @return map of attribute names to values, in document order
+     */
+    public static Map<String, String> getAttributes(final Node node) {
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        final NamedNodeMap items = node.getAttributes();
+        for (int i = 0; i < items.getLength(); ++i) {
+            final Node item = items.item(i);
+            if (item.getNodeValue() != null) {
+                attributes.put(item.getNodeName(), item.getNodeValue());
+            }
+        }
+        return attributes;
+    }
+
     /**
      * Obtain an xml attribute's value for a specific node.
      * @param node the xml node
@@ -1124,26 +1484,29 @@ public class ConfigParser {
     }
 
     /**
-     * Assert that an xml document is well-formed.
+     * Obtain a new {@code ConfigParser} instance for an xml input stream without any csv source.
      * <p>
-     * The xml document is fed into a sax parser and checked for errors.
-     * @param xmlInputStream the xml document as input stream
-     * @return true if the document is well-formed, else false
-     * @throws IOException if the document cannot be read
-     * @throws ParserConfigurationException if the sax parser cannot be configured
-     * @throws SAXException if the sax parser cannot be created
-     */
-    private static boolean isWellFormed(final InputStream xmlInputStream) throws IOException, ParserConfigurationException, SAXException {
-        final SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setValidating(false);
-        final SAXParser parser = factory.newSAXParser();
-        try {
-            parser.parse(xmlInputStream, new DefaultHandler());
-        } catch (SAXException e) {
-            return false;
-        }
-        return true;
+     * Such an instance can only be used for compiling a {@link MapperTemplate}.
+     * @param xmlInputStream stream of the xml config file
+     * @return the {@code ConfigParser} instance
+     * @throws IOException if the {@code xmlInputStream} cannot be read
+     * @see #compile()
+     */
+    public static ConfigParser of(@NonNull final InputStream xmlInputStream) throws IOException {
+        return new ConfigParser(xmlInputStream, null, null, null, null);
+    }
+
+    /**
+     * Obtain a new {@code ConfigParser} instance for an xml file without any csv source.
+     * <p>
+     * Such an instance can only be used for compiling a {@link MapperTemplate}.
+     * @param xmlFile {@code File} instance for the xml config file
+     * @return the {@code ConfigParser} instance
+     * @throws FileNotFoundException if the xml file cannot be found
+     * @see #compile()
+     */
+    public static ConfigParser of(@NonNull final File xmlFile) throws FileNotFoundException {
+        return new ConfigParser(xmlFile, null, null, null, null);
     }
 
     /**
@@ -1286,4 +1649,44 @@ public class ConfigParser {
         return new ConfigParser(xmlFile, null, null, null, new FileInputStream(inputFile));
     }
 
+    /**
+     * Obtain a new {@code ConfigParser} instance for an xml input stream and a
+     * set of csv files.
+     * <p>
+     * The files are processed concurrently, and a configured sink receives
+     * the merged beans of all files. For a sink per file, bind a compiled
+     * template by {@link MapperTemplate#forFiles(FileSet)} instead.
+     * @param xmlInputStream stream of the xml config file
+     * @param files the csv files and the options for processing them
+     * @return the {@code ConfigParser} instance
+     * @throws IOException if the {@code xmlInputStream} cannot be read
+     */
+    public static ConfigParser ofFiles(@NonNull final InputStream xmlInputStream,
+                                       @NonNull final FileSet files)
+            throws IOException {
+        final ConfigParser configParser = new ConfigParser(xmlInputStream, null, null, null, null);
+        configParser.fileSet = files;
+        return configParser;
+    }
+
+    /**
+     * Obtain a new {@code ConfigParser} instance for an xml file and a
+     * set of csv files.
+     * <p>
+     * The files are processed concurrently, and a configured sink receives
+     * the merged beans of all files. For a sink per file, bind a compiled
+     * template by {@link MapperTemplate#forFiles(FileSet)} instead.
+     * @param xmlFile {@code File} instance for the xml config file
+     * @param files the csv files and the options for processing them
+     * @return the {@code ConfigParser} instance
+     * @throws FileNotFoundException if the xml file cannot be found
+     */
+    public static ConfigParser ofFiles(@NonNull final File xmlFile,
+                                       @NonNull final FileSet files)
+            throws FileNotFoundException {
+        final ConfigParser configParser = new ConfigParser(xmlFile, null, null, null, null);
+        configParser.fileSet = files;
+        return configParser;
+    }
+
 }
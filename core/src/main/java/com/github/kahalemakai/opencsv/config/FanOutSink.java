@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link Sink} that feeds the beans of a single parsing pass into several sinks.
+ * <p>
+ * Every {@link SinkRoute} runs on a thread of its own and receives the
+ * beans accepted by its filter in batches through a bounded queue. While
+ * a queue is full, parsing either waits or drops the batch for that
+ * route, depending on {@link SinkRoute#onFullQueue()}.
+ * <p>
+ * If parsing fails, every sink sees the same exception after the beans
+ * parsed before it, and the error is rethrown. If a sink fails, it either
+ * aborts parsing and all other sinks, or it gets detached while the other
+ * sinks keep on running, depending on {@link SinkRoute#onFailure()}.
+ * {@link #accept(Iterator)} only returns after all sink threads have terminated.
+ * Closing this sink closes all routed sinks.
+ */
+@Slf4j
+public final class FanOutSink implements Sink {
+    private final List<SinkRoute> routes;
+
+    private FanOutSink(final List<SinkRoute> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * Feed beans into several sinks.
+     * @param routes the routes to the sinks
+     * @return the fanning out sink
+     * @throws IllegalArgumentException if no route is given, or a route has a non-positive capacity or batch size
+     */
+    public static FanOutSink of(@NonNull final List<SinkRoute> routes) throws IllegalArgumentException {
+        if (routes.isEmpty()) {
+            final String msg = "expected at least one sink route";
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        for (SinkRoute route : routes) {
+            if (route.queueCapacity() < 1 || route.batchSize() < 1) {
+                final String msg = String.format("expected: queueCapacity > 0 and batchSize > 0, got: %d and %d",
+                        route.queueCapacity(), route.batchSize());
+                log.error(msg);
+                throw new IllegalArgumentException(msg);
+            }
+        }
+        return new FanOutSink(Collections.unmodifiableList(new ArrayList<>(routes)));
+    }
+
+    /**
+     * Feed beans into several sinks.
+     * @param routes the routes to the sinks
+     * @return the fanning out sink
+     * @throws IllegalArgumentException if no route is given, or a route has a non-positive capacity or batch size
+     * @see #of(List)
+     */
+    public static FanOutSink of(@NonNull final SinkRoute... routes) throws IllegalArgumentException {
+        return of(Arrays.asList(routes));
+    }
+
+    /**
+     * Get the routes to the sinks.
+     * @return the routes to the sinks
+     */
+    public List<SinkRoute> getRoutes() {
+        return routes;
+    }
+
+    @Override
+    public void accept(final Iterator<?> iterator) {
+        final List<SinkChannel> channels = new ArrayList<>(routes.size());
+        for (SinkRoute route : routes) {
+            channels.add(new SinkChannel(route));
+        }
+        channels.forEach(SinkChannel::start);
+
+        Throwable parserFailure = null;
+        SinkChannel abortedBy = null;
+        try {
+            feed:
+            while (iterator.hasNext()) {
+                final Object bean = iterator.next();
+                boolean anyOpen = false;
+                for (SinkChannel channel : channels) {
+                    if (channel.isOpen()) {
+                        channel.add(bean);
+                    }
+                    if (channel.isOpen()) {
+                        anyOpen = true;
+                    }
+                    else if (channel.sinkFailure() != null && channel.route().onFailure() == SinkRoute.OnFailure.ABORT) {
+                        abortedBy = channel;
+                        break feed;
+                    }
+                }
+                if (!anyOpen) {
+                    log.debug("all sinks returned before consuming all beans, stop parsing");
+                    break;
+                }
+            }
+            if (abortedBy == null) {
+                for (SinkChannel channel : channels) {
+                    channel.finish();
+                }
+            }
+            else {
+                for (SinkChannel channel : channels) {
+                    channel.abort(abortedBy.sinkFailure());
+                }
+            }
+        } catch (Throwable e) {
+            parserFailure = e;
+            for (SinkChannel channel : channels) {
+                channel.abort(e);
+            }
+        }
+        channels.forEach(SinkChannel::await);
+
+        if (parserFailure instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = parserFailure != null ? parserFailure
+                : abortedBy != null ? abortedBy.sinkFailure()
+                : null;
+        for (int i = 0; i < channels.size(); ++i) {
+            final SinkChannel channel = channels.get(i);
+            final Throwable sinkFailure = channel.sinkFailure();
+            if (channel.dropped() > 0) {
+                log.warn(String.format("dropped %d beans for sink #%d due to a full queue", channel.dropped(), i));
+            }
+            if (sinkFailure == null || sinkFailure == failure) {
+                continue;
+            }
+            if (channel.route().onFailure() == SinkRoute.OnFailure.DETACH) {
+                log.warn(String.format("detached failing sink #%d", i), sinkFailure);
+            }
+            else if (failure == null) {
+                failure = sinkFailure;
+            }
+            else {
+                failure.addSuppressed(sinkFailure);
+            }
+        }
+        if (failure != null) {
+            throw SinkChannel.propagate(failure);
+        }
+    }
+
+    /**
+     * Close all routed sinks.
+     * @throws IOException if any sink cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (SinkRoute route : routes) {
+            try {
+                route.sink().close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
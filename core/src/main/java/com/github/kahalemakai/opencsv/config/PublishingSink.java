@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.beans.BeanPublisher;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Sink} that emits the beans to the subscriber of a {@link BeanPublisher}.
+ * <p>
+ * {@link #accept(Iterator)} blocks until a subscriber has subscribed, and then
+ * advances the iterator only as far as the subscriber has requested. The
+ * subscriber's signals are sent from the thread running the sink.
+ * <p>
+ * Combined with a positive {@link com.github.kahalemakai.opencsv.beans.Builder#sinkQueueCapacity()},
+ * the sink runs on a separate thread behind an {@link AsyncSink}. Parsing
+ * then runs ahead of the subscriber by at most the bounded queue, and blocks
+ * while the queue is full. If the subscriber cancels, the sink returns early,
+ * which makes parsing stop at the next batch, and
+ * {@link com.github.kahalemakai.opencsv.beans.CsvToBeanMapper#intoSink()} returns.
+ * Closing the mapper releases the reader, as usual.
+ * <p>
+ * An error raised by parsing gets passed on to the subscriber and rethrown.
+ * Each instance accepts a single iterator and a single subscriber.
+ *
+ * @param <T> type of bean to be emitted
+ */
+@Slf4j
+public final class PublishingSink<T> implements Sink, BeanPublisher<T> {
+    private final Object lock = new Object();
+    private final AtomicBoolean accepted = new AtomicBoolean();
+    private Subscriber<? super T> subscriber;
+    private boolean subscribed;
+    private long requested;
+    private volatile boolean cancelled;
+    private Throwable invalidRequest;
+
+    @Override
+    public void subscribe(@NonNull final Subscriber<? super T> subscriber) {
+        final boolean first;
+        synchronized (lock) {
+            first = this.subscriber == null;
+            if (first) {
+                this.subscriber = subscriber;
+            }
+        }
+        if (!first) {
+            final String msg = "publisher supports a single subscriber only";
+            log.error(msg);
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(final long n) { }
+
+                @Override
+                public void cancel() { }
+            });
+            subscriber.onError(new IllegalStateException(msg));
+            return;
+        }
+        subscriber.onSubscribe(new Demand());
+        synchronized (lock) {
+            subscribed = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Emit the beans on demand of the subscriber.
+     * @param iterator the beans
+     * @throws IllegalStateException if called more than once, or interrupted while waiting for demand
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(final Iterator<?> iterator) throws IllegalStateException {
+        if (!accepted.compareAndSet(false, true)) {
+            final String msg = "sink accepts a single iterator only";
+            log.error(msg);
+            throw new IllegalStateException(msg);
+        }
+        long demand = awaitDemand();
+        while (demand > 0) {
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                final Object bean;
+                try {
+                    if (!iterator.hasNext()) {
+                        subscriber.onComplete();
+                        return;
+                    }
+                    bean = iterator.next();
+                } catch (RuntimeException e) {
+                    subscriber.onError(e);
+                    throw e;
+                }
+                subscriber.onNext((T) bean);
+                ++emitted;
+            }
+            synchronized (lock) {
+                if (demand != Long.MAX_VALUE) {
+                    requested -= emitted;
+                }
+            }
+            demand = awaitDemand();
+        }
+    }
+
+    /**
+     * Cancel the subscription, such that a pending {@link #accept(Iterator)} returns.
+     */
+    @Override
+    public void close() {
+        cancelled = true;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait for a subscriber with outstanding demand.
+     * @return the outstanding demand, or {@code 0} if the stream is terminated
+     */
+    private long awaitDemand() throws IllegalStateException {
+        final Throwable failure;
+        synchronized (lock) {
+            try {
+                while (!cancelled && invalidRequest == null && (!subscribed || requested == 0)) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                final String msg = "interrupted while waiting for demand";
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+            if (cancelled) {
+                log.debug("subscription cancelled before consuming all beans");
+                return 0;
+            }
+            if (invalidRequest == null) {
+                return requested;
+            }
+            failure = invalidRequest;
+        }
+        subscriber.onError(failure);
+        return 0;
+    }
+
+    private final class Demand implements Subscription {
+
+        @Override
+        public void request(final long n) {
+            synchronized (lock) {
+                if (n <= 0) {
+                    final String msg = String.format("expected: n > 0, got: %d", n);
+                    log.error(msg);
+                    invalidRequest = new IllegalArgumentException(msg);
+                }
+                else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            PublishingSink.this.close();
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hand-off between the parsing thread and the thread of a single {@link SinkRoute}.
+ * <p>
+ * All methods but the sink thread's iterator are to be called from the parsing thread.
+ */
+@Slf4j
+final class SinkChannel {
+    /**
+     * Marker for the end of the stream of batches.
+     */
+    private static final Object[] END_OF_STREAM = new Object[0];
+    /**
+     * Interval for checking the state of the other side while waiting on the queue.
+     */
+    private static final long POLL_MILLIS = 50;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final SinkRoute route;
+    private final BlockingQueue<Object[]> queue;
+    private final AtomicReference<Throwable> parserFailure = new AtomicReference<>();
+    private final AtomicReference<Throwable> sinkFailure = new AtomicReference<>();
+    private final Thread thread;
+    private Object[] batch;
+    private int size;
+    private boolean open = true;
+    private long dropped;
+
+    SinkChannel(final SinkRoute route) {
+        this.route = route;
+        this.queue = new ArrayBlockingQueue<>(route.queueCapacity());
+        this.batch = new Object[route.batchSize()];
+        this.thread = new Thread(this::run, "opencsv-sink-" + THREAD_COUNT.incrementAndGet());
+        this.thread.setDaemon(true);
+    }
+
+    SinkRoute route() {
+        return route;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Tell if the sink still takes beans.
+     * @return if the sink still takes beans
+     */
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Get the error thrown by the sink.
+     * @return the error thrown by the sink, or {@code null}
+     */
+    Throwable sinkFailure() {
+        return sinkFailure.get();
+    }
+
+    /**
+     * Get the number of beans dropped due to a full queue.
+     * @return the number of dropped beans
+     */
+    long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Add a bean, if it passes the filter of the route.
+     * @param bean the bean
+     * @throws InterruptedException if the parsing thread gets interrupted while waiting for the sink
+     */
+    void add(final Object bean) throws InterruptedException {
+        if (!route.filter().test(bean)) {
+            return;
+        }
+        batch[size++] = bean;
+        if (size == batch.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Hand over the pending beans and signal the end of the stream.
+     * @throws InterruptedException if the parsing thread gets interrupted while waiting for the sink
+     */
+    void finish() throws InterruptedException {
+        if (open && size > 0) {
+            flush();
+        }
+        if (open) {
+            handOver(END_OF_STREAM, false);
+            open = false;
+        }
+    }
+
+    /**
+     * Hand over the pending beans and pass an error on to the sink.
+     * <p>
+     * The sink sees the error after the last bean handed over.
+     * @param cause the error
+     */
+    void abort(final Throwable cause) {
+        if (open && size > 0 && !(cause instanceof InterruptedException)) {
+            try {
+                flush();
+            } catch (InterruptedException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        open = false;
+        parserFailure.compareAndSet(null, cause);
+    }
+
+    /**
+     * Wait for the sink thread to terminate.
+     * <p>
+     * An interruption is passed on to the sink as error, such that the sink
+     * thread stops at its next poll. The interrupted flag gets restored.
+     */
+    void await() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                parserFailure.compareAndSet(null, e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() throws InterruptedException {
+        final Object[] full = size == batch.length ? batch : Arrays.copyOf(batch, size);
+        batch = new Object[batch.length];
+        size = 0;
+        handOver(full, route.onFullQueue() == SinkRoute.OnFullQueue.DROP);
+    }
+
+    private void handOver(final Object[] items, final boolean mayDrop) throws InterruptedException {
+        if (mayDrop) {
+            if (!queue.offer(items)) {
+                dropped += items.length;
+            }
+        }
+        else {
+            while (!queue.offer(items, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!thread.isAlive()) {
+                    break;
+                }
+            }
+        }
+        if (sinkFailure.get() != null || !thread.isAlive()) {
+            if (sinkFailure.get() == null) {
+                log.debug(String.format("sink of %s returned before consuming all beans", thread.getName()));
+            }
+            open = false;
+        }
+    }
+
+    private void run() {
+        try {
+            route.sink().accept(new QueueIterator());
+        } catch (Throwable e) {
+            sinkFailure.set(e);
+        }
+    }
+
+    static RuntimeException propagate(final Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    /**
+     * Iterator over the beans in the queue, running on the sink thread.
+     */
+    private final class QueueIterator implements Iterator<Object> {
+        private Object[] current;
+        private int position;
+        private boolean finished;
+
+        @Override
+        public boolean hasNext() {
+            if (current != null && position < current.length) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                while (true) {
+                    final Object[] next = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (next == END_OF_STREAM) {
+                        finished = true;
+                        current = null;
+                        return false;
+                    }
+                    if (next != null) {
+                        current = next;
+                        position = 0;
+                        return true;
+                    }
+                    final Throwable failure = parserFailure.get();
+                    if (failure != null && queue.isEmpty()) {
+                        finished = true;
+                        current = null;
+                        throw propagate(failure);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                finished = true;
+                throw new IllegalStateException("sink thread was interrupted", e);
+            }
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Object bean = current[position];
+            current[position++] = null;
+            return bean;
+        }
+    }
+
+}
@@ -8,6 +8,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.util.Map;
+
 /**
  * Specialization of {@link Plugin} that can be used
  * to configure {@code <sink:config>} tags.
@@ -45,6 +47,26 @@ public interface SinkPlugin extends Plugin {
      */
     <T> void configure(Builder<T> builder, Node sink) throws PluginConfigurationException;
 
+    /**
+     * Configure the {@link Builder} from the attributes of the {@code <sink:config>} tag.
+     * <p>
+     * This method is used for setting up a sink from a {@link CompiledConfig}, where
+     * no xml document is available. The attributes have already been validated against the
+     * plugin's schema, including any default values. Plugins that do not override this
+     * method cannot be used with compiled configs.
+     * @param builder the {@link Builder} to be configured
+     * @param attributes the attributes of the {@code <sink:config>} tag
+     * @param <T> type of the target bean emitted by {@link CsvToBeanMapper}
+     * @throws PluginConfigurationException if the plugin cannot be used for configuration
+     * of the {@link CsvToBeanMapper}
+     */
+    default <T> void configure(Builder<T> builder, Map<String, String> attributes) throws PluginConfigurationException {
+        final String msg = String.format("sink plugin %s does not support configuration by attributes",
+                getClass().getCanonicalName());
+        LoggerFactory.getLogger(SinkPlugin.class).error(msg);
+        throw new PluginConfigurationException(msg);
+    }
+
     /**
      * {@inheritDoc}
      * If no tag substitution {@code <sink:config>} can be found,
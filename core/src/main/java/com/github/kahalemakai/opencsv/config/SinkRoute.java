@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * One of several sinks fed by a {@link FanOutSink}.
+ * <p>
+ * Every route gets its own sink thread and its own bounded queue of
+ * bean batches. Only the beans accepted by the route's filter are
+ * handed over to its sink.
+ */
+@Slf4j
+public final class SinkRoute {
+    /**
+     * default number of bean batches that may wait for the sink
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    /**
+     * default number of beans per batch
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The sink of this route.
+     * @return the sink of this route
+     */
+    @Accessors(fluent = true) @Getter
+    private final Sink sink;
+    /**
+     * Filter for the beans handed over to the sink.
+     * <p>
+     * The filter gets evaluated on the parsing thread.
+     *
+     * @param filter filter for the beans handed over to the sink
+     * @return filter for the beans handed over to the sink
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private Predicate<Object> filter = bean -> true;
+    /**
+     * Number of bean batches that may wait for the sink.
+     *
+     * @param queueCapacity number of bean batches that may wait for the sink
+     * @return number of bean batches that may wait for the sink
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    /**
+     * Number of beans per batch.
+     *
+     * @param batchSize number of beans per batch
+     * @return number of beans per batch
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    /**
+     * What to do, if the sink fails.
+     *
+     * @param onFailure what to do, if the sink fails
+     * @return what to do, if the sink fails
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private OnFailure onFailure = OnFailure.ABORT;
+    /**
+     * What to do, if the queue of the sink is full.
+     *
+     * @param onFullQueue what to do, if the queue of the sink is full
+     * @return what to do, if the queue of the sink is full
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private OnFullQueue onFullQueue = OnFullQueue.BLOCK;
+
+    private SinkRoute(final Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Create a route with default options.
+     * @param sink the sink of the route
+     * @return the new route
+     */
+    public static SinkRoute of(@NonNull final Sink sink) {
+        return new SinkRoute(sink);
+    }
+
+    /**
+     * Create a route from the attributes of a {@code <sink:config>} tag.
+     * <p>
+     * A queue capacity of 0 is replaced by the default capacity, since every
+     * route requires a queue.
+     * @param sink the sink of the route
+     * @param attributes the attributes of the {@code <sink:config>} tag
+     * @return the new route
+     * @throws IllegalStateException if the filter class cannot be instantiated
+     */
+    static SinkRoute fromAttributes(final Sink sink, final Map<String, String> attributes) throws IllegalStateException {
+        final SinkRoute route = of(sink);
+        final String queueCapacity = attributes.get("queueCapacity");
+        if (queueCapacity != null && Integer.parseInt(queueCapacity) > 0) {
+            route.queueCapacity(Integer.parseInt(queueCapacity));
+        }
+        final String batchSize = attributes.get("queueBatchSize");
+        if (batchSize != null) {
+            route.batchSize(Integer.parseInt(batchSize));
+        }
+        final String onFailure = attributes.get("onFailure");
+        if (onFailure != null) {
+            route.onFailure(OnFailure.forText(onFailure));
+        }
+        final String onFullQueue = attributes.get("onFullQueue");
+        if (onFullQueue != null) {
+            route.onFullQueue(OnFullQueue.forText(onFullQueue));
+        }
+        final String filter = attributes.get("filter");
+        if (filter != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                final Predicate<Object> predicate = (Predicate<Object>) Class.forName(filter).newInstance();
+                route.filter(predicate);
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+                final String msg = String.format("could not instantiate sink filter %s", filter);
+                log.error(msg);
+                throw new IllegalStateException(msg, e);
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Enumerate the reactions to a failing sink.
+     */
+    @RequiredArgsConstructor
+    public enum OnFailure {
+        /**
+         * Stop parsing and all other sinks, and rethrow the error.
+         */
+        ABORT("abort"),
+        /**
+         * Log the error and keep on feeding all other sinks.
+         */
+        DETACH("detach");
+
+        /**
+         * The corresponding text value.
+         * @return the corresponding text value
+         */
+        @Getter
+        private final String textValue;
+
+        /**
+         * Get the enumeration corresponding to the given text.
+         * @param text text to be mapped to an enumeration constant
+         * @return the corresponding enumeration constant
+         * @throws IllegalArgumentException if no enumeration constant corresponds to the given text
+         */
+        public static OnFailure forText(@NonNull final String text) throws IllegalArgumentException {
+            for (OnFailure value : values()) {
+                if (value.getTextValue().equals(text)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException(String.format("unknown failure policy: %s", text));
+        }
+    }
+
+    /**
+     * Enumerate the reactions to a full queue.
+     */
+    @RequiredArgsConstructor
+    public enum OnFullQueue {
+        /**
+         * Wait until the sink has caught up.
+         */
+        BLOCK("block"),
+        /**
+         * Drop the batch, such that a slow sink doesn't hold up the other ones.
+         */
+        DROP("drop");
+
+        /**
+         * The corresponding text value.
+         * @return the corresponding text value
+         */
+        @Getter
+        private final String textValue;
+
+        /**
+         * Get the enumeration corresponding to the given text.
+         * @param text text to be mapped to an enumeration constant
+         * @return the corresponding enumeration constant
+         * @throws IllegalArgumentException if no enumeration constant corresponds to the given text
+         */
+        public static OnFullQueue forText(@NonNull final String text) throws IllegalArgumentException {
+            for (OnFullQueue value : values()) {
+                if (value.getTextValue().equals(text)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException(String.format("unknown backpressure policy: %s", text));
+        }
+    }
+
+}
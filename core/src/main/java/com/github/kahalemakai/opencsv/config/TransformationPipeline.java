@@ -0,0 +1,371 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.config.TransformationStage.Step;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A sequence of {@link TransformationStage}s between a mapper and its sink.
+ * <p>
+ * Consecutive stages are fused into a single function when the pipeline
+ * is created, such that each bean passes all stages in one go, without
+ * any intermediate collections. With a {@link #parallelism()} greater
+ * than 1, runs of stateless stages are applied to batches of beans on
+ * a thread pool, and the results are merged back in the original order.
+ * Stateful stages always run on the consuming thread.
+ * <p>
+ * The pipeline is attached to a sink by {@link #wrap(Sink)}, or to a
+ * {@link com.github.kahalemakai.opencsv.beans.Builder} by its
+ * {@code transformations()} method. In the latter case, the beans are
+ * transformed before they reach any queue of an asynchronous or fanning
+ * out sink, so the sinks still receive them in batches.
+ * <p>
+ * A pipeline may be shared, but its stages are shared along with it.
+ */
+@Slf4j
+public final class TransformationPipeline {
+    /**
+     * default number of threads running stateless stages
+     */
+    public static final int DEFAULT_PARALLELISM = 1;
+    /**
+     * default number of beans per parallel task
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * The stages of the pipeline.
+     * @return the stages of the pipeline
+     */
+    @Getter
+    private final List<TransformationStage> stages;
+
+    private final int parallelism;
+    private final int batchSize;
+    private final List<Segment> segments;
+
+    private TransformationPipeline(final List<TransformationStage> stages,
+                                   final int parallelism,
+                                   final int batchSize) {
+        this.stages = stages;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.segments = fuse(stages, parallelism > 1);
+    }
+
+    /**
+     * Create a sequential pipeline.
+     * @param stages the stages in order
+     * @return the new pipeline
+     * @throws IllegalArgumentException if no stage is given
+     */
+    public static TransformationPipeline of(@NonNull final List<TransformationStage> stages)
+            throws IllegalArgumentException {
+        if (stages.isEmpty()) {
+            final String msg = "expected at least one transformation stage";
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return new TransformationPipeline(Collections.unmodifiableList(new ArrayList<>(stages)),
+                DEFAULT_PARALLELISM, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a sequential pipeline.
+     * @param stages the stages in order
+     * @return the new pipeline
+     * @throws IllegalArgumentException if no stage is given
+     * @see #of(List)
+     */
+    public static TransformationPipeline of(@NonNull final TransformationStage... stages)
+            throws IllegalArgumentException {
+        return of(Arrays.asList(stages));
+    }
+
+    /**
+     * Get the number of threads running stateless stages.
+     * @return the number of threads running stateless stages
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Get the number of beans per parallel task.
+     * @return the number of beans per parallel task
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Get a pipeline that runs stateless stages in parallel.
+     * @param parallelism number of threads; 1 runs all stages on the consuming thread
+     * @param batchSize number of beans per parallel task
+     * @return a new pipeline with the same stages
+     * @throws IllegalArgumentException if parallelism or batch size are not positive
+     */
+    public TransformationPipeline parallel(final int parallelism, final int batchSize)
+            throws IllegalArgumentException {
+        if (parallelism < 1 || batchSize < 1) {
+            final String msg = String.format("expected: parallelism > 0 and batchSize > 0, got: %d and %d",
+                    parallelism, batchSize);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return new TransformationPipeline(stages, parallelism, batchSize);
+    }
+
+    /**
+     * Get a sink that transforms the beans before handing them to another sink.
+     * <p>
+     * Closing the returned sink closes the wrapped one.
+     * @param sink the sink to receive the transformed beans
+     * @return the transforming sink
+     */
+    public Sink wrap(@NonNull final Sink sink) {
+        return new TransformingSink(sink);
+    }
+
+    /**
+     * Group the stages into segments, and fuse the stages of each segment.
+     * @param stages the stages
+     * @param parallel if runs of stateless stages should run in parallel
+     * @return the segments
+     */
+    private static List<Segment> fuse(final List<TransformationStage> stages, final boolean parallel) {
+        final List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= stages.size(); ++i) {
+            if (i < stages.size() && (!parallel || stages.get(i).stateless() == stages.get(start).stateless())) {
+                continue;
+            }
+            final List<Step> steps = new ArrayList<>(i - start);
+            for (TransformationStage stage : stages.subList(start, i)) {
+                steps.add(stage.step());
+            }
+            segments.add(new Segment(steps, parallel && stages.get(start).stateless()));
+            start = i;
+        }
+        log.debug(String.format("fused %d transformation stages into %d segment(s)", stages.size(), segments.size()));
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Apply all segments to the beans.
+     * @param beans the input beans
+     * @param executor the executor for parallel segments, if any
+     * @return the transformed beans
+     */
+    private Iterator<?> apply(final Iterator<?> beans, final ExecutorService executor) {
+        Iterator<?> iterator = beans;
+        for (Segment segment : segments) {
+            iterator = segment.parallel
+                    ? new ParallelIterator(iterator, segment, executor)
+                    : new FusedIterator(iterator, segment);
+        }
+        return iterator;
+    }
+
+    /**
+     * Consecutive stages, fused into one function.
+     */
+    private static final class Segment {
+        private final Step[] steps;
+        private final boolean parallel;
+
+        Segment(final List<Step> steps, final boolean parallel) {
+            this.steps = steps.toArray(new Step[steps.size()]);
+            this.parallel = parallel;
+        }
+
+        /**
+         * Bind all steps to a downstream consumer.
+         * @param downstream the consumer of the results
+         * @return a consumer that applies all steps in turn
+         */
+        Consumer<Object> bind(final Consumer<Object> downstream) {
+            Consumer<Object> consumer = downstream;
+            for (int i = steps.length - 1; i >= 0; --i) {
+                consumer = steps[i].bind(consumer);
+            }
+            return consumer;
+        }
+    }
+
+    /**
+     * Applies a segment on the consuming thread.
+     */
+    private static final class FusedIterator implements Iterator<Object> {
+        private final Iterator<?> upstream;
+        private final Deque<Object> buffer = new ArrayDeque<>();
+        private final Consumer<Object> consumer;
+
+        FusedIterator(final Iterator<?> upstream, final Segment segment) {
+            this.upstream = upstream;
+            this.consumer = segment.bind(buffer::add);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && upstream.hasNext()) {
+                consumer.accept(upstream.next());
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+    }
+
+    /**
+     * Applies a segment to batches of beans on a thread pool.
+     * <p>
+     * The batches are read from upstream on the consuming thread. At
+     * most two batches per thread are in flight, and the results are
+     * returned in submission order.
+     */
+    private final class ParallelIterator implements Iterator<Object> {
+        private final Iterator<?> upstream;
+        private final Segment segment;
+        private final ExecutorService executor;
+        private final Deque<Future<List<Object>>> pending = new ArrayDeque<>();
+        private List<Object> current = Collections.emptyList();
+        private int position;
+
+        ParallelIterator(final Iterator<?> upstream, final Segment segment, final ExecutorService executor) {
+            this.upstream = upstream;
+            this.segment = segment;
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == current.size()) {
+                submit();
+                final Future<List<Object>> next = pending.poll();
+                if (next == null) {
+                    return false;
+                }
+                current = await(next);
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.get(position++);
+        }
+
+        private void submit() {
+            while (pending.size() < 2 * parallelism && upstream.hasNext()) {
+                final Object[] batch = new Object[batchSize];
+                int size = 0;
+                while (size < batchSize && upstream.hasNext()) {
+                    batch[size++] = upstream.next();
+                }
+                final int length = size;
+                pending.add(executor.submit(() -> {
+                    final List<Object> results = new ArrayList<>(length);
+                    final Consumer<Object> consumer = segment.bind(results::add);
+                    for (int i = 0; i < length; ++i) {
+                        consumer.accept(batch[i]);
+                    }
+                    return results;
+                }));
+            }
+        }
+
+        private List<Object> await(final Future<List<Object>> future) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw SinkChannel.propagate(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for transformation", e);
+            }
+        }
+    }
+
+    /**
+     * Transforms the beans before handing them to another sink.
+     */
+    private final class TransformingSink implements Sink {
+        private final Sink sink;
+
+        TransformingSink(final Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(final Iterator<?> iterator) {
+            final boolean anyParallel = segments.stream().anyMatch(segment -> segment.parallel);
+            final ExecutorService executor = anyParallel
+                    ? Executors.newFixedThreadPool(parallelism, runnable -> {
+                        final Thread thread = new Thread(runnable,
+                                "opencsv-transformation-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    })
+                    : null;
+            try {
+                sink.accept(apply(iterator, executor));
+            } finally {
+                if (executor != null) {
+                    executor.shutdownNow();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+        }
+    }
+
+}
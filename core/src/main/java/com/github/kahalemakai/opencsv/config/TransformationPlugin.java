@@ -1,13 +1,41 @@
 package com.github.kahalemakai.opencsv.config;
 
+import com.github.kahalemakai.opencsv.beans.Builder;
+import org.w3c.dom.Document;
+
+import java.util.Map;
 import java.util.function.Function;
 
 /**
  * A plugin that supports arbitrary transformations of bean types
  * and values.
+ * <p>
+ * Transformation plugins are discovered by the {@link java.util.ServiceLoader}.
+ * Every {@code <config>} tag of the plugin's namespace inside of the
+ * {@code <opencsv:transformations>} tag yields a new plugin instance, which
+ * gets configured by {@link #configure(Map)} and contributes its
+ * transformation as a map stage of the {@link TransformationPipeline}.
  * @param <R> the resulting bean type
  * @param <T> the input bean type
  */
 public interface TransformationPlugin<R, T> extends Plugin {
     Function<R, T> getTransformation();
+
+    /**
+     * Configure the plugin from the attributes of its {@code <config>} tag.
+     * <p>
+     * The attributes have already been validated against the plugin's schema,
+     * including any default values.
+     * @param attributes the attributes of the {@code <config>} tag
+     * @throws PluginConfigurationException if the plugin cannot be configured
+     */
+    default void configure(Map<String, String> attributes) throws PluginConfigurationException { }
+
+    /**
+     * {@inheritDoc}
+     * Transformation plugins do not configure the {@link Builder} themselves, the
+     * {@link ConfigParser} sets up their stages by {@link #configure(Map)} instead.
+     */
+    @Override
+    default <S> void configure(Builder<S> builder, Document doc) throws PluginConfigurationException { }
 }
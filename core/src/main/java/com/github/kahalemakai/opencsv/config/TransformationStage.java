@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.config;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A single step of a {@link TransformationPipeline}.
+ * <p>
+ * A stage either maps each bean to another object, filters the beans,
+ * or maps each bean to any number of objects. Stages are stateless by
+ * default, i.e. their functions may be invoked concurrently and in any
+ * order. Stages that keep state across beans have to be marked by
+ * {@link #stateless(boolean)}, so that they always run on a single thread.
+ */
+public final class TransformationStage {
+    /**
+     * If the stage may run in parallel.
+     *
+     * @param stateless if the stage may run in parallel
+     * @return if the stage may run in parallel
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private boolean stateless = true;
+
+    /**
+     * The kind of the stage.
+     * @return the kind of the stage
+     */
+    @Getter
+    private final Kind kind;
+
+    private final Step step;
+
+    private TransformationStage(final Kind kind, final Step step) {
+        this.kind = kind;
+        this.step = step;
+    }
+
+    /**
+     * Map each bean to another object.
+     * <p>
+     * Mapping to {@code null} drops the bean.
+     * @param function the mapping function
+     * @return the new stage
+     */
+    @SuppressWarnings("unchecked")
+    public static TransformationStage map(@NonNull final Function<?, ?> function) {
+        final Function<Object, Object> mapping = (Function<Object, Object>) function;
+        return new TransformationStage(Kind.MAP, (bean, downstream) -> {
+            final Object result = mapping.apply(bean);
+            if (result != null) {
+                downstream.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Only pass on the beans accepted by a predicate.
+     * @param predicate the predicate
+     * @return the new stage
+     */
+    @SuppressWarnings("unchecked")
+    public static TransformationStage filter(@NonNull final Predicate<?> predicate) {
+        final Predicate<Object> filter = (Predicate<Object>) predicate;
+        return new TransformationStage(Kind.FILTER, (bean, downstream) -> {
+            if (filter.test(bean)) {
+                downstream.accept(bean);
+            }
+        });
+    }
+
+    /**
+     * Map each bean to any number of objects.
+     * <p>
+     * The objects are passed on in iteration order. Mapping
+     * to {@code null} is the same as mapping to no objects.
+     * @param function the mapping function
+     * @return the new stage
+     */
+    @SuppressWarnings("unchecked")
+    public static TransformationStage flatMap(@NonNull final Function<?, ? extends Iterable<?>> function) {
+        final Function<Object, ? extends Iterable<?>> mapping = (Function<Object, ? extends Iterable<?>>) function;
+        return new TransformationStage(Kind.FLAT_MAP, (bean, downstream) -> {
+            final Iterable<?> results = mapping.apply(bean);
+            if (results != null) {
+                for (Object result : results) {
+                    if (result != null) {
+                        downstream.accept(result);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the push-style step of this stage.
+     * @return the step of this stage
+     */
+    Step step() {
+        return step;
+    }
+
+    /**
+     * Push-style form of a stage: every input is pushed to the
+     * downstream consumer zero, one or more times.
+     */
+    @FunctionalInterface
+    interface Step {
+        void apply(Object bean, Consumer<Object> downstream);
+
+        /**
+         * Bind the step to its downstream consumer.
+         * @param downstream the downstream consumer
+         * @return a consumer applying this step
+         */
+        default Consumer<Object> bind(final Consumer<Object> downstream) {
+            return bean -> apply(bean, downstream);
+        }
+    }
+
+    /**
+     * Enumerate the kinds of stages.
+     */
+    public enum Kind {
+        MAP,
+        FILTER,
+        FLAT_MAP
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Enumerate the compression formats of input data.
+ * <p>
+ * Also used for mapping the {@code <csv.reader>}
+ * attribute to the corresponding enumeration.
+ */
+@RequiredArgsConstructor
+public enum Compression {
+
+    /**
+     * Read the data as is.
+     */
+    NONE("none"),
+
+    /**
+     * Decompress gzip data, failing on any other data.
+     */
+    GZIP("gzip"),
+
+    /**
+     * Decompress gzip data, and read any other data as is.
+     */
+    AUTO("auto");
+
+    /**
+     * The corresponding text value.
+     * @return the corresponding text value
+     */
+    @Getter
+    private final String textValue;
+
+    /**
+     * Get the enumeration corresponding to the given text.
+     * @param text text to be mapped to an enumeration constant
+     * @return the corresponding enumeration constant
+     * @throws IllegalArgumentException if no enumeration constant corresponds to the given text
+     */
+    public static Compression forText(@NonNull final String text) throws IllegalArgumentException {
+        for (Compression compression : Compression.values()) {
+            if (compression.getTextValue().equals(text)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException(String.format("unknown compression: %s", text));
+    }
+
+    /**
+     * Wrap a stream of possibly compressed data into a stream of uncompressed data.
+     * <p>
+     * Gzip data gets decompressed by a {@link ParallelGzipInputStream}.
+     * @param inputStream the possibly compressed data
+     * @param threads number of threads for decompression
+     * @return the uncompressed data
+     * @throws IOException if the data cannot be inspected
+     */
+    public InputStream decompress(@NonNull final InputStream inputStream, final int threads) throws IOException {
+        switch (this) {
+            case NONE:
+                return inputStream;
+            case GZIP:
+                return ParallelGzipInputStream.of(inputStream, threads);
+            default:
+                final PushbackInputStream pushback = new PushbackInputStream(inputStream, 2);
+                final byte[] magic = new byte[2];
+                int length = 0;
+                int n;
+                while (length < magic.length && (n = pushback.read(magic, length, magic.length - length)) > 0) {
+                    length += n;
+                }
+                pushback.unread(magic, 0, length);
+                if (length == magic.length && ParallelGzipInputStream.isGzipMagic(magic[0], magic[1])) {
+                    return ParallelGzipInputStream.of(pushback, threads);
+                }
+                return pushback;
+        }
+    }
+
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * An {@link InputStream} that decompresses gzip data ahead of its consumer.
+ * <p>
+ * The compressed data is read on a dedicated read-ahead thread, which splits
+ * it into gzip members. If the compressed size of a member is declared in
+ * its header, as done by BGZF (subfield {@code BC}) and by
+ * {@link ParallelGzipOutputStream} (subfield {@code OC}), the member is
+ * inflated on a pool of worker threads, in parallel to the following members.
+ * All other members are inflated on the read-ahead thread itself. Either way,
+ * the uncompressed data is handed over in order through a bounded queue, so
+ * decompression overlaps with the consumer, e.g. the csv parser.
+ * <p>
+ * Like {@link java.util.zip.GZIPInputStream}, concatenated members are read
+ * as a single stream, and trailing garbage after a member is ignored.
+ * <p>
+ * Instances are not thread-safe.
+ */
+@Slf4j
+public class ParallelGzipInputStream extends InputStream {
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int TRAILER_LENGTH = 8;
+    /**
+     * Size of the blocks of uncompressed data, if a member is inflated on the read-ahead thread.
+     */
+    private static final int SEQUENTIAL_BLOCK_SIZE = 1 << 16;
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+    private static final byte[] EMPTY = new byte[0];
+    private static final Future<byte[]> END_OF_STREAM = CompletableFuture.completedFuture(EMPTY);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final InputStream in;
+    private final ExecutorService executor;
+    private final BlockingQueue<Future<byte[]>> blocks;
+    private final Thread readAhead;
+    private byte[] block = EMPTY;
+    private int position;
+    private boolean endOfStream;
+    private boolean closed;
+
+    private ParallelGzipInputStream(final InputStream in, final int threads) {
+        this.in = in;
+        final int id = THREAD_COUNT.incrementAndGet();
+        this.executor = threads == 1
+                ? null
+                : Executors.newFixedThreadPool(threads, runnable -> {
+                    final Thread thread = new Thread(runnable, "opencsv-gunzip-" + id);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.blocks = new ArrayBlockingQueue<>(2 * threads);
+        this.readAhead = new Thread(this::readAhead, "opencsv-gunzip-read-ahead-" + id);
+        this.readAhead.setDaemon(true);
+    }
+
+    /**
+     * Create a new stream, using all available processors.
+     * @param in the gzip data
+     * @return the new stream
+     */
+    public static ParallelGzipInputStream of(final InputStream in) {
+        return of(in, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new stream.
+     * <p>
+     * For a single thread, all members get inflated on the read-ahead thread.
+     * @param in the gzip data
+     * @param threads number of threads inflating members of known size
+     * @return the new stream
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public static ParallelGzipInputStream of(@NonNull final InputStream in,
+                                             final int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            final String msg = String.format("expected a positive number of threads, got %d", threads);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        final ParallelGzipInputStream stream = new ParallelGzipInputStream(in, threads);
+        stream.readAhead.start();
+        return stream;
+    }
+
+    /**
+     * Tell if two bytes are the magic number at the start of a gzip member.
+     * @param first the first byte
+     * @param second the second byte
+     * @return if both bytes are the gzip magic number
+     */
+    static boolean isGzipMagic(final int first, final int second) {
+        return (first & 0xff) == GZIP_MAGIC_1 && (second & 0xff) == GZIP_MAGIC_2;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureBlock()) {
+            return -1;
+        }
+        final int n = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : block.length - position;
+    }
+
+    /**
+     * Stop reading ahead, and close the underlying stream.
+     * @throws IOException if the underlying stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readAhead.interrupt();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        in.close();
+    }
+
+    private boolean ensureBlock() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        while (position == block.length) {
+            if (endOfStream) {
+                return false;
+            }
+            final Future<byte[]> next;
+            try {
+                next = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for decompressed data");
+            }
+            if (next == END_OF_STREAM) {
+                endOfStream = true;
+                return false;
+            }
+            block = get(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    private static byte[] get(final Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for decompressed data");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            throw new IOException("could not decompress gzip data", cause);
+        }
+    }
+
+    /**
+     * Main loop of the read-ahead thread.
+     */
+    private void readAhead() {
+        final Inflater inflater = new Inflater(true);
+        try {
+            final Input input = new Input(in);
+            boolean first = true;
+            while (input.ensure(1)) {
+                if (!input.ensure(2) || !isGzipMagic(input.peek(0), input.peek(1))) {
+                    if (first) {
+                        throw new ZipException("not in gzip format");
+                    }
+                    log.debug("ignoring trailing garbage after last gzip member");
+                    break;
+                }
+                first = false;
+                readMember(input, inflater);
+            }
+            blocks.put(END_OF_STREAM);
+        } catch (InterruptedException e) {
+            log.debug("stopped reading ahead");
+        } catch (Throwable e) {
+            final CompletableFuture<byte[]> failure = new CompletableFuture<>();
+            failure.completeExceptionally(e);
+            try {
+                blocks.put(failure);
+            } catch (InterruptedException ignored) {
+                log.debug("stopped reading ahead");
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void readMember(final Input input, final Inflater inflater) throws IOException, InterruptedException {
+        final long start = input.consumed;
+        input.skip(2);
+        if (input.readUByte() != Deflater.DEFLATED) {
+            throw new ZipException("unsupported compression method");
+        }
+        final int flags = input.readUByte();
+        // mtime, extra flags and os
+        input.skip(6);
+        long memberSize = -1;
+        if ((flags & FEXTRA) != 0) {
+            final int extraLength = input.readUShort();
+            int read = 0;
+            while (read + 4 <= extraLength) {
+                final int id1 = input.readUByte();
+                final int id2 = input.readUByte();
+                final int length = input.readUShort();
+                read += 4;
+                if (id1 == 'B' && id2 == 'C' && length == 2) {
+                    memberSize = input.readUShort() + 1;
+                }
+                else if (id1 == 'O' && id2 == 'C' && length == 4) {
+                    memberSize = input.readUInt();
+                }
+                else {
+                    input.skip(length);
+                }
+                read += length;
+            }
+            input.skip(extraLength - read);
+        }
+        if ((flags & FNAME) != 0) {
+            input.skipZeroTerminated();
+        }
+        if ((flags & FCOMMENT) != 0) {
+            input.skipZeroTerminated();
+        }
+        if ((flags & FHCRC) != 0) {
+            input.skip(2);
+        }
+        if (memberSize < 0) {
+            inflateSequentially(input, inflater);
+            return;
+        }
+        final long dataLength = memberSize - (input.consumed - start);
+        if (dataLength < TRAILER_LENGTH || dataLength > Integer.MAX_VALUE) {
+            throw new ZipException(String.format("invalid gzip member size %d", memberSize));
+        }
+        final byte[] data = new byte[(int) dataLength];
+        input.readFully(data);
+        if (executor == null) {
+            blocks.put(CompletableFuture.completedFuture(inflate(data)));
+        }
+        else {
+            blocks.put(executor.submit(() -> inflate(data)));
+        }
+    }
+
+    /**
+     * Inflate the compressed data and the trailer of a member of known size.
+     * @param data compressed data, followed by the trailer
+     * @return the uncompressed data
+     * @throws IOException if the data is corrupt
+     */
+    static byte[] inflate(final byte[] data) throws IOException {
+        final int length = data.length - TRAILER_LENGTH;
+        final long crcValue = readUInt(data, length);
+        final long size = readUInt(data, length + 4);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new ZipException(String.format("gzip member too large: %d bytes", size));
+        }
+        final byte[] result = new byte[(int) size];
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, 0, length);
+            int n = 0;
+            while (n < result.length) {
+                final int k = inflater.inflate(result, n, result.length - n);
+                if (k == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("corrupt gzip member: size mismatch");
+                }
+                n += k;
+            }
+            if (!inflater.finished() && (inflater.inflate(new byte[1]) > 0 || !inflater.finished())) {
+                throw new ZipException("corrupt gzip member: size mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(result, 0, result.length);
+        if (crc.getValue() != crcValue) {
+            throw new ZipException("corrupt gzip member: crc mismatch");
+        }
+        return result;
+    }
+
+    /**
+     * Inflate a member of unknown size on the read-ahead thread.
+     */
+    private void inflateSequentially(final Input input, final Inflater inflater)
+            throws IOException, InterruptedException {
+        inflater.reset();
+        final CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] chunk = new byte[SEQUENTIAL_BLOCK_SIZE];
+        int n = 0;
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (!input.ensure(1)) {
+                        throw new EOFException("unexpected end of gzip data");
+                    }
+                    inflater.setInput(input.buffer, input.position, input.limit - input.position);
+                    input.consumeAll();
+                }
+                final int k = inflater.inflate(chunk, n, chunk.length - n);
+                if (k == 0 && inflater.needsDictionary()) {
+                    throw new ZipException("corrupt gzip member: preset dictionary");
+                }
+                n += k;
+                if (n == chunk.length) {
+                    crc.update(chunk, 0, n);
+                    size += n;
+                    blocks.put(CompletableFuture.completedFuture(chunk));
+                    chunk = new byte[SEQUENTIAL_BLOCK_SIZE];
+                    n = 0;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+        if (n > 0) {
+            crc.update(chunk, 0, n);
+            size += n;
+            final byte[] rest = new byte[n];
+            System.arraycopy(chunk, 0, rest, 0, n);
+            blocks.put(CompletableFuture.completedFuture(rest));
+        }
+        // the inflater may have been handed more data than the member consists of
+        input.unread(inflater.getRemaining());
+        if (input.readUInt() != crc.getValue()) {
+            throw new ZipException("corrupt gzip member: crc mismatch");
+        }
+        if (input.readUInt() != (size & 0xffffffffL)) {
+            throw new ZipException("corrupt gzip member: size mismatch");
+        }
+    }
+
+    private static long readUInt(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xffL)
+                | (bytes[offset + 1] & 0xffL) << 8
+                | (bytes[offset + 2] & 0xffL) << 16
+                | (bytes[offset + 3] & 0xffL) << 24;
+    }
+
+    /**
+     * Buffered access to the compressed data, used by the read-ahead thread only.
+     */
+    private static final class Input {
+        private final InputStream in;
+        private final byte[] buffer = new byte[INPUT_BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private long consumed;
+
+        private Input(final InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Buffer at least {@code n} bytes, unless the data ends before.
+         */
+        private boolean ensure(final int n) throws IOException {
+            if (limit - position >= n) {
+                return true;
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < n) {
+                final int k = in.read(buffer, limit, buffer.length - limit);
+                if (k < 0) {
+                    return false;
+                }
+                limit += k;
+            }
+            return true;
+        }
+
+        private int peek(final int offset) {
+            return buffer[position + offset] & 0xff;
+        }
+
+        private int readUByte() throws IOException {
+            if (!ensure(1)) {
+                throw new EOFException("unexpected end of gzip data");
+            }
+            ++consumed;
+            return buffer[position++] & 0xff;
+        }
+
+        private int readUShort() throws IOException {
+            return readUByte() | readUByte() << 8;
+        }
+
+        private long readUInt() throws IOException {
+            return readUShort() | (long) readUShort() << 16;
+        }
+
+        private void skip(final int n) throws IOException {
+            for (int i = 0; i < n; ++i) {
+                readUByte();
+            }
+        }
+
+        private void skipZeroTerminated() throws IOException {
+            while (readUByte() != 0) {
+                // skip
+            }
+        }
+
+        private void readFully(final byte[] bytes) throws IOException {
+            int n = Math.min(bytes.length, limit - position);
+            System.arraycopy(buffer, position, bytes, 0, n);
+            position += n;
+            while (n < bytes.length) {
+                final int k = in.read(bytes, n, bytes.length - n);
+                if (k < 0) {
+                    throw new EOFException("unexpected end of gzip data");
+                }
+                n += k;
+            }
+            consumed += bytes.length;
+        }
+
+        private void consumeAll() {
+            consumed += limit - position;
+            position = limit;
+        }
+
+        private void unread(final int n) {
+            position -= n;
+            consumed -= n;
+        }
+    }
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link OutputStream} that gzips fixed-size blocks of data in parallel.
+ * <p>
+ * All data is cut into blocks of {@link #getBlockSize()} bytes. Each block
+ * gets compressed into a gzip member of its own on a pool of worker threads,
+ * and the members are concatenated in order. The result is a multi-member
+ * gzip stream, as written by {@code pigz --independent}, which can be read
+ * by {@code gzip}, {@code zcat} and {@link java.util.zip.GZIPInputStream} alike.
+ * The header of each member declares the member's size in an extra field
+ * (subfield {@code OC}), such that {@link ParallelGzipInputStream} can
+ * decompress the members in parallel, too.
+ * <p>
+ * Like {@link java.util.zip.GZIPOutputStream}, {@link #flush()} does not
+ * compress the current, incomplete block. It only hands over the members
+ * that have already been compressed to the underlying stream, and flushes it.
+ * <p>
+ * Instances are not thread-safe.
+ */
+@Slf4j
+public class ParallelGzipOutputStream extends FilterOutputStream {
+    /**
+     * Default number of uncompressed bytes per gzip member.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 17;
+    /**
+     * Default compression level.
+     */
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FEXTRA = 4;
+    /**
+     * Length of a member's header, including the extra field.
+     */
+    private static final int HEADER_LENGTH = 20;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Number of uncompressed bytes per gzip member.
+     * @return number of uncompressed bytes per gzip member
+     */
+    @Getter
+    private final int blockSize;
+    /**
+     * The compression level, from 0 to 9, or -1 for the default level.
+     * @return the compression level
+     */
+    @Getter
+    private final int level;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength;
+    private boolean membersWritten;
+    private boolean closed;
+
+    private ParallelGzipOutputStream(final OutputStream out,
+                                     final int blockSize,
+                                     final int level,
+                                     final ExecutorService executor,
+                                     final boolean ownsExecutor,
+                                     final int parallelism) {
+        super(out);
+        this.blockSize = blockSize;
+        this.level = level;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.maxPendingBlocks = 2 * parallelism;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Create a new stream with default block size and level, using all available processors.
+     * @param out the underlying stream
+     * @return the new stream
+     */
+    public static ParallelGzipOutputStream of(final OutputStream out) {
+        return of(out, DEFAULT_BLOCK_SIZE, DEFAULT_LEVEL, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new stream, compressing on a pool of threads of its own.
+     * <p>
+     * The pool is shut down when closing the stream. For a single thread,
+     * the blocks are compressed on the writing thread.
+     * @param out the underlying stream
+     * @param blockSize number of uncompressed bytes per gzip member
+     * @param level the compression level, from 0 to 9, or -1 for the default level
+     * @param threads number of compressing threads
+     * @return the new stream
+     * @throws IllegalArgumentException if any of the numeric arguments is out of range
+     */
+    public static ParallelGzipOutputStream of(@NonNull final OutputStream out,
+                                              final int blockSize,
+                                              final int level,
+                                              final int threads) throws IllegalArgumentException {
+        checkArguments(blockSize, level);
+        if (threads < 1) {
+            final String msg = String.format("expected a positive number of threads, got %d", threads);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        final ExecutorService executor = threads == 1
+                ? null
+                : Executors.newFixedThreadPool(threads, runnable -> {
+                    final Thread thread = new Thread(runnable, "opencsv-gzip-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        return new ParallelGzipOutputStream(out, blockSize, level, executor, true, threads);
+    }
+
+    /**
+     * Create a new stream, compressing on a shared {@link ExecutorService}.
+     * <p>
+     * The executor is not shut down when closing the stream. Since
+     * compressing a block never waits for another task, the executor
+     * may be shared with other, equally non-blocking tasks.
+     * @param out the underlying stream
+     * @param blockSize number of uncompressed bytes per gzip member
+     * @param level the compression level, from 0 to 9, or -1 for the default level
+     * @param executor the executor to compress on
+     * @param parallelism number of threads of the executor, bounding the number of pending blocks
+     * @return the new stream
+     * @throws IllegalArgumentException if any of the numeric arguments is out of range
+     */
+    public static ParallelGzipOutputStream of(@NonNull final OutputStream out,
+                                              final int blockSize,
+                                              final int level,
+                                              @NonNull final ExecutorService executor,
+                                              final int parallelism) throws IllegalArgumentException {
+        checkArguments(blockSize, level);
+        return new ParallelGzipOutputStream(out, blockSize, level, executor, false, Math.max(1, parallelism));
+    }
+
+    private static void checkArguments(final int blockSize, final int level) {
+        if (blockSize < 1) {
+            final String msg = String.format("expected a positive block size, got %d", blockSize);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            final String msg = String.format("expected a compression level from -1 to 9, got %d", level);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (length > 0) {
+            final int n = Math.min(length, blockSize - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Write all members that have already been compressed, and flush the underlying stream.
+     * <p>
+     * The current block is left untouched, so its data does not reach the underlying stream.
+     * @throws IOException if the underlying stream cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeMember(pending.poll());
+        }
+        out.flush();
+    }
+
+    /**
+     * Compress the remaining data, write all members and close the underlying stream.
+     * @throws IOException if any block cannot be compressed, or the underlying stream cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // an empty stream still consists of a single, empty member
+            if (blockLength > 0 || (!membersWritten && pending.isEmpty())) {
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeMember(pending.poll());
+            }
+            out.flush();
+        } finally {
+            try {
+                out.close();
+            } finally {
+                if (ownsExecutor && executor != null) {
+                    executor.shutdownNow();
+                }
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        block = new byte[blockSize];
+        blockLength = 0;
+        if (executor == null) {
+            writeMember(compress(data, length, level));
+            return;
+        }
+        pending.add(executor.submit(() -> compress(data, length, level)));
+        while (pending.size() > maxPendingBlocks) {
+            writeMember(pending.poll());
+        }
+    }
+
+    private void writeMember(final Future<byte[]> member) throws IOException {
+        try {
+            writeMember(member.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            final String msg = "could not compress block";
+            log.error(msg);
+            throw new IOException(msg, e.getCause());
+        }
+    }
+
+    private void writeMember(final byte[] member) throws IOException {
+        out.write(member);
+        membersWritten = true;
+    }
+
+    /**
+     * Compress a block of data into a complete gzip member.
+     * @param data the uncompressed data
+     * @param length number of bytes of data
+     * @param level the compression level
+     * @return the gzip member
+     */
+    static byte[] compress(final byte[] data, final int length, final int level) {
+        final ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 2 + 64);
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            final byte[] buffer = new byte[Math.min(Math.max(length, 64), 1 << 16)];
+            while (!deflater.finished()) {
+                final int n = deflater.deflate(buffer);
+                deflated.write(buffer, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        final ByteArrayOutputStream member = new ByteArrayOutputStream(deflated.size() + HEADER_LENGTH + 8);
+        // header: magic, deflate, extra field, no mtime, no extra flags, unknown os
+        writeShort(member, GZIP_MAGIC);
+        member.write(Deflater.DEFLATED);
+        member.write(FEXTRA);
+        writeInt(member, 0);
+        member.write(0);
+        member.write(0xff);
+        // extra field with a single subfield, holding the size of the whole member
+        writeShort(member, 8);
+        member.write('O');
+        member.write('C');
+        writeShort(member, 4);
+        writeInt(member, HEADER_LENGTH + deflated.size() + 8);
+        member.write(deflated.toByteArray(), 0, deflated.size());
+        final CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(member, (int) crc.getValue());
+        writeInt(member, length);
+        return member.toByteArray();
+    }
+
+    private static void writeShort(final ByteArrayOutputStream out, final int value) {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        writeShort(out, value & 0xffff);
+        writeShort(out, (value >>> 16) & 0xffff);
+    }
+
+}
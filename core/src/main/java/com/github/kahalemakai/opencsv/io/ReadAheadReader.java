@@ -0,0 +1,323 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.github.kahalemakai.opencsv.io;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Reader} that reads ahead of its consumer on a dedicated I/O thread.
+ * <p>
+ * The I/O thread fills a fixed number of large character buffers from the
+ * underlying reader, and hands them over to the consumer, e.g. the csv parser,
+ * through a single-producer/single-consumer ring. If the underlying reader
+ * decodes bytes, as an {@link java.io.InputStreamReader} does, decoding happens
+ * on the I/O thread as well. Neither side takes a lock: the filled buffers are
+ * published by ordered writes of a sequence number, and a side only parks if
+ * the ring is empty, or full, respectively.
+ * <p>
+ * A buffer is handed over once it is full, or once the underlying reader
+ * cannot supply more characters without blocking. The time the consumer spent
+ * waiting for the I/O thread is available from {@link #getBlockedNanos()},
+ * and gets logged at the end of the stream.
+ * <p>
+ * Instances are not thread-safe.
+ */
+@Slf4j
+public class ReadAheadReader extends Reader {
+    /**
+     * default number of buffers in the ring
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+    /**
+     * default number of characters per buffer
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    /**
+     * Maximum time to park, before checking the state of the other side again.
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Reader in;
+    private final char[][] buffers;
+    private final int[] lengths;
+    /**
+     * Number of buffers released by the consumer. Written by the consumer only.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Number of buffers published by the I/O thread. Written by the I/O thread only.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private final Thread ioThread;
+    private volatile Thread waitingConsumer;
+    private volatile boolean endOfStream;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private long blockedNanos;
+    private long waits;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean reported;
+
+    private ReadAheadReader(final Reader in, final int bufferCount, final int bufferSize) {
+        this.in = in;
+        this.buffers = new char[bufferCount][bufferSize];
+        this.lengths = new int[bufferCount];
+        this.ioThread = new Thread(this::readAhead, "opencsv-read-ahead-" + THREAD_COUNT.incrementAndGet());
+        this.ioThread.setDaemon(true);
+    }
+
+    /**
+     * Create a new reader with the default number and size of buffers.
+     * @param in the underlying reader
+     * @return the new reader
+     */
+    public static ReadAheadReader of(final Reader in) {
+        return of(in, DEFAULT_BUFFER_COUNT, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a new reader.
+     * @param in the underlying reader
+     * @param bufferCount number of buffers in the ring
+     * @param bufferSize number of characters per buffer
+     * @return the new reader
+     * @throws IllegalArgumentException if there are less than two buffers, or the buffer size is not positive
+     */
+    public static ReadAheadReader of(@NonNull final Reader in,
+                                     final int bufferCount,
+                                     final int bufferSize) throws IllegalArgumentException {
+        if (bufferCount < 2 || bufferSize < 1) {
+            final String msg = String.format("expected: bufferCount > 1 and bufferSize > 0, got: %d and %d",
+                    bufferCount, bufferSize);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        final ReadAheadReader reader = new ReadAheadReader(in, bufferCount, bufferSize);
+        reader.ioThread.start();
+        return reader;
+    }
+
+    /**
+     * Get the time the consumer spent waiting for the I/O thread.
+     * @return the time spent waiting in nanoseconds
+     */
+    public long getBlockedNanos() {
+        return blockedNanos;
+    }
+
+    /**
+     * Get the number of times the consumer had to wait for the I/O thread.
+     * @return the number of times the consumer had to wait
+     */
+    public long getWaits() {
+        return waits;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureBuffer()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public int read(final char[] chars, final int offset, final int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureBuffer()) {
+            return -1;
+        }
+        final int n = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, chars, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        return position < limit || tail.get() > head.get() + (buffer == null ? 0 : 1);
+    }
+
+    /**
+     * Stop reading ahead, and close the underlying reader.
+     * @throws IOException if the underlying reader cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        report();
+        LockSupport.unpark(ioThread);
+        ioThread.interrupt();
+        in.close();
+    }
+
+    /**
+     * Make the next buffer current, if the current one has been consumed.
+     * @return if there are characters left
+     */
+    private boolean ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        if (position < limit) {
+            return true;
+        }
+        if (buffer != null) {
+            // release the consumed buffer to the I/O thread
+            buffer = null;
+            head.lazySet(head.get() + 1);
+            LockSupport.unpark(ioThread);
+        }
+        final long next = head.get();
+        if (tail.get() == next && !awaitBuffer(next)) {
+            report();
+            return false;
+        }
+        final int slot = (int) (next % buffers.length);
+        buffer = buffers[slot];
+        limit = lengths[slot];
+        position = 0;
+        return true;
+    }
+
+    /**
+     * Wait for the I/O thread to publish the buffer with the given sequence number.
+     * @return if the buffer has been published, as opposed to the end of the stream
+     */
+    private boolean awaitBuffer(final long sequence) throws IOException {
+        final long start = System.nanoTime();
+        ++waits;
+        try {
+            while (true) {
+                waitingConsumer = Thread.currentThread();
+                if (tail.get() > sequence) {
+                    return true;
+                }
+                if (failure != null) {
+                    final Throwable cause = failure;
+                    if (cause instanceof IOException) {
+                        throw new IOException(cause.getMessage(), cause);
+                    }
+                    throw new IOException("could not read ahead", cause);
+                }
+                if (endOfStream) {
+                    // the end of the stream is signalled after the last buffer has been published
+                    return tail.get() > sequence;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting for input");
+                }
+            }
+        } finally {
+            waitingConsumer = null;
+            blockedNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void report() {
+        if (!reported) {
+            reported = true;
+            log.info(String.format("consumer waited %d times for input, blocked for %d ms in total",
+                    waits, TimeUnit.NANOSECONDS.toMillis(blockedNanos)));
+        }
+    }
+
+    /**
+     * Main loop of the I/O thread.
+     */
+    private void readAhead() {
+        try {
+            long sequence = 0;
+            while (!closed) {
+                while (sequence - head.get() == buffers.length) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                    if (closed) {
+                        return;
+                    }
+                }
+                final int slot = (int) (sequence % buffers.length);
+                final int length = fill(buffers[slot]);
+                if (length < 0) {
+                    break;
+                }
+                lengths[slot] = length;
+                tail.lazySet(++sequence);
+                wakeConsumer();
+            }
+        } catch (Throwable e) {
+            if (!closed) {
+                failure = e;
+            }
+        } finally {
+            endOfStream = true;
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Fill a buffer until it is full, the end of the stream is reached,
+     * or the underlying reader would block.
+     * @return the number of characters read, or -1 at the end of the stream
+     */
+    private int fill(final char[] chars) throws IOException {
+        int length = 0;
+        while (length < chars.length) {
+            final int n = in.read(chars, length, chars.length - length);
+            if (n < 0) {
+                return length == 0 ? -1 : length;
+            }
+            length += n;
+            if (!in.ready()) {
+                break;
+            }
+        }
+        return length;
+    }
+
+    private void wakeConsumer() {
+        final Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+}
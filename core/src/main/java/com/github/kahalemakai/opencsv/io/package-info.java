@@ -0,0 +1,7 @@
+/**
+ * Streams for reading and writing csv data.
+ * <p>
+ * Currently, this comprises gzip streams that compress
+ * and decompress independent blocks of data in parallel.
+ */
+package com.github.kahalemakai.opencsv.io;
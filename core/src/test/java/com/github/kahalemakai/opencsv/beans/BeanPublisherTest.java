@@ -0,0 +1,288 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.config.PublishingSink;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BeanPublisherTest {
+    private static final int NUM_ROWS = 100;
+    private String csv;
+    private List<Person> expected;
+
+    @Test
+    public void testParsingAdvancesOnDemandOnly() throws Exception {
+        final AtomicInteger linesRead = new AtomicInteger();
+        final List<String> lines = new ArrayList<>();
+        for (String line : csv.split("\n")) {
+            lines.add(line);
+        }
+        final Iterable<String> countingLines = () -> {
+            final Iterator<String> iterator = lines.iterator();
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    linesRead.incrementAndGet();
+                    return iterator.next();
+                }
+            };
+        };
+        final Recorder recorder = new Recorder();
+        builder().withLines(countingLines).build().publisher().subscribe(recorder);
+        assertEquals(0, linesRead.get());
+        recorder.subscription.request(3);
+        assertEquals(expected.subList(0, 3), recorder.beans);
+        assertTrue(linesRead.get() <= 5);
+        recorder.subscription.request(2);
+        assertEquals(expected.subList(0, 5), recorder.beans);
+        assertTrue(linesRead.get() <= 7);
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    public void testCompletionClosesReader() throws Exception {
+        final TrackingReader reader = new TrackingReader(csv);
+        final Recorder recorder = new Recorder();
+        builder().withReader(reader).build().publisher().subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(expected, recorder.beans);
+        assertTrue(recorder.completed);
+        assertNull(recorder.error);
+        assertTrue(reader.closed);
+    }
+
+    @Test
+    public void testCancelClosesReader() throws Exception {
+        final TrackingReader reader = new TrackingReader(csv);
+        final Recorder recorder = new Recorder();
+        builder().withReader(reader).build().publisher().subscribe(recorder);
+        recorder.subscription.request(10);
+        recorder.subscription.cancel();
+        assertTrue(reader.closed);
+        recorder.subscription.request(10);
+        assertEquals(expected.subList(0, 10), recorder.beans);
+        assertFalse(recorder.completed);
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void testRequestFromOnNextDoesNotRecurse() throws Exception {
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        final Recorder recorder = new Recorder() {
+            @Override
+            public void onNext(final Person bean) {
+                maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+                super.onNext(bean);
+                subscription.request(1);
+                depth.decrementAndGet();
+            }
+        };
+        builder().withReader(new StringReader(csv)).build().publisher().subscribe(recorder);
+        recorder.subscription.request(1);
+        assertEquals(expected, recorder.beans);
+        assertTrue(recorder.completed);
+        assertEquals(1, maxDepth.get());
+    }
+
+    @Test
+    public void testNonPositiveRequestSignalsError() throws Exception {
+        final TrackingReader reader = new TrackingReader(csv);
+        final Recorder recorder = new Recorder();
+        builder().withReader(reader).build().publisher().subscribe(recorder);
+        recorder.subscription.request(0);
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        assertTrue(reader.closed);
+        assertEquals(0, recorder.beans.size());
+    }
+
+    @Test
+    public void testParsingErrorIsSignalled() throws Exception {
+        final Recorder recorder = new Recorder();
+        builder().withReader(new StringReader("age,givenName,surName,address\n1,a,b,c\nx,a,b,c\n"))
+                .build()
+                .publisher()
+                .subscribe(recorder);
+        recorder.subscription.request(5);
+        assertEquals(1, recorder.beans.size());
+        assertTrue(recorder.error instanceof CsvToBeanException);
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() throws Exception {
+        final BeanPublisher<Person> publisher = builder().withReader(new StringReader(csv)).build().publisher();
+        final Recorder first = new Recorder();
+        final Recorder second = new Recorder();
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+        assertNull(first.error);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testPublishOnExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch done = new CountDownLatch(1);
+            final Recorder recorder = new Recorder() {
+                @Override
+                public void onNext(final Person bean) {
+                    super.onNext(bean);
+                    if (beans.size() % 10 == 0) {
+                        subscription.request(10);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    done.countDown();
+                }
+            };
+            builder().withReader(new StringReader(csv)).build().publisher(executor).subscribe(recorder);
+            recorder.subscription.request(10);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(expected, recorder.beans);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPublishingSinkBehindAsyncSink() throws Exception {
+        final PublishingSink<Person> sink = new PublishingSink<>();
+        final Recorder recorder = new Recorder() {
+            @Override
+            public void onSubscribe(final BeanPublisher.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.request(Long.MAX_VALUE);
+            }
+        };
+        sink.subscribe(recorder);
+        final CsvToBeanMapper<Person> mapper = builder()
+                .withReader(new StringReader(csv))
+                .sinkQueueCapacity(2)
+                .sinkBatchSize(8)
+                .sink(sink)
+                .build();
+        mapper.intoSink();
+        mapper.close();
+        assertEquals(expected, recorder.beans);
+        assertTrue(recorder.completed);
+    }
+
+    @Test
+    public void testCancelPublishingSinkStopsParsing() throws Exception {
+        final PublishingSink<Person> sink = new PublishingSink<>();
+        final Recorder recorder = new Recorder() {
+            @Override
+            public void onSubscribe(final BeanPublisher.Subscription subscription) {
+                super.onSubscribe(subscription);
+                subscription.request(10);
+            }
+
+            @Override
+            public void onNext(final Person bean) {
+                super.onNext(bean);
+                if (beans.size() == 10) {
+                    subscription.cancel();
+                }
+            }
+        };
+        final CsvToBeanMapper<Person> mapper = builder()
+                .withReader(new StringReader(csv))
+                .sinkQueueCapacity(1)
+                .sinkBatchSize(4)
+                .sink(sink)
+                .build();
+        final Thread subscriber = new Thread(() -> sink.subscribe(recorder));
+        subscriber.start();
+        mapper.intoSink();
+        subscriber.join();
+        mapper.close();
+        assertEquals(expected.subList(0, 10), recorder.beans);
+        assertFalse(recorder.completed);
+        assertNull(recorder.error);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder builder = new StringBuilder("age,givenName,surName,address\n");
+        for (int i = 0; i < NUM_ROWS; ++i) {
+            builder.append(i).append(",Tom,Sawyer,Mississippi ").append(i).append('\n');
+        }
+        csv = builder.toString();
+        expected = new ArrayList<>();
+        builder().withReader(new StringReader(csv)).build().forEach(expected::add);
+        assertEquals(NUM_ROWS, expected.size());
+    }
+
+    private static Builder<Person> builder() throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class);
+    }
+
+    private static class Recorder implements BeanPublisher.Subscriber<Person> {
+        final List<Person> beans = new ArrayList<>();
+        BeanPublisher.Subscription subscription;
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(final BeanPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final Person bean) {
+            beans.add(bean);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static class TrackingReader extends StringReader {
+        boolean closed;
+
+        TrackingReader(final String s) {
+            super(s);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+
+}
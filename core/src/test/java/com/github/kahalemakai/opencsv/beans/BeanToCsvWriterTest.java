@@ -0,0 +1,145 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BeanToCsvWriterTest {
+    private ByteArrayOutputStream outputStream;
+    private Person picard;
+    private Person drObvious;
+
+    @Test
+    public void testWrite() throws Exception {
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"), "age", "givenName", "surName", "address");
+        writer.writeHeader();
+        writer.writeAll(Arrays.asList(picard, drObvious).iterator());
+        writer.close();
+        final String expected = "age,givenName,surName,address\n"
+                + "50,Jean-Luc,Picard,\"Captain's room, \"\"Enterprise\"\"\"\n"
+                + ",Dr.,Obvious,\" Somewhere\"\n";
+        assertEquals(expected, outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void testEncodersAndOptions() throws Exception {
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .<Person>of(Person.class, outputStream, Charset.forName("UTF-8"), "surName", "age")
+                .separator(';')
+                .quoteChar(BeanToCsvWriter.NO_QUOTE_CHARACTER)
+                .nullString("null")
+                .lineEnd("\r\n")
+                .registerTypeEncoder(int.class, (value, buffer) -> buffer.append(value + 10))
+                .registerEncoder("surName", (String value, StringBuilder buffer) -> buffer.append(value.toUpperCase()));
+        writer.write(picard);
+        writer.write(drObvious.setSurName(null));
+        writer.close();
+        assertEquals("PICARD;60\r\nnull;null\r\n", outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void testWriteExceedsBuffer() throws Exception {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 5000; ++i) {
+            name.append("ä€😀");
+        }
+        picard.setGivenName(name.toString());
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"), "givenName", "age");
+        writer.write(picard);
+        writer.write(picard);
+        writer.close();
+        final String line = name + ",50\n";
+        assertEquals(line + line, outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void testEscapeCharRoundTrip() throws Exception {
+        picard.setGivenName("\\").setAddress("C:\\Enterprise\\\"bridge\"\\n");
+        drObvious.setGivenName("back\\slash").setAddress("\\\\");
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"), "givenName", "surName", "address");
+        writer.writeHeader();
+        writer.writeAll(Arrays.asList(picard, drObvious).iterator());
+        writer.close();
+        assertEquals("givenName,surName,address\n"
+                        + "\"\\\\\",Picard,\"C:\\\\Enterprise\\\\\"\"bridge\"\"\\\\n\"\n"
+                        + "\"back\\\\slash\",Obvious,\"\\\\\\\\\"\n",
+                outputStream.toString("UTF-8"));
+        final List<Person> persons = new ArrayList<>();
+        CsvToBeanMapper
+                .builder(Person.class)
+                .withInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+                .build()
+                .forEach(persons::add);
+        assertEquals(Arrays.asList(picard.setAge(null), drObvious), persons);
+    }
+
+    @Test
+    public void testNoEscapeChar() throws Exception {
+        picard.setAddress("C:\\Enterprise");
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .<Person>of(Person.class, outputStream, Charset.forName("UTF-8"), "address")
+                .escapeChar(BeanToCsvWriter.NO_ESCAPE_CHARACTER);
+        writer.write(picard);
+        writer.close();
+        assertEquals("C:\\Enterprise\n", outputStream.toString("UTF-8"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnquotedSeparatorThrows() throws Exception {
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .<Person>of(Person.class, outputStream, Charset.forName("UTF-8"), "surName", "address")
+                .quoteChar(BeanToCsvWriter.NO_QUOTE_CHARACTER);
+        writer.write(picard);
+    }
+
+    @Test
+    public void testAllProperties() throws Exception {
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"));
+        assertEquals(Arrays.asList("address", "age", "givenName", "surName"), writer.getColumns());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConfigurationIsFrozen() throws Exception {
+        final BeanToCsvWriter<Person> writer = BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"), "age");
+        writer.write(picard);
+        writer.separator(';');
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumnThrows() throws Exception {
+        BeanToCsvWriter
+                .of(Person.class, outputStream, Charset.forName("UTF-8"), "unknown")
+                .writeHeader();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        outputStream = new ByteArrayOutputStream();
+        picard = new Person()
+                .setAge(50)
+                .setGivenName("Jean-Luc")
+                .setSurName("Picard")
+                .setAddress("Captain's room, \"Enterprise\"");
+        drObvious = new Person()
+                .setAge(null)
+                .setGivenName("Dr.")
+                .setSurName("Obvious")
+                .setAddress(" Somewhere");
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.examples.AllTypes;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BinaryRowWriterTest {
+    private ByteArrayOutputStream outputStream;
+    private AllTypes full;
+    private AllTypes empty;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final BinaryRowWriter<AllTypes> writer = BinaryRowWriter.of(AllTypes.class, outputStream);
+        assertEquals(12, writer.getColumns().size());
+        writer.writeAll(Arrays.asList(full, empty, full).iterator());
+        writer.close();
+        final List<AllTypes> result = readAll(AllTypes.class);
+        assertEquals(Arrays.asList(full, empty, full), result);
+    }
+
+    @Test
+    public void testLargeRows() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            text.append(i % 10 == 0 ? "ä" : "a");
+        }
+        full.setText(text.toString());
+        final BinaryRowWriter<AllTypes> writer = BinaryRowWriter.of(AllTypes.class, outputStream, "text", "number");
+        writer.write(full);
+        writer.write(empty);
+        writer.close();
+        final List<AllTypes> result = readAll(AllTypes.class);
+        assertEquals(text.toString(), result.get(0).getText());
+        assertEquals(42, result.get(0).getNumber());
+        assertEquals(null, result.get(1).getText());
+    }
+
+    @Test
+    public void testSubsetOfColumns() throws Exception {
+        final Person person = new Person().setAge(12).setGivenName("Ann").setSurName("Smith");
+        final BinaryRowWriter<Person> writer = BinaryRowWriter.of(Person.class, outputStream, "surName", "age");
+        writer.write(person);
+        writer.close();
+        final List<Person> result = readAll(Person.class);
+        assertEquals(Arrays.asList(new Person().setAge(12).setSurName("Smith")), result);
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        BinaryRowWriter.of(Person.class, outputStream, "age").close();
+        final Iterator<Person> iterator = CsvToBeanMapper
+                .builder(Person.class)
+                .withBinaryInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+                .build()
+                .iterator();
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testTruncatedRowsThrow() throws Exception {
+        final BinaryRowWriter<AllTypes> writer = BinaryRowWriter.of(AllTypes.class, outputStream);
+        writer.write(full);
+        writer.flush();
+        final byte[] bytes = Arrays.copyOf(outputStream.toByteArray(), outputStream.size() - 3);
+        final Iterator<AllTypes> iterator = CsvToBeanMapper
+                .builder(AllTypes.class)
+                .withBinaryInputStream(new ByteArrayInputStream(bytes))
+                .build()
+                .iterator();
+        iterator.next();
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testBadMagicNumberThrows() throws Exception {
+        CsvToBeanMapper
+                .builder(Person.class)
+                .withBinaryInputStream(new ByteArrayInputStream("age,name\n".getBytes("UTF-8")))
+                .build();
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testTypeMismatchThrows() throws Exception {
+        final BinaryRowWriter<AllTypes> writer = BinaryRowWriter.of(AllTypes.class, outputStream, "text");
+        writer.close();
+        CsvToBeanMapper
+                .builder(Person.class)
+                .withBinaryInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+                .build();
+    }
+
+    private <T> List<T> readAll(final Class<T> type) throws Exception {
+        final List<T> result = new ArrayList<>();
+        try (final CsvToBeanMapper<T> mapper = CsvToBeanMapper
+                .builder(type)
+                .withBinaryInputStream(new ByteArrayInputStream(outputStream.toByteArray()))
+                .build()) {
+            for (T bean : mapper) {
+                result.add(bean);
+            }
+        }
+        return result;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        outputStream = new ByteArrayOutputStream();
+        full = new AllTypes()
+                .setFlag(true)
+                .setTiny((byte) -3)
+                .setSmall((short) 1234)
+                .setLetter('€')
+                .setNumber(42)
+                .setBig(Long.MIN_VALUE)
+                .setReal(1.5f)
+                .setPrecise(Math.PI)
+                .setText("Grüße, \"world\"")
+                .setMode(QuotingMode.STRICT_QUOTES)
+                .setDecimal(new BigDecimal("-12345678901234567890.0815"))
+                .setDate(new Date(1234567890L));
+        empty = new AllTypes();
+    }
+
+}
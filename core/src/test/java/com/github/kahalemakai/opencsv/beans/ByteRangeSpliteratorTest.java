@@ -0,0 +1,211 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.config.Sink;
+import com.github.kahalemakai.opencsv.examples.Person;
+import com.github.kahalemakai.opencsv.io.Compression;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangeSpliteratorTest {
+    private static final int ROWS = 2000;
+    private static final long CHUNK_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String csv;
+    private Path file;
+    private List<Person> expected;
+
+    @Test
+    public void testParallelStreamMatchesSequentialParsing() throws Exception {
+        final Spliterator<Person> spliterator = new ByteRangeSpliterator<>(template(), file, CHUNK_SIZE);
+        final List<Person> persons = StreamSupport.stream(spliterator, true).collect(Collectors.toList());
+        assertEquals(expected, persons);
+    }
+
+    @Test
+    public void testSplitsEndAtRecordBoundaries() throws Exception {
+        final ByteRangeSpliterator<Person> root = new ByteRangeSpliterator<>(template(), file, CHUNK_SIZE);
+        assertEquals(ROWS, root.estimateSize());
+        final List<Spliterator<Person>> splits = new ArrayList<>();
+        splitFully(root, splits);
+        assertTrue(splits.size() > 8);
+        final List<Person> persons = new ArrayList<>();
+        long estimate = 0;
+        for (Spliterator<Person> split : splits) {
+            estimate += split.estimateSize();
+            split.forEachRemaining(persons::add);
+            assertEquals(0, split.estimateSize());
+        }
+        assertEquals(ROWS, estimate);
+        assertEquals(expected, persons);
+    }
+
+    @Test
+    public void testHeaderDefinedByTemplate() throws Exception {
+        final Path headless = folder.newFile("headless.csv").toPath();
+        final String rows = csv.substring(csv.indexOf('\n', csv.indexOf("age,")) + 1);
+        Files.write(headless, rows.getBytes(StandardCharsets.UTF_8));
+        final MapperTemplate<Person> template = builder()
+                .setHeader("age", "givenName", "surName", "address")
+                .toTemplate();
+        final Spliterator<Person> spliterator = new ByteRangeSpliterator<>(template, headless, CHUNK_SIZE);
+        assertEquals(expected, StreamSupport.stream(spliterator, true).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testCompressedFileIsNotSplit() throws Exception {
+        final Path gzipped = folder.newFile("persons.csv.gz").toPath();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        final MapperTemplate<Person> template = builder()
+                .skipLines(1)
+                .compression(Compression.AUTO)
+                .toTemplate();
+        final ByteRangeSpliterator<Person> spliterator = new ByteRangeSpliterator<>(template, gzipped, 64);
+        assertNull(spliterator.trySplit());
+        assertEquals(expected, StreamSupport.stream(spliterator, true).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFileInAsciiIncompatibleCharsetIsNotSplit() throws Exception {
+        final Charset ebcdic = Charset.forName("IBM037");
+        // U+008E is encoded as 0x0a, i.e. as an ascii line break
+        final String data = csv.replace("Road ", "Road\u008e");
+        final Path encoded = folder.newFile("persons-ebcdic.csv").toPath();
+        Files.write(encoded, data.getBytes(ebcdic));
+        final MapperTemplate<Person> template = builder()
+                .skipLines(1)
+                .charset(ebcdic)
+                .toTemplate();
+        final ByteRangeSpliterator<Person> spliterator = new ByteRangeSpliterator<>(template, encoded, CHUNK_SIZE);
+        assertNull(spliterator.trySplit());
+        final List<Person> persons = new ArrayList<>();
+        builder().skipLines(1).withReader(new StringReader(data)).build().forEach(persons::add);
+        assertEquals(persons, StreamSupport.stream(spliterator, true).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testMapperOfPathStreamsInParallel() throws Exception {
+        try (Stream<Person> stream = template().forPath(file).parallelStream()) {
+            assertEquals(expected, stream.collect(Collectors.toList()));
+        }
+        try (Stream<Person> stream = builder().skipLines(1).withFile(file.toFile()).build().parallelStream()) {
+            assertEquals(ROWS, stream.filter(p -> p.getAge() >= 0).count());
+        }
+    }
+
+    @Test
+    public void testLazySpliteratorIgnoresCapturedHeader() throws Exception {
+        final StringBuilder builder = new StringBuilder("age,givenName,surName,address\n");
+        for (int i = 0; builder.length() < 3 * ByteRangeSpliterator.DEFAULT_CHUNK_SIZE; ++i) {
+            builder.append(i).append(",Tom,Sawyer,Road ").append(i).append('\n');
+        }
+        final Path large = folder.newFile("large.csv").toPath();
+        Files.write(large, builder.toString().getBytes(StandardCharsets.UTF_8));
+        final List<Person> sequential = new ArrayList<>();
+        builder().withReader(new StringReader(builder.toString())).build().forEach(sequential::add);
+        final CsvToBeanMapper<Person> mapper = builder().withFile(large.toFile()).build();
+        final Spliterator<Person> spliterator = mapper.spliterator();
+        assertTrue(spliterator instanceof ByteRangeSpliterator);
+        assertEquals(sequential.size(), spliterator.estimateSize());
+        try (Stream<Person> stream = StreamSupport.stream(spliterator, true).onClose(() -> {
+            try {
+                mapper.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        })) {
+            assertEquals(sequential, stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testClosingStreamClosesMapper() throws Exception {
+        final boolean[] closed = new boolean[1];
+        final StringReader reader = new StringReader(csv) {
+            @Override
+            public void close() {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        final Stream<Person> stream = builder().skipLines(1).withReader(reader).build().stream();
+        assertEquals(expected.subList(0, 5), stream.limit(5).collect(Collectors.toList()));
+        stream.close();
+        assertTrue(closed[0]);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStreamWithSinkThrows() throws Exception {
+        final Sink sink = iterator -> { };
+        builder().skipLines(1).withFile(file.toFile()).sink(sink).build().stream();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder builder = new StringBuilder("# preamble with an \"unbalanced quote\n");
+        builder.append("age,givenName,surName,address\n");
+        for (int i = 0; i < ROWS; ++i) {
+            builder.append(i).append(",Tom,Sawyer,");
+            if (i % 7 == 0) {
+                builder.append("\"Street ").append(i).append("\nApt. \"\"B\"\"\"\n");
+            }
+            else if (i % 11 == 0) {
+                builder.append("\"Say \\\"hi\\\"\nto ").append(i).append("\"\n");
+            }
+            else {
+                builder.append("Road ").append(i).append('\n');
+            }
+        }
+        csv = builder.toString();
+        file = folder.newFile("persons.csv").toPath();
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+        expected = new ArrayList<>();
+        builder().skipLines(1).withReader(new StringReader(csv)).build().forEach(expected::add);
+        assertEquals(ROWS, expected.size());
+    }
+
+    private static void splitFully(final Spliterator<Person> spliterator, final List<Spliterator<Person>> splits) {
+        final Spliterator<Person> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            splits.add(spliterator);
+            return;
+        }
+        splitFully(prefix, splits);
+        splitFully(spliterator, splits);
+    }
+
+    private static MapperTemplate<Person> template() throws Exception {
+        return builder().skipLines(1).toTemplate();
+    }
+
+    private static Builder<Person> builder() throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class);
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.BooleanDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.DoubleDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.LongDecoder;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.NullDecoder;
+import com.github.kahalemakai.opencsv.config.PublishingSink;
+import com.github.kahalemakai.opencsv.examples.AllTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnBatchReaderTest {
+    private String csv;
+
+    @Test
+    public void testVectorsMatchBeans() throws Exception {
+        final List<AllTypes> expected = new ArrayList<>();
+        builder(csv).build().forEach(expected::add);
+        final List<AllTypes> received = new ArrayList<>();
+        try (final ColumnBatchReader reader = builder(csv).buildColumnBatchReader(3)) {
+            assertEquals(AllTypes.class, reader.getType());
+            for (ColumnBatch batch : reader) {
+                assertEquals(Arrays.asList("flag", "number", "big", "precise", "text", "decimal"), batch.getColumnNames());
+                for (int row = 0; row < batch.getSize(); ++row) {
+                    received.add(new AllTypes()
+                            .setFlag(batch.booleans("flag").get(row))
+                            .setNumber(batch.ints("number").get(row))
+                            .setBig((Long) batch.longs("big").getObject(row))
+                            .setPrecise(batch.doubles("precise").get(row))
+                            .setText(batch.strings("text").get(row))
+                            .setDecimal((BigDecimal) batch.objects("decimal").get(row)));
+                }
+            }
+        }
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testBatchIsReused() throws Exception {
+        final List<Integer> sizes = new ArrayList<>();
+        ColumnBatch previous = null;
+        int sum = 0;
+        for (ColumnBatch batch : builder(csv).buildColumnBatchReader(3)) {
+            if (previous != null) {
+                assertSame(previous, batch);
+            }
+            previous = batch;
+            sizes.add(batch.getSize());
+            final int[] numbers = batch.ints("number").getValues();
+            for (int row = 0; row < batch.getSize(); ++row) {
+                sum += numbers[row];
+            }
+        }
+        assertEquals(Arrays.asList(3, 3, 1), sizes);
+        assertEquals(28, sum);
+    }
+
+    @Test
+    public void testNullBitmap() throws Exception {
+        final Iterator<ColumnBatch> it = builder(csv).buildColumnBatchReader().iterator();
+        final ColumnBatch batch = it.next();
+        final ColumnBatch.LongVector big = batch.longs("big");
+        assertEquals(2, big.getNullCount());
+        assertEquals(0b1000010L, big.getNullBitmap()[0]);
+        assertTrue(big.isNull(1));
+        assertNull(big.getObject(6));
+        assertEquals(0L, big.get(6));
+        assertEquals(0, batch.ints("number").getNullCount());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testDictionaryEncodedStrings() throws Exception {
+        final ColumnBatch batch = builder(csv).buildColumnBatchReader().iterator().next();
+        final ColumnBatch.DictionaryVector text = batch.strings("text");
+        assertEquals(Arrays.asList("a", "b", "c"), text.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, -1, 2, 1, 0}, Arrays.copyOf(text.getCodes(), batch.getSize()));
+        assertTrue(text.isNull(3));
+    }
+
+    @Test
+    public void testSkipErroneousLines() throws Exception {
+        final String broken = csv.replace(",3,30,", ",three,30,").replace(",6,60,", ",six,60,");
+        final List<Integer> numbers = new ArrayList<>();
+        for (ColumnBatch batch : builder(broken).onErrorSkipLine().buildColumnBatchReader(2)) {
+            for (int row = 0; row < batch.getSize(); ++row) {
+                numbers.add(batch.ints("number").get(row));
+            }
+        }
+        assertEquals(Arrays.asList(1, 2, 4, 5, 7), numbers);
+    }
+
+    @Test
+    public void testErrorIsThrownAfterPrecedingRows() throws Exception {
+        final String broken = csv.replace(",3,30,", ",three,30,");
+        final Iterator<ColumnBatch> it = builder(broken).buildColumnBatchReader().iterator();
+        assertTrue(it.hasNext());
+        assertEquals(2, it.next().getSize());
+        assertTrue(it.hasNext());
+        try {
+            it.next();
+            fail();
+        } catch (CsvToBeanException e) {
+            assertTrue(e.getMessage().contains("line 3"));
+        }
+        final ColumnBatch rest = it.next();
+        assertEquals(4, rest.getSize());
+        assertEquals(4, rest.ints("number").get(0));
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testColumnLookup() throws Exception {
+        final ColumnBatch batch = builder(csv).buildColumnBatchReader().iterator().next();
+        assertEquals(6, batch.getColumnCount());
+        assertSame(batch.column("number"), batch.column(1));
+        try {
+            batch.column("unknown");
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            batch.doubles("number");
+            fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSinkIsRejected() throws Exception {
+        builder(csv).sink(new PublishingSink<AllTypes>()).buildColumnBatchReader();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() throws Exception {
+        builder(csv).buildColumnBatchReader(0);
+    }
+
+    private Builder<AllTypes> builder(final String data) throws Exception {
+        return CsvToBeanMapper.builder(AllTypes.class)
+                .registerDecoder("flag", BooleanDecoder.class)
+                .registerDecoder("number", IntDecoder.class)
+                .registerDecoder("big", NullDecoder.class)
+                .registerDecoder("big", LongDecoder.class)
+                .registerDecoder("precise", DoubleDecoder.class)
+                .registerDecoder("text", NullDecoder.class)
+                .registerDecoder("text", Decoder.IDENTITY)
+                .registerDecoder("decimal", s -> ResultWrapper.of(new BigDecimal(s)))
+                .withReader(new StringReader(data));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        csv = "flag,number,big,precise,text,decimal\n"
+                + "true,1,10,1.5,a,1.10\n"
+                + "false,2,null,2.5,b,2.20\n"
+                + "true,3,30,3.5,a,3.30\n"
+                + "false,4,40,4.5,null,4.40\n"
+                + "true,5,50,5.5,c,5.50\n"
+                + "false,6,60,6.5,b,6.60\n"
+                + "true,7,null,7.5,a,7.70\n";
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.BinaryRowFormat.FieldType;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.ChunkEncoder;
+import com.github.kahalemakai.opencsv.beans.ColumnarFormat.Encoding;
+import com.github.kahalemakai.opencsv.examples.AllTypes;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private AllTypes full;
+    private AllTypes empty;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        try (final ColumnarWriter<AllTypes> writer = ColumnarWriter
+                .of(AllTypes.class, new FileOutputStream(file))
+                .rowGroupSize(2)) {
+            assertEquals(12, writer.getColumns().size());
+            writer.writeAll(Arrays.asList(full, empty, full).iterator());
+        }
+        final List<AllTypes> result = readAll(AllTypes.class, ColumnarScan.of());
+        assertEquals(Arrays.asList(full, empty, full), result);
+    }
+
+    @Test
+    public void testChunkEncodings() throws Exception {
+        final int rows = 1000;
+        final Object[] names = new Object[rows];
+        final Object[] timestamps = new Object[rows];
+        final Object[] flags = new Object[rows];
+        final Object[] numbers = new Object[rows];
+        for (int i = 0; i < rows; ++i) {
+            names[i] = i % 7 == 0 ? null : "name" + (i % 5);
+            timestamps[i] = 1480000000000L + 1000L * i;
+            flags[i] = i % 3 == 0;
+            numbers[i] = i % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+        final ChunkEncoder encoder = new ChunkEncoder();
+        assertRoundTrip(encoder, FieldType.STRING, Encoding.DICTIONARY, names, 1400);
+        assertRoundTrip(encoder, FieldType.LONG, Encoding.DELTA, timestamps, 2200);
+        assertRoundTrip(encoder, FieldType.BOOLEAN, Encoding.BIT_PACKED, flags, 300);
+        assertRoundTrip(encoder, FieldType.INT, Encoding.PLAIN, numbers, 4200);
+    }
+
+    @Test
+    public void testProjectionAndRowGroupSkipping() throws Exception {
+        try (final ColumnarWriter<Person> writer = ColumnarWriter
+                .of(Person.class, new FileOutputStream(file), "age", "givenName", "surName")
+                .rowGroupSize(10)) {
+            for (int i = 0; i < 100; ++i) {
+                writer.write(new Person().setAge(i).setGivenName("Jean-Luc").setSurName("Picard" + i));
+            }
+        }
+        final List<Person> result = new ArrayList<>();
+        try (final CsvToBeanMapper<Person> mapper = CsvToBeanMapper
+                .builder(Person.class)
+                .withColumnarFile(file, ColumnarScan.of("surName").where("age", 35, 44))
+                .build()) {
+            for (Person person : mapper) {
+                result.add(person);
+            }
+            assertEquals(8, ((ColumnarMapper<Person>) mapper).getSkippedRowGroups());
+        }
+        assertEquals(10, result.size());
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("Picard" + (35 + i), result.get(i).getSurName());
+            assertNull(result.get(i).getAge());
+            assertNull(result.get(i).getGivenName());
+        }
+    }
+
+    @Test
+    public void testFilterOnNullsSkipsRowGroups() throws Exception {
+        try (final ColumnarWriter<Person> writer = ColumnarWriter
+                .of(Person.class, new FileOutputStream(file), "age", "surName")
+                .rowGroupSize(2)) {
+            writer.write(new Person().setSurName("Troi"));
+            writer.write(new Person().setSurName("Riker"));
+            writer.write(new Person().setAge(40).setSurName("Worf"));
+        }
+        final List<Person> result = readAll(Person.class, ColumnarScan.of().whereEquals("surName", "Worf"));
+        assertEquals(Arrays.asList(new Person().setAge(40).setSurName("Worf")), result);
+        assertEquals(Arrays.asList(new Person().setAge(40).setSurName("Worf")),
+                readAll(Person.class, ColumnarScan.of().where("age", 0, null)));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        ColumnarWriter.of(Person.class, new FileOutputStream(file), "age").close();
+        final Iterator<Person> iterator = CsvToBeanMapper
+                .builder(Person.class)
+                .withColumnarFile(file)
+                .build()
+                .iterator();
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testFilterTypeMismatchThrows() throws Exception {
+        ColumnarWriter.of(Person.class, new FileOutputStream(file), "age").close();
+        readAll(Person.class, ColumnarScan.of().where("age", 1L, 2L));
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testUnknownColumnThrows() throws Exception {
+        ColumnarWriter.of(Person.class, new FileOutputStream(file), "age").close();
+        readAll(Person.class, ColumnarScan.of("surName"));
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testTruncatedFileThrows() throws Exception {
+        try (final FileOutputStream outputStream = new FileOutputStream(file)) {
+            final ColumnarWriter<Person> writer = ColumnarWriter.of(Person.class, outputStream, "age");
+            writer.write(new Person().setAge(3));
+            writer.flush();
+        }
+        readAll(Person.class, ColumnarScan.of());
+    }
+
+    private void assertRoundTrip(final ChunkEncoder encoder,
+                                 final FieldType fieldType,
+                                 final Encoding expectedEncoding,
+                                 final Object[] values,
+                                 final int maxSize) {
+        assertEquals(expectedEncoding, encoder.encode(fieldType, values, values.length));
+        assertEquals(true, encoder.size() <= maxSize);
+        final ByteBuffer chunk = ByteBuffer.wrap(Arrays.copyOf(encoder.array(), encoder.size()));
+        final Object[] decoded = ColumnarFormat.decode(expectedEncoding, fieldType,
+                values[1].getClass(), chunk, values.length);
+        assertArrayEquals(values, decoded);
+        assertFalse(chunk.hasRemaining());
+    }
+
+    private <T> List<T> readAll(final Class<T> type, final ColumnarScan scan) throws Exception {
+        final List<T> result = new ArrayList<>();
+        try (final CsvToBeanMapper<T> mapper = CsvToBeanMapper
+                .builder(type)
+                .withColumnarFile(file, scan)
+                .build()) {
+            for (T bean : mapper) {
+                result.add(bean);
+            }
+        }
+        return result;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("beans.ocsc");
+        full = new AllTypes()
+                .setFlag(true)
+                .setTiny((byte) -3)
+                .setSmall((short) 1234)
+                .setLetter('€')
+                .setNumber(42)
+                .setBig(Long.MIN_VALUE)
+                .setReal(1.5f)
+                .setPrecise(Math.PI)
+                .setText("Grüße, \"world\"")
+                .setMode(QuotingMode.STRICT_QUOTES)
+                .setDecimal(new BigDecimal("-12345678901234567890.0815"))
+                .setDate(new Date(1234567890L));
+        empty = new AllTypes();
+    }
+
+}
@@ -26,6 +26,8 @@ import com.github.kahalemakai.opencsv.examples.BigPerson;
 import com.github.kahalemakai.opencsv.examples.EnlargedPerson;
 import com.github.kahalemakai.opencsv.examples.Person;
 import com.github.kahalemakai.opencsv.examples.WithBoolean;
+import com.github.kahalemakai.opencsv.io.Compression;
+import com.github.kahalemakai.opencsv.io.ParallelGzipOutputStream;
 import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
 import org.junit.Before;
@@ -33,11 +35,15 @@ import org.junit.Test;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CsvToBeanMapperImplTest {
     Builder<Person> builder;
@@ -182,6 +188,32 @@ public class CsvToBeanMapperImplTest {
         assertEquals(picard, person);
     }
 
+    @Test
+    public void testCompressedInputStream() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = ParallelGzipOutputStream.of(compressed, 16, 6, 2)) {
+            int b;
+            while ((b = is.read()) >= 0) {
+                out.write(b);
+            }
+        }
+        final Iterator<Person> it = builder
+                .withInputStream(new ByteArrayInputStream(compressed.toByteArray()))
+                .compression(Compression.AUTO)
+                .decompressionThreads(3)
+                .registerDecoder("age", NullDecoder.class)
+                .registerDecoder("age", IntDecoder.class)
+                .build()
+                .iterator();
+        assertEquals(picard, it.next());
+        int count = 1;
+        while (it.hasNext()) {
+            it.next();
+            ++count;
+        }
+        assertEquals(lines.length - 1, count);
+    }
+
     @Test
     public void testReader() throws Exception {
         final Iterator<Person> it = builder
@@ -287,6 +319,101 @@ public class CsvToBeanMapperImplTest {
         it.next();
     }
 
+    @Test
+    public void testBatchedDecodingMatchesLineByLine() throws Exception {
+        final String[] batchLines = new String[] {
+                "50,Jean-Luc,Picard,Enterprise",
+                "null,Dr.,Obvious,Somewhere",
+                "abc,Broken,Age,Nowhere",
+                " 7,Small,Child,Home",
+                "-12,Negative,Age,Limbo",
+                "33,Missing,Address"
+        };
+        final List<Person> expected = new ArrayList<>();
+        CsvToBeanMapper.builder(Person.class)
+                .setHeader(new String[]{"age", "givenName", "surName", "address"})
+                .registerDecoder("age", NullDecoder.class)
+                .registerDecoder("age", IntDecoder.class)
+                .onErrorSkipLine()
+                .withParsedLines(() -> toParsedIterator(batchLines))
+                .build()
+                .forEach(expected::add);
+        assertEquals(3, expected.size());
+        for (int batchSize = 2; batchSize <= 7; ++batchSize) {
+            final List<Person> actual = new ArrayList<>();
+            CsvToBeanMapper.builder(Person.class)
+                    .setHeader(new String[]{"age", "givenName", "surName", "address"})
+                    .registerDecoder("age", NullDecoder.class)
+                    .registerDecoder("age", IntDecoder.class)
+                    .onErrorSkipLine()
+                    .batchSize(batchSize)
+                    .withParsedLines(() -> toParsedIterator(batchLines))
+                    .build()
+                    .forEach(actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testBatchedDecodingThrowsOnFailingLine() throws Exception {
+        final String[] batchLines = new String[] {
+                "50,Jean-Luc,Picard,Enterprise",
+                "abc,Broken,Age,Nowhere",
+                "null,Dr.,Obvious,Somewhere"
+        };
+        final Iterator<Person> it = CsvToBeanMapper.builder(Person.class)
+                .setHeader(new String[]{"age", "givenName", "surName", "address"})
+                .registerDecoder("age", NullDecoder.class)
+                .registerDecoder("age", IntDecoder.class)
+                .batchSize(8)
+                .withParsedLines(() -> toParsedIterator(batchLines))
+                .build()
+                .iterator();
+        assertEquals(Integer.valueOf(50), it.next().getAge());
+        try {
+            it.next();
+            throw new AssertionError("expected failure on line 2");
+        } catch (CsvToBeanException e) {
+            assertTrue(e.getMessage().startsWith("could not generate bean from line 2"));
+        }
+        assertEquals("Obvious", it.next().getSurName());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testTemplateBindsToManySources() throws Exception {
+        final Builder<Person> templateBuilder = CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", NullDecoder.class)
+                .registerDecoder("age", IntDecoder.class)
+                .defaultValue("address", "unknown");
+        final MapperTemplate<Person> template = templateBuilder.toTemplate();
+        // the header is read from each source individually
+        final Iterator<Person> it1 = template.forParsedLines(() -> toParsedIterator(new String[] {
+                "age,givenName,surName,address",
+                "50,Jean-Luc,Picard,Enterprise"
+        })).iterator();
+        final Iterator<Person> it2 = template.forReader(new StringReader("surName,givenName,age\nObvious,Dr.,null\n")).iterator();
+        final Person picard = it1.next();
+        final Person obvious = it2.next();
+        assertEquals(Integer.valueOf(50), picard.getAge());
+        assertEquals("Enterprise", picard.getAddress());
+        assertEquals("Obvious", obvious.getSurName());
+        assertEquals(null, obvious.getAge());
+        assertFalse(it1.hasNext());
+        assertFalse(it2.hasNext());
+        try {
+            templateBuilder.registerDecoder("age", NullDecoder.class);
+            throw new AssertionError("expected frozen decoder configuration");
+        } catch (IllegalStateException ignored) {}
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTemplateRejectsSource() throws Exception {
+        CsvToBeanMapper.builder(Person.class)
+                .withParsedLines(() -> toParsedIterator(lines))
+                .toTemplate();
+    }
+
     @Test
     public void testDecoderChain() throws Exception {
         builder.registerDecoder("age", NullDecoder.class)
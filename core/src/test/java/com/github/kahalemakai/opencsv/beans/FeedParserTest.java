@@ -0,0 +1,138 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FeedParserTest {
+    private String csv;
+    private List<Person> expected;
+    private List<Person> received;
+
+    @Test
+    public void testFeedSingleBytes() throws Exception {
+        final FeedParser<Person> parser = builder().buildFeedParser(received::add);
+        for (byte b : csv.getBytes(StandardCharsets.UTF_8)) {
+            parser.feed(ByteBuffer.wrap(new byte[]{b}));
+        }
+        parser.endOfInput();
+        assertEquals(expected, received);
+        assertEquals(expected.size(), parser.getBeanCount());
+    }
+
+    @Test
+    public void testFeedRandomChunks() throws Exception {
+        final Random random = new Random(42);
+        final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        final FeedParser<Person> parser = builder().toTemplate().forFeed(received::add);
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int length = Math.min(bytes.length - offset, 1 + random.nextInt(50));
+            final ByteBuffer chunk = ByteBuffer.allocateDirect(length);
+            chunk.put(bytes, offset, length).flip();
+            parser.feed(chunk);
+            assertEquals(0, chunk.remaining());
+            offset += length;
+        }
+        parser.endOfInput();
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testFeedCharsWithCarriageReturns() throws Exception {
+        final FeedParser<Person> parser = builder().buildFeedParser(received::add);
+        final String text = csv.replace("\n", "\r\n");
+        for (int i = 0; i < text.length(); i += 3) {
+            parser.feed(CharBuffer.wrap(text, i, Math.min(text.length(), i + 3)));
+        }
+        parser.endOfInput();
+        assertEquals(expected, received);
+    }
+
+    @Test
+    public void testSkipLinesAndLastLineWithoutBreak() throws Exception {
+        final FeedParser<Person> parser = CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class)
+                .skipLines(2)
+                .buildFeedParser(received::add);
+        parser.feed(CharBuffer.wrap("some\npreamble\nage,givenName,surName,address\n12,Tom,Sawyer,Mississippi"));
+        assertEquals(0, received.size());
+        parser.endOfInput();
+        assertEquals(1, received.size());
+        assertEquals("Mississippi", received.get(0).getAddress());
+    }
+
+    @Test
+    public void testSkipFailingRecord() throws Exception {
+        final FeedParser<Person> parser = builder().onErrorSkipLine().buildFeedParser(received::add);
+        parser.feed(CharBuffer.wrap("age,givenName,surName,address\nx,a,b,c\n1,a,b,c\n"));
+        parser.endOfInput();
+        assertEquals(1, received.size());
+        assertEquals(Integer.valueOf(1), received.get(0).getAge());
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testMaxRecordLengthIsEnforced() throws Exception {
+        final FeedParser<Person> parser = builder().buildFeedParser(received::add).maxRecordLength(100);
+        parser.feed(CharBuffer.wrap("age,givenName,surName,address\n1,a,b,\"unterminated"));
+        for (int i = 0; i < 100; ++i) {
+            parser.feed(CharBuffer.wrap("\nmore text"));
+        }
+    }
+
+    @Test(expected = CsvToBeanException.class)
+    public void testUnterminatedQuoteAtEndOfInputThrows() throws Exception {
+        final FeedParser<Person> parser = builder().buildFeedParser(received::add);
+        parser.feed(CharBuffer.wrap("age,givenName,surName,address\n1,a,b,\"unterminated\n"));
+        parser.endOfInput();
+    }
+
+    @Test
+    public void testFeedAfterEndOfInputThrows() throws Exception {
+        final FeedParser<Person> parser = builder().buildFeedParser(received::add);
+        parser.endOfInput();
+        try {
+            parser.feed(CharBuffer.wrap("1,a,b,c\n"));
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals(0, received.size());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder builder = new StringBuilder("age,givenName,surName,address\n");
+        for (int i = 0; i < 200; ++i) {
+            builder.append(i).append(",Jürgen,Müller,");
+            if (i % 10 == 0) {
+                builder.append("\"Straße ").append(i).append("\nApt. \"\"B\"\"\"\n");
+            }
+            else {
+                builder.append("Weg ").append(i).append('\n');
+            }
+        }
+        csv = builder.toString();
+        expected = new ArrayList<>();
+        builder().withReader(new StringReader(csv)).build().forEach(expected::add);
+        assertEquals(200, expected.size());
+        received = new ArrayList<>();
+    }
+
+    private static Builder<Person> builder() throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class);
+    }
+
+}
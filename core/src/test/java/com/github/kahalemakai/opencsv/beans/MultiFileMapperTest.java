@@ -0,0 +1,240 @@
+package com.github.kahalemakai.opencsv.beans;
+
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.config.Sink;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MultiFileMapperTest {
+    private static final int FILES = 5;
+    private static final int ROWS = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Test
+    public void testOrderedDirectory() throws Exception {
+        final MultiFileMapper<Person> mapper = template().forFiles(FileSet
+                .directory(directory)
+                .parallelism(3)
+                .batchSize(7)
+                .ordered(true));
+        final List<Person> persons = new ArrayList<>();
+        mapper.forEach(persons::add);
+        assertEquals(FILES * ROWS, persons.size());
+        for (int i = 0; i < persons.size(); ++i) {
+            assertEquals("file" + i / ROWS, persons.get(i).getSurName());
+            assertEquals(Integer.valueOf(i % ROWS), persons.get(i).getAge());
+        }
+        final List<FileStats> stats = mapper.getFileStats();
+        assertEquals(FILES, stats.size());
+        for (int i = 0; i < FILES; ++i) {
+            assertEquals(directory.resolve("file" + i + ".csv"), stats.get(i).getPath());
+            assertEquals(ROWS, stats.get(i).getRows());
+            assertEquals(Files.size(stats.get(i).getPath()), stats.get(i).getBytes());
+            assertFalse(stats.get(i).isFailed());
+        }
+    }
+
+    @Test
+    public void testUnorderedGlobKeepsOrderWithinFiles() throws Exception {
+        Files.write(directory.resolve("notes.txt"), Collections.singletonList("not a csv file"));
+        final Map<String, List<Integer>> ages = new HashMap<>();
+        for (Person person : template().forFiles(FileSet.glob(directory, "*.csv").parallelism(4).batchSize(3))) {
+            ages.computeIfAbsent(person.getSurName(), key -> new ArrayList<>()).add(person.getAge());
+        }
+        assertEquals(FILES, ages.size());
+        for (List<Integer> agesOfFile : ages.values()) {
+            assertEquals(ROWS, agesOfFile.size());
+            for (int i = 0; i < ROWS; ++i) {
+                assertEquals(Integer.valueOf(i), agesOfFile.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSkipLinesAndHeaderPerFile() throws Exception {
+        final Path first = folder.newFile("first.csv").toPath();
+        final Path second = folder.newFile("second.csv").toPath();
+        Files.write(first, lines("# exported 2016-11-01", "age,givenName,surName,address", "1,a,first,x"));
+        Files.write(second, lines("# exported 2016-11-02", "surName,age,address,givenName", "second,2,y,b"));
+        final List<Person> persons = new ArrayList<>();
+        CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class)
+                .skipLines(1)
+                .withFiles(FileSet.of(first, second).ordered(true))
+                .build()
+                .forEach(persons::add);
+        assertEquals(2, persons.size());
+        assertEquals("first", persons.get(0).getSurName());
+        assertEquals(Integer.valueOf(2), persons.get(1).getAge());
+        assertEquals("b", persons.get(1).getGivenName());
+    }
+
+    @Test
+    public void testSkipFailingFile() throws Exception {
+        Files.write(directory.resolve("file2.csv"), lines("age,givenName,surName,address", "1,a,b,c", "x,a,b,c"));
+        final MultiFileMapper<Person> mapper = template().forFiles(FileSet
+                .directory(directory)
+                .parallelism(2)
+                .onFailure(FileSet.OnFailure.SKIP));
+        int count = 0;
+        for (Person ignored : mapper) {
+            ++count;
+        }
+        assertTrue(count >= (FILES - 1) * ROWS);
+        final List<FileStats> stats = mapper.getFileStats();
+        assertEquals(FILES, stats.size());
+        assertTrue(stats.get(2).isFailed());
+        assertFalse(stats.get(3).isFailed());
+    }
+
+    @Test
+    public void testAbortOnFailingFile() throws Exception {
+        Files.write(directory.resolve("file2.csv"), lines("age,givenName,surName,address", "x,a,b,c"));
+        try {
+            for (Person ignored : template().forFiles(FileSet.directory(directory).parallelism(2).ordered(true))) {
+                // consume
+            }
+            fail("expected failure of file2.csv");
+        } catch (CsvToBeanException e) {
+            assertTrue(e.getMessage().contains("file2.csv"));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFileCutShortByFailureHasStats() throws Exception {
+        final Path first = directory.resolve("file0.csv");
+        final Path second = directory.resolve("file1.csv");
+        Files.write(second, lines("age,givenName,surName,address", "x,a,b,c"));
+        final MultiFileMapper<Person> mapper = template().forFiles(FileSet
+                .of(first, second)
+                .parallelism(2)
+                .batchSize(1)
+                .ordered(true));
+        final Iterator<Person> iterator = mapper.iterator();
+        iterator.next();
+        while (mapper.getFileStats().isEmpty()) {
+            Thread.sleep(10);
+        }
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("expected failure of file1.csv");
+        } catch (CsvToBeanException e) {
+            assertTrue(e.getMessage().contains("file1.csv"));
+        }
+        final List<FileStats> stats = mapper.getFileStats();
+        assertEquals(2, stats.size());
+        assertEquals(first, stats.get(0).getPath());
+        assertFalse(stats.get(0).isFailed());
+        assertTrue(stats.get(0).getRows() < ROWS);
+        assertTrue(stats.get(1).isFailed());
+    }
+
+    @Test
+    public void testSinkPerFile() throws Exception {
+        final List<CollectingSink> sinks = Collections.synchronizedList(new ArrayList<>());
+        final MultiFileMapper<Person> mapper = template()
+                .withSinks(() -> {
+                    final CollectingSink sink = new CollectingSink();
+                    sinks.add(sink);
+                    return sink;
+                })
+                .forFiles(FileSet.directory(directory).parallelism(3));
+        mapper.intoSink();
+        assertEquals(FILES, sinks.size());
+        for (CollectingSink sink : sinks) {
+            assertEquals(ROWS, sink.received.size());
+            assertTrue(sink.closed);
+        }
+        for (FileStats stats : mapper.getFileStats()) {
+            assertEquals(ROWS, stats.getRows());
+        }
+    }
+
+    @Test
+    public void testMergedSink() throws Exception {
+        final CollectingSink sink = new CollectingSink();
+        CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class)
+                .withFiles(FileSet.directory(directory).parallelism(2))
+                .sink(sink)
+                .build()
+                .intoSink();
+        assertEquals(FILES * ROWS, sink.received.size());
+        assertTrue(sink.closed);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIterationWithSinkThrows() throws Exception {
+        template().withSinks(CollectingSink::new).forFiles(FileSet.directory(directory)).iterator();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInvalidParallelismThrows() throws Exception {
+        template().forFiles(FileSet.directory(directory).parallelism(0));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("feed").toPath();
+        for (int i = 0; i < FILES; ++i) {
+            final List<String> lines = new ArrayList<>();
+            lines.add("age,givenName,surName,address");
+            for (int j = 0; j < ROWS; ++j) {
+                lines.add(String.format("%d,John,file%d,street %d", j, i, j));
+            }
+            Files.write(directory.resolve("file" + i + ".csv"), lines, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static MapperTemplate<Person> template() throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .registerDecoder("age", IntDecoder.class)
+                .toTemplate();
+    }
+
+    private static List<String> lines(final String... lines) {
+        final List<String> result = new ArrayList<>();
+        Collections.addAll(result, lines);
+        return result;
+    }
+
+    private static class CollectingSink implements Sink {
+        private final List<Object> received = new ArrayList<>();
+        private volatile boolean closed;
+
+        @Override
+        public void accept(Iterator<?> iterator) {
+            iterator.forEachRemaining(received::add);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+}
@@ -1,9 +1,15 @@
 package com.github.kahalemakai.opencsv.beans.processing;
 
+import com.github.kahalemakai.opencsv.beans.QuotingMode;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.EnumDecoder;
 import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 public class DecoderPropertyEditorTest {
     @Test
@@ -67,4 +73,140 @@ public class DecoderPropertyEditorTest {
         editor.add(new IntDecoder());
         editor.withDefaultFromString("23").withDefaultFromString("24");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void cacheCountsHitsAndMisses() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder())
+                .addPostProcessor(i -> { calls.incrementAndGet(); return i + 1; })
+                .withCache(2);
+        for (String value : new String[]{"1", "2", "1", "1", "2"}) {
+            editor.setAsText(value);
+            assertEquals(Integer.valueOf(Integer.parseInt(value) + 1), editor.getValue());
+        }
+        assertEquals(2, calls.get());
+        final DecodingCache.Statistics statistics = editor.getCacheStatistics().get();
+        assertEquals(3, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(0, statistics.getEvictions());
+        assertEquals(2, statistics.getSize());
+    }
+
+    @Test
+    public void cacheEvictsUnreferencedValues() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder()).withCache(2);
+        for (String value : new String[]{"1", "2", "1", "3", "1", "2"}) {
+            editor.setAsText(value);
+            assertEquals(Integer.valueOf(value), editor.getValue());
+        }
+        final DecodingCache.Statistics statistics = editor.getCacheStatistics().get();
+        assertEquals(2, statistics.getHits());
+        assertEquals(4, statistics.getMisses());
+        assertEquals(2, statistics.getEvictions());
+    }
+
+    @Test
+    public void cacheSkipsFailingValues() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder()).withCache(4);
+        for (int i = 0; i < 2; ++i) {
+            editor.setAsText("x");
+            try {
+                editor.getValue();
+            } catch (DataDecodingException ignored) {}
+        }
+        final DecodingCache.Statistics statistics = editor.getCacheStatistics().get();
+        assertEquals(0, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(0, statistics.getSize());
+    }
+
+    @Test
+    public void noCacheStatisticsWithoutCache() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder());
+        assertFalse(editor.getCacheStatistics().isPresent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cacheRefusesNonDeterministicDecoder() throws Exception {
+        final DecoderPropertyEditor<Long> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new NonDeterministicDecoder()).withCache(16);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cachedColumnRefusesNonDeterministicDecoder() throws Exception {
+        final DecoderPropertyEditor<Long> editor = DecoderPropertyEditor.forColumn("example");
+        editor.withCache(16).add(new NonDeterministicDecoder());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void frozenEditorRefusesConfiguration() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder()).freeze();
+        editor.addPostProcessor(i -> i + 1);
+    }
+
+    @Test
+    public void pipelineReflectsConfiguration() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder());
+        editor.setTrim(true);
+        final ColumnPipeline<Integer> pipeline = editor.getPipeline();
+        assertEquals(Integer.valueOf(5), pipeline.apply(" 5 "));
+        editor.addPostProcessor(i -> i * 2);
+        assertEquals(Integer.valueOf(5), pipeline.apply("5"));
+        assertEquals(Integer.valueOf(10), editor.freeze().apply(" 5"));
+        assertSame(editor.getPipeline(), editor.freeze());
+    }
+
+    @Test
+    public void batchMatchesScalarProcessing() throws Exception {
+        final DecoderPropertyEditor<Integer> editor = DecoderPropertyEditor.forColumn("example");
+        editor.add(new IntDecoder());
+        editor.addPostProcessor(i -> i * 2);
+        editor.addPostValidator(i -> i < 100);
+        editor.setTrim(true);
+        final ColumnPipeline<Integer> pipeline = editor.freeze();
+        final String[] values = {"1", " 2 ", "x", "50", "-7", null};
+        final String[] raw = values.clone();
+        final Object[] output = new Object[values.length];
+        final RuntimeException[] errors = new RuntimeException[values.length];
+        assertEquals(3, pipeline.applyBatch(values, values.length, output, errors));
+        for (int i = 0; i < raw.length; ++i) {
+            try {
+                assertEquals(pipeline.apply(raw[i]), output[i]);
+                assertEquals(null, errors[i]);
+            } catch (RuntimeException e) {
+                assertEquals(e.getClass(), errors[i].getClass());
+                assertEquals(e.getMessage(), errors[i].getMessage());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void freezeRejectsClashingChoices() throws Exception {
+        final DecoderPropertyEditor<QuotingMode> editor = DecoderPropertyEditor.forColumn("example");
+        final EnumDecoder<QuotingMode> decoder = new EnumDecoder<>();
+        decoder.setType(QuotingMode.class);
+        decoder.setIgnoreCase(true);
+        decoder.put("s", "STRICT_QUOTES");
+        decoder.put("S", "NON_STRICT_QUOTES");
+        editor.add(decoder);
+        editor.freeze();
+    }
+
+    private static class NonDeterministicDecoder implements Decoder<Long> {
+        @Override
+        public ResultWrapper<? extends Long> decode(String value) {
+            return success(System.nanoTime());
+        }
+
+        @Override
+        public boolean isDeterministic() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class BatchDecodingTest {
+    private static final String[] NUMBERS = {
+            "", "-", "+", "0", "-0", "+0", "1", "-1", "+17", "007", "12345", "-32768", "32768",
+            "2147483647", "2147483648", "-2147483648", "-2147483649", "999999999999999999",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775808", "12345678901234567890",
+            "١٢٣", "12a", "a12", " 1", "1 ", "1.5", "-0.0", ".5", "5.", ".", "1e10", "1E-5", "1e", "1e+", "2.5e+3",
+            "1e22", "1e23", "1e-22", "1e-23", "123456789.123456789", "9007199254740993", "0.1", "3.14159",
+            "NaN", "-Infinity", "0x1F", "1d", "2f", "true", "false", "TRUE", "null"
+    };
+    private static final String[] TIMESTAMPS = {
+            "2016-01-01 00:00:00", "1970-01-01 00:00:00", "1969-12-31 23:59:59", "0001-01-01 00:00:00",
+            "0000-01-01 00:00:00", "9999-12-31 23:59:59", "2016-02-29 12:34:56", "2015-02-29 12:34:56",
+            "2016-02-30 00:00:00", "2016-04-31 00:00:00", "2016-13-01 00:00:00", "2016-00-01 00:00:00",
+            "2016-01-01 24:00:00", "2016-01-01 23:60:00", "2016-01-01 23:59:60", "2016-01-01T00:00:00",
+            "2016-01-01 00:00:0", "2016-1-01 00:00:00", "2016-01-01 00:00:00 ", "2016-01-0a 00:00:00",
+            "1900-02-29 00:00:00", "2000-02-29 00:00:00", "2400-03-01 00:00:00", "", "null"
+    };
+
+    @Test
+    public void intDecoder() throws Exception {
+        assertBatchMatchesScalar(new IntDecoder(), NUMBERS);
+    }
+
+    @Test
+    public void longDecoder() throws Exception {
+        assertBatchMatchesScalar(new LongDecoder(), NUMBERS);
+    }
+
+    @Test
+    public void doubleDecoder() throws Exception {
+        assertBatchMatchesScalar(new DoubleDecoder(), NUMBERS);
+    }
+
+    @Test
+    public void booleanDecoders() throws Exception {
+        assertBatchMatchesScalar(new BooleanDecoder(), NUMBERS);
+        assertBatchMatchesScalar(new IntToBooleanDecoder(), NUMBERS);
+    }
+
+    @Test
+    public void timestampDecoder() throws Exception {
+        assertBatchMatchesScalar(new TimestampDecoder(), TIMESTAMPS);
+    }
+
+    @Test
+    public void decodedSlotsAreKept() throws Exception {
+        final Object decoded = new Object();
+        final Object[] output = {decoded, Decoder.UNDECODED, Decoder.UNDECODED};
+        final int pending = new IntDecoder().decodeBatch(new String[]{"1", "2", "x"}, 3, output);
+        assertEquals(1, pending);
+        assertSame(decoded, output[0]);
+        assertEquals(2, output[1]);
+        assertSame(Decoder.UNDECODED, output[2]);
+    }
+
+    @Test
+    public void fastPathsMatchJdk() throws Exception {
+        assertScalarMatchesJdk(new IntDecoder(), Integer::parseInt, NUMBERS);
+        assertScalarMatchesJdk(new LongDecoder(), Long::parseLong, NUMBERS);
+        assertScalarMatchesJdk(new DoubleDecoder(), Double::parseDouble, NUMBERS);
+        assertScalarMatchesJdk(new TimestampDecoder(),
+                s -> LocalDateTime.parse(s, TimestampDecoder.FORMAT).toEpochSecond(ZoneOffset.UTC) * 1000,
+                TIMESTAMPS);
+        assertEquals(Double.valueOf(-0.0), new DoubleDecoder().decode("-0").get());
+    }
+
+    private static void assertScalarMatchesJdk(final Decoder<?> decoder,
+                                               final Function<String, Object> jdkParser,
+                                               final String[] values) {
+        for (String value : values) {
+            Object expected;
+            try {
+                expected = jdkParser.apply(value);
+            } catch (RuntimeException e) {
+                expected = null;
+            }
+            final ResultWrapper<?> result = decoder.decode(value);
+            assertEquals(String.format("value '%s'", value), expected, result.success() ? result.get() : null);
+        }
+    }
+
+    private static void assertBatchMatchesScalar(final Decoder<?> decoder, final String[] values) {
+        final Object[] output = new Object[values.length + 1];
+        Arrays.fill(output, Decoder.UNDECODED);
+        final int pending = decoder.decodeBatch(values, values.length, output);
+        int expectedPending = 0;
+        for (int i = 0; i < values.length; ++i) {
+            final ResultWrapper<?> result = decoder.decode(values[i]);
+            if (result.success()) {
+                assertEquals(String.format("value '%s'", values[i]), result.get(), output[i]);
+            }
+            else {
+                assertSame(String.format("value '%s'", values[i]), Decoder.UNDECODED, output[i]);
+                ++expectedPending;
+            }
+        }
+        assertEquals(expectedPending, pending);
+        assertSame(Decoder.UNDECODED, output[values.length]);
+    }
+}
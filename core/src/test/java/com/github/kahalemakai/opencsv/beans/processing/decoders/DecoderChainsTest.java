@@ -0,0 +1,123 @@
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import com.github.kahalemakai.opencsv.beans.QuotingMode;
+import com.github.kahalemakai.opencsv.beans.processing.Decoder;
+import com.github.kahalemakai.opencsv.beans.processing.ResultWrapper;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DecoderChainsTest {
+    private static final String[] VALUES = {
+            null, "", " ", "null", "NULL", "Null", "n/a", "N/A", "nil", "-", "--",
+            "0", "1", "-1", "+1", "007", "12345", "-32768", "32767", "32768", "2147483647", "2147483648",
+            "-9223372036854775808", "9223372036854775808", "1.5", "-0.0", "1e10", "NaN", "Infinity", "0x1F",
+            "true", "false", "TRUE", "False", "yes", "no", "y", "n", "s", "i", "x", "١٢٣", "ü", "nullnull"
+    };
+
+    @Test
+    public void nullThenInt() throws Exception {
+        assertEquivalent(chain(new NullDecoder(), new IntDecoder()), 1);
+    }
+
+    @Test
+    public void nullChoicesThenLong() throws Exception {
+        assertEquivalent(chain(new NullChoicesDecoder("null", "n/a", ""), new LongDecoder()), 1);
+    }
+
+    @Test
+    public void nullChoicesContainingNullThenInt() throws Exception {
+        assertEquivalent(chain(new NullChoicesDecoder(null, "n/a"), new IntDecoder()), 1);
+        assertEquivalent(chain(new NullChoicesDecoder(new HashSet<>(Collections.singleton(null))), new IntDecoder()), 1);
+        final Set<String> nullValues = new HashSet<>(Arrays.asList(null, "nil"));
+        assertEquivalent(chain(new NullChoicesDecoder(nullValues, true), new IntDecoder()), 1);
+    }
+
+    @Test
+    public void caseInsensitiveNullChoicesThenShort() throws Exception {
+        final Set<String> nullValues = new HashSet<>(Arrays.asList("null", "nil", "-"));
+        assertEquivalent(chain(new NullChoicesDecoder(nullValues, true), new ShortDecoder()), 1);
+    }
+
+    @Test
+    public void nullChoicesThenBoolean() throws Exception {
+        assertEquivalent(chain(new NullChoicesDecoder("null", "-"), new BooleanDecoder()), 1);
+        assertEquivalent(chain(new NullDecoder("n/a"), new BooleanDecoder("yes", "no")), 1);
+    }
+
+    @Test
+    public void consecutiveNullDecodersThenBooleanChoices() throws Exception {
+        final BooleanChoicesDecoder booleanDecoder = new BooleanChoicesDecoder(
+                new HashSet<>(Arrays.asList("y", "yes", "true")),
+                new HashSet<>(Arrays.asList("n", "no", "false")));
+        assertEquivalent(chain(new NullDecoder(), new NullChoicesDecoder("n/a", "-"), booleanDecoder), 1);
+    }
+
+    @Test
+    public void nullThenDoubleThenIdentity() throws Exception {
+        assertEquivalent(chain(new NullDecoder(""), new DoubleDecoder(), Decoder.IDENTITY), 2);
+    }
+
+    @Test
+    public void nullThenEnum() throws Exception {
+        final EnumDecoder<QuotingMode> enumDecoder = new EnumDecoder<>();
+        enumDecoder.setType(QuotingMode.class);
+        enumDecoder.put("s", "STRICT_QUOTES");
+        enumDecoder.put("n", "NON_STRICT_QUOTES");
+        assertEquivalent(chain(new NullChoicesDecoder("null", "n"), enumDecoder), 1);
+    }
+
+    @Test
+    public void onlyNullDecoders() throws Exception {
+        assertEquivalent(chain(new NullDecoder(), new NullDecoder("n/a")), 1);
+    }
+
+    @Test
+    public void customDecodersAreKept() throws Exception {
+        final Decoder<Integer> custom = value -> value != null && value.startsWith("n")
+                ? ResultWrapper.of(-1)
+                : ResultWrapper.error();
+        final NullDecoder subclassed = new NullDecoder("-") {};
+        final List<Decoder<?>> chain = chain(new NullDecoder(), custom, subclassed, new IntDecoder());
+        assertEquivalent(chain, 4);
+        final List<Decoder<?>> fused = DecoderChains.<Object>fuse(chain);
+        assertSame(custom, fused.get(1));
+        assertSame(subclassed, fused.get(2));
+    }
+
+    private static List<Decoder<?>> chain(final Decoder<?>...decoders) {
+        return Arrays.asList(decoders);
+    }
+
+    private static void assertEquivalent(final List<Decoder<?>> chain, final int expectedLength) {
+        final List<Decoder<?>> fused = DecoderChains.<Object>fuse(chain);
+        assertEquals(expectedLength, fused.size());
+        for (String value : VALUES) {
+            assertEquals(String.format("value '%s'", value), decode(chain, value), decode(fused, value));
+        }
+    }
+
+    /**
+     * Mimic the generic decoding loop, returning a comparable outcome.
+     */
+    private static String decode(final List<Decoder<?>> chain, final String value) {
+        for (Decoder<?> decoder : chain) {
+            final ResultWrapper<?> result;
+            try {
+                result = decoder.decode(value);
+            } catch (Throwable e) {
+                return "throws " + e.getClass().getName();
+            }
+            if (result.success()) {
+                final Object decoded = result.get();
+                return decoded == null
+                        ? "null"
+                        : String.format("<%s> %s", decoded.getClass().getName(), decoded);
+            }
+        }
+        return "failed";
+    }
+}
@@ -29,4 +29,19 @@ public class EnumDecoderTest {
         assertEquals(NON_STRICT_QUOTES, decoder.decode("n").get());
         assertEquals(IGNORE_QUOTES, decoder.decode("i").get());
     }
+
+    @Test
+    public void testDecodeIgnoringCase() throws Exception {
+        assertEquals(decoder.decodingFailed(), decoder.decode("S"));
+        decoder.setIgnoreCase(true);
+        assertEquals(STRICT_QUOTES, decoder.decode("S").get());
+        assertEquals(NON_STRICT_QUOTES, decoder.decode("n").get());
+    }
+
+    @Test
+    public void testPutAfterDecoding() throws Exception {
+        assertEquals(decoder.decodingFailed(), decoder.decode("strict"));
+        decoder.put("strict", "STRICT_QUOTES");
+        assertEquals(STRICT_QUOTES, decoder.decode("strict").get());
+    }
 }
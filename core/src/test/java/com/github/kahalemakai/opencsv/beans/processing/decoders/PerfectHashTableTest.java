@@ -0,0 +1,95 @@
+package com.github.kahalemakai.opencsv.beans.processing.decoders;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PerfectHashTableTest {
+
+    @Test
+    public void testLookupOfAllKeys() throws Exception {
+        final Map<String, Integer> mapping = new HashMap<>();
+        for (int i = 0; i < 5000; ++i) {
+            mapping.put("key-" + i, i);
+        }
+        final PerfectHashTable<Integer> table = PerfectHashTable.of(mapping, false);
+        assertEquals(5000, table.getSize());
+        for (int i = 0; i < 5000; ++i) {
+            assertEquals(Integer.valueOf(i), table.get("key-" + i));
+        }
+        assertNull(table.get("key-5000"));
+        assertNull(table.get("KEY-1"));
+        assertNull(table.get(""));
+        assertNull(table.get((CharSequence) null));
+    }
+
+    @Test
+    public void testSlices() throws Exception {
+        final PerfectHashTable<Boolean> table = PerfectHashTable.ofKeys(Arrays.asList("yes", "jä", "n/a"), false);
+        final char[] chars = "xyesjän/ax".toCharArray();
+        assertTrue(table.get(chars, 1, 3));
+        assertTrue(table.get(chars, 4, 2));
+        assertTrue(table.get(chars, 6, 3));
+        assertNull(table.get(chars, 0, 3));
+        final byte[] bytes = "xyesjän/ax".getBytes(StandardCharsets.UTF_8);
+        assertTrue(table.get(bytes, 1, 3));
+        assertTrue(table.get(bytes, 4, 3));
+        assertTrue(table.get(bytes, 7, 3));
+        assertNull(table.get(bytes, 0, 3));
+    }
+
+    @Test
+    public void testIgnoreCase() throws Exception {
+        final PerfectHashTable<Boolean> table = PerfectHashTable.ofKeys(Arrays.asList("Null", "ÄRGER"), true);
+        assertTrue(table.contains("NULL"));
+        assertTrue(table.contains("null"));
+        assertTrue(table.contains("ärger"));
+        assertTrue(table.get("nULL".getBytes(StandardCharsets.UTF_8), 0, 4));
+        assertFalse(table.contains("nul"));
+    }
+
+    @Test
+    public void testNullKey() throws Exception {
+        final PerfectHashTable<Boolean> table = PerfectHashTable.ofKeys(Arrays.asList("n/a", null), false);
+        assertEquals(2, table.getSize());
+        assertTrue(table.contains(null));
+        assertTrue(table.contains("n/a"));
+        assertFalse(table.contains("null"));
+        assertTrue(new NullChoicesDecoder(new HashSet<>(Arrays.asList("n/a", null))).isNullValued(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConflictingKeysThrow() throws Exception {
+        final Map<String, Boolean> mapping = new HashMap<>();
+        mapping.put("Yes", true);
+        mapping.put("YES", false);
+        PerfectHashTable.of(mapping, true);
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        final PerfectHashTable<Boolean> table = PerfectHashTable.ofKeys(Arrays.asList(), false);
+        assertEquals(0, table.getSize());
+        assertNull(table.get("anything"));
+    }
+
+    @Test
+    public void testBooleanChoicesDecoder() throws Exception {
+        final BooleanChoicesDecoder decoder = new BooleanChoicesDecoder();
+        assertTrue(decoder.decode("true").get());
+        assertFalse(decoder.decode("false").get());
+        assertEquals(decoder.decodingFailed(), decoder.decode("TRUE"));
+        final BooleanChoicesDecoder ignoringCase = new BooleanChoicesDecoder(
+                new HashSet<>(Arrays.asList("y", "yes")),
+                new HashSet<>(Arrays.asList("n", "no")),
+                true);
+        assertTrue(ignoringCase.decode("YES").get());
+        assertFalse(ignoringCase.decode("No").get());
+    }
+}
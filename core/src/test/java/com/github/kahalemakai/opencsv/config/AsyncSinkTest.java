@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.beans.CsvToBeanException;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncSinkTest {
+    private List<String> lines;
+    private List<Person> received;
+    private AtomicBoolean closed;
+    private AtomicReference<Thread> sinkThread;
+
+    @Test
+    public void testAllBeansArriveInOrder() throws Exception {
+        mapper(sink(Integer.MAX_VALUE), 2, 7).intoSink();
+        assertEquals(lines.size(), received.size());
+        for (int i = 0; i < received.size(); ++i) {
+            assertEquals(Integer.valueOf(i), received.get(i).getAge());
+        }
+        assertNotEquals(Thread.currentThread(), sinkThread.get());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testSinkFailurePropagates() throws Exception {
+        try {
+            mapper(sink(10), 1, 3).intoSink();
+            fail("expected sink failure");
+        } catch (CsvToBeanException e) {
+            assertEquals("sink failed", e.getCause().getMessage());
+        }
+        assertEquals(10, received.size());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testParserFailurePropagatesToSink() throws Exception {
+        lines.set(50, "x,John,Doe,nowhere");
+        final AtomicReference<Throwable> seenBySink = new AtomicReference<>();
+        final Sink sink = sink(Integer.MAX_VALUE);
+        final Sink recordingSink = new Sink() {
+            @Override
+            public void accept(Iterator<?> iterator) {
+                try {
+                    sink.accept(iterator);
+                } catch (RuntimeException e) {
+                    seenBySink.set(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        try {
+            mapper(recordingSink, 2, 8).intoSink();
+            fail("expected parser failure");
+        } catch (CsvToBeanException e) {
+            assertSame(seenBySink.get(), e.getCause());
+        }
+        assertEquals(50, received.size());
+        assertEquals(Integer.valueOf(49), received.get(49).getAge());
+        assertTrue(closed.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNegativeQueueCapacityThrows() throws Exception {
+        mapper(sink(Integer.MAX_VALUE), -1, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroBatchSizeThrows() throws Exception {
+        AsyncSink.of(sink(Integer.MAX_VALUE), 1, 0);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        lines = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            lines.add(String.format("%d,John,Doe,street %d", i, i));
+        }
+        received = new ArrayList<>();
+        closed = new AtomicBoolean();
+        sinkThread = new AtomicReference<>();
+    }
+
+    private CsvToBeanMapper<Person> mapper(final Sink sink, final int queueCapacity, final int batchSize)
+            throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .setHeader("age", "givenName", "surName", "address")
+                .registerDecoder("age", IntDecoder.class)
+                .withLines(lines)
+                .sinkQueueCapacity(queueCapacity)
+                .sinkBatchSize(batchSize)
+                .sink(sink)
+                .build();
+    }
+
+    private Sink sink(final int failAfter) {
+        return new Sink() {
+            @Override
+            public void accept(Iterator<?> iterator) {
+                sinkThread.set(Thread.currentThread());
+                while (iterator.hasNext()) {
+                    if (received.size() == failAfter) {
+                        throw new IllegalStateException("sink failed");
+                    }
+                    received.add((Person) iterator.next());
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+    }
+
+}
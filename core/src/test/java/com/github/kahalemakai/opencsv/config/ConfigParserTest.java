@@ -18,6 +18,7 @@ package com.github.kahalemakai.opencsv.config;
 
 import com.github.kahalemakai.opencsv.beans.CsvToBeanException;
 import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.MapperTemplate;
 import com.github.kahalemakai.opencsv.beans.QuotingMode;
 import com.github.kahalemakai.opencsv.examples.DecoderArgsTester;
 import com.github.kahalemakai.opencsv.examples.EnlargedPerson;
@@ -33,7 +34,12 @@ import java.math.BigDecimal;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.Assert.assertEquals;
@@ -175,6 +181,38 @@ public class ConfigParserTest {
         assertEquals(mrsDoubtfire, iterator.next());
     }
 
+    @Test
+    public void testCompiledTemplate() throws Exception {
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-default-value.xml");
+        assert resource != null;
+        final MapperTemplate<Person> template = ConfigParser
+                .of(new File(resource.getFile()))
+                .compile();
+        final Iterator<Person> iterator1 = template
+                .forLines(() -> toUnparsedIterator(new String[]{"null,Mr.,Bean,xxxx"}))
+                .iterator();
+        final Iterator<Person> iterator2 = template
+                .forReader(new StringReader("n/a,Mrs.,Doubtfire,NULL\n"))
+                .iterator();
+        final Person mrBean = new Person();
+        final Person mrsDoubtfire = new Person();
+        mrBean.setAge(12345)
+                .setGivenName("Mr.")
+                .setSurName("Bean")
+                .setAddress("xxxx");
+        mrsDoubtfire.setAge(12345)
+                .setGivenName("Mrs.")
+                .setSurName("Doubtfire")
+                .setAddress(null);
+        assertEquals(mrsDoubtfire, iterator2.next());
+        assertEquals(mrBean, iterator1.next());
+        Assert.assertFalse(iterator1.hasNext());
+        Assert.assertFalse(iterator2.hasNext());
+    }
+
     @Test
     public void testLocalNullchoices() throws Exception {
         final URL resource = ConfigParserTest
@@ -301,6 +339,137 @@ public class ConfigParserTest {
         assertEquals(drObvious, it.next());
     }
 
+    @Test
+    public void testParameterInjectionRespectsEncoding() throws Exception {
+        picard.setAge(123);
+        drObvious.setAge(123);
+        picard.setGivenName(picard.getSurName());
+        drObvious.setGivenName(drObvious.getSurName());
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-injection.xml");
+        assert resource != null;
+        final String xml = new String(Files.readAllBytes(new File(resource.getFile()).toPath()), "UTF-8");
+        final String[] encodings = {"UTF-16", "ISO-8859-1"};
+        for (String encoding : encodings) {
+            final byte[] bytes = xml
+                    .replace("encoding=\"UTF-8\"", "encoding=\"" + encoding + "\"")
+                    // a non-ascii comment, that must survive the substitution
+                    .replace("<opencsv:resources", "<!-- Fränkie -->\n<opencsv:resources")
+                    .getBytes(encoding);
+            final CsvToBeanMapper<Person> mapper = ConfigParser
+                    .ofUnparsedLines(new ByteArrayInputStream(bytes), () -> unparsedIteratorWithIgnore)
+                    .injectParameter("test:age", "123")
+                    .parse();
+            final Iterator<Person> it = mapper.iterator();
+            assertEquals(picard, it.next());
+            assertEquals(drObvious, it.next());
+            setUp();
+            picard.setAge(123);
+            drObvious.setAge(123);
+            picard.setGivenName(picard.getSurName());
+            drObvious.setGivenName(drObvious.getSurName());
+        }
+    }
+
+    @Test
+    public void testCompiledConfigRoundTrip() throws Exception {
+        picard.setAge(123);
+        drObvious.setAge(123);
+        picard.setGivenName(picard.getSurName());
+        drObvious.setGivenName(drObvious.getSurName());
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-injection.xml");
+        assert resource != null;
+        final ConfigParser configParser = ConfigParser
+                .of(new File(resource.getFile()))
+                .injectParameter("test:age", "123");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        configParser.resolve().writeTo(bytes);
+        final CompiledConfig config = CompiledConfig.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertTrue(configParser.isUpToDate(config));
+        Assert.assertFalse(ConfigParser
+                .of(new File(resource.getFile()))
+                .injectParameter("test:age", "124")
+                .isUpToDate(config));
+        final Iterator<Person> it = config.<Person>newBuilder()
+                .withLines(() -> unparsedIteratorWithIgnore)
+                .build()
+                .iterator();
+        assertEquals(picard, it.next());
+        assertEquals(drObvious, it.next());
+    }
+
+    @Test
+    public void testTransformations() throws Exception {
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-transformations.xml");
+        assert resource != null;
+        final ConfigParser configParser = ConfigParser.of(new File(resource.getFile()));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        configParser.resolve().writeTo(bytes);
+        final MapperTemplate<Person> compiled = configParser.compile();
+        final MapperTemplate<Person> readBack = CompiledConfig
+                .readFrom(new ByteArrayInputStream(bytes.toByteArray()))
+                .toTemplate();
+        final String[] lines = new String[]{
+                "17,Wesley,Crusher,Enterprise",
+                "59,Jean Luc,Picard,Enterprise",
+                "12,Alexander,Rozhenko,Enterprise",
+                "31,Worf,Rozhenko,Enterprise"
+        };
+        for (MapperTemplate<Person> template : Arrays.asList(compiled, readBack)) {
+            final List<Object> words = new ArrayList<>();
+            template.withSinks(() -> new Sink() {
+                @Override
+                public void accept(Iterator<?> iterator) {
+                    iterator.forEachRemaining(words::add);
+                }
+
+                @Override
+                public void close() {
+                }
+            }).forLines(() -> toUnparsedIterator(lines)).intoSink();
+            assertEquals(Arrays.asList("Jean", "Luc", "Picard", "Worf", "Rozhenko"), words);
+        }
+    }
+
+    @Test
+    public void testCompileWithArtifact() throws Exception {
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-default-value.xml");
+        assert resource != null;
+        final Path artifact = Files.createTempFile("config-with-default-value", ".bin");
+        Files.delete(artifact);
+        try {
+            final MapperTemplate<Person> compiled = ConfigParser.of(new File(resource.getFile())).compile(artifact);
+            Assert.assertTrue(Files.size(artifact) > 0);
+            final MapperTemplate<Person> cached = ConfigParser.of(new File(resource.getFile())).compile(artifact);
+            final String line = "n/a,Mrs.,Doubtfire,NULL";
+            final Person mrsDoubtfire = new Person();
+            mrsDoubtfire.setAge(12345)
+                    .setGivenName("Mrs.")
+                    .setSurName("Doubtfire")
+                    .setAddress(null);
+            assertEquals(mrsDoubtfire, compiled.forReader(new StringReader(line)).iterator().next());
+            assertEquals(mrsDoubtfire, cached.forReader(new StringReader(line)).iterator().next());
+        } finally {
+            Files.deleteIfExists(artifact);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCompiledConfigRejectsGarbage() throws Exception {
+        CompiledConfig.readFrom(new ByteArrayInputStream("<?xml version=\"1.0\"?>".getBytes("UTF-8")));
+    }
+
     @Test
     public void testArbitraryParameterInjection() throws Exception {
         picard.setAge(123);
@@ -422,6 +591,21 @@ public class ConfigParserTest {
         assertEquals(picard, it.next());
     }
 
+    @Test
+    public void testMultiLine() throws Exception {
+        final URL resource = ConfigParserTest
+                .class
+                .getClassLoader()
+                .getResource("xml-config/config-with-single-line-records.xml");
+        assert resource != null;
+        final CompiledConfig resolved = ConfigParser.of(new File(resource.getFile())).resolve();
+        Assert.assertFalse(resolved.newBuilder().multiLine());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        resolved.writeTo(bytes);
+        final CompiledConfig config = CompiledConfig.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertFalse(config.newBuilder().multiLine());
+    }
+
     @Test
     public void testParseFromInputStream() throws Exception {
         fraenkie.setAge(42);
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.beans.CsvToBeanException;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FanOutSinkTest {
+    private List<String> lines;
+    private AtomicInteger closed;
+
+    @Test
+    public void testEverySinkReceivesAllBeans() throws Exception {
+        final CollectingSink first = new CollectingSink(Integer.MAX_VALUE);
+        final CollectingSink second = new CollectingSink(Integer.MAX_VALUE);
+        mapper(SinkRoute.of(first).queueCapacity(1).batchSize(3),
+                SinkRoute.of(second).batchSize(100))
+                .intoSink();
+        assertAges(first.received, 0, 1000, 1);
+        assertAges(second.received, 0, 1000, 1);
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void testFilterPerSink() throws Exception {
+        final CollectingSink even = new CollectingSink(Integer.MAX_VALUE);
+        final CollectingSink all = new CollectingSink(Integer.MAX_VALUE);
+        mapper(SinkRoute.of(even).filter(bean -> ((Person) bean).getAge() % 2 == 0),
+                SinkRoute.of(all))
+                .intoSink();
+        assertAges(even.received, 0, 1000, 2);
+        assertAges(all.received, 0, 1000, 1);
+    }
+
+    @Test
+    public void testAbortingSinkStopsAllSinks() throws Exception {
+        final CollectingSink failing = new CollectingSink(10);
+        final CollectingSink other = new CollectingSink(Integer.MAX_VALUE);
+        try {
+            mapper(SinkRoute.of(failing).batchSize(1), SinkRoute.of(other).batchSize(1)).intoSink();
+            fail("expected sink failure");
+        } catch (CsvToBeanException e) {
+            assertEquals("sink failed", e.getCause().getMessage());
+        }
+        assertTrue(other.received.size() < lines.size());
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void testDetachedSinkDoesNotStopOtherSinks() throws Exception {
+        final CollectingSink failing = new CollectingSink(10);
+        final CollectingSink other = new CollectingSink(Integer.MAX_VALUE);
+        mapper(SinkRoute.of(failing).batchSize(1).onFailure(SinkRoute.OnFailure.DETACH),
+                SinkRoute.of(other))
+                .intoSink();
+        assertEquals(10, failing.received.size());
+        assertAges(other.received, 0, 1000, 1);
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void testFullQueueDropsBatchesForSlowSink() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CollectingSink slow = new CollectingSink(Integer.MAX_VALUE) {
+            @Override
+            public void accept(Iterator<?> iterator) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.accept(iterator);
+            }
+        };
+        final CollectingSink fast = new CollectingSink(Integer.MAX_VALUE) {
+            @Override
+            public void accept(Iterator<?> iterator) {
+                super.accept(iterator);
+                release.countDown();
+            }
+        };
+        // the fast sink finishes first, so the slow one only starts draining after parsing is done
+        mapper(SinkRoute.of(fast),
+                SinkRoute.of(slow).queueCapacity(1).batchSize(10).onFullQueue(SinkRoute.OnFullQueue.DROP))
+                .intoSink();
+        assertAges(fast.received, 0, 1000, 1);
+        assertAges(slow.received, 0, 10, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyRoutesThrow() throws Exception {
+        FanOutSink.of(Collections.emptyList());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        lines = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            lines.add(String.format("%d,John,Doe,street %d", i, i));
+        }
+        closed = new AtomicInteger();
+    }
+
+    private CsvToBeanMapper<Person> mapper(final SinkRoute... routes) throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .setHeader("age", "givenName", "surName", "address")
+                .registerDecoder("age", IntDecoder.class)
+                .withLines(lines)
+                .sinks(routes)
+                .build();
+    }
+
+    private static void assertAges(final List<Person> persons, final int from, final int to, final int step) {
+        assertEquals((to - from + step - 1) / step, persons.size());
+        for (int i = 0; i < persons.size(); ++i) {
+            assertEquals(Integer.valueOf(from + i * step), persons.get(i).getAge());
+        }
+    }
+
+    private class CollectingSink implements Sink {
+        private final int failAfter;
+        private final List<Person> received = new ArrayList<>();
+
+        private CollectingSink(final int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public void accept(Iterator<?> iterator) {
+            while (iterator.hasNext()) {
+                if (received.size() == failAfter) {
+                    throw new IllegalStateException("sink failed");
+                }
+                received.add((Person) iterator.next());
+            }
+        }
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.examples.Person;
+
+import java.util.function.Function;
+
+public class FullName implements Function<Person, String> {
+    @Override
+    public String apply(Person person) {
+        return person.getGivenName() + " " + person.getSurName();
+    }
+}
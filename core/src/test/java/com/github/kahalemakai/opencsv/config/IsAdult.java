@@ -0,0 +1,12 @@
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.examples.Person;
+
+import java.util.function.Predicate;
+
+public class IsAdult implements Predicate<Person> {
+    @Override
+    public boolean test(Person person) {
+        return person.getAge() >= 18;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.kahalemakai.opencsv.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+public class SplitWords implements Function<String, List<String>> {
+    @Override
+    public List<String> apply(String text) {
+        return Arrays.asList(text.split(" "));
+    }
+}
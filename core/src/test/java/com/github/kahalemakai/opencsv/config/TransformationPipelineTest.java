@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.config;
+
+import com.github.kahalemakai.opencsv.beans.Builder;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanException;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransformationPipelineTest {
+    private List<String> lines;
+    private List<Object> received;
+    private List<String> threads;
+
+    @Test
+    public void testStagesAreAppliedInOrder() throws Exception {
+        mapper(TransformationPipeline.of(
+                TransformationStage.filter((Predicate<Person>) person -> person.getAge() % 10 == 0),
+                TransformationStage.map((Function<Person, Integer>) Person::getAge),
+                TransformationStage.flatMap((Function<Integer, List<Integer>>) age -> Arrays.asList(age, -age))))
+                .intoSink();
+        assertEquals(200, received.size());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i * 10, received.get(2 * i));
+            assertEquals(-i * 10, received.get(2 * i + 1));
+        }
+    }
+
+    @Test
+    public void testMapToNullDropsBean() throws Exception {
+        mapper(TransformationPipeline.of(
+                TransformationStage.map((Function<Person, Integer>) person ->
+                        person.getAge() < 10 ? person.getAge() : null)))
+                .intoSink();
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), received);
+    }
+
+    @Test
+    public void testParallelStagesPreserveOrder() throws Exception {
+        final List<Integer> seenByStatefulStage = Collections.synchronizedList(new ArrayList<>());
+        mapper(TransformationPipeline.of(
+                TransformationStage.map((Function<Person, Integer>) person -> {
+                    threads.add(Thread.currentThread().getName());
+                    return person.getAge();
+                }),
+                TransformationStage.map((Function<Integer, Integer>) age -> {
+                    seenByStatefulStage.add(age);
+                    return age;
+                }).stateless(false),
+                TransformationStage.filter((Predicate<Integer>) age -> age % 3 != 0))
+                .parallel(4, 7))
+                .intoSink();
+        assertEquals(1000, seenByStatefulStage.size());
+        for (int i = 0; i < 1000; ++i) {
+            assertEquals(Integer.valueOf(i), seenByStatefulStage.get(i));
+        }
+        assertEquals(666, received.size());
+        int expected = 1;
+        for (Object age : received) {
+            assertEquals(expected, age);
+            expected += expected % 3 == 1 ? 1 : 2;
+        }
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("opencsv-transformation-")));
+    }
+
+    @Test
+    public void testFailureInParallelStageIsRethrown() throws Exception {
+        try {
+            mapper(TransformationPipeline.of(
+                    TransformationStage.map((Function<Person, Integer>) person -> {
+                        if (person.getAge() == 500) {
+                            throw new IllegalStateException("stage failed");
+                        }
+                        return person.getAge();
+                    }))
+                    .parallel(2, 16))
+                    .intoSink();
+            fail("expected stage failure");
+        } catch (CsvToBeanException e) {
+            assertEquals("stage failed", e.getCause().getMessage());
+        }
+        assertTrue(received.size() <= 500);
+    }
+
+    @Test
+    public void testTransformationsWithSinkQueue() throws Exception {
+        final Builder<Person> builder = builder(TransformationPipeline.of(
+                TransformationStage.map((Function<Person, String>) Person::getAddress)));
+        builder.sinkQueueCapacity(2).batchSize(10);
+        builder.build().intoSink();
+        assertEquals(1000, received.size());
+        assertEquals("street 0", received.get(0));
+        assertEquals("street 999", received.get(999));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPipelineThrows() throws Exception {
+        TransformationPipeline.of(Collections.emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelismThrows() throws Exception {
+        TransformationPipeline.of(TransformationStage.map(Function.identity())).parallel(0, 10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRepeatedTransformationsThrow() throws Exception {
+        builder(TransformationPipeline.of(TransformationStage.map(Function.identity())))
+                .transformations(TransformationStage.map(Function.identity()));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        lines = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            lines.add(String.format("%d,John,Doe,street %d", i, i));
+        }
+        received = Collections.synchronizedList(new ArrayList<>());
+        threads = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private CsvToBeanMapper<Person> mapper(final TransformationPipeline pipeline) throws Exception {
+        return builder(pipeline).build();
+    }
+
+    private Builder<Person> builder(final TransformationPipeline pipeline) throws Exception {
+        return CsvToBeanMapper.builder(Person.class)
+                .setHeader("age", "givenName", "surName", "address")
+                .registerDecoder("age", IntDecoder.class)
+                .withLines(lines)
+                .transformations(pipeline)
+                .sink(new Sink() {
+                    @Override
+                    public void accept(Iterator<?> iterator) {
+                        iterator.forEachRemaining(received::add);
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+    }
+
+}
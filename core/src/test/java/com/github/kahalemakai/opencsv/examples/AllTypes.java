@@ -0,0 +1,25 @@
+package com.github.kahalemakai.opencsv.examples;
+
+import com.github.kahalemakai.opencsv.beans.QuotingMode;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Accessors(chain = true)
+@Data
+public class AllTypes {
+    private boolean flag;
+    private byte tiny;
+    private Short small;
+    private char letter;
+    private int number;
+    private Long big;
+    private float real;
+    private Double precise;
+    private String text;
+    private QuotingMode mode;
+    private BigDecimal decimal;
+    private Date date;
+}
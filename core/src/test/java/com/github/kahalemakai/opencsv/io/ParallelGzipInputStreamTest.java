@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelGzipInputStreamTest {
+    private byte[] data;
+
+    @Test
+    public void testMembersOfKnownSizeInParallel() throws Exception {
+        final byte[] compressed = parallelGzip(data, 1000);
+        assertArrayEquals(data, readAll(ParallelGzipInputStream.of(new ByteArrayInputStream(compressed), 4)));
+    }
+
+    @Test
+    public void testMembersOfKnownSizeOnReadAheadThread() throws Exception {
+        final byte[] compressed = parallelGzip(data, 1000);
+        assertArrayEquals(data, readAll(ParallelGzipInputStream.of(new ByteArrayInputStream(compressed), 1)));
+    }
+
+    @Test
+    public void testConcatenatedPlainMembers() throws Exception {
+        // members without size, followed by members with size
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(gzip(data, 0, 3000));
+        compressed.write(gzip(data, 3000, 4000));
+        compressed.write(parallelGzip(slice(7000, data.length - 7000), 512));
+        final InputStream in = ParallelGzipInputStream.of(new ByteArrayInputStream(compressed.toByteArray()), 2);
+        assertArrayEquals(data, readAll(in));
+    }
+
+    @Test
+    public void testCorruptMemberFails() throws Exception {
+        final byte[] compressed = parallelGzip(data, 1000);
+        // flip a bit of the first crc
+        final int crcOffset = 20 + (readUShortAt(compressed, 16) | readUShortAt(compressed, 18) << 16) - 28;
+        compressed[crcOffset] ^= 1;
+        try {
+            readAll(ParallelGzipInputStream.of(new ByteArrayInputStream(compressed), 2));
+            fail("expected crc mismatch");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("crc"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNonGzipDataFails() throws Exception {
+        readAll(ParallelGzipInputStream.of(new ByteArrayInputStream(data), 2));
+    }
+
+    @Test
+    public void testAutoDetection() throws Exception {
+        final InputStream plain = Compression.AUTO.decompress(new ByteArrayInputStream(data), 2);
+        assertFalse(plain instanceof ParallelGzipInputStream);
+        assertArrayEquals(data, readAll(plain));
+        final InputStream gzipped = Compression.AUTO.decompress(new ByteArrayInputStream(gzip(data, 0, data.length)), 2);
+        assertTrue(gzipped instanceof ParallelGzipInputStream);
+        assertArrayEquals(data, readAll(gzipped));
+        assertEquals(0, readAll(Compression.AUTO.decompress(new ByteArrayInputStream(new byte[0]), 2)).length);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final Random random = new Random(42);
+        data = new byte[10_000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+    }
+
+    private byte[] slice(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        System.arraycopy(data, offset, bytes, 0, length);
+        return bytes;
+    }
+
+    private static int readUShortAt(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static byte[] parallelGzip(final byte[] bytes, final int blockSize) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = ParallelGzipOutputStream.of(compressed, blockSize, 6, 2)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gzip(final byte[] bytes, final int offset, final int length) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes, offset, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream input = in) {
+            final byte[] buffer = new byte[777];
+            int n;
+            while ((n = input.read(buffer)) >= 0) {
+                result.write(buffer, 0, n);
+            }
+        }
+        return result.toByteArray();
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipOutputStreamTest {
+    private byte[] data;
+
+    @Test
+    public void testRoundTripOnPool() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = ParallelGzipOutputStream.of(compressed, 1000, 6, 4)) {
+            // mix single bytes and chunks crossing block boundaries
+            out.write(data[0]);
+            out.write(data, 1, 2500);
+            out.write(data, 2501, data.length - 2501);
+        }
+        assertArrayEquals(data, gunzip(compressed.toByteArray()));
+        assertEquals(0x1f, compressed.toByteArray()[0] & 0xff);
+    }
+
+    @Test
+    public void testRoundTripOnWritingThread() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream out = ParallelGzipOutputStream.of(compressed, 4096, 1, 1)) {
+            out.write(data);
+        }
+        assertArrayEquals(data, gunzip(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testEmptyStreamIsValidGzip() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ParallelGzipOutputStream.of(compressed).close();
+        assertTrue(compressed.size() > 0);
+        assertEquals(0, gunzip(compressed.toByteArray()).length);
+    }
+
+    @Test
+    public void testFlushKeepsIncompleteBlock() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final ParallelGzipOutputStream out = ParallelGzipOutputStream.of(compressed, 1000, 6, 1);
+        out.write(data, 0, 1500);
+        out.flush();
+        final int flushed = compressed.size();
+        assertTrue(flushed > 0);
+        assertArrayEquals(subArray(1000), gunzip(compressed.toByteArray()));
+        out.write(data, 1500, data.length - 1500);
+        out.close();
+        assertArrayEquals(data, gunzip(compressed.toByteArray()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLevel() throws Exception {
+        ParallelGzipOutputStream.of(new ByteArrayOutputStream(), 1000, 10, 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws Exception {
+        final ParallelGzipOutputStream out = ParallelGzipOutputStream.of(new ByteArrayOutputStream(), 1000, 6, 2);
+        out.close();
+        out.write(1);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // compressible, but not trivially so
+        final Random random = new Random(42);
+        data = new byte[10_000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+    }
+
+    private byte[] subArray(final int length) {
+        final byte[] bytes = new byte[length];
+        System.arraycopy(data, 0, bytes, 0, length);
+        return bytes;
+    }
+
+    private static byte[] gunzip(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                result.write(buffer, 0, n);
+            }
+        }
+        return result.toByteArray();
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016, Lars Winderling
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.github.kahalemakai.opencsv.io;
+
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
+import com.github.kahalemakai.opencsv.beans.processing.decoders.IntDecoder;
+import com.github.kahalemakai.opencsv.examples.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReadAheadReaderTest {
+    private String data;
+
+    @Test
+    public void testReadChunks() throws Exception {
+        try (Reader reader = ReadAheadReader.of(new StringReader(data), 2, 7)) {
+            final StringBuilder result = new StringBuilder();
+            final char[] chars = new char[5];
+            int n;
+            while ((n = reader.read(chars, 0, chars.length)) >= 0) {
+                result.append(chars, 0, n);
+            }
+            assertEquals(data, result.toString());
+        }
+    }
+
+    @Test
+    public void testReadSingleChars() throws Exception {
+        try (Reader reader = ReadAheadReader.of(new StringReader(data), 3, 1000)) {
+            final StringBuilder result = new StringBuilder();
+            int c;
+            while ((c = reader.read()) >= 0) {
+                result.append((char) c);
+            }
+            assertEquals(data, result.toString());
+            assertEquals(-1, reader.read());
+        }
+    }
+
+    @Test
+    public void testBlockedTimeIsReported() throws Exception {
+        final Reader slow = new StringReader(data) {
+            @Override
+            public int read(char[] chars, int offset, int length) throws IOException {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.read(chars, offset, Math.min(length, 10000));
+            }
+
+            @Override
+            public boolean ready() {
+                return false;
+            }
+        };
+        try (ReadAheadReader reader = ReadAheadReader.of(slow, 2, 4096)) {
+            final char[] chars = new char[4096];
+            while (reader.read(chars, 0, chars.length) >= 0) {
+                // consume
+            }
+            assertTrue(reader.getWaits() > 0);
+            assertTrue(reader.getBlockedNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testFailureIsPropagated() throws Exception {
+        final Reader failing = new Reader() {
+            @Override
+            public int read(char[] chars, int offset, int length) throws IOException {
+                throw new IOException("disk on fire");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Reader reader = ReadAheadReader.of(failing)) {
+            reader.read();
+            fail("expected failure of the underlying reader");
+        } catch (IOException e) {
+            assertEquals("disk on fire", e.getMessage());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadAfterCloseThrows() throws Exception {
+        final Reader reader = ReadAheadReader.of(new StringReader(data));
+        reader.close();
+        reader.read();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleBufferThrows() throws Exception {
+        ReadAheadReader.of(new StringReader(data), 1, 1024);
+    }
+
+    @Test
+    public void testParseWithReadAhead() throws Exception {
+        final StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            csv.append(i).append(",John,Doe,\"street, ").append(i).append("\"\n");
+        }
+        final Iterator<Person> iterator = CsvToBeanMapper.builder(Person.class)
+                .setHeader("age", "givenName", "surName", "address")
+                .registerDecoder("age", IntDecoder.class)
+                .readAheadBuffers(3)
+                .readAheadBufferSize(16)
+                .withReader(new StringReader(csv.toString()))
+                .build()
+                .iterator();
+        final List<Person> persons = new ArrayList<>();
+        iterator.forEachRemaining(persons::add);
+        assertEquals(1000, persons.size());
+        for (int i = 0; i < persons.size(); ++i) {
+            assertEquals(Integer.valueOf(i), persons.get(i).getAge());
+            assertEquals("street, " + i, persons.get(i).getAddress());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; ++i) {
+            builder.append("line ").append(i).append(", äöü\n");
+        }
+        data = builder.toString();
+    }
+
+}
@@ -11,6 +11,7 @@ import org.w3c.dom.Node;
 
 import java.net.URL;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -47,7 +48,15 @@ public class ConsoleWriterPlugin implements SinkPlugin {
      */
     @Override
     public <T> void configure(Builder<T> builder, Node sink) {
-        final Optional<String> prefix = ConfigParser.getAttributeValue(sink, "prefix");
+        configure(builder, ConfigParser.getAttributes(sink));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void configure(Builder<T> builder, Map<String, String> attributes) {
+        final Optional<String> prefix = Optional.ofNullable(attributes.get("prefix"));
         this.sink = (Iterator<?> it) -> it.forEachRemaining((el) -> System.out.println(prefix.orElse("") + el.toString()));
         builder.sink(this.sink);
     }
@@ -0,0 +1,243 @@
+
+package com.github.kahalemakai.opencsv.plugins;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+
+/**
+ * An {@link OutputStream} that group-commits its data to a {@link FileChannel}.
+ * <p>
+ * All data is collected in a reusable direct {@link ByteBuffer}. It is only
+ * handed over to the channel if the buffer is full, or if the stream is
+ * {@link #flush() flushed}, which happens once per batch of rows. Depending
+ * on the {@link Durability}, a flush additionally forces the data onto the
+ * storage device.
+ * <p>
+ * The latency of all flushes is recorded, and logged when closing the stream.
+ * Instances are not thread-safe.
+ */
+@Slf4j
+public class BatchedChannelWriter extends OutputStream {
+    /**
+     * Default size of the direct buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * When to force written data onto the storage device.
+     */
+    public enum Durability {
+        /**
+         * Never force the data, leave it to the operating system.
+         */
+        NONE("none"),
+
+        /**
+         * Force the data with every flush, i.e. once per batch.
+         */
+        BATCH("batch"),
+
+        /**
+         * Force the data once, when closing the stream.
+         */
+        CLOSE("close");
+
+        /**
+         * The xml attribute value corresponding to the respective enum constant.
+         * @return the xml attribute value corresponding to the respective enum constant
+         */
+        @Getter
+        private final String value;
+
+        Durability(final String value) {
+            this.value = value;
+        }
+
+        /**
+         * Get the enum constant corresponding to the given xml attribute value.
+         * @param value the xml attribute value, or {@code null} for {@link #NONE}
+         * @return the corresponding enum constant
+         */
+        public static Durability getEnumConstant(final String value) {
+            if (value == null) {
+                return NONE;
+            }
+            for (Durability durability : values()) {
+                if (durability.getValue().equals(value)) {
+                    return durability;
+                }
+            }
+            final String msg = String.format("cannot find Durability for value %s", value);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Durability durability;
+    private boolean closed;
+
+    /**
+     * Number of bytes handed over to the channel.
+     * @return number of bytes handed over to the channel
+     */
+    @Getter
+    private long bytesWritten;
+
+    /**
+     * Number of flushes.
+     * @return number of flushes
+     */
+    @Getter
+    private long flushCount;
+
+    /**
+     * Accumulated latency of all flushes in nanoseconds.
+     * @return accumulated latency of all flushes in nanoseconds
+     */
+    @Getter
+    private long totalFlushNanos;
+
+    /**
+     * Maximum latency of a single flush in nanoseconds.
+     * @return maximum latency of a single flush in nanoseconds
+     */
+    @Getter
+    private long maxFlushNanos;
+
+    private BatchedChannelWriter(final Path path,
+                                 final FileChannel channel,
+                                 final int bufferSize,
+                                 final Durability durability) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.durability = durability;
+    }
+
+    /**
+     * Open a file for batched writing.
+     * @param path the file to write to
+     * @param bufferSize size of the direct buffer in bytes
+     * @param durability when to force the data onto the storage device
+     * @param options options for opening the file
+     * @return the new stream
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the buffer size is not positive
+     */
+    public static BatchedChannelWriter open(@NonNull final Path path,
+                                            final int bufferSize,
+                                            @NonNull final Durability durability,
+                                            final OpenOption... options)
+            throws IOException, IllegalArgumentException {
+        if (bufferSize < 1) {
+            final String msg = String.format("expected: bufferSize > 0, got: bufferSize = %d", bufferSize);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return new BatchedChannelWriter(path, FileChannel.open(path, options), bufferSize, durability);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Commit all buffered data to the channel.
+     * <p>
+     * With {@link Durability#BATCH}, the data is forced onto the storage device.
+     * @throws IOException if the data cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        assertOpen();
+        final long start = System.nanoTime();
+        drain();
+        if (durability == Durability.BATCH) {
+            channel.force(false);
+        }
+        final long latency = System.nanoTime() - start;
+        ++flushCount;
+        totalFlushNanos += latency;
+        maxFlushNanos = Math.max(maxFlushNanos, latency);
+    }
+
+    /**
+     * Flush all data and close the channel.
+     * <p>
+     * With {@link Durability#CLOSE}, the data is forced onto the storage device.
+     * @throws IOException if the data cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            if (durability == Durability.CLOSE) {
+                channel.force(true);
+            }
+        } finally {
+            closed = true;
+            channel.close();
+        }
+        if (log.isInfoEnabled()) {
+            log.info(String.format("wrote %d bytes to %s in %d flushes, flush latency: avg %.3f ms, max %.3f ms",
+                    bytesWritten, path, flushCount,
+                    flushCount == 0 ? 0.0 : totalFlushNanos / 1e6 / flushCount,
+                    maxFlushNanos / 1e6));
+        }
+    }
+
+    private void drain() throws IOException {
+        assertOpen();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void assertOpen() throws IOException {
+        if (closed) {
+            final String msg = String.format("stream to %s has already been closed", path);
+            log.error(msg);
+            throw new IOException(msg);
+        }
+    }
+
+}
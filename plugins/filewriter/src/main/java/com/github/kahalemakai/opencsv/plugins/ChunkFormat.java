@@ -0,0 +1,176 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.beans.BeanToCsvWriter;
+import com.github.kahalemakai.opencsv.beans.BinaryRowWriter;
+import com.github.kahalemakai.opencsv.beans.Builder;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Output format of a {@link PartitionedFileSink}.
+ * <p>
+ * A format encodes chunks of beans into bytes independently of each other,
+ * such that chunks can be encoded in parallel and concatenated afterwards.
+ * Every file starts with the {@link #getHeader() header} and ends with the
+ * {@link #getFooter() footer}.
+ *
+ * @param <T> type of the target bean
+ */
+abstract class ChunkFormat<T> {
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * The file name extension, including the dot.
+     * @return the file name extension
+     */
+    @Getter
+    private final String extension;
+    /**
+     * Bytes at the start of every file.
+     * @return bytes at the start of every file
+     */
+    @Getter
+    private final byte[] header;
+    /**
+     * Bytes at the end of every file.
+     * @return bytes at the end of every file
+     */
+    @Getter
+    private final byte[] footer;
+
+    private ChunkFormat(final String extension, final byte[] header, final byte[] footer) {
+        this.extension = extension;
+        this.header = header;
+        this.footer = footer;
+    }
+
+    /**
+     * Create an encoder for chunks of beans.
+     * <p>
+     * An encoder is used by a single thread only.
+     * @return a new encoder
+     */
+    abstract Encoder<T> newEncoder();
+
+    /**
+     * Encodes chunks of beans, reusing its buffers.
+     * @param <T> type of the target bean
+     */
+    @FunctionalInterface
+    interface Encoder<T> {
+        byte[] encode(List<? extends T> beans) throws IOException;
+    }
+
+    /**
+     * Get the csv format.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param charset the file encoding
+     * @param separator the field separator
+     * @param quoteChar the quote character, or {@link BeanToCsvWriter#NO_QUOTE_CHARACTER}
+     * @param includeHeader if every file starts with a header line
+     * @param <T> type of the target bean
+     * @return the csv format
+     * @throws IOException if the header cannot be encoded
+     */
+    static <T> ChunkFormat<T> csv(final Builder<T> builder,
+                                  final Charset charset,
+                                  final char separator,
+                                  final char quoteChar,
+                                  final boolean includeHeader) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final BeanToCsvWriter<T> headerWriter = BeanToCsvWriter
+                .of(builder, buffer, charset)
+                .separator(separator)
+                .quoteChar(quoteChar);
+        if (includeHeader) {
+            headerWriter.writeHeader();
+            headerWriter.flush();
+        }
+        final Class<? extends T> type = headerWriter.getType();
+        final List<String> columns = headerWriter.getColumns();
+        return new ChunkFormat<T>(".csv", buffer.toByteArray(), EMPTY) {
+            @Override
+            Encoder<T> newEncoder() {
+                final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+                final BeanToCsvWriter<T> writer = BeanToCsvWriter
+                        .<T>of(type, chunk, charset, columns)
+                        .separator(separator)
+                        .quoteChar(quoteChar);
+                return beans -> {
+                    chunk.reset();
+                    for (T bean : beans) {
+                        writer.write(bean);
+                    }
+                    writer.flush();
+                    return chunk.toByteArray();
+                };
+            }
+        };
+    }
+
+    /**
+     * Get the binary row format.
+     * <p>
+     * The header and the end marker of the format are written once per file,
+     * such that each file can be read back by {@link Builder#withBinaryFile(java.io.File)}.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param <T> type of the target bean
+     * @return the binary row format
+     * @throws IOException if header or footer cannot be encoded
+     */
+    static <T> ChunkFormat<T> binary(final Builder<T> builder) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final BinaryRowWriter<T> writer = BinaryRowWriter.of(builder, buffer);
+        writer.flush();
+        final byte[] header = buffer.toByteArray();
+        buffer.reset();
+        writer.close();
+        final byte[] footer = buffer.toByteArray();
+        final Class<? extends T> type = writer.getType();
+        final List<String> columns = writer.getColumns();
+        return new ChunkFormat<T>(".bin", header, footer) {
+            @Override
+            Encoder<T> newEncoder() {
+                final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+                final BinaryRowWriter<T> rowWriter = BinaryRowWriter.<T>of(type, chunk, columns);
+                return beans -> {
+                    // the first flush emits the header, which is already part of every file
+                    rowWriter.flush();
+                    chunk.reset();
+                    for (T bean : beans) {
+                        rowWriter.write(bean);
+                    }
+                    rowWriter.flush();
+                    return chunk.toByteArray();
+                };
+            }
+        };
+    }
+
+    /**
+     * Get the format using the beans' {@code toString()} method, one bean per line.
+     * @param charset the file encoding
+     * @param <T> type of the target bean
+     * @return the {@code toString()} format
+     */
+    static <T> ChunkFormat<T> toStringLines(final Charset charset) {
+        return new ChunkFormat<T>(".txt", EMPTY, EMPTY) {
+            @Override
+            Encoder<T> newEncoder() {
+                final StringBuilder chunk = new StringBuilder();
+                return beans -> {
+                    chunk.setLength(0);
+                    for (T bean : beans) {
+                        chunk.append(bean).append('\n');
+                    }
+                    return chunk.toString().getBytes(charset);
+                };
+            }
+        };
+    }
+
+}
@@ -1,18 +1,27 @@
 package com.github.kahalemakai.opencsv.plugins;
 
+import com.github.kahalemakai.opencsv.beans.BeanToCsvWriter;
+import com.github.kahalemakai.opencsv.beans.BinaryRowWriter;
 import com.github.kahalemakai.opencsv.beans.Builder;
+import com.github.kahalemakai.opencsv.beans.ColumnarWriter;
+import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
 import com.github.kahalemakai.opencsv.config.ConfigParser;
 import com.github.kahalemakai.opencsv.config.PluginException;
 import com.github.kahalemakai.opencsv.config.Sink;
 import com.github.kahalemakai.opencsv.config.SinkPlugin;
+import com.github.kahalemakai.opencsv.io.ParallelGzipOutputStream;
+import com.github.kahalemakai.opencsv.plugins.BatchedChannelWriter.Durability;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.w3c.dom.Node;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -20,6 +29,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
 
 import static java.nio.file.StandardOpenOption.*;
@@ -27,10 +37,10 @@ import static java.nio.file.StandardOpenOption.*;
 /**
  * A sink plugin that writes the target beans to a file.
  * <p>
- * The resulting data can be output to a csv file, serialized or
- * by using their {@code toString()} implementation. Currently, only the
- * later one is implemented. For further details, please take a look at the
- * associated xsd file.
+ * The resulting data can be output to a csv file, as binary rows, as a
+ * columnar file, or by using their {@code toString()} implementation. Optionally, the output
+ * gets gzipped in parallel by a {@link ParallelGzipOutputStream}. For further
+ * details, please take a look at the associated xsd file.
  */
 @RequiredArgsConstructor
 @Slf4j
@@ -67,15 +77,75 @@ public class FileWriterPlugin implements SinkPlugin {
      */
     @Override
     public <T> void configure(Builder<T> builder, Node sink) {
-        final Path path = Paths.get(ConfigParser.getAttributeValue(sink, "path").get());
-        final boolean append = Boolean.valueOf(ConfigParser.getAttributeValue(sink, "append").get());
-        final Charset charset = getCharset(ConfigParser.getAttributeValue(sink, "encoding"));
-        final OutputType type = OutputType.getEnumConstant(ConfigParser.getAttributeValue(sink, "type").get());
-        final int batches = Integer.parseInt(ConfigParser.getAttributeValue(sink, "batches").get());
-        final char separator = ConfigParser.getAttributeValue(sink, "separator").get().charAt(0);
-        // TODO: handle quoteChar instead of quoteString
-        final String quoteString = ConfigParser.getAttributeValue(sink, "quoteChar").get();
+        configure(builder, ConfigParser.getAttributes(sink));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void configure(Builder<T> builder, Map<String, String> attributes) {
+        final Path path = Paths.get(attributes.get("path"));
+        final boolean append = Boolean.valueOf(attributes.get("append"));
+        final Charset charset = getCharset(Optional.ofNullable(attributes.get("encoding")));
+        final OutputType type = OutputType.getEnumConstant(attributes.get("type"));
+        final int batches = Integer.parseInt(attributes.get("batches"));
+        final int bufferSize = Optional.ofNullable(attributes.get("bufferSize"))
+                .map(Integer::parseInt)
+                .orElse(BatchedChannelWriter.DEFAULT_BUFFER_SIZE);
+        final Durability durability = Durability.getEnumConstant(attributes.get("durability"));
+        final char separator = Optional.ofNullable(attributes.get("separator"))
+                .map(s -> s.charAt(0))
+                .orElse(BeanToCsvWriter.DEFAULT_SEPARATOR);
+        // the empty string disables quoting, values containing the separator or a line break then fail the run
+        final char quoteChar = Optional.ofNullable(attributes.get("quoteChar"))
+                .filter(s -> !s.isEmpty())
+                .map(s -> s.charAt(0))
+                .orElse(BeanToCsvWriter.NO_QUOTE_CHARACTER);
+        final boolean includeHeader = Boolean.valueOf(attributes.get("includeHeader"));
+        final boolean gzip = "gzip".equals(attributes.get("compression"));
+        final int compressionLevel = Optional.ofNullable(attributes.get("compressionLevel"))
+                .map(Integer::parseInt)
+                .orElse(ParallelGzipOutputStream.DEFAULT_LEVEL);
+        final int compressionBlockSize = Optional.ofNullable(attributes.get("compressionBlockSize"))
+                .map(Integer::parseInt)
+                .orElse(ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+        final int compressionThreads = Optional.ofNullable(attributes.get("compressionThreads"))
+                .map(Integer::parseInt)
+                .filter(threads -> threads > 0)
+                .orElse(Runtime.getRuntime().availableProcessors());
+        final int rowGroupSize = Optional.ofNullable(attributes.get("rowGroupSize"))
+                .map(Integer::parseInt)
+                .orElse(ColumnarWriter.DEFAULT_ROW_GROUP_SIZE);
 
+        if (type == OutputType.COLUMNAR) {
+            // the footer of a columnar file must be found at a fixed position relative to its end
+            if (gzip || append || attributes.containsKey("partitionBy")
+                    || attributes.containsKey("rollRows") || attributes.containsKey("rollBytes")) {
+                final String msg = "columnar output can neither be compressed, appended to, nor partitioned";
+                log.error(msg);
+                throw new PluginException(msg);
+            }
+        }
+        if (attributes.containsKey("partitionBy")
+                || attributes.containsKey("rollRows")
+                || attributes.containsKey("rollBytes")) {
+            final PartitionedFileSink<T> partitionedSink = partitionedWriter(builder, path, attributes, type, charset,
+                    separator, quoteChar, includeHeader, append, batches, bufferSize, durability);
+            if (gzip) {
+                partitionedSink
+                        .compressionLevel(compressionLevel)
+                        .compressionBlockSize(compressionBlockSize);
+            }
+            this.sink = partitionedSink;
+            builder.sink(this.sink);
+            return;
+        }
+        if (type == OutputType.SERIALIZATION && append && Files.exists(path)) {
+            final String msg = String.format("cannot append binary rows to existing file %s", path);
+            log.error(msg);
+            throw new PluginException(msg);
+        }
         boolean addLeadingNewLine = false;
         OpenOption[] options;
         if (append) {
@@ -87,69 +157,316 @@ public class FileWriterPlugin implements SinkPlugin {
         }
         OutputStream outputStream;
         try {
-            outputStream = Files.newOutputStream(path, options);
+            outputStream = BatchedChannelWriter.open(path, bufferSize, durability, options);
         } catch (IOException e) {
             final String msg = String.format("could not open file %%s for writing%s", path);
             log.error(msg);
             throw new PluginException(msg, e);
         }
+        if (gzip) {
+            // appending to a gzip file just adds further members
+            outputStream = ParallelGzipOutputStream.of(outputStream,
+                    compressionBlockSize, compressionLevel, compressionThreads);
+        }
         switch (type) {
             case CSV:
-                throw new PluginException("not implemented yet");
+                this.sink = csvWriter(builder, outputStream, charset,
+                        separator, quoteChar, includeHeader && !addLeadingNewLine, batches);
+                break;
             case SERIALIZATION:
-                throw new PluginException("not implemented yet");
+                this.sink = binaryRowWriter(builder, outputStream, batches);
+                break;
+            case COLUMNAR:
+                this.sink = columnarWriter(builder, outputStream, rowGroupSize, batches);
+                break;
             case TO_STRING:
-                this.sink = toStringWriter(outputStream, charset, addLeadingNewLine);
+                this.sink = toStringWriter(outputStream, charset, addLeadingNewLine, batches);
         }
         builder.sink(this.sink);
     }
 
+    /**
+     * Return a {@link Sink} that splits its output into many files below a directory.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param directory the base directory
+     * @param attributes the xml attributes
+     * @param type the output type
+     * @param encoding the file encoding/{@link Charset} to use
+     * @param separator the field separator
+     * @param quoteChar the quote character, or {@link BeanToCsvWriter#NO_QUOTE_CHARACTER}
+     * @param includeHeader if every csv file should start with a header line
+     * @param append if existing part files should be kept
+     * @param batches number of rows per encoded chunk
+     * @param bufferSize size of the output buffer per open file
+     * @param durability when to force the data onto the storage device
+     * @param <T> type of the target bean
+     * @return a {@link Sink} that splits its output into many files
+     * @see PartitionedFileSink
+     */
+    private <T> PartitionedFileSink<T> partitionedWriter(final Builder<T> builder,
+                                       final Path directory,
+                                       final Map<String, String> attributes,
+                                       final OutputType type,
+                                       final Charset encoding,
+                                       final char separator,
+                                       final char quoteChar,
+                                       final boolean includeHeader,
+                                       final boolean append,
+                                       final int batches,
+                                       final int bufferSize,
+                                       final Durability durability) {
+        final ChunkFormat<T> format;
+        try {
+            switch (type) {
+                case CSV:
+                    format = ChunkFormat.csv(builder, encoding, separator, quoteChar, includeHeader);
+                    break;
+                case SERIALIZATION:
+                    format = ChunkFormat.binary(builder);
+                    break;
+                default:
+                    format = ChunkFormat.toStringLines(encoding);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            final String msg = String.format("cannot write the bean type as %s", type.getValue());
+            log.error(msg);
+            throw new PluginException(msg, e);
+        }
+        final PartitionedFileSink<T> partitionedSink = PartitionedFileSink
+                .of(directory, builder.getStrategy().getType(), format)
+                .partitionColumn(attributes.get("partitionBy"))
+                .chunkSize(batches)
+                .bufferSize(bufferSize)
+                .durability(durability)
+                .append(append);
+        Optional.ofNullable(attributes.get("rollRows"))
+                .map(Long::parseLong)
+                .ifPresent(partitionedSink::rollRows);
+        Optional.ofNullable(attributes.get("rollBytes"))
+                .map(Long::parseLong)
+                .ifPresent(partitionedSink::rollBytes);
+        Optional.ofNullable(attributes.get("maxOpenFiles"))
+                .map(Integer::parseInt)
+                .ifPresent(partitionedSink::maxOpenFiles);
+        Optional.ofNullable(attributes.get("encoderThreads"))
+                .map(Integer::parseInt)
+                .filter(threads -> threads > 0)
+                .ifPresent(partitionedSink::encoderThreads);
+        return partitionedSink;
+    }
+
     /**
      * Return a {@link Sink} that generates output by using
      * the beans' {@code toString()} method.
      * @param outputStream the {@link OutputStream} to use
      * @param encoding the file encoding/{@link Charset} to use
      * @param addLeadingNewLine if a leading new line character should be used
+     * @param batches number of rows per flush
      * @return a {@link Sink} that generates output by using
      * the beans' {@code toString()} method
      */
     private Sink toStringWriter(final OutputStream outputStream,
                                 final Charset encoding,
-                                final boolean addLeadingNewLine) {
+                                final boolean addLeadingNewLine,
+                                final int batches) {
         return new Sink() {
-            private final OutputStream os = outputStream;
-            private final Charset charset = encoding;
+            private final Writer writer = new OutputStreamWriter(outputStream, encoding);
 
             @Override
             public void close() throws IOException {
-                this.os.flush();
-                this.os.close();
+                this.writer.close();
             }
 
             @Override
             public void accept(Iterator<?> iter) {
-                final byte[] newLine = "\n".getBytes(charset);
-                if (!addLeadingNewLine && iter.hasNext()) {
-                    try {
-                        this.os.write(iter.next().toString().getBytes(this.charset));
-                    } catch (IOException e) {
-                        log.error(e.getMessage());
-                        throw new PluginException(e);
+                boolean leadingNewLine = addLeadingNewLine;
+                long rows = 0;
+                try {
+                    while (iter.hasNext()) {
+                        if (leadingNewLine) {
+                            this.writer.write('\n');
+                        }
+                        leadingNewLine = true;
+                        this.writer.write(iter.next().toString());
+                        if (++rows % batches == 0) {
+                            this.writer.flush();
+                        }
                     }
+                    this.writer.flush();
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    throw new PluginException(e);
                 }
-                while (iter.hasNext()) {
-                    try {
-                        this.os.write(newLine);
-                        this.os.write(iter.next().toString().getBytes(this.charset));
-                    } catch (IOException e) {
-                        log.error(e.getMessage());
-                        throw new PluginException(e);
+            }
+        };
+    }
+
+    /**
+     * Return a {@link Sink} that writes the beans in csv format.
+     * <p>
+     * The columns configured for the {@link CsvToBeanMapper} are written
+     * in the same order. If no columns have been configured, all readable
+     * bean properties are written.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the {@link OutputStream} to use
+     * @param encoding the file encoding/{@link Charset} to use
+     * @param separator the field separator
+     * @param quoteChar the quote character, or {@link BeanToCsvWriter#NO_QUOTE_CHARACTER}
+     * @param includeHeader if a header line should be written
+     * @param batches number of rows per flush
+     * @param <T> type of the target bean
+     * @return a {@link Sink} that writes the beans in csv format
+     */
+    private <T> Sink csvWriter(final Builder<T> builder,
+                               final OutputStream outputStream,
+                               final Charset encoding,
+                               final char separator,
+                               final char quoteChar,
+                               final boolean includeHeader,
+                               final int batches) {
+        final BeanToCsvWriter<T> writer = BeanToCsvWriter
+                .of(builder, outputStream, encoding)
+                .separator(separator)
+                .quoteChar(quoteChar);
+        return new Sink() {
+            private boolean headerWritten = !includeHeader;
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void accept(Iterator<?> iter) {
+                try {
+                    if (!headerWritten) {
+                        writer.writeHeader();
+                        headerWritten = true;
                     }
+                    writeBatched((Iterator<? extends T>) iter, writer::write, writer, batches);
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    throw new PluginException(e);
                 }
             }
         };
     }
 
+    /**
+     * Return a {@link Sink} that writes the beans as binary rows.
+     * <p>
+     * The resulting file can be read back by
+     * {@link Builder#withBinaryFile(java.io.File)}.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the {@link OutputStream} to use
+     * @param batches number of rows per flush
+     * @param <T> type of the target bean
+     * @return a {@link Sink} that writes the beans as binary rows
+     */
+    private <T> Sink binaryRowWriter(final Builder<T> builder, final OutputStream outputStream, final int batches) {
+        final BinaryRowWriter<T> writer;
+        try {
+            writer = BinaryRowWriter.of(builder, outputStream);
+        } catch (IllegalArgumentException e) {
+            final String msg = "cannot write the bean type as binary rows";
+            log.error(msg);
+            throw new PluginException(msg, e);
+        }
+        return new Sink() {
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void accept(Iterator<?> iter) {
+                try {
+                    writeBatched((Iterator<? extends T>) iter, writer::write, writer, batches);
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    throw new PluginException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Return a {@link Sink} that writes the beans into a columnar file.
+     * <p>
+     * The resulting file can be read back by
+     * {@link Builder#withColumnarFile(java.io.File, com.github.kahalemakai.opencsv.beans.ColumnarScan)}.
+     * @param builder the {@link Builder} to derive bean type and columns from
+     * @param outputStream the {@link OutputStream} to use
+     * @param rowGroupSize number of rows per row group
+     * @param batches number of rows per flush
+     * @param <T> type of the target bean
+     * @return a {@link Sink} that writes the beans into a columnar file
+     */
+    private <T> Sink columnarWriter(final Builder<T> builder,
+                                    final OutputStream outputStream,
+                                    final int rowGroupSize,
+                                    final int batches) {
+        final ColumnarWriter<T> writer;
+        try {
+            writer = ColumnarWriter.of(builder, outputStream).rowGroupSize(rowGroupSize);
+        } catch (IllegalArgumentException e) {
+            final String msg = "cannot write the bean type as columnar file";
+            log.error(msg);
+            throw new PluginException(msg, e);
+        }
+        return new Sink() {
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void accept(Iterator<?> iter) {
+                try {
+                    writeBatched((Iterator<? extends T>) iter, writer::write, writer, batches);
+                } catch (IOException e) {
+                    log.error(e.getMessage());
+                    throw new PluginException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Write all beans, and flush the writer once per batch.
+     * @param iter the beans to write
+     * @param rowWriter writes a single bean
+     * @param writer the writer to flush
+     * @param batches number of rows per flush
+     * @param <T> type of the target bean
+     * @throws IOException if the beans cannot be written
+     */
+    private static <T> void writeBatched(final Iterator<? extends T> iter,
+                                         final RowWriter<T> rowWriter,
+                                         final Flushable writer,
+                                         final int batches) throws IOException {
+        long rows = 0;
+        while (iter.hasNext()) {
+            rowWriter.write(iter.next());
+            if (++rows % batches == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes a single bean.
+     * @param <T> type of the target bean
+     */
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(T bean) throws IOException;
+    }
+
     /**
      * Get the file encoding/{@link Charset} as given by the xml config file.
      * <p>
@@ -192,7 +509,12 @@ public class FileWriterPlugin implements SinkPlugin {
         /**
          * Output using standard java serialization.
          */
-        SERIALIZATION("serialization");
+        SERIALIZATION("serialization"),
+
+        /**
+         * Output into column chunks with min/max statistics.
+         */
+        COLUMNAR("columnar");
 
         /**
          * The xml attribute value corresponding to the respective enum constant.
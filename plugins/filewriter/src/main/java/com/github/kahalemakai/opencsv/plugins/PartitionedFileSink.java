@@ -0,0 +1,565 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.beans.PropertyGetter;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import com.github.kahalemakai.opencsv.io.ParallelGzipOutputStream;
+import com.github.kahalemakai.opencsv.plugins.BatchedChannelWriter.Durability;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A sink that splits its output into many files.
+ * <p>
+ * All files are written below a base directory. If a partition column is
+ * set, every distinct value of that column gets a directory of its own, named
+ * {@code column=value} as expected by Hive and Spark. Inside a directory, the
+ * beans are written to files {@code part-00000.csv}, {@code part-00001.csv} etc.
+ * A new file is started once the current one holds {@link #rollRows()} rows,
+ * or has reached {@link #rollBytes()} bytes. Since files are only rolled between
+ * chunks, a file may exceed {@code rollBytes} by at most one chunk. For compressed
+ * files, {@code rollBytes} refers to the uncompressed size.
+ * <p>
+ * The beans of each partition are collected into chunks of {@link #chunkSize()}
+ * rows, which get encoded in parallel by {@link #encoderThreads()} threads. The
+ * encoded chunks are written in order by the calling thread, through a buffered
+ * writer per open file. At most {@link #maxOpenFiles()} files are open at once;
+ * if another one is required, the least recently used file is closed. Its partition's
+ * pending beans are written to it beforehand, unless earlier chunks of the partition
+ * are still being encoded, and partitions holding no beans anymore are dropped.
+ * Further beans of the partition go to a new part file.
+ * <p>
+ * Unless appending, existing part files of a directory are deleted once the
+ * first file gets opened in it, such that no part files of an earlier run remain.
+ *
+ * @param <T> type of the target bean
+ */
+@Slf4j
+final class PartitionedFileSink<T> implements Sink {
+    /**
+     * Directory name for {@code null} values of the partition column, as used by Hive.
+     */
+    static final String NULL_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+    /**
+     * Default for the number of open files.
+     */
+    static final int DEFAULT_MAX_OPEN_FILES = 64;
+    /**
+     * Default for the number of rows per chunk.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final Pattern PART_FILE = Pattern.compile("part-(\\d+)\\..*");
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final Path directory;
+    private final Class<? extends T> type;
+    private final ChunkFormat<T> format;
+
+    /**
+     * Name of the property to partition by, or {@code null}.
+     * @param partitionColumn name of the property to partition by
+     * @return name of the property to partition by
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private String partitionColumn;
+    /**
+     * Maximum number of rows per file, or 0 for no limit.
+     * @param rollRows maximum number of rows per file
+     * @return maximum number of rows per file
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private long rollRows;
+    /**
+     * Number of bytes after which a new file is started, or 0 for no limit.
+     * @param rollBytes number of bytes after which a new file is started
+     * @return number of bytes after which a new file is started
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private long rollBytes;
+    /**
+     * Maximum number of files open at once.
+     * @param maxOpenFiles maximum number of files open at once
+     * @return maximum number of files open at once
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+    /**
+     * Number of threads encoding chunks. For 1, chunks are encoded on the calling thread.
+     * @param encoderThreads number of threads encoding chunks
+     * @return number of threads encoding chunks
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int encoderThreads = Runtime.getRuntime().availableProcessors();
+    /**
+     * Number of rows per encoded chunk.
+     * @param chunkSize number of rows per encoded chunk
+     * @return number of rows per encoded chunk
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /**
+     * Size of the output buffer per open file.
+     * @param bufferSize size of the output buffer per open file
+     * @return size of the output buffer per open file
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int bufferSize = BatchedChannelWriter.DEFAULT_BUFFER_SIZE;
+    /**
+     * When to force written data onto the storage device.
+     * @param durability when to force written data onto the storage device
+     * @return when to force written data onto the storage device
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter @NonNull
+    private Durability durability = Durability.NONE;
+    /**
+     * If existing part files are kept. Otherwise, they get deleted.
+     * @param append if existing part files are kept
+     * @return if existing part files are kept
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private boolean append;
+
+    /**
+     * The gzip compression level, or {@code null} for uncompressed files.
+     * <p>
+     * Compressed files get the extension {@code .gz} appended. Their blocks
+     * are compressed on the encoder threads.
+     * @param compressionLevel the gzip compression level
+     * @return the gzip compression level
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private Integer compressionLevel;
+    /**
+     * Number of uncompressed bytes per gzip member.
+     * @param compressionBlockSize number of uncompressed bytes per gzip member
+     * @return number of uncompressed bytes per gzip member
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int compressionBlockSize = ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE;
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+    /**
+     * Next part file index of dropped partitions.
+     */
+    private final Map<String, Integer> nextParts = new HashMap<>();
+    /**
+     * Open partitions in access order, the least recently used one first.
+     */
+    private final LinkedHashMap<String, Partition> openPartitions = new LinkedHashMap<>(16, 0.75f, true);
+    private PropertyGetter<T> partitionGetter;
+    private ExecutorService executor;
+    private ThreadLocal<ChunkFormat.Encoder<T>> encoders;
+
+    private PartitionedFileSink(final Path directory, final Class<? extends T> type, final ChunkFormat<T> format) {
+        this.directory = directory;
+        this.type = type;
+        this.format = format;
+    }
+
+    /**
+     * Create a new sink with default options.
+     * @param directory the base directory
+     * @param type type of the target bean
+     * @param format the output format
+     * @param <S> type of the target bean
+     * @return the new sink
+     */
+    static <S> PartitionedFileSink<S> of(@NonNull final Path directory,
+                                         @NonNull final Class<? extends S> type,
+                                         @NonNull final ChunkFormat<S> format) {
+        return new PartitionedFileSink<>(directory, type, format);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(final Iterator<?> iter) {
+        checkOptions();
+        if (partitionColumn != null) {
+            partitionGetter = PropertyGetter.of(type, partitionColumn);
+        }
+        executor = encoderThreads > 1
+                ? Executors.newFixedThreadPool(encoderThreads, runnable -> {
+                    final Thread thread = new Thread(runnable, "opencsv-encoder-" + THREAD_COUNT.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        encoders = ThreadLocal.withInitial(format::newEncoder);
+        // chunks in submission order, which is the order of the rows per partition
+        final Deque<Chunk> inFlight = new ArrayDeque<>();
+        final int maxInFlight = 2 * Math.max(1, encoderThreads);
+        try {
+            while (iter.hasNext()) {
+                final T bean = (T) iter.next();
+                final Partition partition = partitionOf(bean);
+                partition.pending.add(bean);
+                if (partition.pending.size() == partition.chunkLimit()) {
+                    inFlight.add(submit(partition, true));
+                    while (inFlight.size() > maxInFlight) {
+                        write(inFlight.poll());
+                    }
+                }
+            }
+            for (Partition partition : partitions.values()) {
+                if (!partition.pending.isEmpty()) {
+                    inFlight.add(submit(partition, true));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll());
+            }
+            closeAll();
+        } catch (IOException e) {
+            log.error(e.getMessage());
+            throw new PluginException(e);
+        } finally {
+            // compressed files may still need the executor when getting closed
+            closeQuietly();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Close all open files.
+     * @throws IOException if any file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closeAll();
+    }
+
+    private void checkOptions() {
+        if (rollRows < 0 || rollBytes < 0 || maxOpenFiles < 1 || encoderThreads < 1 || chunkSize < 1 || bufferSize < 1) {
+            final String msg = String.format("invalid options: rollRows=%d, rollBytes=%d, maxOpenFiles=%d, " +
+                            "encoderThreads=%d, chunkSize=%d, bufferSize=%d",
+                    rollRows, rollBytes, maxOpenFiles, encoderThreads, chunkSize, bufferSize);
+            log.error(msg);
+            throw new PluginException(msg);
+        }
+    }
+
+    private Partition partitionOf(final T bean) {
+        final String key;
+        if (partitionGetter == null) {
+            key = "";
+        }
+        else {
+            final Object value = partitionGetter.get(bean);
+            key = value == null ? NULL_PARTITION : escapePathValue(value.toString());
+        }
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+            final Path partitionDirectory = partitionGetter == null
+                    ? directory
+                    : directory.resolve(partitionColumn + "=" + key);
+            partition = new Partition(key, partitionDirectory);
+            final Integer nextPart = nextParts.remove(key);
+            if (nextPart != null) {
+                partition.nextPart = nextPart;
+            }
+            partitions.put(key, partition);
+        }
+        return partition;
+    }
+
+    /**
+     * Turn the pending beans of a partition into a chunk.
+     * @param partition the partition
+     * @param async if the chunk may be encoded by the encoder threads
+     * @return the chunk
+     * @throws IOException if the chunk is encoded synchronously and encoding fails
+     */
+    private Chunk submit(final Partition partition, final boolean async) throws IOException {
+        final List<T> beans = partition.pending;
+        partition.pending = new ArrayList<>(chunkSize);
+        partition.rowsInFlight += beans.size();
+        partition.rowsAssigned += beans.size();
+        if (rollRows > 0 && partition.rowsAssigned >= rollRows) {
+            partition.rowsAssigned = 0;
+        }
+        if (executor == null || !async) {
+            return new Chunk(partition, beans.size(), null, encoders.get().encode(beans));
+        }
+        final Future<byte[]> bytes = executor.submit(() -> encoders.get().encode(beans));
+        return new Chunk(partition, beans.size(), bytes, null);
+    }
+
+    private void write(final Chunk chunk) throws IOException {
+        final byte[] bytes = chunk.get();
+        final Partition partition = chunk.partition;
+        if (partition.out == null) {
+            open(partition);
+        }
+        else {
+            // refresh the access order
+            openPartitions.get(partition.key);
+        }
+        partition.out.write(bytes);
+        partition.rowsInFlight -= chunk.rows;
+        partition.rowsInFile += chunk.rows;
+        partition.bytesInFile += bytes.length;
+        if ((rollRows > 0 && partition.rowsInFile >= rollRows)
+                || (rollBytes > 0 && partition.bytesInFile >= rollBytes)) {
+            closeFile(partition);
+            dropIfIdle(partition);
+        }
+    }
+
+    private void open(final Partition partition) throws IOException {
+        if (openPartitions.size() >= maxOpenFiles) {
+            final Partition eldest = openPartitions.values().iterator().next();
+            log.debug(String.format("closing least recently used file of partition '%s'", eldest.key));
+            evict(eldest);
+        }
+        if (partition.nextPart < 0) {
+            Files.createDirectories(partition.directory);
+            if (append) {
+                partition.nextPart = nextPartIndex(partition.directory);
+            }
+            else {
+                deletePartFiles(partition.directory);
+                partition.nextPart = 0;
+            }
+        }
+        final Path path = partition.directory.resolve(String.format("part-%05d%s%s",
+                partition.nextPart++, format.getExtension(), compressionLevel == null ? "" : ".gz"));
+        final OutputStream file = BatchedChannelWriter.open(path, bufferSize, durability, WRITE, TRUNCATE_EXISTING, CREATE);
+        if (compressionLevel == null) {
+            partition.out = file;
+        }
+        else if (executor == null) {
+            partition.out = ParallelGzipOutputStream.of(file, compressionBlockSize, compressionLevel, 1);
+        }
+        else {
+            partition.out = ParallelGzipOutputStream.of(file, compressionBlockSize, compressionLevel,
+                    executor, encoderThreads);
+        }
+        partition.out.write(format.getHeader());
+        partition.bytesInFile = format.getHeader().length;
+        partition.rowsInFile = 0;
+        openPartitions.put(partition.key, partition);
+    }
+
+    /**
+     * Close the file of a partition to make room for another one.
+     * <p>
+     * Pending beans are written to the file first, if no earlier chunk of the
+     * partition is still being encoded. Otherwise, they stay pending, as their
+     * rows must follow the ones in flight.
+     */
+    private void evict(final Partition partition) throws IOException {
+        if (partition.rowsInFlight == 0 && !partition.pending.isEmpty()) {
+            write(submit(partition, false));
+        }
+        if (partition.out != null) {
+            closeFile(partition);
+        }
+        dropIfIdle(partition);
+    }
+
+    /**
+     * Drop a partition without open file, pending beans or chunks in flight,
+     * only keeping its next part file index.
+     */
+    private void dropIfIdle(final Partition partition) {
+        if (partition.out == null && partition.rowsInFlight == 0 && partition.pending.isEmpty()) {
+            partitions.remove(partition.key);
+            nextParts.put(partition.key, partition.nextPart);
+        }
+    }
+
+    private void closeFile(final Partition partition) throws IOException {
+        final OutputStream out = partition.out;
+        partition.out = null;
+        openPartitions.remove(partition.key);
+        // all rows not yet written go to the next file, so chunks get cut at its row limit
+        partition.rowsAssigned = partition.rowsInFlight + partition.pending.size();
+        partition.rowsInFile = 0;
+        try {
+            out.write(format.getFooter());
+        } finally {
+            out.close();
+        }
+    }
+
+    private void closeAll() throws IOException {
+        IOException failure = null;
+        for (Partition partition : new ArrayList<>(openPartitions.values())) {
+            try {
+                closeFile(partition);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            closeAll();
+        } catch (IOException e) {
+            log.warn("could not close all partition files", e);
+        }
+    }
+
+    /**
+     * Get the index following the highest existing part file of a directory.
+     */
+    private static int nextPartIndex(final Path directory) throws IOException {
+        int next = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "part-*")) {
+            for (Path file : files) {
+                final Matcher matcher = PART_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    next = Math.max(next, Integer.parseInt(matcher.group(1)) + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Delete all part files of a directory.
+     */
+    private static void deletePartFiles(final Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "part-*")) {
+            for (Path file : files) {
+                if (PART_FILE.matcher(file.getFileName().toString()).matches()) {
+                    log.debug(String.format("deleting part file %s of an earlier run", file));
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Escape characters that are not safe in a directory name, as done by Hive.
+     */
+    static String escapePathValue(final String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            final boolean unsafe = c < 0x20 || c == 0x7f || "\"#%'*/:=?\\{[]^".indexOf(c) >= 0;
+            if (unsafe && escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (unsafe) {
+                    escaped.append('%').append(String.format("%02X", (int) c));
+                }
+                else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    /**
+     * State of a single partition.
+     */
+    private final class Partition {
+        private final String key;
+        private final Path directory;
+        private List<T> pending = new ArrayList<>();
+        /**
+         * Rows of the current file, including the ones not yet written.
+         */
+        private long rowsAssigned;
+        /**
+         * Rows submitted for encoding, but not yet written.
+         */
+        private long rowsInFlight;
+        private long rowsInFile;
+        private int nextPart = -1;
+        private OutputStream out;
+        private long bytesInFile;
+
+        private Partition(final String key, final Path directory) {
+            this.key = key;
+            this.directory = directory;
+        }
+
+        /**
+         * Number of pending rows that complete a chunk.
+         */
+        private long chunkLimit() {
+            return rollRows > 0 ? Math.min(chunkSize, rollRows - rowsAssigned) : chunkSize;
+        }
+    }
+
+    /**
+     * A chunk of rows of a single partition, being encoded.
+     */
+    private final class Chunk {
+        private final Partition partition;
+        private final int rows;
+        private final Future<byte[]> future;
+        private final byte[] bytes;
+
+        private Chunk(final Partition partition,
+                      final int rows,
+                      final Future<byte[]> future,
+                      final byte[] bytes) {
+            this.partition = partition;
+            this.rows = rows;
+            this.future = future;
+            this.bytes = bytes;
+        }
+
+        private byte[] get() throws IOException {
+            if (future == null) {
+                return bytes;
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while encoding", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                final String msg = "could not encode chunk";
+                log.error(msg);
+                throw new PluginException(msg, e.getCause());
+            }
+        }
+    }
+
+}
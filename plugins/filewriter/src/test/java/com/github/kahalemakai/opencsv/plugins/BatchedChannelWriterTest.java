@@ -0,0 +1,53 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.plugins.BatchedChannelWriter.Durability;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+public class BatchedChannelWriterTest {
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testBufferedWrites() throws Exception {
+        final Path path = tmpFolder.newFile("batched.out").toPath();
+        final BatchedChannelWriter writer = BatchedChannelWriter.open(path, 4, Durability.BATCH, WRITE, TRUNCATE_EXISTING);
+        writer.write("0123456789".getBytes(StandardCharsets.US_ASCII));
+        // only full buffers have been handed over to the channel
+        Assert.assertEquals(8, writer.getBytesWritten());
+        Assert.assertEquals(0, writer.getFlushCount());
+        writer.write('a');
+        writer.flush();
+        Assert.assertEquals(11, writer.getBytesWritten());
+        Assert.assertEquals(1, writer.getFlushCount());
+        writer.close();
+        Assert.assertEquals(2, writer.getFlushCount());
+        Assert.assertTrue(writer.getMaxFlushNanos() <= writer.getTotalFlushNanos());
+        Assert.assertEquals("0123456789a", new String(Files.readAllBytes(path), StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterCloseThrows() throws Exception {
+        final Path path = tmpFolder.newFile("closed.out").toPath();
+        final BatchedChannelWriter writer = BatchedChannelWriter.open(path, 16, Durability.CLOSE, WRITE);
+        writer.close();
+        writer.flush();
+    }
+
+    @Test
+    public void testDurabilityValues() throws Exception {
+        Assert.assertEquals(Durability.NONE, Durability.getEnumConstant(null));
+        Assert.assertEquals(Durability.BATCH, Durability.getEnumConstant("batch"));
+        Assert.assertEquals(Durability.CLOSE, Durability.getEnumConstant("close"));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.kahalemakai.opencsv.plugins;
 
+import com.github.kahalemakai.opencsv.beans.ColumnarScan;
 import com.github.kahalemakai.opencsv.beans.CsvToBeanMapper;
 import com.github.kahalemakai.opencsv.config.ConfigParser;
 import org.junit.Assert;
@@ -13,8 +14,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
 
 public class FileWriterPluginTest {
     private String[] linesWithIgnore;
@@ -41,6 +49,200 @@ public class FileWriterPluginTest {
         Assert.assertEquals(line2, reader.readLine());
     }
 
+    @Test
+    public void testCsvOutput() throws Exception {
+        final File output = tmpFolder.newFile("test.csv");
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-csv-config.xml");
+        assert resource != null;
+        final String[] lines = {
+                "X,X,50,X,Jean-Luc,Picard,'Captain\\'s room; \"Enterprise\"',X,X,X,X",
+                "X,X,null,X,Dr.,Obvious,Somewhere,X,X,X,X"
+        };
+        final CsvToBeanMapper<Person> mapper = ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), () -> toUnparsedIterator(lines))
+                .injectParameter("test:path", output.getAbsolutePath())
+                .parse();
+        mapper.intoSink();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(output), "UTF-8"));
+        Assert.assertEquals("age;givenName;surName;address", reader.readLine());
+        Assert.assertEquals("50;Jean-Luc;Picard;\"Captain's room; \"\"Enterprise\"\"\"", reader.readLine());
+        Assert.assertEquals(";Dr.;Obvious;Somewhere", reader.readLine());
+        Assert.assertNull(reader.readLine());
+    }
+
+    @Test
+    public void testBinaryRowOutput() throws Exception {
+        drObvious.setAge(null);
+        final File output = tmpFolder.newFile("test.bin");
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-binary-config.xml");
+        assert resource != null;
+        ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), () -> unparsedIteratorWithIgnore)
+                .injectParameter("test:path", output.getAbsolutePath())
+                .parse()
+                .intoSink();
+        final Iterator<Person> iterator = CsvToBeanMapper
+                .builder(Person.class)
+                .withBinaryFile(output)
+                .build()
+                .iterator();
+        Assert.assertEquals(picard, iterator.next());
+        Assert.assertEquals(drObvious, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testColumnarOutput() throws Exception {
+        drObvious.setAge(null);
+        final File output = tmpFolder.newFile("test.ocsc");
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-columnar-config.xml");
+        assert resource != null;
+        ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), () -> unparsedIteratorWithIgnore)
+                .injectParameter("test:path", output.getAbsolutePath())
+                .parse()
+                .intoSink();
+        final Iterator<Person> iterator = CsvToBeanMapper
+                .builder(Person.class)
+                .withColumnarFile(output, ColumnarScan.of("givenName", "surName").whereEquals("surName", "Obvious"))
+                .build()
+                .iterator();
+        Assert.assertEquals(new Person().setGivenName("Dr.").setSurName("Obvious"), iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testFanOutToSeveralSinks() throws Exception {
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-fan-out-config.xml");
+        assert resource != null;
+        final Path artifact = tmpFolder.getRoot().toPath().resolve("fan-out-config.bin");
+        final File csvOutput = new File(tmpFolder.getRoot(), "fan-out.csv");
+        final File binOutput = new File(tmpFolder.getRoot(), "fan-out.bin");
+        // the second run sets up the sinks from the compiled config
+        for (int run = 0; run < 2; ++run) {
+            ConfigParser
+                    .of(new File(resource.getFile()))
+                    .injectParameter("test:csvPath", csvOutput.getAbsolutePath())
+                    .injectParameter("test:binPath", binOutput.getAbsolutePath())
+                    .<Person>compile(artifact)
+                    .forLines(Arrays.asList(linesWithIgnore))
+                    .intoSink();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(csvOutput), "UTF-8"));
+            Assert.assertEquals("50,Jean-Luc,Picard,\"Captain's room, Enterprise\"", reader.readLine());
+            Assert.assertEquals(",Dr.,Obvious,Somewhere", reader.readLine());
+            Assert.assertNull(reader.readLine());
+            final Iterator<Person> iterator = CsvToBeanMapper
+                    .builder(Person.class)
+                    .withBinaryFile(binOutput)
+                    .build()
+                    .iterator();
+            Assert.assertEquals(picard, iterator.next());
+            Assert.assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testGzipOutput() throws Exception {
+        final File output = tmpFolder.newFile("test.csv.gz");
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-gzip-config.xml");
+        assert resource != null;
+        ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), () -> unparsedIteratorWithIgnore)
+                .injectParameter("test:path", output.getAbsolutePath())
+                .parse()
+                .intoSink();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(output)), "UTF-8"));
+        Assert.assertEquals("50,Jean-Luc,Picard,\"Captain's room, Enterprise\"", reader.readLine());
+        Assert.assertEquals(",Dr.,Obvious,Somewhere", reader.readLine());
+        Assert.assertNull(reader.readLine());
+    }
+
+    @Test
+    public void testPartitionedOutput() throws Exception {
+        final File output = tmpFolder.newFolder("partitioned");
+        final URL resource = FileWriterPluginTest
+                .class
+                .getResource("/xml-config/file-writer-partitioned-config.xml");
+        assert resource != null;
+        final String[] lines = {
+                "X,X,50,X,Jean-Luc,Picard,Engineering,X,X,X,X",
+                "X,X,null,X,Dr.,Obvious,Somewhere,X,X,X,X",
+                "X,X,51,X,Jean-Luc,Picard,Ready room,X,X,X,X",
+                "X,X,52,X,Jean-Luc,Picard,Bridge,X,X,X,X",
+                "X,X,53,X,Jean-Luc,Picard,Holodeck,X,X,X,X"
+        };
+        ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), () -> toUnparsedIterator(lines))
+                .injectParameter("test:path", output.getAbsolutePath())
+                .parse()
+                .intoSink();
+        final Path root = output.toPath();
+        // only one file may be open, so switching to Obvious closes the first file of Picard
+        Assert.assertEquals(Arrays.asList("age,givenName,surName,address",
+                "50,Jean-Luc,Picard,Engineering"),
+                Files.readAllLines(root.resolve("surName=Picard/part-00000.csv"), StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList("age,givenName,surName,address",
+                ",Dr.,Obvious,Somewhere"),
+                Files.readAllLines(root.resolve("surName=Obvious/part-00000.csv"), StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList("age,givenName,surName,address",
+                "51,Jean-Luc,Picard,Ready room",
+                "52,Jean-Luc,Picard,Bridge"),
+                Files.readAllLines(root.resolve("surName=Picard/part-00001.csv"), StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList("age,givenName,surName,address",
+                "53,Jean-Luc,Picard,Holodeck"),
+                Files.readAllLines(root.resolve("surName=Picard/part-00002.csv"), StandardCharsets.UTF_8));
+        Assert.assertFalse(Files.exists(root.resolve("surName=Obvious/part-00001.csv")));
+    }
+
+    @Test
+    public void testEvictionWritesPendingBeans() throws Exception {
+        final Path root = tmpFolder.newFolder("evicted").toPath();
+        final List<Person> persons = new ArrayList<>();
+        for (String surName : new String[] {"A", "A", "B", "B", "A", "C", "C", "D", "D", "A", "A"}) {
+            persons.add(new Person().setAge(persons.size()).setSurName(surName));
+        }
+        partitionedSink(root).accept(persons.iterator());
+        // evicting the file of A writes out its pending row 4, and A is dropped until row 9
+        Assert.assertEquals(Arrays.asList("0,,A,", "1,,A,", "4,,A,"),
+                Files.readAllLines(root.resolve("surName=A/part-00000.csv"), StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList("9,,A,", "10,,A,"),
+                Files.readAllLines(root.resolve("surName=A/part-00001.csv"), StandardCharsets.UTF_8));
+        Assert.assertFalse(Files.exists(root.resolve("surName=A/part-00002.csv")));
+    }
+
+    @Test
+    public void testPartFilesOfEarlierRunAreDeleted() throws Exception {
+        final Path root = tmpFolder.newFolder("rerun").toPath();
+        final Path partition = Files.createDirectories(root.resolve("surName=A"));
+        for (int i = 0; i < 3; ++i) {
+            Files.write(partition.resolve(String.format("part-%05d.csv", i)), Arrays.asList("stale"));
+        }
+        Files.write(partition.resolve("_SUCCESS"), new byte[0]);
+        partitionedSink(root).accept(Arrays.asList(new Person().setAge(1).setSurName("A")).iterator());
+        Assert.assertEquals(Arrays.asList("1,,A,"),
+                Files.readAllLines(partition.resolve("part-00000.csv"), StandardCharsets.UTF_8));
+        Assert.assertFalse(Files.exists(partition.resolve("part-00001.csv")));
+        Assert.assertFalse(Files.exists(partition.resolve("part-00002.csv")));
+        Assert.assertTrue(Files.exists(partition.resolve("_SUCCESS")));
+    }
+
+    @Test
+    public void testEscapePartitionValue() throws Exception {
+        Assert.assertEquals("Picard", PartitionedFileSink.escapePathValue("Picard"));
+        Assert.assertEquals("2016%2F12%2F24 10%3A00", PartitionedFileSink.escapePathValue("2016/12/24 10:00"));
+    }
+
     @Before
     public void setUp() throws Exception {
         linesWithIgnore = new String[] {
@@ -62,6 +264,19 @@ public class FileWriterPluginTest {
         drObvious.setAddress("Somewhere");
     }
 
+    private PartitionedFileSink<Person> partitionedSink(final Path root) throws Exception {
+        final ChunkFormat<Person> format = ChunkFormat.csv(CsvToBeanMapper
+                        .builder(Person.class)
+                        .setHeader("age", "givenName", "surName", "address"),
+                StandardCharsets.UTF_8, ',', '"', false);
+        return PartitionedFileSink
+                .of(root, Person.class, format)
+                .partitionColumn("surName")
+                .maxOpenFiles(1)
+                .chunkSize(2)
+                .encoderThreads(1);
+    }
+
     private Iterator<String> toUnparsedIterator(final String[] lines) {
         return new Iterator<String>() {
             int counter = 0;
@@ -0,0 +1,10 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import java.util.function.Predicate;
+
+public class HasAge implements Predicate<Object> {
+    @Override
+    public boolean test(Object bean) {
+        return ((Person) bean).getAge() != null;
+    }
+}
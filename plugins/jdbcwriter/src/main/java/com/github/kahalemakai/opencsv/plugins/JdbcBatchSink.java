@@ -0,0 +1,387 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.beans.PropertyGetter;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A sink that inserts the beans into a relational database.
+ * <p>
+ * The beans are bound to a prepared statement with named placeholders, e.g.
+ * {@code insert into person (age, name) values (:age, :givenName)}, where
+ * each placeholder names a bean property. The getters are compiled once
+ * (see {@link PropertyGetter}), so binding doesn't involve any reflection.
+ * <p>
+ * The beans are collected into batches of {@link #batchSize()} rows. Each batch
+ * is sent by {@code addBatch}/{@code executeBatch} and committed as a transaction
+ * of its own, on one of {@link #connections()} connections. Every connection
+ * is served by a thread of its own, so the batches are inserted in parallel,
+ * and rows of different batches may be inserted in any order.
+ * <p>
+ * If a batch fails, it is rolled back, no further batches are inserted, and the
+ * error is rethrown by {@link #accept(Iterator)}. Batches that have already been
+ * committed are kept.
+ *
+ * @param <T> type of the target bean
+ */
+@Slf4j
+public class JdbcBatchSink<T> implements Sink {
+    /**
+     * Default number of rows per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /**
+     * Default number of connections.
+     */
+    public static final int DEFAULT_CONNECTIONS = 4;
+    private static final long POLL_MILLIS = 50;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Opens a database connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * Open a new connection.
+         * @return the new connection
+         * @throws SQLException if the connection cannot be opened
+         */
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Binds a bean property to a parameter of a prepared statement.
+     * @param <T> type of the target bean
+     */
+    @FunctionalInterface
+    private interface Binder<T> {
+        void bind(PreparedStatement statement, T bean) throws SQLException;
+    }
+
+    private final ConnectionFactory connectionFactory;
+
+    /**
+     * The statement, with placeholders replaced by jdbc parameters.
+     * @return the statement, with placeholders replaced by jdbc parameters
+     */
+    @Getter
+    private final String sql;
+
+    private final List<Binder<T>> binders;
+
+    /**
+     * Number of rows per batch and transaction.
+     * @param batchSize number of rows per batch and transaction
+     * @return number of rows per batch and transaction
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Number of connections inserting batches in parallel.
+     * @param connections number of connections inserting batches in parallel
+     * @return number of connections inserting batches in parallel
+     */
+    @Accessors(chain = true, fluent = true) @Getter @Setter
+    private int connections = DEFAULT_CONNECTIONS;
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private JdbcBatchSink(final ConnectionFactory connectionFactory,
+                          final String sql,
+                          final List<Binder<T>> binders) {
+        this.connectionFactory = connectionFactory;
+        this.sql = sql;
+        this.binders = binders;
+    }
+
+    /**
+     * Create a new sink.
+     * @param connectionFactory opens the database connections, e.g. {@code dataSource::getConnection}
+     * @param type type of the target bean
+     * @param statement the statement with named placeholders
+     * @param <S> type of the target bean
+     * @return the new sink
+     * @throws IllegalArgumentException if the statement has no placeholders, or any placeholder
+     * names a property without getter
+     */
+    public static <S> JdbcBatchSink<S> of(@NonNull final ConnectionFactory connectionFactory,
+                                          @NonNull final Class<? extends S> type,
+                                          @NonNull final String statement) throws IllegalArgumentException {
+        final NamedStatement namedStatement = NamedStatement.parse(statement);
+        final List<Binder<S>> binders = new ArrayList<>();
+        final List<String> parameters = namedStatement.getParameters();
+        for (int i = 0; i < parameters.size(); ++i) {
+            binders.add(binder(i + 1, PropertyGetter.of(type, parameters.get(i))));
+        }
+        return new JdbcBatchSink<>(connectionFactory, namedStatement.getSql(), binders);
+    }
+
+    /**
+     * Number of rows that have been committed.
+     * @return number of rows that have been committed
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(final Iterator<?> iter) {
+        checkOptions();
+        final List<Connection> openConnections = openConnections();
+        final BlockingQueue<List<T>> batches = new ArrayBlockingQueue<>(connections);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final List<Thread> workers = new ArrayList<>();
+        for (Connection connection : openConnections) {
+            final Thread worker = new Thread(() -> insertBatches(connection, batches, failure, done),
+                    "opencsv-jdbc-" + THREAD_COUNT.incrementAndGet());
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (failure.get() == null && iter.hasNext()) {
+                batch.add((T) iter.next());
+                if (batch.size() == batchSize) {
+                    handOver(batch, batches, failure, workers);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                handOver(batch, batches, failure, workers);
+            }
+        } catch (RuntimeException | Error e) {
+            // stop inserting, the input is broken
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            done.set(true);
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+        final Throwable cause = failure.get();
+        if (cause != null) {
+            final String msg = String.format("could not insert rows by '%s', %d rows have been committed",
+                    sql, rowsWritten.get());
+            log.error(msg);
+            throw new PluginException(msg, cause);
+        }
+        log.info(String.format("inserted %d rows by '%s'", rowsWritten.get(), sql));
+    }
+
+    private void checkOptions() {
+        if (batchSize < 1 || connections < 1) {
+            final String msg = String.format("expected: batchSize > 0 and connections > 0, got: %d and %d",
+                    batchSize, connections);
+            log.error(msg);
+            throw new PluginException(msg);
+        }
+    }
+
+    private List<Connection> openConnections() {
+        final List<Connection> openConnections = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; ++i) {
+                final Connection connection = connectionFactory.open();
+                openConnections.add(connection);
+                connection.setAutoCommit(false);
+            }
+            return openConnections;
+        } catch (SQLException e) {
+            for (Connection connection : openConnections) {
+                closeQuietly(connection);
+            }
+            final String msg = "could not open database connection";
+            log.error(msg);
+            throw new PluginException(msg, e);
+        }
+    }
+
+    private void handOver(final List<T> batch,
+                          final BlockingQueue<List<T>> batches,
+                          final AtomicReference<Throwable> failure,
+                          final List<Thread> workers) {
+        try {
+            while (!batches.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    return;
+                }
+                if (!anyAlive(workers)) {
+                    final String msg = "all insertion threads have terminated";
+                    log.error(msg);
+                    failure.compareAndSet(null, new IllegalStateException(msg));
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static boolean anyAlive(final List<Thread> workers) {
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Main loop of a worker thread, owning a single connection.
+     * <p>
+     * Every throwable gets recorded as failure, such that no batch is lost silently.
+     */
+    private void insertBatches(final Connection connection,
+                               final BlockingQueue<List<T>> batches,
+                               final AtomicReference<Throwable> failure,
+                               final AtomicBoolean done) {
+        try (Connection c = connection; PreparedStatement statement = c.prepareStatement(sql)) {
+            while (failure.get() == null) {
+                final List<T> batch = batches.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    if (done.get() && batches.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                try {
+                    for (T bean : batch) {
+                        for (Binder<T> binder : binders) {
+                            binder.bind(statement, bean);
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    c.commit();
+                    rowsWritten.addAndGet(batch.size());
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    rollbackQuietly(c);
+                }
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static void rollbackQuietly(final Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("could not roll back batch", e);
+        }
+    }
+
+    private static void closeQuietly(final Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.warn("could not close database connection", e);
+        }
+    }
+
+    /**
+     * Compile the binding of a bean property to a jdbc parameter.
+     * <p>
+     * Enum constants are bound by their name, {@code null} values by the sql type
+     * corresponding to the property type.
+     */
+    private static <S> Binder<S> binder(final int index, final PropertyGetter<S> getter) {
+        final Class<?> type = getter.getType();
+        if (type.isEnum()) {
+            return (statement, bean) -> {
+                final Object value = getter.get(bean);
+                if (value == null) {
+                    statement.setNull(index, Types.VARCHAR);
+                }
+                else {
+                    statement.setString(index, ((Enum<?>) value).name());
+                }
+            };
+        }
+        final int sqlType = sqlTypeOf(type);
+        return (statement, bean) -> {
+            final Object value = getter.get(bean);
+            if (value == null) {
+                statement.setNull(index, sqlType);
+            }
+            else {
+                statement.setObject(index, value);
+            }
+        };
+    }
+
+    private static int sqlTypeOf(final Class<?> type) {
+        if (type == String.class || type == Character.class) {
+            return Types.VARCHAR;
+        }
+        if (type == Integer.class) {
+            return Types.INTEGER;
+        }
+        if (type == Long.class) {
+            return Types.BIGINT;
+        }
+        if (type == Short.class) {
+            return Types.SMALLINT;
+        }
+        if (type == Byte.class) {
+            return Types.TINYINT;
+        }
+        if (type == Double.class) {
+            return Types.DOUBLE;
+        }
+        if (type == Float.class) {
+            return Types.REAL;
+        }
+        if (type == Boolean.class) {
+            return Types.BOOLEAN;
+        }
+        if (type == BigDecimal.class) {
+            return Types.DECIMAL;
+        }
+        if (type == java.sql.Date.class || type == java.time.LocalDate.class) {
+            return Types.DATE;
+        }
+        if (type == java.sql.Timestamp.class || type == java.time.LocalDateTime.class) {
+            return Types.TIMESTAMP;
+        }
+        if (type == byte[].class) {
+            return Types.VARBINARY;
+        }
+        return Types.JAVA_OBJECT;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.beans.Builder;
+import com.github.kahalemakai.opencsv.config.ConfigParser;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import com.github.kahalemakai.opencsv.config.Sink;
+import com.github.kahalemakai.opencsv.config.SinkPlugin;
+import com.github.kahalemakai.opencsv.plugins.JdbcBatchSink.ConnectionFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Node;
+
+import java.net.URL;
+import java.sql.DriverManager;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A sink plugin that inserts the target beans into a relational database.
+ * <p>
+ * The beans are bound to an insert statement with named placeholders,
+ * and inserted in batches over several connections in parallel. For
+ * further details, please take a look at {@link JdbcBatchSink} and
+ * the associated xsd file.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcWriterPlugin implements SinkPlugin {
+    /**
+     * The jdbc writer xml namespace.
+     */
+    private static final String NAMESPACE = "http://github.com/kaHaleMaKai/opencsv/plugins/jdbc-writer";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Getter
+    Sink sink;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getNameSpace() {
+        return NAMESPACE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public URL getSchemaUrl() {
+        return getClass().getResource("/schemas/jdbc-writer.xsd");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void configure(Builder<T> builder, Node sink) {
+        configure(builder, ConfigParser.getAttributes(sink));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void configure(Builder<T> builder, Map<String, String> attributes) {
+        final String url = attributes.get("url");
+        final String user = attributes.get("user");
+        final String password = attributes.get("password");
+        final String driver = attributes.get("driver");
+        if (driver != null) {
+            try {
+                Class.forName(driver);
+            } catch (ClassNotFoundException e) {
+                final String msg = String.format("cannot find jdbc driver %s", driver);
+                log.error(msg);
+                throw new PluginException(msg, e);
+            }
+        }
+        final ConnectionFactory connectionFactory = user == null
+                ? () -> DriverManager.getConnection(url)
+                : () -> DriverManager.getConnection(url, user, password);
+        final JdbcBatchSink<T> jdbcSink;
+        try {
+            jdbcSink = JdbcBatchSink.of(connectionFactory, builder.getStrategy().getType(), attributes.get("statement"));
+        } catch (IllegalArgumentException e) {
+            final String msg = "cannot bind the bean type to the insert statement";
+            log.error(msg);
+            throw new PluginException(msg, e);
+        }
+        Optional.ofNullable(attributes.get("batchSize"))
+                .map(Integer::parseInt)
+                .ifPresent(jdbcSink::batchSize);
+        Optional.ofNullable(attributes.get("connections"))
+                .map(Integer::parseInt)
+                .ifPresent(jdbcSink::connections);
+        this.sink = jdbcSink;
+        builder.sink(this.sink);
+    }
+
+}
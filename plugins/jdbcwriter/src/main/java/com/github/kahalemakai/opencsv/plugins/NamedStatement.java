@@ -0,0 +1,96 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An sql statement with named placeholders, such as
+ * {@code insert into person (age, name) values (:age, :givenName)}.
+ * <p>
+ * Every placeholder is replaced by a jdbc parameter {@code ?}, and its name
+ * is recorded as the bean property to bind. Colons within quoted literals or
+ * identifiers, and double colons as used for casts, are left untouched.
+ */
+@Slf4j
+final class NamedStatement {
+    /**
+     * The statement, with placeholders replaced by jdbc parameters.
+     * @return the statement, with placeholders replaced by jdbc parameters
+     */
+    @Getter
+    private final String sql;
+
+    /**
+     * The names of the placeholders, in order of their jdbc parameters.
+     * @return the names of the placeholders
+     */
+    @Getter
+    private final List<String> parameters;
+
+    private NamedStatement(final String sql, final List<String> parameters) {
+        this.sql = sql;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Parse a statement with named placeholders.
+     * @param statement the statement
+     * @return the parsed statement
+     * @throws IllegalArgumentException if the statement contains no placeholders, or an unterminated quote
+     */
+    static NamedStatement parse(@NonNull final String statement) throws IllegalArgumentException {
+        final StringBuilder sql = new StringBuilder(statement.length());
+        final List<String> parameters = new ArrayList<>();
+        char quote = 0;
+        int i = 0;
+        while (i < statement.length()) {
+            final char c = statement.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                sql.append(c);
+                ++i;
+            }
+            else if (c == '\'' || c == '"') {
+                quote = c;
+                sql.append(c);
+                ++i;
+            }
+            else if (c == ':' && i + 1 < statement.length() && statement.charAt(i + 1) == ':') {
+                sql.append("::");
+                i += 2;
+            }
+            else if (c == ':' && i + 1 < statement.length() && Character.isJavaIdentifierStart(statement.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < statement.length() && Character.isJavaIdentifierPart(statement.charAt(end))) {
+                    ++end;
+                }
+                parameters.add(statement.substring(i + 1, end));
+                sql.append('?');
+                i = end;
+            }
+            else {
+                sql.append(c);
+                ++i;
+            }
+        }
+        if (quote != 0) {
+            final String msg = String.format("unterminated quote in statement: %s", statement);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (parameters.isEmpty()) {
+            final String msg = String.format("statement has no named placeholders: %s", statement);
+            log.error(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        return new NamedStatement(sql.toString(), parameters);
+    }
+
+}
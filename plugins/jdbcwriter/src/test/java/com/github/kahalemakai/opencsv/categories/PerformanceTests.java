@@ -0,0 +1,6 @@
+package com.github.kahalemakai.opencsv.categories;
+
+public interface PerformanceTests {
+/*    category marker*/
+}
+
@@ -0,0 +1,136 @@
+package com.github.kahalemakai.opencsv.plugins;
+
+import com.github.kahalemakai.opencsv.beans.CsvToBeanException;
+import com.github.kahalemakai.opencsv.config.ConfigParser;
+import com.github.kahalemakai.opencsv.config.PluginException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class JdbcWriterPluginTest {
+    private static int databaseCount;
+    private String url;
+    private Connection connection;
+    private List<String> lines;
+
+    @Test
+    public void testInsertInBatches() throws Exception {
+        parse(lines);
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "select age, given_name, sur_name, address from person order by sur_name, age")) {
+            while (resultSet.next()) {
+                rows.add(String.format("%s,%s,%s,%s", resultSet.getObject(1), resultSet.getString(2),
+                        resultSet.getString(3), resultSet.getString(4)));
+            }
+        }
+        Assert.assertEquals(Arrays.asList(
+                "null,Dr.,Obvious,Somewhere",
+                "50,Jean-Luc,Picard,Bridge",
+                "51,Jean-Luc,Picard,Ready room",
+                "52,Jean-Luc,Picard,Holodeck",
+                "53,Jean-Luc,Picard,Ten Forward",
+                "54,Jean-Luc,Picard,Engineering"), rows);
+    }
+
+    @Test
+    public void testFailingBatchIsRolledBack() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table person add constraint unique_age unique (age)");
+        }
+        final List<String> duplicates = new ArrayList<>(lines);
+        duplicates.add("X,X,50,X,Jean-Luc,Picard,Bridge,X,X,X,X");
+        try {
+            parse(duplicates);
+            Assert.fail("expected a constraint violation");
+        } catch (CsvToBeanException e) {
+            Assert.assertTrue(e.getCause() instanceof PluginException);
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from person")) {
+            resultSet.next();
+            // whole batches of two rows are committed
+            Assert.assertEquals(0, resultSet.getInt(1) % 2);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testErrorInWorkerIsReported() throws Exception {
+        final JdbcBatchSink<Exploding> sink = JdbcBatchSink
+                .of(() -> DriverManager.getConnection(url), Exploding.class, "insert into person (age) values (:age)")
+                .batchSize(1)
+                .connections(1);
+        try {
+            sink.accept(Collections.nCopies(10, new Exploding()).iterator());
+            Assert.fail("expected the error of the worker");
+        } catch (PluginException e) {
+            Assert.assertTrue(e.getCause() instanceof AssertionError);
+        }
+        Assert.assertEquals(0, sink.getRowsWritten());
+    }
+
+    @Test
+    public void testNamedPlaceholders() throws Exception {
+        final NamedStatement statement = NamedStatement.parse(
+                "insert into t (a, b, c) values (:age, ':not', \"x:y\"::text, :surName)");
+        Assert.assertEquals("insert into t (a, b, c) values (?, ':not', \"x:y\"::text, ?)", statement.getSql());
+        Assert.assertEquals(Arrays.asList("age", "surName"), statement.getParameters());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        url = String.format("jdbc:h2:mem:jdbc-writer-test-%d;DB_CLOSE_DELAY=-1", ++databaseCount);
+        connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table person (age int, given_name varchar(64), " +
+                    "sur_name varchar(64), address varchar(64))");
+        }
+        lines = new ArrayList<>(Arrays.asList(
+                "X,X,50,X,Jean-Luc,Picard,Bridge,X,X,X,X",
+                "X,X,null,X,Dr.,Obvious,Somewhere,X,X,X,X",
+                "X,X,51,X,Jean-Luc,Picard,Ready room,X,X,X,X",
+                "X,X,52,X,Jean-Luc,Picard,Holodeck,X,X,X,X",
+                "X,X,53,X,Jean-Luc,Picard,Ten Forward,X,X,X,X",
+                "X,X,54,X,Jean-Luc,Picard,Engineering,X,X,X,X"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects delete files");
+        }
+        connection.close();
+    }
+
+    public static class Exploding {
+        public Integer getAge() {
+            throw new AssertionError("getter failed");
+        }
+    }
+
+    private void parse(final List<String> input) throws Exception {
+        final URL resource = JdbcWriterPluginTest
+                .class
+                .getResource("/xml-config/jdbc-writer-config.xml");
+        assert resource != null;
+        ConfigParser
+                .ofUnparsedLines(new File(resource.getFile()), input::iterator)
+                .injectParameter("test:url", url)
+                .parse()
+                .intoSink();
+    }
+
+}